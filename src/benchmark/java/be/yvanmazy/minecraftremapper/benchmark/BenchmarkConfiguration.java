@@ -0,0 +1,59 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.benchmark;
+
+import com.beust.jcommander.Parameter;
+
+final class BenchmarkConfiguration {
+
+    @Parameter(order = 1, names = {"--help", "-h"}, help = true)
+    private boolean help;
+
+    @Parameter(order = 2, names = {"--output-directory", "-o"}, description = "Directory of the fixtures, the outputs and the results.")
+    private String outputDirectory = "MinecraftRemapper/benchmark";
+
+    @Parameter(order = 3, names = "--classes", description = "Number of classes in the synthetic jar.")
+    private int classes = 2_000;
+
+    @Parameter(order = 4, names = "--iterations", description = "Number of iterations of each scenario.")
+    private int iterations = 3;
+
+    public boolean isHelp() {
+        return this.help;
+    }
+
+    public String getOutputDirectory() {
+        return this.outputDirectory;
+    }
+
+    public int getClasses() {
+        return this.classes;
+    }
+
+    public int getIterations() {
+        return this.iterations;
+    }
+
+}
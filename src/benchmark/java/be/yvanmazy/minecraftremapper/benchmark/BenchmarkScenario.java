@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.benchmark;
+
+import be.yvanmazy.minecraftremapper.process.RemapperProcessor;
+import be.yvanmazy.minecraftremapper.util.FileUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public enum BenchmarkScenario {
+
+    /**
+     * Nothing is cached, every artifact is downloaded, remapped and decompiled.
+     */
+    COLD,
+    /**
+     * Downloads are cached, remapping and decompiling are done again.
+     */
+    WARM,
+    /**
+     * Every artifact produced by a previous run is kept.
+     */
+    CACHED;
+
+    void prepare(final @NotNull RemapperProcessor processor) throws IOException {
+        final Path versionDirectory = processor.getVersionJarPath().getParent();
+        switch (this) {
+            case COLD -> FileUtil.recursiveDelete(versionDirectory);
+            case WARM -> {
+                Files.deleteIfExists(processor.getRemappedJarPath());
+                FileUtil.recursiveDelete(versionDirectory.resolve("decompiled"));
+            }
+            case CACHED -> {
+            }
+        }
+    }
+
+}
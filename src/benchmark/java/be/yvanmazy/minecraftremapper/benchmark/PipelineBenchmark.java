@@ -0,0 +1,196 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.benchmark;
+
+import be.yvanmazy.minecraftremapper.DirectionType;
+import be.yvanmazy.minecraftremapper.http.RequestHttpClient;
+import be.yvanmazy.minecraftremapper.process.RemapperProcessor;
+import be.yvanmazy.minecraftremapper.process.exception.ProcessingException;
+import be.yvanmazy.minecraftremapper.setting.PreparationSettings;
+import be.yvanmazy.minecraftremapper.version.Version;
+import be.yvanmazy.minecraftremapper.version.fetcher.VersionFetcher;
+import be.yvanmazy.minecraftremapper.version.fetcher.exception.VersionFetchingException;
+import com.beust.jcommander.JCommander;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the whole {@link RemapperProcessor} pipeline against a {@link StubMojangServer} and records the timing of each stage.
+ * Every iteration runs the {@link BenchmarkScenario cold, warm and cached} scenarios, without and then with decompilation.
+ */
+public final class PipelineBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelineBenchmark.class);
+    private static final String VERSION_ID = "stub";
+
+    private final Path directory;
+    private final int classCount;
+    private final int resourceCount;
+    private final int iterations;
+
+    public PipelineBenchmark(final @NotNull Path directory, final int classCount, final int resourceCount, final int iterations) {
+        this.directory = Objects.requireNonNull(directory, "directory must not be null");
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("iterations must be positive");
+        }
+        this.classCount = classCount;
+        this.resourceCount = resourceCount;
+        this.iterations = iterations;
+    }
+
+    public static void main(final String[] args) throws ProcessingException {
+        final BenchmarkConfiguration config = new BenchmarkConfiguration();
+        final JCommander commander = JCommander.newBuilder().addObject(config).build();
+        commander.parse(args);
+        if (config.isHelp()) {
+            commander.usage();
+            return;
+        }
+        new PipelineBenchmark(Path.of(config.getOutputDirectory()), config.getClasses(), config.getClasses() / 4, config.getIterations()).run();
+    }
+
+    public @NotNull List<BenchmarkResult> run() throws ProcessingException {
+        final SyntheticGameGenerator generator = new SyntheticGameGenerator(this.classCount, this.resourceCount);
+        final Path fixtures = this.directory.resolve("fixtures-" + this.classCount + "-" + this.resourceCount);
+        final List<BenchmarkResult> results = new ArrayList<>();
+        try (final StubMojangServer server = StubMojangServer.start(VERSION_ID, generator, fixtures)) {
+            final Gson gson = new Gson();
+            final RequestHttpClient httpClient = RequestHttpClient.newDefault();
+            final Version version = this.fetchVersion(httpClient, gson, server.getManifestUrl());
+            final String outputDirectory = this.directory.resolve("output").toString();
+
+            for (final boolean decompile : new boolean[] {false, true}) {
+                for (int iteration = 1; iteration <= this.iterations; iteration++) {
+                    for (final BenchmarkScenario scenario : BenchmarkScenario.values()) {
+                        final PreparationSettings settings =
+                                new PreparationSettings(httpClient, gson, DirectionType.CLIENT, version, outputDirectory, true, decompile);
+                        final RemapperProcessor processor = new RemapperProcessor(settings);
+                        scenario.prepare(processor);
+
+                        final long start = System.nanoTime();
+                        processor.process();
+                        final Duration total = Duration.ofNanos(System.nanoTime() - start);
+
+                        final BenchmarkResult result = new BenchmarkResult(scenario, decompile, iteration, processor.getStageTimings(), total);
+                        LOGGER.info("{} decompile={} #{}: {}ms {}", scenario, decompile, iteration, total.toMillis(), format(result.stages()));
+                        results.add(result);
+                    }
+                }
+            }
+            LOGGER.info("Stub server handled {} requests ({} bytes)", server.getRequestCount(), server.getServedBytes());
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to run benchmark", e);
+        }
+
+        this.report(results);
+        return results;
+    }
+
+    private Version fetchVersion(final RequestHttpClient httpClient, final Gson gson, final String manifestUrl) throws ProcessingException {
+        try {
+            return VersionFetcher.newMojangFetcher(httpClient, gson, manifestUrl)
+                    .fetchVersions()
+                    .stream()
+                    .filter(v -> v.id().equals(VERSION_ID))
+                    .findFirst()
+                    .orElseThrow(() -> new ProcessingException("Stub version is missing from manifest"));
+        } catch (final VersionFetchingException e) {
+            throw new ProcessingException("Failed to fetch stub versions", e);
+        }
+    }
+
+    private void report(final List<BenchmarkResult> results) throws ProcessingException {
+        LOGGER.info("---------------- Benchmark summary ({} classes, median of {} iterations)", this.classCount, this.iterations);
+        final Map<String, List<BenchmarkResult>> groups = new LinkedHashMap<>();
+        for (final BenchmarkResult result : results) {
+            groups.computeIfAbsent(result.scenario() + (result.decompile() ? " + decompile" : ""), k -> new ArrayList<>()).add(result);
+        }
+        final JsonArray summary = new JsonArray();
+        for (final Map.Entry<String, List<BenchmarkResult>> entry : groups.entrySet()) {
+            final List<BenchmarkResult> group = entry.getValue();
+            final Map<String, Duration> medianStages = new LinkedHashMap<>();
+            for (final String stage : group.get(0).stages().keySet()) {
+                medianStages.put(stage, median(group.stream().map(r -> r.stages().getOrDefault(stage, Duration.ZERO)).toList()));
+            }
+            final Duration medianTotal = median(group.stream().map(BenchmarkResult::total).toList());
+            final Duration remap = medianStages.get("remap");
+            // Cached runs skip the remapping, their remap stage is only the up-to-date check
+            final boolean remapped = group.get(0).scenario() != BenchmarkScenario.CACHED;
+            final double throughput = !remapped || remap == null || remap.isZero() ? 0 : this.classCount / (remap.toNanos() / 1e9);
+            LOGGER.info("{}: {}ms {} remap throughput: {} classes/s",
+                    entry.getKey(),
+                    medianTotal.toMillis(),
+                    format(medianStages),
+                    Math.round(throughput));
+
+            final JsonObject object = new JsonObject();
+            object.addProperty("scenario", group.get(0).scenario().name());
+            object.addProperty("decompile", group.get(0).decompile());
+            object.addProperty("totalMillis", medianTotal.toNanos() / 1e6);
+            object.addProperty("remapClassesPerSecond", throughput);
+            final JsonObject stages = new JsonObject();
+            medianStages.forEach((stage, duration) -> stages.addProperty(stage, duration.toNanos() / 1e6));
+            object.add("stagesMillis", stages);
+            summary.add(object);
+        }
+
+        final JsonObject json = new JsonObject();
+        json.addProperty("classCount", this.classCount);
+        json.addProperty("resourceCount", this.resourceCount);
+        json.addProperty("iterations", this.iterations);
+        json.addProperty("javaVersion", System.getProperty("java.version"));
+        json.addProperty("availableProcessors", Runtime.getRuntime().availableProcessors());
+        json.add("results", summary);
+        final Path path = this.directory.resolve("benchmark-results.json");
+        try {
+            Files.writeString(path, new GsonBuilder().setPrettyPrinting().create().toJson(json));
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to write benchmark results", e);
+        }
+        LOGGER.info("Benchmark results written to {}", path.toAbsolutePath());
+    }
+
+    private static Duration median(final List<Duration> durations) {
+        final List<Duration> sorted = durations.stream().sorted().toList();
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private static String format(final Map<String, Duration> stages) {
+        return stages.entrySet().stream().map(e -> e.getKey() + "=" + e.getValue().toMillis() + "ms").collect(Collectors.joining(", ", "[", "]"));
+    }
+
+}
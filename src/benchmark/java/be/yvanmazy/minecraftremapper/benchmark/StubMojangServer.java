@@ -0,0 +1,208 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.benchmark;
+
+import be.yvanmazy.minecraftremapper.util.HashUtil;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded HTTP server mimicking the Mojang launcher meta endpoints with a synthetic version.
+ * It serves the version manifest, the version json, the jars and the mappings of both sides.
+ */
+public final class StubMojangServer implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StubMojangServer.class);
+
+    private static final String MANIFEST_PATH = "/mc/game/version_manifest.json";
+    private static final String PACKAGES_PATH = "/v1/packages/";
+    private static final String OBJECTS_PATH = "/v1/objects/";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String versionId;
+    private final Path directory;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong servedBytes = new AtomicLong();
+
+    private StubMojangServer(final HttpServer server, final ExecutorService executor, final String versionId, final Path directory) {
+        this.server = server;
+        this.executor = executor;
+        this.versionId = versionId;
+        this.directory = directory;
+    }
+
+    @Contract("_, _, _ -> new")
+    public static @NotNull StubMojangServer start(final @NotNull String versionId,
+                                                  final @NotNull SyntheticGameGenerator generator,
+                                                  final @NotNull Path directory) throws IOException {
+        Objects.requireNonNull(versionId, "versionId must not be null");
+        Objects.requireNonNull(generator, "generator must not be null");
+        Objects.requireNonNull(directory, "directory must not be null");
+
+        Files.createDirectories(directory);
+        final Path jar = directory.resolve("game.jar");
+        final Path mapping = directory.resolve("game.txt");
+        if (Files.notExists(jar) || Files.notExists(mapping)) {
+            LOGGER.info("Generating synthetic game with {} classes...", generator.getClassCount());
+            generator.generate(jar, mapping);
+        }
+
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "Stub-Mojang-Server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        final StubMojangServer stub = new StubMojangServer(server, executor, versionId, directory);
+        stub.writeMetadata(jar, mapping);
+        server.createContext("/", stub::handle);
+        server.start();
+        LOGGER.info("Stub Mojang server started on {}", stub.getBaseUrl());
+        return stub;
+    }
+
+    public @NotNull String getBaseUrl() {
+        final InetSocketAddress address = this.server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort();
+    }
+
+    public @NotNull String getManifestUrl() {
+        return this.getBaseUrl() + MANIFEST_PATH;
+    }
+
+    public @NotNull String getVersionId() {
+        return this.versionId;
+    }
+
+    public long getRequestCount() {
+        return this.requestCount.get();
+    }
+
+    public long getServedBytes() {
+        return this.servedBytes.get();
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    private void writeMetadata(final Path jar, final Path mapping) throws IOException {
+        final Gson gson = new Gson();
+        final String baseUrl = this.getBaseUrl();
+        final String now = OffsetDateTime.now().withNano(0).toString();
+
+        final JsonObject downloads = new JsonObject();
+        downloads.add("client", this.download(baseUrl, jar));
+        downloads.add("client_mappings", this.download(baseUrl, mapping));
+        downloads.add("server", this.download(baseUrl, jar));
+        downloads.add("server_mappings", this.download(baseUrl, mapping));
+        final JsonObject version = new JsonObject();
+        version.addProperty("id", this.versionId);
+        version.addProperty("type", "release");
+        version.add("downloads", downloads);
+        Files.writeString(this.directory.resolve(this.versionId + ".json"), gson.toJson(version));
+
+        final JsonObject entry = new JsonObject();
+        entry.addProperty("id", this.versionId);
+        entry.addProperty("type", "release");
+        entry.addProperty("url", baseUrl + PACKAGES_PATH + this.versionId + ".json");
+        entry.addProperty("time", now);
+        entry.addProperty("releaseTime", now);
+        final JsonArray versions = new JsonArray();
+        versions.add(entry);
+        final JsonObject latest = new JsonObject();
+        latest.addProperty("release", this.versionId);
+        latest.addProperty("snapshot", this.versionId);
+        final JsonObject manifest = new JsonObject();
+        manifest.add("latest", latest);
+        manifest.add("versions", versions);
+        Files.writeString(this.directory.resolve("version_manifest.json"), gson.toJson(manifest));
+    }
+
+    private JsonObject download(final String baseUrl, final Path path) throws IOException {
+        final JsonObject object = new JsonObject();
+        object.addProperty("sha1", HashUtil.hash(path));
+        object.addProperty("size", Files.size(path));
+        object.addProperty("url", baseUrl + OBJECTS_PATH + path.getFileName());
+        return object;
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        this.requestCount.incrementAndGet();
+        try (exchange) {
+            final String path = exchange.getRequestURI().getPath();
+            final Path file;
+            if (path.equals(MANIFEST_PATH)) {
+                file = this.directory.resolve("version_manifest.json");
+            } else if (path.startsWith(PACKAGES_PATH) || path.startsWith(OBJECTS_PATH)) {
+                file = this.directory.resolve(path.substring(path.lastIndexOf('/') + 1)).normalize();
+            } else {
+                file = null;
+            }
+            if (file == null || !file.startsWith(this.directory) || !Files.isRegularFile(file)) {
+                final byte[] body = ("Not found: " + path).getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(404, body.length);
+                exchange.getResponseBody().write(body);
+                return;
+            }
+            // Validators let the watch mode revalidate the manifest with conditional requests
+            final String etag = "\"" + Files.size(file) + "-" + Files.getLastModifiedTime(file).toMillis() + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, Files.size(file));
+            try (final OutputStream out = exchange.getResponseBody()) {
+                this.servedBytes.addAndGet(Files.copy(file, out));
+            }
+        }
+    }
+
+}
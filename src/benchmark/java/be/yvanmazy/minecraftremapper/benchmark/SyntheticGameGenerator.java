@@ -0,0 +1,217 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.benchmark;
+
+import org.jetbrains.annotations.NotNull;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Generates an obfuscated game jar and the matching ProGuard mapping, shaped like the files published by Mojang.
+ * Classes are grouped in inheritance chains so that remapping has to climb the hierarchy.
+ */
+public final class SyntheticGameGenerator {
+
+    private static final String[] PACKAGES = {
+            "net/minecraft/server/level",
+            "net/minecraft/server/network",
+            "net/minecraft/world/entity",
+            "net/minecraft/world/level",
+            "net/minecraft/client/renderer",
+            "com/mojang/blaze3d"
+    };
+    private static final int CHAIN_LENGTH = 8;
+    private static final int FIELD_COUNT = 4;
+    private static final int METHOD_COUNT = 6;
+    private static final int LINES_PER_METHOD = 4;
+
+    private final int classCount;
+    private final int resourceCount;
+
+    public SyntheticGameGenerator(final int classCount, final int resourceCount) {
+        if (classCount <= 0) {
+            throw new IllegalArgumentException("classCount must be positive");
+        }
+        if (resourceCount < 0) {
+            throw new IllegalArgumentException("resourceCount must not be negative");
+        }
+        this.classCount = classCount;
+        this.resourceCount = resourceCount;
+    }
+
+    public void generate(final @NotNull Path jarPath, final @NotNull Path mappingPath) throws IOException {
+        try (final OutputStream out = Files.newOutputStream(jarPath);
+             final JarOutputStream jar = new JarOutputStream(out, this.createManifest());
+             final BufferedWriter mapping = Files.newBufferedWriter(mappingPath, StandardCharsets.UTF_8)) {
+            mapping.write("# synthetic mapping generated by MinecraftRemapper\n");
+            for (int i = 0; i < this.classCount; i++) {
+                jar.putNextEntry(new JarEntry(obfuscatedName(i) + ".class"));
+                jar.write(this.generateClass(i));
+                jar.closeEntry();
+                this.writeMapping(mapping, i);
+            }
+            for (int i = 0; i < this.resourceCount; i++) {
+                jar.putNextEntry(new JarEntry("assets/stub/data_" + i + ".json"));
+                jar.write(("{\"index\":" + i + ",\"payload\":\"" + "x".repeat(64 + i % 256) + "\"}").getBytes(StandardCharsets.UTF_8));
+                jar.closeEntry();
+            }
+        }
+    }
+
+    public int getClassCount() {
+        return this.classCount;
+    }
+
+    public static @NotNull String obfuscatedName(final int index) {
+        final StringBuilder builder = new StringBuilder();
+        int value = index;
+        do {
+            builder.append((char) ('a' + value % 26));
+            value = value / 26 - 1;
+        } while (value >= 0);
+        return builder.reverse().toString();
+    }
+
+    public static @NotNull String namedName(final int index) {
+        return PACKAGES[index / CHAIN_LENGTH % PACKAGES.length] + "/Stub" + index;
+    }
+
+    private Manifest createManifest() {
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, obfuscatedName(0));
+        return manifest;
+    }
+
+    private static boolean isChainRoot(final int index) {
+        return index % CHAIN_LENGTH == 0;
+    }
+
+    private static String superName(final int index) {
+        return isChainRoot(index) ? "java/lang/Object" : obfuscatedName(index - 1);
+    }
+
+    private static String fieldName(final int index, final int field) {
+        // Fields of a chain never collide, the obfuscated name includes the position in the chain
+        return obfuscatedName(index % CHAIN_LENGTH * FIELD_COUNT + field);
+    }
+
+    private static String methodName(final int index, final int method) {
+        return obfuscatedName(index % CHAIN_LENGTH * METHOD_COUNT + method);
+    }
+
+    private static int firstLine(final int method) {
+        return 10 + method * (LINES_PER_METHOD + 1);
+    }
+
+    private byte[] generateClass(final int index) {
+        final String name = obfuscatedName(index);
+        final String superName = superName(index);
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(V17, ACC_PUBLIC | ACC_SUPER, name, null, superName, null);
+        writer.visitSource("SourceFile", null);
+
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            writer.visitField(ACC_PROTECTED, fieldName(index, field), "I", null, null).visitEnd();
+        }
+
+        final MethodVisitor init = writer.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(ALOAD, 0);
+        init.visitMethodInsn(INVOKESPECIAL, superName, "<init>", "()V", false);
+        init.visitInsn(RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        for (int method = 0; method < METHOD_COUNT; method++) {
+            final MethodVisitor visitor = writer.visitMethod(ACC_PUBLIC, methodName(index, method), "(I)I", null, null);
+            visitor.visitCode();
+            int line = firstLine(method);
+            this.lineNumber(visitor, line++);
+            // this.field = x * constant
+            visitor.visitVarInsn(ALOAD, 0);
+            visitor.visitVarInsn(ILOAD, 1);
+            visitor.visitLdcInsn(index * 31 + method);
+            visitor.visitInsn(IMUL);
+            visitor.visitFieldInsn(PUTFIELD, name, fieldName(index, method % FIELD_COUNT), "I");
+            this.lineNumber(visitor, line++);
+            if (!isChainRoot(index)) {
+                // Call an inherited method through the current class, remapping must climb to resolve it
+                visitor.visitVarInsn(ALOAD, 0);
+                visitor.visitVarInsn(ILOAD, 1);
+                visitor.visitMethodInsn(INVOKEVIRTUAL, name, methodName(index - 1, method), "(I)I", false);
+                visitor.visitVarInsn(ISTORE, 1);
+            }
+            this.lineNumber(visitor, line++);
+            visitor.visitLdcInsn("stub:" + namedName(index) + "#" + method);
+            visitor.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "length", "()I", false);
+            visitor.visitVarInsn(ILOAD, 1);
+            visitor.visitInsn(IADD);
+            this.lineNumber(visitor, line);
+            visitor.visitVarInsn(ALOAD, 0);
+            visitor.visitFieldInsn(GETFIELD, name, fieldName(index, method % FIELD_COUNT), "I");
+            visitor.visitInsn(IADD);
+            visitor.visitInsn(IRETURN);
+            visitor.visitMaxs(0, 0);
+            visitor.visitEnd();
+        }
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private void lineNumber(final MethodVisitor visitor, final int line) {
+        final Label label = new Label();
+        visitor.visitLabel(label);
+        visitor.visitLineNumber(line, label);
+    }
+
+    private void writeMapping(final BufferedWriter writer, final int index) throws IOException {
+        writer.write(namedName(index).replace('/', '.') + " -> " + obfuscatedName(index) + ":\n");
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            writer.write("    int value" + (index % CHAIN_LENGTH) + "_" + field + " -> " + fieldName(index, field) + "\n");
+        }
+        for (int method = 0; method < METHOD_COUNT; method++) {
+            final int firstLine = firstLine(method);
+            writer.write("    " + firstLine + ":" + (firstLine + LINES_PER_METHOD - 1) + ":int compute" + (index % CHAIN_LENGTH) + "_" + method +
+                    "(int) -> " + methodName(index, method) + "\n");
+        }
+    }
+
+}
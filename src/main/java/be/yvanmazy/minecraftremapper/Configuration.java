@@ -24,7 +24,19 @@
 
 package be.yvanmazy.minecraftremapper;
 
+import be.yvanmazy.minecraftremapper.http.RequestHttpClient;
+import be.yvanmazy.minecraftremapper.jar.JarCompression;
+import be.yvanmazy.minecraftremapper.setting.ClassFilter;
+import be.yvanmazy.minecraftremapper.setting.DecompileSettings;
+import be.yvanmazy.minecraftremapper.setting.PreparationSettings;
+import be.yvanmazy.minecraftremapper.version.Version;
 import com.beust.jcommander.Parameter;
+import com.google.gson.Gson;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
 
 final class Configuration {
 
@@ -49,6 +61,63 @@ final class Configuration {
     @Parameter(order = 7, names = {"--output-directory", "-o"}, description = "Output directory.")
     private String outputDirectory = "MinecraftRemapper";
 
+    @Parameter(order = 8, names = "--compression", description = "Compression of the remapped jar between 'store', 'fast', 'default' and 'best'.")
+    private JarCompression compression = JarCompression.DEFAULT;
+
+    @Parameter(order = 9, names = "--skip-remapped-jar", description = "Do not write the remapped jar, decompile straight from memory.")
+    private boolean skipRemappedJar;
+
+    @Parameter(order = 10, names = "--include", description = "Only remap and decompile classes matching these globs, like 'net.minecraft.server.**'.")
+    private List<String> includes = new ArrayList<>();
+
+    @Parameter(order = 11, names = "--exclude", description = "Do not remap and decompile classes matching these globs.")
+    private List<String> excludes = new ArrayList<>();
+
+    @Parameter(order = 12, names = "--train-cds", description = "Train an AppCDS archive and launchers next to the jar for a faster startup.")
+    private boolean trainCds;
+
+    @Parameter(order = 13, names = "--watch", description = "Watch the version manifest and process every new version of the selected type.")
+    private boolean watch;
+
+    @Parameter(order = 14, names = "--watch-interval", description = "Minutes between two checks of the version manifest.")
+    private int watchInterval = 5;
+
+    @Parameter(order = 15, names = "--watch-queue", description = "Number of new versions waiting to be processed.")
+    private int watchQueue = 4;
+
+    @Parameter(order = 16, names = "--api-jar", description = "Also write an API stub jar without method bodies nor private members, for compilation.")
+    private boolean apiJar;
+
+    @Parameter(order = 17, names = "--merged", description = "Process the client and the server together, classes shared by both are decompiled once.")
+    private boolean merged;
+
+    @Parameter(order = 18, names = "--reference-index", description = "Index the call sites, field accesses, type references and strings of the remapped jar.")
+    private boolean referenceIndex;
+
+    @Parameter(order = 19, names = "--decompile-workers", description = "Decompile in this many worker JVMs instead of the application, 0 to disable.")
+    private int decompileWorkers;
+
+    @Parameter(order = 20, names = "--worker-heap", description = "Maximum heap of each decompile worker in megabytes.")
+    private int workerHeap = 1024;
+
+    @Parameter(order = 21, names = "--decompile-memory", description = "Maximum heap of all the running decompile workers in megabytes, 0 for no limit.")
+    private int decompileMemory;
+
+    @Parameter(order = 22, names = "--class-time-budget", description = "Maximum time spent decompiling the methods of one class in seconds, 0 for no limit.")
+    private int classBudget;
+
+    @Parameter(order = 23, names = "--priority", description = "Decompile the classes matching these globs first, in this order, like 'net.minecraft.world.entity.**'.")
+    private List<String> priorities = new ArrayList<>();
+
+    @Parameter(order = 24, names = "--mirror", description = "Download from a mirror started with the 'serve' command instead of Mojang, like 'http://host:8080'.")
+    private String mirror;
+
+    @Parameter(order = 25, names = "--reproducible", description = "Write the same remapped jar from the same inputs: sorted entries, fixed times and normalised manifest.")
+    private boolean reproducible;
+
+    @Parameter(order = 26, names = "--remap-memory", description = "Remap the jar in chunks straight to the disk with at most this many megabytes of entries, 0 to remap in memory.")
+    private int remapMemory;
+
     public boolean isHelp() {
         return this.help;
     }
@@ -77,4 +146,109 @@ final class Configuration {
         return this.outputDirectory;
     }
 
-}
\ No newline at end of file
+    public JarCompression getCompression() {
+        return this.compression;
+    }
+
+    public boolean isSkipRemappedJar() {
+        return this.skipRemappedJar;
+    }
+
+    public List<String> getIncludes() {
+        return this.includes;
+    }
+
+    public List<String> getExcludes() {
+        return this.excludes;
+    }
+
+    public boolean isTrainCds() {
+        return this.trainCds;
+    }
+
+    public boolean isWatch() {
+        return this.watch;
+    }
+
+    public int getWatchInterval() {
+        return this.watchInterval;
+    }
+
+    public int getWatchQueue() {
+        return this.watchQueue;
+    }
+
+    public boolean isApiJar() {
+        return this.apiJar;
+    }
+
+    public boolean isMerged() {
+        return this.merged;
+    }
+
+    public boolean isReferenceIndex() {
+        return this.referenceIndex;
+    }
+
+    public int getDecompileWorkers() {
+        return this.decompileWorkers;
+    }
+
+    public int getWorkerHeap() {
+        return this.workerHeap;
+    }
+
+    public int getDecompileMemory() {
+        return this.decompileMemory;
+    }
+
+    public int getClassBudget() {
+        return this.classBudget;
+    }
+
+    public List<String> getPriorities() {
+        return this.priorities;
+    }
+
+    public String getMirror() {
+        return this.mirror;
+    }
+
+    public boolean isReproducible() {
+        return this.reproducible;
+    }
+
+    public int getRemapMemory() {
+        return this.remapMemory;
+    }
+
+    public ClassFilter getClassFilter() {
+        return ClassFilter.of(this.includes, this.excludes);
+    }
+
+    public DecompileSettings getDecompileSettings() {
+        return new DecompileSettings(this.decompileWorkers, this.workerHeap, this.decompileMemory, this.classBudget, this.priorities);
+    }
+
+    /**
+     * @return a builder of the settings selected by the options, for one side of a version
+     */
+    @Contract("_, _, _, _ -> new")
+    public @NotNull PreparationSettings.Builder toSettings(final RequestHttpClient httpClient, final Gson gson, final DirectionType type,
+                                                           final Version version) {
+        return PreparationSettings.builder(httpClient, gson, type, version, this.outputDirectory)
+                // Merged trees are made of the remapped jars
+                .remap(this.remap || this.merged)
+                .decompile(this.decompile)
+                .compression(this.compression)
+                // The streaming remap always writes the remapped jar
+                .writeRemappedJar(!this.skipRemappedJar || this.remapMemory > 0)
+                .classFilter(this.getClassFilter())
+                .writeApiJar(this.apiJar)
+                .writeReferenceIndex(this.referenceIndex)
+                .decompileSettings(this.getDecompileSettings())
+                .reproducible(this.reproducible)
+                .remapMemory(this.remapMemory);
+    }
+
+}
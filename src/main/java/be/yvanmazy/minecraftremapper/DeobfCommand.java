@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper;
+
+import be.yvanmazy.minecraftremapper.deobf.LogDeobfuscator;
+import be.yvanmazy.minecraftremapper.deobf.MappingIndex;
+import be.yvanmazy.minecraftremapper.process.RemapperProcessor;
+import be.yvanmazy.minecraftremapper.process.exception.ProcessingException;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+@Parameters(commandDescription = "Deobfuscate crash reports and logs of the selected version, '-' reads stdin and writes stdout.")
+final class DeobfCommand {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeobfCommand.class);
+
+    @Parameter(description = "<files>", required = true)
+    private List<String> files = new ArrayList<>();
+
+    @Parameter(order = 1, names = "--suffix", description = "Suffix appended to the name of the deobfuscated files.")
+    private String suffix = ".deobf";
+
+    @Parameter(order = 2, names = "--threads", description = "Number of threads rewriting chunks of the files.")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    public void run(final RemapperProcessor processor) throws ProcessingException {
+        final Path mappingPath = processor.prepareMapping();
+        final MappingIndex index;
+        try {
+            index = MappingIndex.load(mappingPath);
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to load mapping", e);
+        }
+        LOGGER.info("Loaded mapping of {} obfuscated classes", index.getClassCount());
+
+        try (final LogDeobfuscator deobfuscator = new LogDeobfuscator(index, this.threads)) {
+            for (final String file : this.files) {
+                if (file.equals("-")) {
+                    deobfuscator.deobfuscate(System.in, System.out);
+                    continue;
+                }
+                final Path input = Path.of(file);
+                if (!Files.isRegularFile(input)) {
+                    LOGGER.error("File '{}' is not found!", file);
+                    continue;
+                }
+                final Path output = input.resolveSibling(input.getFileName() + this.suffix);
+                final long start = System.nanoTime();
+                final long bytes = deobfuscator.deobfuscate(input, output);
+                final double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+                LOGGER.info("{} -> {} ({} MB in {}ms, {} MB/s)",
+                        input,
+                        output,
+                        bytes >> 20,
+                        Math.round(seconds * 1_000),
+                        Math.round(bytes / seconds / (1 << 20)));
+            }
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to deobfuscate", e);
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper;
+
+import be.yvanmazy.minecraftremapper.decompile.ForkedDecompiler;
+import be.yvanmazy.minecraftremapper.decompile.MappedJarContextSource;
+import be.yvanmazy.minecraftremapper.decompile.PriorityDecompiler;
+import be.yvanmazy.minecraftremapper.diff.ChangeType;
+import be.yvanmazy.minecraftremapper.diff.JarDiff;
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import be.yvanmazy.minecraftremapper.setting.DecompileSettings;
+import be.yvanmazy.minecraftremapper.util.FileUtil;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+@Parameters(commandDescription = "Compare the remapped jars of two processed versions of the selected type, and report the classes and "
+        + "members added, removed or changed.")
+final class DiffCommand {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DiffCommand.class);
+
+    @Parameter(description = "<version> <other version>", required = true)
+    private List<String> versions = new ArrayList<>();
+
+    @Parameter(order = 1, names = "--output", description = "JSON report, 'diff-<version>-<other version>-<type>.json' in the output directory by default.")
+    private String output;
+
+    @Parameter(order = 2, names = "--sources", description = "Also decompile the classes added, removed or changed in both versions.")
+    private boolean sources;
+
+    @Parameter(order = 3, names = "--limit", description = "Maximum number of changes shown.")
+    private int limit = 1000;
+
+    public void run(final Configuration config) {
+        final DirectionType type = config.getType();
+        if (type == null) {
+            LOGGER.error("Please specify type between 'client' and 'server'.");
+            System.exit(-1);
+            return;
+        }
+        if (this.versions.size() != 2) {
+            LOGGER.error("Please specify two versions.");
+            System.exit(-1);
+            return;
+        }
+        final String from = this.versions.get(0);
+        final String to = this.versions.get(1);
+        // Same layout as the output directory of the processors: '<version><type>/remapped-<version>.jar'
+        final Path outputDirectory = Path.of(config.getOutputDirectory());
+        final String side = type.name().toLowerCase();
+        for (final String id : this.versions) {
+            final Path jar = outputDirectory.resolve(id + side).resolve("remapped-" + id + ".jar");
+            if (Files.notExists(jar)) {
+                LOGGER.error("Remapped jar of {} is not found at '{}', process the version without --skip-remapped-jar first.", id, jar);
+                System.exit(-1);
+                return;
+            }
+        }
+
+        final long start = System.nanoTime();
+        try (final MappedJar fromJar = MappedJar.open(outputDirectory.resolve(from + side).resolve("remapped-" + from + ".jar"));
+             final MappedJar toJar = MappedJar.open(outputDirectory.resolve(to + side).resolve("remapped-" + to + ".jar"))) {
+            final JarDiff diff = JarDiff.compare(fromJar, toJar);
+            final long millis = (System.nanoTime() - start) / 1_000_000;
+            diff.getChanges().stream().limit(this.limit).forEach(change -> {
+                LOGGER.info("{}", change);
+                change.members().forEach(member -> LOGGER.info("    {}", member));
+            });
+            if (diff.getChanges().size() > this.limit) {
+                LOGGER.info("... {} more", diff.getChanges().size() - this.limit);
+            }
+            LOGGER.info("{} added, {} removed, {} changed and {} unchanged classes in {}ms",
+                    diff.getCount(ChangeType.ADDED),
+                    diff.getCount(ChangeType.REMOVED),
+                    diff.getCount(ChangeType.CHANGED),
+                    diff.getUnchangedCount(),
+                    millis);
+            final Path report = this.output != null ? Path.of(this.output) :
+                    outputDirectory.resolve("diff-" + from + "-" + to + "-" + side + ".json");
+            diff.write(report, from, to);
+            LOGGER.info("Report written to {}", report);
+
+            if (this.sources) {
+                // Nested classes are decompiled with their outer class
+                final Set<String> classes = new HashSet<>();
+                diff.getChanges().forEach(change -> classes.add(ForkedDecompiler.getOuterName(change.name())));
+                final Path sources = outputDirectory.resolve("diff-" + from + "-" + to + "-" + side);
+                final DecompileSettings settings = new DecompileSettings(0, 1024, 0, config.getClassBudget(), List.of());
+                decompileClasses(fromJar, classes, sources.resolve(from), settings);
+                decompileClasses(toJar, classes, sources.resolve(to), settings);
+                LOGGER.info("Sources of {} classes decompiled in {}", classes.size(), sources);
+            }
+        } catch (final IOException | UncheckedIOException e) {
+            LOGGER.error("Failed to compare versions", e);
+            System.exit(-1);
+        }
+    }
+
+    private static void decompileClasses(final MappedJar jar, final Set<String> classes, final Path output, final DecompileSettings settings)
+            throws IOException {
+        FileUtil.recursiveDelete(output);
+        Files.createDirectories(output);
+        final MappedJarContextSource source = new MappedJarContextSource(jar, output);
+        final Predicate<String> selected = name -> name.endsWith(".class") && classes.contains(ForkedDecompiler.getOuterName(name));
+        final Path progress = output.resolveSibling("decompile-progress-" + output.getFileName() + ".txt");
+        new PriorityDecompiler(settings).decompile(source.filter(selected), source.filter(selected.negate()), output, progress);
+    }
+
+}
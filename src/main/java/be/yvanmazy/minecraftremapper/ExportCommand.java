@@ -0,0 +1,111 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper;
+
+import be.yvanmazy.minecraftremapper.export.MappingFormat;
+import be.yvanmazy.minecraftremapper.http.RequestHttpClient;
+import be.yvanmazy.minecraftremapper.process.RemapperProcessor;
+import be.yvanmazy.minecraftremapper.process.exception.ProcessingException;
+import be.yvanmazy.minecraftremapper.setting.PreparationSettings;
+import be.yvanmazy.minecraftremapper.version.Version;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@Parameters(commandDescription = "Export the mappings of the given versions, or of the selected version, to another format.")
+final class ExportCommand {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExportCommand.class);
+
+    @Parameter(description = "<versions>")
+    private List<String> versions = new ArrayList<>();
+
+    @Parameter(order = 1, names = "--format", description = "Format of the exported mappings.")
+    private MappingFormat format = MappingFormat.TINY_V2;
+
+    @Parameter(order = 2, names = "--merge", description = "Merge the client and server mappings into one file.")
+    private boolean merge;
+
+    @Parameter(order = 3, names = "--threads", description = "Number of versions exported at the same time.")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * @param available versions of the manifest
+     */
+    public void run(final Configuration config, final RequestHttpClient httpClient, final Gson gson, final List<Version> available)
+            throws ProcessingException {
+        // Merged mappings are stored next to the client ones
+        final DirectionType type = config.getType() != null ? config.getType() : this.merge ? DirectionType.CLIENT : null;
+        if (type == null) {
+            LOGGER.error("Please specify type between 'client' and 'server', or use --merge.");
+            System.exit(-1);
+            return;
+        }
+        final List<String> ids = this.versions.isEmpty() ? List.of(config.getVersion()) : this.versions;
+        final List<Version> selected = new ArrayList<>();
+        for (final String id : ids) {
+            final Version version = available.stream().filter(v -> v.id().equals(id)).findFirst().orElse(null);
+            if (version == null) {
+                LOGGER.error("Version '{}' is not found!", id);
+                continue;
+            }
+            selected.add(version);
+        }
+
+        final long start = System.nanoTime();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(this.threads, selected.size())));
+        try {
+            final List<Future<Path>> exports = new ArrayList<>();
+            for (final Version version : selected) {
+                final PreparationSettings settings = config.toSettings(httpClient, gson, type, version).build();
+                exports.add(executor.submit(() -> new RemapperProcessor(settings).exportMapping(this.format, this.merge)));
+            }
+            for (int i = 0; i < exports.size(); i++) {
+                try {
+                    LOGGER.info("{} -> {}", selected.get(i).id(), exports.get(i).get());
+                } catch (final ExecutionException e) {
+                    LOGGER.error("Failed to export mapping of {}", selected.get(i).id(), e.getCause());
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException("Export interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        LOGGER.info("Exported {} mappings in {}ms", selected.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+}
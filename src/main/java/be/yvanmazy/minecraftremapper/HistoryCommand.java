@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper;
+
+import be.yvanmazy.minecraftremapper.history.MappingChange;
+import be.yvanmazy.minecraftremapper.history.MappingChangeType;
+import be.yvanmazy.minecraftremapper.history.MappingHistory;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@Parameters(commandDescription = "Add the mappings already downloaded for the selected type to the mapping history, then list the stored "
+        + "versions, write the mapping of one version, or show the changes between two versions.")
+final class HistoryCommand {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HistoryCommand.class);
+
+    @Parameter(description = "[<version>] [<other version>]")
+    private List<String> versions = new ArrayList<>();
+
+    @Parameter(order = 1, names = "--output", description = "File the mapping of a version is written to, '<version>-<type>.map' in the output directory by default.")
+    private String output;
+
+    @Parameter(order = 2, names = "--limit", description = "Maximum number of changes shown.")
+    private int limit = 1000;
+
+    public void run(final Configuration config) {
+        final DirectionType type = config.getType();
+        if (type == null) {
+            LOGGER.error("Please specify type between 'client' and 'server'.");
+            System.exit(-1);
+            return;
+        }
+        if (this.versions.size() > 2) {
+            LOGGER.error("Please specify at most two versions.");
+            System.exit(-1);
+            return;
+        }
+        final Path outputDirectory = Path.of(config.getOutputDirectory());
+        final Path path = outputDirectory.resolve(MappingHistory.getFileName(type));
+        final MappingHistory history;
+        try {
+            syncMappingHistory(outputDirectory, type, path);
+            history = MappingHistory.open(path);
+        } catch (final IOException e) {
+            LOGGER.error("Failed to update mapping history", e);
+            System.exit(-1);
+            return;
+        }
+        if (history == null) {
+            LOGGER.error("No mapping is found in '{}', process a version first.", outputDirectory);
+            System.exit(-1);
+            return;
+        }
+        for (final String id : this.versions) {
+            if (!history.contains(id)) {
+                LOGGER.error("Version '{}' is not in the mapping history.", id);
+                System.exit(-1);
+                return;
+            }
+        }
+
+        final long start = System.nanoTime();
+        try {
+            if (this.versions.isEmpty()) {
+                history.getVersions().forEach(id -> LOGGER.info("{} ({})", id, history.getHash(id)));
+                LOGGER.info("{} versions stored in {} ({} KB)", history.getVersions().size(), path, Files.size(path) / 1024);
+            } else if (this.versions.size() == 1) {
+                final String id = this.versions.get(0);
+                final Path target = this.output != null ? Path.of(this.output) :
+                        outputDirectory.resolve(id + "-" + type.name().toLowerCase() + ".map");
+                history.materialize(id, target);
+                LOGGER.info("{} -> {} in {}ms", id, target, (System.nanoTime() - start) / 1_000_000);
+            } else {
+                final List<MappingChange> changes = history.diff(this.versions.get(0), this.versions.get(1));
+                changes.stream().limit(this.limit).forEach(change -> LOGGER.info("{}", change));
+                if (changes.size() > this.limit) {
+                    LOGGER.info("... {} more", changes.size() - this.limit);
+                }
+                final Map<MappingChangeType, Long> counts = new EnumMap<>(MappingChangeType.class);
+                changes.forEach(change -> counts.merge(change.type(), 1L, Long::sum));
+                LOGGER.info("{} changes {} in {}ms", changes.size(), counts, (System.nanoTime() - start) / 1_000_000);
+            }
+        } catch (final IOException e) {
+            LOGGER.error("Failed to read mapping history", e);
+            System.exit(-1);
+        }
+    }
+
+    private static void syncMappingHistory(final Path outputDirectory, final DirectionType type, final Path path) throws IOException {
+        if (!Files.isDirectory(outputDirectory)) {
+            return;
+        }
+        // Same layout as the output directory of the processors: '<version><type>/<version>.map'
+        final String suffix = type.name().toLowerCase();
+        final List<Path> directories;
+        try (final Stream<Path> stream = Files.list(outputDirectory)) {
+            directories = stream.filter(Files::isDirectory).filter(p -> p.getFileName().toString().endsWith(suffix)).sorted().toList();
+        }
+        for (final Path directory : directories) {
+            final String name = directory.getFileName().toString();
+            final String id = name.substring(0, name.length() - suffix.length());
+            final Path mapping = directory.resolve(id + ".map");
+            if (!id.isEmpty() && Files.isRegularFile(mapping) && MappingHistory.update(path, id, mapping)) {
+                LOGGER.info("Mapping of {} is added to the mapping history.", id);
+            }
+        }
+    }
+
+}
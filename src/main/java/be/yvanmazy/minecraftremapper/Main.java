@@ -25,8 +25,10 @@
 package be.yvanmazy.minecraftremapper;
 
 import be.yvanmazy.minecraftremapper.http.RequestHttpClient;
+import be.yvanmazy.minecraftremapper.process.MergedProcessor;
 import be.yvanmazy.minecraftremapper.process.RemapperProcessor;
 import be.yvanmazy.minecraftremapper.process.exception.ProcessingException;
+import be.yvanmazy.minecraftremapper.setting.DecompileSettings;
 import be.yvanmazy.minecraftremapper.setting.PreparationSettings;
 import be.yvanmazy.minecraftremapper.version.Version;
 import be.yvanmazy.minecraftremapper.version.fetcher.VersionFetcher;
@@ -41,12 +43,74 @@ import java.util.List;
 public class Main {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Main.class);
+    private static final String DEOBF_COMMAND = "deobf";
+    private static final String REOBF_COMMAND = "reobf";
+    private static final String EXPORT_COMMAND = "export";
+    private static final String QUERY_COMMAND = "query";
+    private static final String HISTORY_COMMAND = "history";
+    private static final String DIFF_COMMAND = "diff";
+    private static final String SERVE_COMMAND = "serve";
 
     public static void main(final String[] args) throws ProcessingException {
+        final Configuration config = new Configuration();
+        final DeobfCommand deobfCommand = new DeobfCommand();
+        final ReobfCommand reobfCommand = new ReobfCommand();
+        final ExportCommand exportCommand = new ExportCommand();
+        final QueryCommand queryCommand = new QueryCommand();
+        final HistoryCommand historyCommand = new HistoryCommand();
+        final DiffCommand diffCommand = new DiffCommand();
+        final ServeCommand serveCommand = new ServeCommand();
+        final JCommander commander = JCommander.newBuilder()
+                .addObject(config)
+                .addCommand(DEOBF_COMMAND, deobfCommand)
+                .addCommand(REOBF_COMMAND, reobfCommand)
+                .addCommand(EXPORT_COMMAND, exportCommand)
+                .addCommand(QUERY_COMMAND, queryCommand)
+                .addCommand(HISTORY_COMMAND, historyCommand)
+                .addCommand(DIFF_COMMAND, diffCommand)
+                .addCommand(SERVE_COMMAND, serveCommand)
+                .build();
+        commander.parse(args);
+        if (args.length == 0 || config.isHelp()) {
+            commander.usage();
+            return;
+        }
+        if (config.isTrainCds()) {
+            new TrainCdsCommand().run(config);
+            return;
+        }
+        // Queries only read the local index, the version manifest is not needed
+        if (QUERY_COMMAND.equals(commander.getParsedCommand())) {
+            queryCommand.run(config);
+            return;
+        }
+        if (HISTORY_COMMAND.equals(commander.getParsedCommand())) {
+            historyCommand.run(config);
+            return;
+        }
+        if (DIFF_COMMAND.equals(commander.getParsedCommand())) {
+            diffCommand.run(config);
+            return;
+        }
+
         final Gson gson = new Gson();
-        final RequestHttpClient httpClient = RequestHttpClient.newDefault();
+        final RequestHttpClient httpClient = config.getMirror() != null
+                ? RequestHttpClient.mirrored(RequestHttpClient.newDefault(), config.getMirror())
+                : RequestHttpClient.newDefault();
+        if (config.getMirror() != null) {
+            LOGGER.info("Mirror: {}", config.getMirror());
+        }
+        if (SERVE_COMMAND.equals(commander.getParsedCommand())) {
+            serveCommand.run(config, httpClient);
+            return;
+        }
         final VersionFetcher versionFetcher = VersionFetcher.newMojangFetcher(httpClient, gson);
 
+        if (config.isWatch()) {
+            new WatchCommand().run(config, httpClient, gson, versionFetcher);
+            return;
+        }
+
         final List<Version> versions;
         try {
             versions = versionFetcher.fetchVersions();
@@ -55,14 +119,6 @@ public class Main {
             System.exit(-1);
             return;
         }
-
-        final Configuration config = new Configuration();
-        final JCommander commander = JCommander.newBuilder().addObject(config).build();
-        commander.parse(args);
-        if (args.length == 0 || config.isHelp()) {
-            commander.usage();
-            return;
-        }
         if (config.isList()) {
             int total = 0;
             for (final Version version : versions) {
@@ -79,8 +135,14 @@ public class Main {
             return;
         }
 
+        if (EXPORT_COMMAND.equals(commander.getParsedCommand())) {
+            exportCommand.run(config, httpClient, gson, versions);
+            return;
+        }
+
         final DirectionType type = config.getType();
-        if (type == null) {
+        // Only the main pipeline processes both sides with --merged, the commands work on one side
+        if (type == null && (!config.isMerged() || commander.getParsedCommand() != null)) {
             LOGGER.error("Please specify type between 'client' and 'server'.");
             System.exit(-1);
             return;
@@ -95,23 +157,50 @@ public class Main {
             return;
         }
 
-        LOGGER.info("Selected version: {} ({})", version.id(), type);
+        LOGGER.info("Selected version: {} ({})", version.id(), config.isMerged() ? "client + server" : type);
+        if (DEOBF_COMMAND.equals(commander.getParsedCommand())) {
+            deobfCommand.run(new RemapperProcessor(config.toSettings(httpClient, gson, type, version).build()));
+            return;
+        }
+        if (REOBF_COMMAND.equals(commander.getParsedCommand())) {
+            reobfCommand.run(config, new RemapperProcessor(config.toSettings(httpClient, gson, type, version).build()));
+            return;
+        }
         LOGGER.info("Remapping: {}", config.isRemap());
         LOGGER.info("Decompiling: {}", config.isDecompile());
+        LOGGER.info("Compression: {}", config.getCompression());
+        LOGGER.info("Write remapped jar: {}", !config.isSkipRemappedJar());
+        LOGGER.info("Write API jar: {}", config.isApiJar());
+        LOGGER.info("Write reference index: {}", config.isReferenceIndex());
+        LOGGER.info("Reproducible remapped jar: {}", config.isReproducible());
+        if (config.getRemapMemory() > 0) {
+            LOGGER.info("Streaming remap: {} MB", config.getRemapMemory());
+            if (config.isSkipRemappedJar()) {
+                LOGGER.warn("The streaming remap always writes the remapped jar, --skip-remapped-jar is ignored.");
+            }
+        }
+        final PreparationSettings settings = config.toSettings(httpClient, gson, type != null ? type : DirectionType.CLIENT, version).build();
+        LOGGER.info("Classes: {}", settings.classFilter());
+        final DecompileSettings decompileSettings = settings.decompileSettings();
+        if (decompileSettings.isForked()) {
+            LOGGER.info("Decompile workers: {} of {} MB", decompileSettings.getConcurrentWorkers(), decompileSettings.workerHeap());
+        }
+        if (decompileSettings.classBudget() > 0) {
+            LOGGER.info("Class time budget: {} seconds", decompileSettings.classBudget());
+        }
+        if (!decompileSettings.priorities().isEmpty()) {
+            LOGGER.info("Decompile first: {}", decompileSettings.priorities());
+        }
         LOGGER.info("Output directory: {}", config.getOutputDirectory());
         LOGGER.info("----------------");
 
-        final PreparationSettings settings = new PreparationSettings(httpClient,
-                gson,
-                type,
-                version,
-                config.getOutputDirectory(),
-                config.isRemap(),
-                config.isDecompile());
-
         final long start = System.currentTimeMillis();
-        new RemapperProcessor(settings).process();
+        if (config.isMerged()) {
+            new MergedProcessor(settings).process();
+        } else {
+            new RemapperProcessor(settings).process();
+        }
         LOGGER.info("Finished in {} seconds", (System.currentTimeMillis() - start) / 1_000);
     }
 
-}
\ No newline at end of file
+}
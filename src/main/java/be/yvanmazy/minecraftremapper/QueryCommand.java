@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper;
+
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import be.yvanmazy.minecraftremapper.symbol.BytecodeIndexer;
+import be.yvanmazy.minecraftremapper.symbol.SourceIndexer;
+import be.yvanmazy.minecraftremapper.symbol.SymbolIndex;
+import be.yvanmazy.minecraftremapper.symbol.SymbolKind;
+import be.yvanmazy.minecraftremapper.symbol.SymbolOccurrence;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+@Parameters(commandDescription = "Find the declarations and references of symbols in the decompiled sources or the remapped jar of the "
+        + "selected version: 'Name', 'a.b.Name' for a class, 'Owner#member', or any string with '--kind string'.")
+final class QueryCommand {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryCommand.class);
+
+    @Parameter(description = "<symbols>", required = true)
+    private List<String> symbols = new ArrayList<>();
+
+    @Parameter(order = 1, names = "--kind", description = "Only show the symbols of this kind.")
+    private SymbolKind kind;
+
+    @Parameter(order = 2, names = "--declarations", description = "Only show the declarations.")
+    private boolean declarations;
+
+    @Parameter(order = 3, names = "--limit", description = "Maximum number of occurrences shown per symbol.")
+    private int limit = 100;
+
+    @Parameter(order = 4, names = "--bytecode", description = "Search the reference index of the remapped jar instead of the decompiled sources.")
+    private boolean bytecode;
+
+    public void run(final Configuration config) {
+        final DirectionType type = config.getType();
+        if (config.getVersion() == null || type == null && !config.isMerged()) {
+            LOGGER.error("Please specify the version and the type between 'client' and 'server', or use --merged.");
+            System.exit(-1);
+            return;
+        }
+        if (this.bytecode && config.isMerged()) {
+            LOGGER.error("The reference index is built for one side, please specify the type instead of --merged.");
+            System.exit(-1);
+            return;
+        }
+        // Same layout as the output directory of the processors
+        final String side = config.isMerged() ? "merged" : type.name().toLowerCase();
+        final Path root = Path.of(config.getOutputDirectory(), config.getVersion() + side);
+        final SymbolIndex index;
+        try {
+            index = this.bytecode ? openReferenceIndex(root, config.getVersion()) :
+                    SourceIndexer.open(root.resolve(SourceIndexer.getIndexFileName(config.getVersion())));
+        } catch (final IOException e) {
+            LOGGER.error("Failed to open symbol index", e);
+            System.exit(-1);
+            return;
+        }
+        if (index == null) {
+            LOGGER.error("Symbol index is not found in '{}', {} the version first.", root, this.bytecode ? "remap" : "decompile");
+            System.exit(-1);
+            return;
+        }
+        for (final String symbol : this.symbols) {
+            final long start = System.nanoTime();
+            // Strings are looked up as they are, they are not qualified names
+            final List<SymbolOccurrence> occurrences = (this.kind == SymbolKind.STRING ? index.find(symbol) : index.query(symbol))
+                    .stream()
+                    .filter(o -> this.kind == null || o.kind() == this.kind)
+                    .filter(o -> !this.declarations || o.declaration())
+                    .toList();
+            final long micros = (System.nanoTime() - start) / 1_000;
+            occurrences.stream().limit(this.limit).forEach(o -> LOGGER.info("{}", o));
+            if (occurrences.size() > this.limit) {
+                LOGGER.info("... {} more", occurrences.size() - this.limit);
+            }
+            LOGGER.info("{}: {} occurrences in {}us", symbol, occurrences.size(), micros);
+        }
+    }
+
+    private static SymbolIndex openReferenceIndex(final Path root, final String versionId) throws IOException {
+        final Path path = root.resolve(BytecodeIndexer.getIndexFileName(versionId));
+        final Path remapPath = root.resolve("remapped-" + versionId + ".jar");
+        if (Files.notExists(remapPath)) {
+            return BytecodeIndexer.open(path);
+        }
+        // Up to date indexes are only compared with the central directory of the jar
+        try (final MappedJar jar = MappedJar.open(remapPath)) {
+            return BytecodeIndexer.update(jar, path).index();
+        }
+    }
+
+}
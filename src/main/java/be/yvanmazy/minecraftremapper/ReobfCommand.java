@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper;
+
+import be.yvanmazy.minecraftremapper.process.RemapperProcessor;
+import be.yvanmazy.minecraftremapper.process.exception.ProcessingException;
+import be.yvanmazy.minecraftremapper.reobf.ReobfMapping;
+import be.yvanmazy.minecraftremapper.reobf.Reobfuscator;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Parameters(commandDescription = "Reobfuscate jars compiled against Mojang names, like plugins, to run them on the obfuscated game.")
+final class ReobfCommand {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReobfCommand.class);
+
+    @Parameter(description = "<jars>", required = true)
+    private List<String> jars = new ArrayList<>();
+
+    @Parameter(order = 1, names = "--library", description = "Jar only used to resolve the hierarchy of the reobfuscated jars.")
+    private List<String> libraries = new ArrayList<>();
+
+    @Parameter(order = 2, names = "--suffix", description = "Suffix appended to the name of the reobfuscated jars, before the extension.")
+    private String suffix = "-obf";
+
+    @Parameter(order = 3, names = "--threads", description = "Number of jars reobfuscated at the same time.")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    public void run(final Configuration config, final RemapperProcessor processor) throws ProcessingException {
+        final Map<Path, Path> outputs = new LinkedHashMap<>();
+        for (final String jar : this.jars) {
+            final Path input = Path.of(jar);
+            if (!Files.isRegularFile(input)) {
+                LOGGER.error("Jar '{}' is not found!", jar);
+                continue;
+            }
+            final String name = input.getFileName().toString();
+            final int extension = name.endsWith(".jar") ? name.length() - ".jar".length() : name.length();
+            outputs.put(input, input.resolveSibling(name.substring(0, extension) + this.suffix + name.substring(extension)));
+        }
+        final List<Path> libraryPaths = new ArrayList<>();
+        for (final String library : this.libraries) {
+            libraryPaths.add(Path.of(library));
+        }
+
+        final ReobfMapping mapping = processor.prepareReobfuscation();
+        LOGGER.info("Loaded inverse mapping with the hierarchy of {} classes", mapping.getClassCount());
+        final long start = System.nanoTime();
+        try {
+            new Reobfuscator(mapping, config.getCompression(), this.threads).reobfuscate(outputs, libraryPaths);
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to reobfuscate", e);
+        }
+        outputs.forEach((input, output) -> LOGGER.info("{} -> {}", input, output));
+        LOGGER.info("Reobfuscated {} jars in {}ms", outputs.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper;
+
+import be.yvanmazy.minecraftremapper.http.RequestHttpClient;
+import be.yvanmazy.minecraftremapper.mirror.MirrorServer;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+
+@Parameters(commandDescription = "Serve the downloads of the output directory over HTTP under the paths of Mojang, and the outputs under '/outputs/'. "
+        + "Other instances use it with '--mirror'.")
+final class ServeCommand {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServeCommand.class);
+
+    @Parameter(order = 1, names = "--port", description = "Port of the mirror.")
+    private int port = 8080;
+
+    @Parameter(order = 2, names = "--bind", description = "Address of the mirror, all interfaces by default.")
+    private String bind = "0.0.0.0";
+
+    @Parameter(order = 3, names = "--threads", description = "Maximum number of connections served at the same time.")
+    private int threads = 64;
+
+    @Parameter(order = 4, names = "--offline", description = "Only serve the local files, without fetching the missing ones from Mojang.")
+    private boolean offline;
+
+    public void run(final Configuration config, final RequestHttpClient httpClient) {
+        final MirrorServer server;
+        try {
+            server = MirrorServer.start(Path.of(config.getOutputDirectory()),
+                    this.offline ? null : httpClient,
+                    new InetSocketAddress(this.bind, this.port),
+                    this.threads);
+        } catch (final IOException e) {
+            LOGGER.error("Failed to start mirror server", e);
+            System.exit(-1);
+            return;
+        }
+        LOGGER.info("Start the other instances with --mirror {}", server.getBaseUrl());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            LOGGER.info("Served {} requests and {} MB", server.getRequestCount(), server.getServedBytes() / (1024 * 1024));
+        }, "Mirror-Server-Shutdown"));
+        try {
+            server.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            server.close();
+        }
+    }
+
+}
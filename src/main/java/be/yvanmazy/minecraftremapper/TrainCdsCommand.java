@@ -0,0 +1,59 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper;
+
+import be.yvanmazy.minecraftremapper.cds.CdsReport;
+import be.yvanmazy.minecraftremapper.cds.CdsTrainer;
+import be.yvanmazy.minecraftremapper.cds.exception.CdsTrainingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+
+/**
+ * Option {@code --train-cds}, records an AppCDS archive with an offline workload.
+ */
+final class TrainCdsCommand {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TrainCdsCommand.class);
+
+    public void run(final Configuration config) {
+        final CdsReport report;
+        try {
+            report = new CdsTrainer(CdsTrainer.findApplicationJar(), Path.of(config.getOutputDirectory(), "cds-training")).train();
+        } catch (final CdsTrainingException e) {
+            LOGGER.error("Failed to train AppCDS archive", e);
+            System.exit(-1);
+            return;
+        }
+        LOGGER.info("AppCDS archive: {}", report.archive());
+        LOGGER.info("Startup: {}ms -> {}ms ({}x faster)",
+                report.baselineStartup().toMillis(),
+                report.archivedStartup().toMillis(),
+                String.format("%.2f", report.getSpeedup()));
+        LOGGER.info("Launch with {} to use the archive", report.launcher());
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper;
+
+import be.yvanmazy.minecraftremapper.http.RequestHttpClient;
+import be.yvanmazy.minecraftremapper.version.fetcher.VersionFetcher;
+import be.yvanmazy.minecraftremapper.watch.ProcessedVersions;
+import be.yvanmazy.minecraftremapper.watch.VersionWatcher;
+import be.yvanmazy.minecraftremapper.watch.WatchSettings;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Option {@code --watch}, processes the versions published while running.
+ */
+final class WatchCommand {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WatchCommand.class);
+
+    public void run(final Configuration config, final RequestHttpClient httpClient, final Gson gson, final VersionFetcher versionFetcher) {
+        // The watcher processes one side per version, it cannot merge both sides yet
+        if (config.isMerged()) {
+            LOGGER.error("Option --merged is not supported with --watch.");
+            System.exit(-1);
+            return;
+        }
+        final DirectionType type = config.getType();
+        if (type == null) {
+            LOGGER.error("Please specify type between 'client' and 'server'.");
+            System.exit(-1);
+            return;
+        }
+        final ProcessedVersions processed;
+        try {
+            processed = ProcessedVersions.load(Path.of(config.getOutputDirectory(), "watch-" + type.getKey() + ".state"));
+        } catch (final IOException e) {
+            LOGGER.error("Failed to load processed versions", e);
+            System.exit(-1);
+            return;
+        }
+        final WatchSettings settings = new WatchSettings(Duration.ofMinutes(config.getWatchInterval()), config.getWatchQueue(), 3);
+        final VersionWatcher watcher = new VersionWatcher(versionFetcher, httpClient, gson, processed,
+                version -> config.toSettings(httpClient, gson, type, version).build(), settings);
+        Runtime.getRuntime().addShutdownHook(new Thread(watcher::close, "Version-Watcher-Shutdown"));
+        watcher.start();
+        try {
+            watcher.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            watcher.close();
+        }
+    }
+
+}
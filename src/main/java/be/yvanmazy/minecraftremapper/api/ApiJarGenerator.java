@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.api;
+
+import be.yvanmazy.minecraftremapper.jar.JarCompression;
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import be.yvanmazy.minecraftremapper.jar.ParallelJarWriter;
+import org.jetbrains.annotations.NotNull;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Writes an API stub jar: the classes keep their signatures, annotations and constants, but lose their method bodies,
+ * debug information and private members. Such a jar is enough for javac and much smaller to index.
+ */
+public final class ApiJarGenerator {
+
+    private static final int READER_FLAGS = ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
+
+    private ApiJarGenerator() throws IllegalAccessException {
+        throw new IllegalAccessException("You cannot instantiate a utility class");
+    }
+
+    /**
+     * Strips every class of the jar on all cores, resources are not copied.
+     *
+     * @return the number of classes in the stub jar
+     */
+    public static int generate(final @NotNull MappedJar jar, final @NotNull Path output, final @NotNull JarCompression compression)
+            throws IOException {
+        Objects.requireNonNull(jar, "jar must not be null");
+        Objects.requireNonNull(output, "output must not be null");
+        Objects.requireNonNull(compression, "compression must not be null");
+        final byte[][] stubs = new byte[jar.size()][];
+        try {
+            IntStream.range(0, jar.size()).parallel().forEach(index -> {
+                final String name = jar.getName(index);
+                if (name.endsWith(".class") && !name.startsWith("META-INF/")) {
+                    try {
+                        stubs[index] = strip(jar.read(index));
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        int count = 0;
+        final Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        try (final ParallelJarWriter writer = new ParallelJarWriter(temp, compression)) {
+            for (int i = 0; i < stubs.length; i++) {
+                if (stubs[i] != null) {
+                    writer.write(jar.getName(i), stubs[i]);
+                    count++;
+                }
+            }
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
+        return count;
+    }
+
+    static byte @NotNull [] strip(final byte @NotNull [] data) {
+        final ClassWriter writer = new ClassWriter(0);
+        new ClassReader(data).accept(new ClassVisitor(Opcodes.ASM9, writer) {
+            @Override
+            public FieldVisitor visitField(final int access, final String name, final String descriptor, final String signature,
+                                           final Object value) {
+                return (access & Opcodes.ACC_PRIVATE) != 0 ? null : super.visitField(access, name, descriptor, signature, value);
+            }
+
+            @Override
+            public MethodVisitor visitMethod(final int access, final String name, final String descriptor, final String signature,
+                                             final String[] exceptions) {
+                // Static initializers are never called by the compiler, and the code of the other methods is skipped
+                if ((access & Opcodes.ACC_PRIVATE) != 0 || name.equals("<clinit>")) {
+                    return null;
+                }
+                return super.visitMethod(access, name, descriptor, signature, exceptions);
+            }
+        }, READER_FLAGS);
+        return writer.toByteArray();
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.cds;
+
+import be.yvanmazy.minecraftremapper.cds.exception.CdsTrainingException;
+import be.yvanmazy.minecraftremapper.util.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trains a dynamic AppCDS archive for the application jar. A child JVM runs the offline {@link TrainingWorkload} with
+ * {@code -XX:ArchiveClassesAtExit}, then launcher scripts using the archive are written next to the jar.
+ * The archive is named after the Java version, and {@code -Xshare:auto} ignores it when it does not match the runtime.
+ */
+public final class CdsTrainer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CdsTrainer.class);
+
+    private static final String MAIN_CLASS = "be.yvanmazy.minecraftremapper.Main";
+    private static final String LAUNCHER_NAME = "minecraft-remapper";
+    private static final int STARTUP_RUNS = 5;
+    private static final long TIMEOUT_MINUTES = 10;
+
+    private final Path jar;
+    private final Path workDirectory;
+
+    public CdsTrainer(final @NotNull Path jar, final @NotNull Path workDirectory) {
+        this.jar = Objects.requireNonNull(jar, "jar must not be null").toAbsolutePath();
+        this.workDirectory = Objects.requireNonNull(workDirectory, "workDirectory must not be null").toAbsolutePath();
+    }
+
+    /**
+     * @return the jar containing the running application
+     * @throws CdsTrainingException if the application is not launched from a jar, like from an IDE
+     */
+    public static @NotNull Path findApplicationJar() throws CdsTrainingException {
+        final Path path;
+        try {
+            path = Path.of(CdsTrainer.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (final URISyntaxException | RuntimeException e) {
+            throw new CdsTrainingException("Failed to locate the application jar", e);
+        }
+        if (!Files.isRegularFile(path) || !path.getFileName().toString().endsWith(".jar")) {
+            throw new CdsTrainingException("AppCDS training requires running from the application jar, not from " + path);
+        }
+        return path;
+    }
+
+    public @NotNull Path getArchivePath() {
+        final String version = System.getProperty("java.vm.version").replaceAll("[^A-Za-z0-9._-]", "_");
+        return this.jar.resolveSibling(stripExtension(this.jar.getFileName().toString()) + "-" + version + ".jsa");
+    }
+
+    public @NotNull CdsReport train() throws CdsTrainingException {
+        final Path archive = this.getArchivePath();
+        try {
+            Files.deleteIfExists(archive);
+            Files.createDirectories(this.workDirectory);
+        } catch (final IOException e) {
+            throw new CdsTrainingException("Failed to prepare training", e);
+        }
+
+        LOGGER.info("Training AppCDS archive with an offline workload...");
+        final List<String> training = this.command(TrainingWorkload.class.getName(), "-XX:ArchiveClassesAtExit=" + archive);
+        training.addAll(List.of(this.jar.toString(), this.workDirectory.toString()));
+        this.run(training);
+        if (Files.notExists(archive)) {
+            throw new CdsTrainingException("The JVM did not write the archive, dynamic AppCDS may be unsupported by this runtime");
+        }
+
+        LOGGER.info("Measuring startup...");
+        final Duration baseline = this.measureStartup(this.command(MAIN_CLASS));
+        final Duration archived = this.measureStartup(this.command(MAIN_CLASS, "-XX:SharedArchiveFile=" + archive, "-Xshare:auto"));
+        final Path launcher = this.writeLaunchers(archive);
+        try {
+            FileUtil.recursiveDelete(this.workDirectory);
+        } catch (final IOException e) {
+            LOGGER.warn("Failed to delete training directory", e);
+        }
+        return new CdsReport(archive, launcher, baseline, archived);
+    }
+
+    private List<String> command(final String mainClass, final String... jvmOptions) {
+        final List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(List.of(jvmOptions));
+        command.addAll(List.of("-cp", this.jar.toString(), mainClass));
+        return command;
+    }
+
+    private Duration measureStartup(final List<String> command) throws CdsTrainingException {
+        final List<String> help = new ArrayList<>(command);
+        help.add("--help");
+        // The first run warms the file system cache, the median of the others is kept
+        this.run(help);
+        final List<Duration> durations = new ArrayList<>();
+        for (int i = 0; i < STARTUP_RUNS; i++) {
+            final long start = System.nanoTime();
+            this.run(help);
+            durations.add(Duration.ofNanos(System.nanoTime() - start));
+        }
+        return durations.stream().sorted().toList().get(STARTUP_RUNS / 2);
+    }
+
+    private void run(final List<String> command) throws CdsTrainingException {
+        final Process process;
+        try {
+            process = new ProcessBuilder(command)
+                    .directory(this.workDirectory.toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(this.workDirectory.resolve("training.log").toFile())
+                    .start();
+        } catch (final IOException e) {
+            throw new CdsTrainingException("Failed to start " + command.get(0), e);
+        }
+        try {
+            if (!process.waitFor(TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+                throw new CdsTrainingException("Training process timed out");
+            }
+        } catch (final InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new CdsTrainingException("Interrupted while training", e);
+        }
+        if (process.exitValue() != 0) {
+            throw new CdsTrainingException("Training process exited with code " + process.exitValue() + ", see " +
+                    this.workDirectory.resolve("training.log"));
+        }
+    }
+
+    private Path writeLaunchers(final Path archive) throws CdsTrainingException {
+        final Path shell = this.jar.resolveSibling(LAUNCHER_NAME);
+        final Path batch = this.jar.resolveSibling(LAUNCHER_NAME + ".cmd");
+        final String jarName = this.jar.getFileName().toString();
+        final String archiveName = archive.getFileName().toString();
+        try {
+            Files.writeString(shell, """
+                    #!/bin/sh
+                    DIR="$(cd "$(dirname "$0")" && pwd)"
+                    exec java -XX:SharedArchiveFile="$DIR/%s" -Xshare:auto -jar "$DIR/%s" "$@"
+                    """.formatted(archiveName, jarName), StandardCharsets.UTF_8);
+            Files.writeString(batch, """
+                    @echo off\r
+                    java -XX:SharedArchiveFile="%%~dp0%s" -Xshare:auto -jar "%%~dp0%s" %%*\r
+                    """.formatted(archiveName, jarName), StandardCharsets.UTF_8);
+            try {
+                final var permissions = EnumSet.copyOf(Files.getPosixFilePermissions(shell));
+                permissions.addAll(EnumSet.of(PosixFilePermission.OWNER_EXECUTE, PosixFilePermission.GROUP_EXECUTE, PosixFilePermission.OTHERS_EXECUTE));
+                Files.setPosixFilePermissions(shell, permissions);
+            } catch (final UnsupportedOperationException ignored) {
+                // Not a POSIX file system, the batch launcher is the one to use
+            }
+        } catch (final IOException e) {
+            throw new CdsTrainingException("Failed to write launchers", e);
+        }
+        return shell;
+    }
+
+    private static String stripExtension(final String name) {
+        final int dot = name.lastIndexOf('.');
+        return dot == -1 ? name : name.substring(0, dot);
+    }
+
+}
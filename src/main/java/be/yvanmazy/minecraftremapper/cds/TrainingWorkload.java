@@ -0,0 +1,183 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.cds;
+
+import be.yvanmazy.minecraftremapper.Main;
+import be.yvanmazy.minecraftremapper.decompile.InMemoryContextSource;
+import be.yvanmazy.minecraftremapper.decompile.PriorityDecompiler;
+import be.yvanmazy.minecraftremapper.hierarchy.HierarchyIndex;
+import be.yvanmazy.minecraftremapper.hierarchy.HierarchyIndexWriter;
+import be.yvanmazy.minecraftremapper.jar.InMemoryJar;
+import be.yvanmazy.minecraftremapper.jar.JarCompression;
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import be.yvanmazy.minecraftremapper.mirror.MirrorServer;
+import be.yvanmazy.minecraftremapper.remap.RemapperEngine;
+import be.yvanmazy.minecraftremapper.setting.ClassFilter;
+import be.yvanmazy.minecraftremapper.setting.DecompileSettings;
+import be.yvanmazy.minecraftremapper.util.HashUtil;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import net.md_5.specialsource.JarMapping;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Entry point of the JVM recording the archive of {@link CdsTrainer}. It works offline on the application jar itself:
+ * the usage is printed like the startup measured afterwards, then the classes of the application are indexed, remapped
+ * with a ProGuard mapping, written to a jar and decompiled, which loads the classes used to process a version.
+ * Finally, {@code --list} and {@code deobf} run against a local {@link MirrorServer} serving a stub version made of
+ * the application jar and an obfuscated mapping, which loads the classes fetching the manifest and the version.
+ * <p>
+ * Arguments: the application jar and the work directory.
+ */
+public final class TrainingWorkload {
+
+    private static final String SOURCE = "training";
+    private static final String VERSION = "training";
+    private static final String MAPPING = """
+            be.yvanmazy.minecraftremapper.Main -> be.yvanmazy.minecraftremapper.Main:
+                void main(java.lang.String[]) -> main
+            """;
+    // Mapping of the stub version, the deobfuscated log contains its obfuscated names
+    private static final String OBFUSCATED_MAPPING = """
+            be.yvanmazy.minecraftremapper.Main -> a:
+                1:1:void main(java.lang.String[]):54:54 -> a
+            """;
+    private static final String LOG = """
+            [12:00:00] [main/ERROR]: Training crash in class a
+            java.lang.IllegalStateException: Training
+            \tat a.a(SourceFile:1)
+            \tat a.a(Unknown Source)
+            Caused by: java.io.IOException: Training
+            \tat a.a(SourceFile:1)
+            """;
+
+    private TrainingWorkload() throws IllegalAccessException {
+        throw new IllegalAccessException("You cannot instantiate a utility class");
+    }
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: <jar> <work directory>");
+            System.exit(2);
+            return;
+        }
+        final Path directory = Path.of(args[1]);
+        Main.main(new String[] {"--help"});
+
+        final Path mappingPath = directory.resolve("training-mapping.txt");
+        Files.writeString(mappingPath, MAPPING);
+        final JarMapping jarMapping = new JarMapping();
+        try (final BufferedReader reader = Files.newBufferedReader(mappingPath)) {
+            jarMapping.loadMappings(reader, null, null, false);
+        }
+
+        final Path indexPath = directory.resolve("training-hierarchy.idx");
+        final InMemoryJar remapped;
+        try (final MappedJar jar = MappedJar.open(Path.of(args[0]))) {
+            HierarchyIndexWriter.fromJar(jar).write(indexPath, SOURCE);
+            final HierarchyIndex hierarchy = HierarchyIndex.open(indexPath, SOURCE);
+            if (hierarchy == null) {
+                throw new IOException("Class hierarchy index is unreadable");
+            }
+            final ClassFilter filter = ClassFilter.of(List.of(Main.class.getPackageName() + ".**"), List.of());
+            remapped = RemapperEngine.of(jarMapping, hierarchy).remapJar(jar, filter);
+        }
+        remapped.writeTo(directory.resolve("training.jar"), JarCompression.FAST);
+
+        final Path decompiled = directory.resolve("decompiled");
+        new PriorityDecompiler(DecompileSettings.inProcess()).decompile(new InMemoryContextSource("training.jar", remapped, decompiled),
+                null,
+                decompiled,
+                directory.resolve("decompile-progress.txt"));
+
+        final Path mirrorDirectory = directory.resolve("mirror");
+        final Path obfuscatedMappingPath = directory.resolve("training-obfuscated.txt");
+        Files.writeString(obfuscatedMappingPath, OBFUSCATED_MAPPING);
+        // Like a cache filled from Mojang, without upstream the mirror serves it offline
+        writeStubVersion(mirrorDirectory.resolve("mirror"), Path.of(args[0]), obfuscatedMappingPath);
+        try (final MirrorServer server = MirrorServer.start(mirrorDirectory, null, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1)) {
+            final String output = directory.resolve("output").toString();
+            Main.main(new String[] {"--mirror", server.getBaseUrl(), "--list"});
+            final Path log = directory.resolve("training.log");
+            Files.writeString(log, LOG);
+            Main.main(new String[] {"--mirror", server.getBaseUrl(), "-o", output, "-t", "client", "-v", VERSION, "deobf", log.toString()});
+        }
+        // Decompiler threads must not keep the JVM alive
+        System.exit(0);
+    }
+
+    /**
+     * Writes the manifest and the objects of a version in the cache of a mirror, the jar and the mapping are served
+     * for both sides.
+     */
+    private static void writeStubVersion(final Path cacheDirectory, final Path jar, final Path mapping) throws IOException {
+        final Gson gson = new Gson();
+        final JsonObject downloads = new JsonObject();
+        downloads.add("client", writeObject(cacheDirectory, jar, "https://piston-data.mojang.com/v1/objects/", "client.jar"));
+        downloads.add("client_mappings", writeObject(cacheDirectory, mapping, "https://piston-data.mojang.com/v1/objects/", "client.txt"));
+        downloads.add("server", downloads.get("client"));
+        downloads.add("server_mappings", downloads.get("client_mappings"));
+        final JsonObject version = new JsonObject();
+        version.addProperty("id", VERSION);
+        version.addProperty("type", "release");
+        version.add("downloads", downloads);
+        final Path versionPath = cacheDirectory.resolve(VERSION + ".json");
+        Files.writeString(versionPath, gson.toJson(version));
+
+        final JsonObject entry = new JsonObject();
+        entry.addProperty("id", VERSION);
+        entry.addProperty("type", "release");
+        entry.addProperty("url", writeObject(cacheDirectory, versionPath, "https://piston-meta.mojang.com/v1/packages/", VERSION + ".json")
+                .get("url")
+                .getAsString());
+        final JsonArray versions = new JsonArray();
+        versions.add(entry);
+        final JsonObject manifest = new JsonObject();
+        manifest.add("versions", versions);
+        Files.writeString(cacheDirectory.resolve("version_manifest.json"), gson.toJson(manifest));
+    }
+
+    private static JsonObject writeObject(final Path cacheDirectory, final Path file, final String baseUrl, final String name) throws IOException {
+        final String sha1 = HashUtil.hash(file);
+        final Path object = cacheDirectory.resolve("objects").resolve(sha1);
+        Files.createDirectories(object.getParent());
+        Files.copy(file, object, StandardCopyOption.REPLACE_EXISTING);
+        final JsonObject download = new JsonObject();
+        download.addProperty("sha1", sha1);
+        download.addProperty("size", Files.size(file));
+        download.addProperty("url", baseUrl + sha1 + "/" + name);
+        return download;
+    }
+
+}
@@ -0,0 +1,296 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.decompile;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.java.decompiler.api.Decompiler;
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.decompiler.CancelationManager;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.jetbrains.java.decompiler.main.extern.IResultSaver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Manifest;
+
+/**
+ * Measures the time Vineflower spends on each outer class and enforces a time budget per class.
+ * <p>
+ * Vineflower checks for cancellation before each method and each pass of a method. Once a class is over its budget,
+ * these checks fail the remaining methods of the class, which are written with a {@code Couldn't be decompiled} body,
+ * and a marker comment is added at the top of its source. A single method is also stopped after the budget. The other
+ * classes are not affected.
+ * <p>
+ * The cancellation checker of Vineflower is global: while timers are decompiling, a single checker is installed, which
+ * checks the budget of the timer processing the class of the current decompiler context and runs the previous checker.
+ * The previous checker is restored once no timer is decompiling, so timers may decompile concurrently.
+ * <p>
+ * The messages of Vineflower are forwarded to the application logger, its progress messages at the debug level.
+ */
+public final class ClassTimer extends IFernflowerLogger {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("Vineflower");
+
+    private static final String PROCESSING_PROPERTY = "minecraft-remapper-processing";
+
+    private static final Object CHECKER_LOCK = new Object();
+    private static int decompiling;
+    private static volatile Runnable previousChecker;
+
+    private final long budget;
+    private final Map<String, Long> times = new ConcurrentHashMap<>();
+    private final Set<String> overBudget = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<Processing> current = new ThreadLocal<>();
+
+    /**
+     * @param budget maximum time spent decompiling the methods of one class in seconds, {@code 0} for no limit
+     */
+    public ClassTimer(final int budget) {
+        this(budget, TimeUnit.SECONDS);
+    }
+
+    ClassTimer(final long budget, final @NotNull TimeUnit unit) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("budget must not be negative");
+        }
+        this.budget = Objects.requireNonNull(unit, "unit must not be null").toNanos(budget);
+    }
+
+    /**
+     * Decompiles with this timer, the output of the builder should be {@linkplain #wrap(IResultSaver) wrapped}.
+     */
+    public void decompile(final @NotNull Decompiler.Builder builder) {
+        Objects.requireNonNull(builder, "builder must not be null");
+        builder.logger(this);
+        if (this.budget == 0) {
+            builder.build().decompile();
+            return;
+        }
+        builder.option(IFernflowerPreferences.MAX_PROCESSING_METHOD, Long.toString(TimeUnit.NANOSECONDS.toSeconds(this.budget)));
+        installChecker();
+        try {
+            builder.build().decompile();
+        } finally {
+            uninstallChecker();
+        }
+    }
+
+    /**
+     * @return a saver adding the marker comment to the classes over budget
+     */
+    public @NotNull IResultSaver wrap(final @NotNull IResultSaver saver) {
+        Objects.requireNonNull(saver, "saver must not be null");
+        return new IResultSaver() {
+            @Override
+            public void saveFolder(final String path) {
+                saver.saveFolder(path);
+            }
+
+            @Override
+            public void copyFile(final String source, final String path, final String entryName) {
+                saver.copyFile(source, path, entryName);
+            }
+
+            @Override
+            public void saveClassFile(final String path, final String qualifiedName, final String entryName, final String content,
+                                      final int[] mapping) {
+                saver.saveClassFile(path, qualifiedName, entryName, ClassTimer.this.mark(qualifiedName, content), mapping);
+            }
+
+            @Override
+            public void createArchive(final String path, final String archiveName, final Manifest manifest) {
+                saver.createArchive(path, archiveName, manifest);
+            }
+
+            @Override
+            public void saveDirEntry(final String path, final String archiveName, final String entryName) {
+                saver.saveDirEntry(path, archiveName, entryName);
+            }
+
+            @Override
+            public void copyEntry(final String source, final String path, final String archiveName, final String entry) {
+                saver.copyEntry(source, path, archiveName, entry);
+            }
+
+            @Override
+            public void saveClassEntry(final String path, final String archiveName, final String qualifiedName, final String entryName,
+                                       final String content) {
+                saver.saveClassEntry(path, archiveName, qualifiedName, entryName, ClassTimer.this.mark(qualifiedName, content));
+            }
+
+            @Override
+            public void saveClassEntry(final String path, final String archiveName, final String qualifiedName, final String entryName,
+                                       final String content, final int[] mapping) {
+                saver.saveClassEntry(path, archiveName, qualifiedName, entryName, ClassTimer.this.mark(qualifiedName, content), mapping);
+            }
+
+            @Override
+            public void closeArchive(final String path, final String archiveName) {
+                saver.closeArchive(path, archiveName);
+            }
+        };
+    }
+
+    public @NotNull List<ClassTiming> getTimings() {
+        final List<ClassTiming> timings = new ArrayList<>(this.times.size());
+        this.times.forEach((name, time) -> timings.add(new ClassTiming(name, TimeUnit.NANOSECONDS.toMillis(time), this.overBudget.contains(name))));
+        return timings;
+    }
+
+    @Override
+    public void startProcessingClass(final String className) {
+        final Processing processing = new Processing(this, className, System.nanoTime());
+        this.current.set(processing);
+        // Methods may be decompiled in another thread sharing the context of the class
+        DecompilerContext.setProperty(PROCESSING_PROPERTY, processing);
+    }
+
+    @Override
+    public void endProcessingClass() {
+        DecompilerContext.setProperty(PROCESSING_PROPERTY, null);
+        this.end();
+    }
+
+    @Override
+    public void startReadingClass(final String className) {
+        this.current.set(new Processing(this, className, System.nanoTime()));
+    }
+
+    @Override
+    public void endReadingClass() {
+        this.end();
+    }
+
+    @Override
+    public void writeMessage(final String message, final Severity severity) {
+        this.writeMessage(message, severity, null);
+    }
+
+    @Override
+    public void writeMessage(final String message, final Severity severity, final Throwable t) {
+        if (!this.accepts(severity)) {
+            return;
+        }
+        // The methods stopped by the budget are already reported by the marker comment and the timings
+        final Throwable cause = t instanceof BudgetExceededException ? null : t;
+        switch (severity) {
+            case TRACE -> LOGGER.trace(message, cause);
+            // Vineflower reports each class it loads and decompiles
+            case INFO -> LOGGER.debug(message, cause);
+            case WARN -> LOGGER.warn(message, cause);
+            case ERROR -> LOGGER.error(message, cause);
+        }
+    }
+
+    private void end() {
+        final Processing processing = this.current.get();
+        if (processing != null) {
+            this.current.remove();
+            this.times.merge(processing.className(), System.nanoTime() - processing.start(), Long::sum);
+        }
+    }
+
+    private static void installChecker() {
+        synchronized (CHECKER_LOCK) {
+            if (decompiling++ == 0) {
+                previousChecker = getChecker();
+                CancelationManager.setCancelationChecker(ClassTimer::checkBudget);
+            }
+        }
+    }
+
+    private static void uninstallChecker() {
+        synchronized (CHECKER_LOCK) {
+            if (--decompiling == 0) {
+                CancelationManager.setCancelationChecker(previousChecker);
+                previousChecker = null;
+            }
+        }
+    }
+
+    /**
+     * @return the installed checker, Vineflower has no getter for it
+     */
+    private static Runnable getChecker() {
+        try {
+            final Field field = CancelationManager.class.getDeclaredField("cancelationChecker");
+            field.setAccessible(true);
+            if (field.get(null) instanceof final Runnable checker) {
+                return checker;
+            }
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            LOGGER.debug("Failed to read the cancellation checker of Vineflower", e);
+        }
+        return () -> {
+        };
+    }
+
+    private static void checkBudget() {
+        final Runnable previous = previousChecker;
+        if (previous != null) {
+            previous.run();
+        }
+        // The context is set on each thread decompiling a class, including the threads of its methods
+        if (DecompilerContext.getCurrentContext() == null ||
+                !(DecompilerContext.getProperty(PROCESSING_PROPERTY) instanceof final Processing processing)) {
+            return;
+        }
+        final ClassTimer timer = processing.timer();
+        if (timer.budget != 0 && System.nanoTime() - processing.start() > timer.budget) {
+            timer.overBudget.add(processing.className());
+            // Only fails the current method, cancelling would stop the whole decompilation
+            throw new BudgetExceededException();
+        }
+    }
+
+    private String mark(final String className, final String content) {
+        if (content == null || !this.overBudget.contains(className)) {
+            return content;
+        }
+        return "// Decompiling this class exceeded the budget of " + TimeUnit.NANOSECONDS.toSeconds(this.budget) +
+                " seconds, the remaining methods were skipped\n" + content;
+    }
+
+    private record Processing(ClassTimer timer, String className, long start) {
+    }
+
+    private static final class BudgetExceededException extends RuntimeException {
+
+        private BudgetExceededException() {
+            super("Class time budget exceeded", null, false, false);
+        }
+
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.decompile;
+
+import be.yvanmazy.minecraftremapper.util.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Manifest of the classes whose source is published, one internal name per line in the order they were published.
+ * Each line is appended once the source of the class is in place, and the last line is {@value #COMPLETE} once the
+ * whole jar is decompiled, so the manifest can be followed while decompiling.
+ */
+public final class DecompileProgress implements AutoCloseable {
+
+    public static final String COMPLETE = "# complete";
+
+    private final OutputStream output;
+    private int count;
+
+    private DecompileProgress(final OutputStream output) {
+        this.output = output;
+    }
+
+    /**
+     * Creates an empty manifest, replacing the previous one.
+     */
+    public static @NotNull DecompileProgress create(final @NotNull Path path) throws IOException {
+        Objects.requireNonNull(path, "path must not be null");
+        return new DecompileProgress(Files.newOutputStream(path));
+    }
+
+    /**
+     * @return the classes published by a complete manifest, or {@code null} when the manifest is missing or incomplete
+     */
+    public static @Nullable Set<String> read(final @NotNull Path path) throws IOException {
+        Objects.requireNonNull(path, "path must not be null");
+        if (Files.notExists(path)) {
+            return null;
+        }
+        final List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(lines.size() - 1).equals(COMPLETE)) {
+            return null;
+        }
+        return new HashSet<>(lines.subList(0, lines.size() - 1));
+    }
+
+    /**
+     * Prepares a directory to publish sources over the sources of its previous manifest. The directory is cleared when
+     * that manifest is not complete, its sources are unknown.
+     *
+     * @return the classes published by the previous manifest, to {@linkplain #deleteRemoved(Path, Set, Path) delete}
+     * once the new manifest is complete
+     */
+    public static @NotNull Set<String> prepare(final @NotNull Path directory, final @NotNull Path path) throws IOException {
+        Objects.requireNonNull(directory, "directory must not be null");
+        final Set<String> previous = read(path);
+        if (previous == null) {
+            FileUtil.recursiveDelete(directory);
+            return Set.of();
+        }
+        return previous;
+    }
+
+    /**
+     * Deletes the sources of the classes published by the previous manifest but not by the new one, either removed from
+     * the jar or no longer decompiled.
+     *
+     * @return the number of deleted sources
+     */
+    public static int deleteRemoved(final @NotNull Path directory, final @NotNull Set<String> previous, final @NotNull Path path)
+            throws IOException {
+        Objects.requireNonNull(directory, "directory must not be null");
+        Objects.requireNonNull(previous, "previous must not be null");
+        final Set<String> published = read(path);
+        int deleted = 0;
+        for (final String className : previous) {
+            if ((published == null || !published.contains(className)) &&
+                    Files.deleteIfExists(FileUtil.resolveEntry(directory, className + ".java"))) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    public synchronized void published(final @NotNull String className) {
+        Objects.requireNonNull(className, "className must not be null");
+        this.append(className);
+        this.count++;
+    }
+
+    public synchronized void complete() {
+        this.append(COMPLETE);
+    }
+
+    public synchronized int getCount() {
+        return this.count;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        this.output.close();
+    }
+
+    private void append(final String line) {
+        // A whole line per write, readers never see half a name
+        try {
+            this.output.write((line + '\n').getBytes(StandardCharsets.UTF_8));
+            this.output.flush();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to update decompile progress", e);
+        }
+    }
+
+}
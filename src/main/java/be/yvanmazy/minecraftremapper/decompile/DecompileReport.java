@@ -0,0 +1,135 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.decompile;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Report of the time spent decompiling each class, slowest classes first. Each line holds the milliseconds and the
+ * name of a class separated by a tab, followed by {@code over-budget} when the class exceeded its budget.
+ */
+public final class DecompileReport {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DecompileReport.class);
+
+    private static final String OVER_BUDGET = "over-budget";
+    private static final int LOGGED_CLASSES = 5;
+
+    private DecompileReport() throws IllegalAccessException {
+        throw new IllegalAccessException("You cannot instantiate a utility class");
+    }
+
+    public static void write(final @NotNull Path path, final @NotNull Collection<ClassTiming> timings) throws IOException {
+        Objects.requireNonNull(path, "path must not be null");
+        final List<ClassTiming> sorted = sort(timings);
+        final long total = sorted.stream().mapToLong(ClassTiming::millis).sum();
+        final long overBudget = sorted.stream().filter(ClassTiming::overBudget).count();
+        final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (final BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write("# " + sorted.size() + " classes in " + total + " ms, " + overBudget + " over budget\n");
+            for (final ClassTiming timing : sorted) {
+                writer.write(Long.toString(timing.millis()));
+                writer.write('\t');
+                writer.write(timing.className());
+                if (timing.overBudget()) {
+                    writer.write('\t');
+                    writer.write(OVER_BUDGET);
+                }
+                writer.write('\n');
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static @NotNull List<ClassTiming> read(final @NotNull Path path) throws IOException {
+        Objects.requireNonNull(path, "path must not be null");
+        final List<ClassTiming> timings = new ArrayList<>();
+        for (final String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            final String[] parts = line.split("\t");
+            if (parts.length < 2) {
+                throw new IOException("Invalid timing line: " + line);
+            }
+            try {
+                timings.add(new ClassTiming(parts[1], Long.parseLong(parts[0]), parts.length > 2 && parts[2].equals(OVER_BUDGET)));
+            } catch (final NumberFormatException e) {
+                throw new IOException("Invalid timing line: " + line, e);
+            }
+        }
+        return timings;
+    }
+
+    /**
+     * Writes the report and logs the slowest classes, a report that cannot be written is only logged.
+     */
+    public static void report(final @NotNull Path path, final @NotNull Collection<ClassTiming> timings) {
+        final List<ClassTiming> sorted = sort(timings);
+        if (sorted.isEmpty()) {
+            return;
+        }
+        try {
+            write(path, sorted);
+        } catch (final IOException e) {
+            LOGGER.error("Failed to write decompile report", e);
+        }
+        final StringBuilder slowest = new StringBuilder();
+        for (int i = 0; i < Math.min(LOGGED_CLASSES, sorted.size()); i++) {
+            final ClassTiming timing = sorted.get(i);
+            if (i > 0) {
+                slowest.append(", ");
+            }
+            slowest.append(timing.className()).append(" (").append(timing.millis()).append(" ms)");
+        }
+        LOGGER.info("Slowest classes: {}, see {}", slowest, path);
+        final long overBudget = sorted.stream().filter(ClassTiming::overBudget).count();
+        if (overBudget > 0) {
+            LOGGER.warn("{} classes exceeded their time budget and were partially decompiled.", overBudget);
+        }
+    }
+
+    private static List<ClassTiming> sort(final Collection<ClassTiming> timings) {
+        Objects.requireNonNull(timings, "timings must not be null");
+        final List<ClassTiming> sorted = new ArrayList<>(timings);
+        sorted.sort(Comparator.comparingLong(ClassTiming::millis).reversed().thenComparing(ClassTiming::className));
+        return sorted;
+    }
+
+}
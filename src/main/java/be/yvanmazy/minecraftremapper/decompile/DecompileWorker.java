@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.decompile;
+
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import org.jetbrains.java.decompiler.api.Decompiler;
+import org.jetbrains.java.decompiler.main.extern.IContextSource;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Entry point of the JVMs forked by {@link ForkedDecompiler}. A worker decompiles the classes of one partition, the
+ * other classes of the jar and the library are only read to resolve references.
+ * <p>
+ * Arguments: the jar, the library jar or an empty string, the output directory, the file listing the outer classes of
+ * the partition, the number of decompiler threads, the time budget of a class in seconds and the file receiving the time
+ * spent on each class.
+ */
+public final class DecompileWorker {
+
+    private DecompileWorker() throws IllegalAccessException {
+        throw new IllegalAccessException("You cannot instantiate a utility class");
+    }
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length != 7) {
+            System.err.println("Usage: <jar> <library> <output> <classes> <threads> <budget> <timings>");
+            System.exit(2);
+            return;
+        }
+        final Path output = Path.of(args[2]);
+        final Set<String> classes = new HashSet<>(Files.readAllLines(Path.of(args[3])));
+        final ClassTimer timer = new ClassTimer(Integer.parseInt(args[5]));
+        try (final MappedJar jar = MappedJar.open(Path.of(args[0]));
+             final MappedJar library = args[1].isEmpty() ? null : MappedJar.open(Path.of(args[1]))) {
+            final List<IContextSource> libraries = new ArrayList<>();
+            libraries.add(new PartitionContextSource(jar, output, name -> !classes.contains(ForkedDecompiler.getOuterName(name))));
+            if (library != null) {
+                libraries.add(new PartitionContextSource(library, output, name -> true));
+            }
+            timer.decompile(Decompiler.builder()
+                    .inputs(new PartitionContextSource(jar, output, name -> classes.contains(ForkedDecompiler.getOuterName(name))))
+                    .libraries(libraries.toArray(IContextSource[]::new))
+                    .output(timer.wrap(new PublishingResultSaver(output, null)))
+                    .option(IFernflowerPreferences.THREADS, args[4]));
+        }
+        DecompileReport.write(Path.of(args[6]), timer.getTimings());
+        // Decompiler threads must not keep the worker alive
+        System.exit(0);
+    }
+
+}
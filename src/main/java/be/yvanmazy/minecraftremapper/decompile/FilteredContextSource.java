@@ -0,0 +1,64 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.decompile;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.StreamSupport;
+
+/**
+ * Vineflower input reading only the entries of another jar source accepted by a filter.
+ */
+final class FilteredContextSource extends JarContextSource {
+
+    private final JarContextSource source;
+    private final Predicate<String> filter;
+
+    FilteredContextSource(final @NotNull JarContextSource source, final @NotNull Path resourceDirectory, final @NotNull Predicate<String> filter) {
+        super(Objects.requireNonNull(source, "source must not be null").getArchiveName(),
+                Objects.requireNonNull(resourceDirectory, "resourceDirectory must not be null"));
+        this.source = source;
+        this.filter = Objects.requireNonNull(filter, "filter must not be null");
+    }
+
+    @Override
+    public String getName() {
+        return "filtered " + this.source.getName();
+    }
+
+    @Override
+    Iterable<String> getEntryNames() {
+        return StreamSupport.stream(this.source.getEntryNames().spliterator(), false).filter(this.filter).toList();
+    }
+
+    @Override
+    byte[] read(final String entry) {
+        return this.source.read(entry);
+    }
+
+}
@@ -0,0 +1,356 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.decompile;
+
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import be.yvanmazy.minecraftremapper.setting.ClassFilter;
+import be.yvanmazy.minecraftremapper.setting.DecompileSettings;
+import be.yvanmazy.minecraftremapper.util.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.java.decompiler.api.Decompiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinylog.core.TinylogLoggingProvider;
+import org.tinylog.provider.ProviderRegistry;
+import org.tinylog.slf4j.TinylogSlf4jServiceProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Decompiles a jar in worker JVMs with a bounded heap, so the memory of the decompiler never goes above the budget.
+ * Classes are split into partitions of similar sizes, each decompiled by one worker straight into the output directory.
+ * Partitions of the priority classes are decompiled first, and the classes of a partition are added to the progress
+ * manifest once its worker exits. A worker that crashes, for instance when it runs out of memory, is retried with both
+ * halves of its partition.
+ */
+public final class ForkedDecompiler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ForkedDecompiler.class);
+
+    // More partitions than workers, so a crash only loses a small part of the jar
+    private static final int PARTITIONS_PER_WORKER = 4;
+
+    // The class path of the workers is made of the code sources of these classes, not of the class path of the JVM
+    private static final List<Class<?>> WORKER_CLASSES = List.of(ForkedDecompiler.class, Decompiler.class, LoggerFactory.class,
+            TinylogSlf4jServiceProvider.class, ProviderRegistry.class, TinylogLoggingProvider.class);
+    private static final String LOGGING_CONFIGURATION = "tinylog.properties";
+
+    private final DecompileSettings settings;
+    private final Path workDirectory;
+    private final Class<?> worker;
+    private final String classPath;
+    private final AtomicInteger shardIds = new AtomicInteger();
+    private final List<ClassTiming> timings = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * @param workDirectory directory of the class lists and the logs of the workers
+     */
+    public ForkedDecompiler(final @NotNull DecompileSettings settings, final @NotNull Path workDirectory) {
+        this(settings, workDirectory, DecompileWorker.class);
+    }
+
+    /**
+     * @param worker main class of the workers, taking the arguments of {@link DecompileWorker}
+     */
+    ForkedDecompiler(final @NotNull DecompileSettings settings, final @NotNull Path workDirectory, final @NotNull Class<?> worker) {
+        this.settings = Objects.requireNonNull(settings, "settings must not be null");
+        this.workDirectory = Objects.requireNonNull(workDirectory, "workDirectory must not be null");
+        this.worker = Objects.requireNonNull(worker, "worker must not be null");
+        if (!settings.isForked()) {
+            throw new IllegalArgumentException("settings must use workers");
+        }
+        this.classPath = getClassPath(worker);
+    }
+
+    /**
+     * @param library  jar whose classes are only read to resolve references, or {@code null}
+     * @param progress manifest of the published classes, replaced
+     * @return the outer classes that could not be decompiled, even alone
+     */
+    public @NotNull List<String> decompile(final @NotNull Path jarPath, final @Nullable Path library, final @NotNull Path output,
+                                           final @NotNull Path progress) throws IOException {
+        Objects.requireNonNull(jarPath, "jarPath must not be null");
+        Objects.requireNonNull(output, "output must not be null");
+        Objects.requireNonNull(progress, "progress must not be null");
+        final int concurrent = this.settings.getConcurrentWorkers();
+        final List<List<String>> partitions;
+        try (final MappedJar jar = MappedJar.open(jarPath)) {
+            copyResources(jar, output);
+            partitions = this.partition(jar, concurrent * PARTITIONS_PER_WORKER);
+        }
+        Files.createDirectories(this.workDirectory);
+        final int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / concurrent);
+        LOGGER.info("Decompiling {} partitions with {} workers of {} MB...", partitions.size(), concurrent, this.settings.workerHeap());
+
+        this.timings.clear();
+        final List<String> failed = Collections.synchronizedList(new ArrayList<>());
+        final ExecutorService executor = Executors.newFixedThreadPool(concurrent, runnable -> {
+            final Thread thread = new Thread(runnable, "Decompile-Worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (final DecompileProgress manifest = DecompileProgress.create(progress)) {
+            final List<Future<Void>> futures = new ArrayList<>();
+            // Workers take the partitions in order, priority classes first
+            for (final List<String> partition : partitions) {
+                futures.add(executor.submit(() -> {
+                    this.run(jarPath, library, output, partition, threads, manifest, failed);
+                    return null;
+                }));
+            }
+            for (final Future<Void> future : futures) {
+                future.get();
+            }
+            manifest.complete();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while decompiling");
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IOException("Decompile worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        // Logs of the failed workers are kept
+        try (final Stream<Path> files = Files.list(this.workDirectory)) {
+            if (files.findAny().isEmpty()) {
+                Files.delete(this.workDirectory);
+            }
+        }
+        if (!failed.isEmpty()) {
+            LOGGER.error("{} classes could not be decompiled: {}", failed.size(), failed);
+        }
+        return List.copyOf(failed);
+    }
+
+    /**
+     * @return the time spent on each class decompiled by the last call to {@link #decompile(Path, Path, Path, Path)}
+     */
+    public @NotNull List<ClassTiming> getTimings() {
+        synchronized (this.timings) {
+            return List.copyOf(this.timings);
+        }
+    }
+
+    /**
+     * @param entry internal name of a class, or the name of its entry
+     * @return internal name of the outer class, with which nested classes are decompiled
+     */
+    public static @NotNull String getOuterName(final @NotNull String entry) {
+        final int nested = entry.indexOf('$');
+        if (nested != -1) {
+            return entry.substring(0, nested);
+        }
+        return entry.endsWith(".class") ? entry.substring(0, entry.length() - ".class".length()) : entry;
+    }
+
+    private void run(final Path jarPath, final Path library, final Path output, final List<String> partition, final int threads,
+                     final DecompileProgress manifest, final List<String> failed) throws IOException {
+        final int id = this.shardIds.incrementAndGet();
+        final Path classes = this.workDirectory.resolve("shard-" + id + ".classes");
+        final Path log = this.workDirectory.resolve("shard-" + id + ".log");
+        final Path timings = this.workDirectory.resolve("shard-" + id + ".timings");
+        Files.write(classes, partition);
+        final int exitCode;
+        try {
+            exitCode = this.launch(jarPath, library, output, classes, log, timings, threads);
+        } finally {
+            Files.deleteIfExists(classes);
+        }
+        if (exitCode == 0) {
+            final List<ClassTiming> decompiled = DecompileReport.read(timings);
+            this.timings.addAll(decompiled);
+            decompiled.forEach(timing -> manifest.published(timing.className()));
+            Files.deleteIfExists(timings);
+            Files.deleteIfExists(log);
+            return;
+        }
+        Files.deleteIfExists(timings);
+        if (partition.size() == 1) {
+            LOGGER.error("Decompile worker exited with code {} on {}, see {}", exitCode, partition.get(0), log);
+            failed.add(partition.get(0));
+            return;
+        }
+        // The classes already written are written again by the smaller partitions
+        LOGGER.warn("Decompile worker exited with code {} on {} classes, retrying with smaller partitions, see {}", exitCode, partition.size(), log);
+        final int half = partition.size() / 2;
+        this.run(jarPath, library, output, partition.subList(0, half), threads, manifest, failed);
+        this.run(jarPath, library, output, partition.subList(half, partition.size()), threads, manifest, failed);
+    }
+
+    private int launch(final Path jarPath, final Path library, final Path output, final Path classes, final Path log, final Path timings,
+                       final int threads) throws IOException {
+        final List<String> command = List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xmx" + this.settings.workerHeap() + "m",
+                "-XX:+ExitOnOutOfMemoryError",
+                "-cp",
+                this.classPath,
+                this.worker.getName(),
+                jarPath.toAbsolutePath().toString(),
+                library != null ? library.toAbsolutePath().toString() : "",
+                output.toAbsolutePath().toString(),
+                classes.toAbsolutePath().toString(),
+                Integer.toString(threads),
+                Integer.toString(this.settings.classBudget()),
+                timings.toAbsolutePath().toString());
+        final Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            return process.waitFor();
+        } catch (final InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a decompile worker");
+        }
+    }
+
+    /**
+     * @return the code sources of the worker and of its dependencies, with the root of the logging configuration
+     */
+    private static String getClassPath(final Class<?> worker) {
+        final Set<Path> entries = new LinkedHashSet<>();
+        try {
+            entries.add(getLocation(worker));
+            for (final Class<?> type : WORKER_CLASSES) {
+                entries.add(getLocation(type));
+            }
+            final URL configuration = ForkedDecompiler.class.getClassLoader().getResource(LOGGING_CONFIGURATION);
+            if (configuration != null) {
+                entries.add("jar".equals(configuration.getProtocol()) ?
+                        Path.of(((JarURLConnection) configuration.openConnection()).getJarFileURL().toURI()) :
+                        Path.of(configuration.toURI()).getParent());
+            }
+        } catch (final IOException | URISyntaxException e) {
+            throw new IllegalStateException("Failed to locate the class path of the decompile workers", e);
+        }
+        return entries.stream().map(Path::toString).collect(Collectors.joining(File.pathSeparator));
+    }
+
+    private static Path getLocation(final Class<?> type) throws URISyntaxException {
+        final CodeSource source = type.getProtectionDomain().getCodeSource();
+        if (source == null) {
+            throw new IllegalStateException("No code source for " + type.getName());
+        }
+        return Path.of(source.getLocation().toURI());
+    }
+
+    private static void copyResources(final MappedJar jar, final Path output) throws IOException {
+        for (int i = 0; i < jar.size(); i++) {
+            final String name = jar.getName(i);
+            if (name.endsWith("/") || name.endsWith(".class")) {
+                continue;
+            }
+            final Path target = FileUtil.resolveEntry(output, name);
+            Files.createDirectories(target.getParent());
+            jar.copyTo(i, target);
+        }
+    }
+
+    /**
+     * Splits the outer classes into partitions of similar sizes, nested classes follow their outer class. Classes of
+     * each priority get their own partitions, placed before the partitions of the next priorities.
+     */
+    private List<List<String>> partition(final MappedJar jar, final int count) {
+        final List<ClassFilter> filters = this.settings.getPriorityFilters();
+        final List<Map<String, Long>> groups = new ArrayList<>(filters.size() + 1);
+        for (int i = 0; i <= filters.size(); i++) {
+            groups.add(new HashMap<>());
+        }
+        final Map<String, Integer> priorities = new HashMap<>();
+        long total = 0;
+        for (int i = 0; i < jar.size(); i++) {
+            final String name = jar.getName(i);
+            if (name.endsWith(".class")) {
+                final String outer = getOuterName(name);
+                final int priority = priorities.computeIfAbsent(outer, key -> getPriority(filters, key));
+                groups.get(priority).merge(outer, (long) jar.getSize(i), Long::sum);
+                total += jar.getSize(i);
+            }
+        }
+        final List<List<String>> partitions = new ArrayList<>();
+        for (final Map<String, Long> group : groups) {
+            final long weight = group.values().stream().mapToLong(Long::longValue).sum();
+            final int groupCount = total == 0 ? count : (int) Math.round((double) count * weight / total);
+            partitions.addAll(balance(group, Math.max(1, groupCount)));
+        }
+        return partitions;
+    }
+
+    private static List<List<String>> balance(final Map<String, Long> sizes, final int count) {
+        final List<Map.Entry<String, Long>> classes = new ArrayList<>(sizes.entrySet());
+        // The largest classes first, each into the lightest partition
+        classes.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        final int partitionCount = Math.max(1, Math.min(count, classes.size()));
+        final List<List<String>> partitions = new ArrayList<>(partitionCount);
+        final long[] weights = new long[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (final Map.Entry<String, Long> entry : classes) {
+            int lightest = 0;
+            for (int i = 1; i < partitionCount; i++) {
+                if (weights[i] < weights[lightest]) {
+                    lightest = i;
+                }
+            }
+            partitions.get(lightest).add(entry.getKey());
+            weights[lightest] += entry.getValue();
+        }
+        partitions.removeIf(List::isEmpty);
+        partitions.forEach(Collections::sort);
+        return partitions;
+    }
+
+    /**
+     * @return the index of the first filter accepting the class, or the number of filters
+     */
+    static int getPriority(final @NotNull List<ClassFilter> filters, final @NotNull String className) {
+        for (int i = 0; i < filters.size(); i++) {
+            if (filters.get(i).test(className)) {
+                return i;
+            }
+        }
+        return filters.size();
+    }
+
+}
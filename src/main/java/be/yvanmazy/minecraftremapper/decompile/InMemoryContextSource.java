@@ -0,0 +1,61 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.decompile;
+
+import be.yvanmazy.minecraftremapper.jar.InMemoryJar;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Vineflower input reading the classes of an {@link InMemoryJar}, so remapped classes never go through a jar file.
+ * Decompiled classes go to the result saver, other entries are copied as is in the resource directory.
+ */
+public final class InMemoryContextSource extends JarContextSource {
+
+    private final InMemoryJar jar;
+
+    public InMemoryContextSource(final @NotNull String name, final @NotNull InMemoryJar jar, final @NotNull Path resourceDirectory) {
+        super(Objects.requireNonNull(name, "name must not be null"), Objects.requireNonNull(resourceDirectory, "resourceDirectory must not be null"));
+        this.jar = Objects.requireNonNull(jar, "jar must not be null");
+    }
+
+    @Override
+    public String getName() {
+        return "memory " + this.getArchiveName();
+    }
+
+    @Override
+    Iterable<String> getEntryNames() {
+        return this.jar.getEntries().keySet();
+    }
+
+    @Override
+    byte[] read(final String entry) {
+        return this.jar.get(entry);
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.decompile;
+
+import be.yvanmazy.minecraftremapper.util.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.java.decompiler.main.extern.IContextSource;
+import org.jetbrains.java.decompiler.main.extern.IResultSaver;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Vineflower input reading the entries of a jar held by the application.
+ * Decompiled classes go to the result saver, other entries are copied as is in the resource directory.
+ */
+abstract class JarContextSource implements IContextSource {
+
+    private final String name;
+    private final Path resourceDirectory;
+
+    JarContextSource(final String name, final Path resourceDirectory) {
+        this.name = name;
+        this.resourceDirectory = resourceDirectory;
+    }
+
+    abstract Iterable<String> getEntryNames();
+
+    abstract byte[] read(String entry);
+
+    String getArchiveName() {
+        return this.name;
+    }
+
+    /**
+     * @return a source of the same jar only reading the entries accepted by the filter
+     */
+    public @NotNull IContextSource filter(final @NotNull Predicate<String> filter) {
+        return new FilteredContextSource(this, this.resourceDirectory, filter);
+    }
+
+    @Override
+    public Entries getEntries() {
+        final List<Entry> classes = new ArrayList<>();
+        final Set<String> directories = new LinkedHashSet<>();
+        final List<Entry> others = new ArrayList<>();
+        for (final String entry : this.getEntryNames()) {
+            for (int index = entry.indexOf('/'); index != -1; index = entry.indexOf('/', index + 1)) {
+                directories.add(entry.substring(0, index));
+            }
+            if (entry.endsWith("/")) {
+                continue;
+            }
+            if (entry.endsWith(CLASS_SUFFIX)) {
+                classes.add(Entry.parse(entry.substring(0, entry.length() - CLASS_SUFFIX.length())));
+            } else {
+                others.add(Entry.parse(entry));
+            }
+        }
+        return new Entries(classes, List.copyOf(directories), others);
+    }
+
+    @Override
+    public byte[] getClassBytes(final String className) {
+        return this.read(className + CLASS_SUFFIX);
+    }
+
+    @Override
+    public InputStream getInputStream(final String resource) {
+        final byte[] data = this.read(resource);
+        return data != null ? new ByteArrayInputStream(data) : null;
+    }
+
+    @Override
+    public IOutputSink createOutputSink(final IResultSaver saver) {
+        return new IOutputSink() {
+            @Override
+            public void begin() {
+                saver.saveFolder("");
+            }
+
+            @Override
+            public void acceptClass(final String qualifiedName, final String fileName, final String content, final int[] mapping) {
+                saver.saveClassEntry("", JarContextSource.this.name, qualifiedName, fileName, content, mapping);
+            }
+
+            @Override
+            public void acceptDirectory(final String directory) {
+                saver.saveDirEntry("", JarContextSource.this.name, directory);
+            }
+
+            @Override
+            public void acceptOther(final String path) {
+                final byte[] data = JarContextSource.this.read(path);
+                if (data == null) {
+                    return;
+                }
+                try {
+                    final Path target = FileUtil.resolveEntry(JarContextSource.this.resourceDirectory, path);
+                    Files.createDirectories(target.getParent());
+                    Files.write(target, data);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException("Failed to copy resource " + path, e);
+                }
+            }
+
+            @Override
+            public void close() {
+                saver.closeArchive("", JarContextSource.this.name);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.decompile;
+
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Vineflower input reading only some classes of a {@link MappedJar}, other entries are left to the application.
+ */
+final class PartitionContextSource extends JarContextSource {
+
+    private final MappedJar jar;
+    private final Predicate<String> filter;
+
+    PartitionContextSource(final @NotNull MappedJar jar, final @NotNull Path resourceDirectory, final @NotNull Predicate<String> filter) {
+        super(Objects.requireNonNull(jar, "jar must not be null").getPath().getFileName().toString(),
+                Objects.requireNonNull(resourceDirectory, "resourceDirectory must not be null"));
+        this.jar = jar;
+        this.filter = Objects.requireNonNull(filter, "filter must not be null");
+    }
+
+    @Override
+    public String getName() {
+        return "partition " + this.jar.getPath();
+    }
+
+    @Override
+    Iterable<String> getEntryNames() {
+        return this.jar.getEntryNames().stream().filter(name -> name.endsWith(CLASS_SUFFIX) && this.filter.test(name)).toList();
+    }
+
+    @Override
+    byte[] read(final String entry) {
+        try {
+            return this.jar.read(entry);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read " + entry, e);
+        }
+    }
+
+}
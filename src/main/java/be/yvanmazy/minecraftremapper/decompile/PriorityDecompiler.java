@@ -0,0 +1,135 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.decompile;
+
+import be.yvanmazy.minecraftremapper.setting.ClassFilter;
+import be.yvanmazy.minecraftremapper.setting.DecompileSettings;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.java.decompiler.api.Decompiler;
+import org.jetbrains.java.decompiler.main.extern.IContextSource;
+import org.jetbrains.java.decompiler.main.extern.IResultSaver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Decompiles a jar source in the application, publishing the source of each class atomically into the output directory
+ * and listing it in a {@link DecompileProgress} manifest.
+ * <p>
+ * Vineflower only hands out the sources once all the classes of a run are decompiled. With priorities, classes are
+ * decompiled in runs of growing sizes, the classes matching the first priority first, so the important sources are
+ * published in seconds while the setup cost of a run is only paid a few times. The classes of the other runs are
+ * given as libraries to resolve references.
+ */
+public final class PriorityDecompiler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PriorityDecompiler.class);
+
+    private static final int FIRST_RUN_SIZE = 64;
+
+    private final DecompileSettings settings;
+
+    public PriorityDecompiler(final @NotNull DecompileSettings settings) {
+        this.settings = Objects.requireNonNull(settings, "settings must not be null");
+    }
+
+    /**
+     * @param source   an {@link InMemoryContextSource} or a {@link MappedJarContextSource}
+     * @param library  an {@link InMemoryContextSource} or a {@link MappedJarContextSource} only read to resolve references,
+     *                 or {@code null}
+     * @param progress manifest of the published classes, replaced
+     * @return the time spent on each class
+     */
+    public @NotNull List<ClassTiming> decompile(final @NotNull IContextSource source, final @Nullable IContextSource library,
+                                                final @NotNull Path output, final @NotNull Path progress) throws IOException {
+        Objects.requireNonNull(output, "output must not be null");
+        Objects.requireNonNull(progress, "progress must not be null");
+        final JarContextSource jar = toJarSource(Objects.requireNonNull(source, "source must not be null"));
+        final List<IContextSource> libraries = library != null ? List.of(toJarSource(library)) : List.of();
+        final ClassTimer timer = new ClassTimer(this.settings.classBudget());
+        try (final DecompileProgress manifest = DecompileProgress.create(progress)) {
+            final IResultSaver saver = timer.wrap(new PublishingResultSaver(output, manifest));
+            if (this.settings.priorities().isEmpty()) {
+                timer.decompile(Decompiler.builder().inputs(jar).libraries(libraries.toArray(IContextSource[]::new)).output(saver));
+            } else {
+                final List<Set<String>> runs = this.split(jar);
+                for (int i = 0; i < runs.size(); i++) {
+                    final Set<String> run = runs.get(i);
+                    final boolean first = i == 0;
+                    final List<IContextSource> others = new ArrayList<>(libraries);
+                    others.add(new FilteredContextSource(jar, output, name -> isClass(name) && !run.contains(ForkedDecompiler.getOuterName(name))));
+                    // Resources are copied with the first run
+                    final Predicate<String> inputs = name -> isClass(name) ? run.contains(ForkedDecompiler.getOuterName(name)) : first;
+                    timer.decompile(Decompiler.builder()
+                            .inputs(new FilteredContextSource(jar, output, inputs))
+                            .libraries(others.toArray(IContextSource[]::new))
+                            .output(saver));
+                    LOGGER.info("Published {} classes ({}/{} runs).", manifest.getCount(), i + 1, runs.size());
+                }
+            }
+            manifest.complete();
+        }
+        return timer.getTimings();
+    }
+
+    /**
+     * Splits the outer classes into runs doubling in size, ordered by priority and name.
+     */
+    private List<Set<String>> split(final JarContextSource jar) {
+        final List<ClassFilter> filters = this.settings.getPriorityFilters();
+        final Map<String, Integer> priorities = new HashMap<>();
+        for (final String name : jar.getEntryNames()) {
+            if (isClass(name)) {
+                priorities.computeIfAbsent(ForkedDecompiler.getOuterName(name), outer -> ForkedDecompiler.getPriority(filters, outer));
+            }
+        }
+        final List<String> classes = new ArrayList<>(priorities.keySet());
+        classes.sort(Comparator.<String>comparingInt(priorities::get).thenComparing(Comparator.naturalOrder()));
+
+        final List<Set<String>> runs = new ArrayList<>();
+        int size = FIRST_RUN_SIZE;
+        for (int start = 0; start < classes.size(); start += size, size *= 2) {
+            runs.add(new HashSet<>(classes.subList(start, Math.min(classes.size(), start + size))));
+        }
+        return runs;
+    }
+
+    private static boolean isClass(final String name) {
+        return name.endsWith(IContextSource.CLASS_SUFFIX);
+    }
+
+    private static JarContextSource toJarSource(final IContextSource source) {
+        if (source instanceof final JarContextSource jar) {
+            return jar;
+        }
+        throw new IllegalArgumentException("Unsupported source " + source.getName());
+    }
+
+}
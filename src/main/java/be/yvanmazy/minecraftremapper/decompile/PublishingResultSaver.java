@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.decompile;
+
+import be.yvanmazy.minecraftremapper.util.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.java.decompiler.main.extern.IResultSaver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Saves the decompiled classes of jar sources into a directory. Each source is written beside its target and moved in
+ * place, so a source file is either absent or complete, then added to the progress manifest. Files copied by the
+ * decompiler are published the same way, but they are not classes and are not added to the manifest.
+ */
+final class PublishingResultSaver implements IResultSaver {
+
+    private final Path root;
+    private final DecompileProgress progress;
+
+    PublishingResultSaver(final @NotNull Path root, final @Nullable DecompileProgress progress) {
+        this.root = Objects.requireNonNull(root, "root must not be null");
+        this.progress = progress;
+    }
+
+    @Override
+    public void saveFolder(final String path) {
+        this.createDirectories(this.root.resolve(path));
+    }
+
+    @Override
+    public void saveDirEntry(final String path, final String archiveName, final String entryName) {
+        this.createDirectories(this.root.resolve(entryName));
+    }
+
+    @Override
+    public void saveClassEntry(final String path, final String archiveName, final String qualifiedName, final String entryName,
+                               final String content) {
+        this.publish(qualifiedName, this.root.resolve(entryName), content);
+    }
+
+    @Override
+    public void saveClassFile(final String path, final String qualifiedName, final String entryName, final String content, final int[] mapping) {
+        this.publish(qualifiedName, this.root.resolve(path).resolve(entryName), content);
+    }
+
+    @Override
+    public void createArchive(final String path, final String archiveName, final Manifest manifest) {
+    }
+
+    @Override
+    public void closeArchive(final String path, final String archiveName) {
+    }
+
+    @Override
+    public void copyFile(final String source, final String path, final String entryName) {
+        try {
+            final Path target = FileUtil.resolveEntry(this.root.resolve(path), entryName);
+            publish(target, temp -> Files.copy(Path.of(source), temp, StandardCopyOption.REPLACE_EXISTING));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to copy file " + source, e);
+        }
+    }
+
+    /**
+     * Copies the entry of the source archive into the directory, archives are not created.
+     */
+    @Override
+    public void copyEntry(final String source, final String path, final String archiveName, final String entryName) {
+        try (final ZipFile archive = new ZipFile(source)) {
+            final ZipEntry entry = archive.getEntry(entryName);
+            if (entry == null) {
+                throw new IOException("No entry " + entryName + " in " + source);
+            }
+            final Path target = FileUtil.resolveEntry(this.root, entryName);
+            publish(target, temp -> {
+                try (final InputStream input = archive.getInputStream(entry)) {
+                    Files.copy(input, temp, StandardCopyOption.REPLACE_EXISTING);
+                }
+            });
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to copy entry " + entryName + " of " + source, e);
+        }
+    }
+
+    private void publish(final String qualifiedName, final Path target, final String content) {
+        try {
+            publish(target, temp -> Files.writeString(temp, content != null ? content : "", StandardCharsets.UTF_8));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to save class " + qualifiedName, e);
+        }
+        if (this.progress != null) {
+            this.progress.published(qualifiedName);
+        }
+    }
+
+    private static void publish(final Path target, final FileWriter writer) throws IOException {
+        final Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.createDirectories(target.getParent());
+        writer.write(temp);
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void createDirectories(final Path directory) {
+        try {
+            Files.createDirectories(directory);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to create directory " + directory, e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface FileWriter {
+
+        void write(final Path temp) throws IOException;
+
+    }
+
+}
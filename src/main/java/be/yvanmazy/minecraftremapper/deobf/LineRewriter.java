@@ -0,0 +1,212 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.deobf;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+/**
+ * Rewrites obfuscated names found in text: stack frames, exception headers, {@code class x} references
+ * and {@code owner.member} tokens. Instances are stateless and can be shared between threads.
+ */
+public final class LineRewriter {
+
+    private static final String[] CLASS_PREFIXES = {"class ", "Caused by: "};
+
+    private final MappingIndex index;
+
+    public LineRewriter(final @NotNull MappingIndex index) {
+        this.index = Objects.requireNonNull(index, "index must not be null");
+    }
+
+    public @NotNull String rewrite(final @NotNull CharSequence text) {
+        final StringBuilder builder = new StringBuilder(text.length() + 64);
+        this.rewrite(text, builder);
+        return builder.toString();
+    }
+
+    public void rewrite(final @NotNull CharSequence text, final @NotNull StringBuilder out) {
+        final int length = text.length();
+        int lineStart = 0;
+        int i = 0;
+        while (i < length) {
+            final char c = text.charAt(i);
+            if (c == '\n') {
+                lineStart = i + 1;
+                out.append(c);
+                i++;
+            } else if (Character.isJavaIdentifierStart(c) && (i == 0 || !isTokenPart(text.charAt(i - 1)))) {
+                final int end = tokenEnd(text, i, length);
+                this.rewriteToken(text, lineStart, i, end, out);
+                i = end;
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+    }
+
+    private void rewriteToken(final CharSequence text, final int lineStart, final int start, final int end, final StringBuilder out) {
+        final int lastDot = lastIndexOf(text, '.', start, end);
+        final int ownerLength = lastDot == -1 ? end - start : lastDot - start;
+        // Obfuscated names are short, most tokens are rejected without any allocation
+        if (ownerLength > this.index.getMaxClassNameLength() && end - start > this.index.getMaxClassNameLength()) {
+            out.append(text, start, end);
+            return;
+        }
+        final String token = text.subSequence(start, end).toString();
+        if (lastDot != -1) {
+            final String owner = token.substring(0, lastDot - start);
+            final String member = token.substring(lastDot - start + 1);
+            final String ownerNamed = this.index.mapClass(owner);
+            if (ownerNamed != null) {
+                if (end < text.length() && text.charAt(end) == '(') {
+                    // Stack frame or method reference: owner.method(SourceFile:123)
+                    final String method = this.index.mapMethod(owner, member, frameLine(text, end));
+                    out.append(ownerNamed).append('.').append(method != null ? method : member);
+                    return;
+                }
+                if (this.index.hasMember(owner, member)) {
+                    final String field = this.index.mapField(owner, member);
+                    out.append(ownerNamed).append('.').append(field != null ? field : this.index.mapMethod(owner, member, 0));
+                    return;
+                }
+            }
+            final String named = this.index.mapClass(token);
+            out.append(named != null ? named : token);
+            return;
+        }
+        // A bare short word is only a class when the context says so, "at" or "a" are common words
+        final String named = this.index.mapClass(token);
+        if (named != null && (token.indexOf('$') != -1 || isClassContext(text, lineStart, start, end))) {
+            out.append(named);
+        } else {
+            out.append(token);
+        }
+    }
+
+    private static boolean isClassContext(final CharSequence text, final int lineStart, final int start, final int end) {
+        int contentStart = lineStart;
+        while (contentStart < start && Character.isWhitespace(text.charAt(contentStart))) {
+            contentStart++;
+        }
+        // Exception header: "abc: message" or "abc" alone on its line
+        if (contentStart == start && (end == text.length() || text.charAt(end) == ':' || text.charAt(end) == '\n' || text.charAt(end) == '\r')) {
+            return true;
+        }
+        // Uncaught exception header: Exception in thread "main" abc: message
+        if (endsWith(text, start, "\" ") && startsWith(text, contentStart, "Exception in thread ")) {
+            return true;
+        }
+        for (final String prefix : CLASS_PREFIXES) {
+            if (endsWith(text, start, prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int frameLine(final CharSequence text, final int parenthesis) {
+        final int length = text.length();
+        int i = parenthesis + 1;
+        int colon = -1;
+        while (i < length) {
+            final char c = text.charAt(i);
+            if (c == ')') {
+                break;
+            }
+            if (c == ':') {
+                colon = i;
+            } else if (c == '\n' || c == '(') {
+                return 0;
+            }
+            i++;
+        }
+        if (colon == -1 || i == length || colon + 1 == i) {
+            return 0;
+        }
+        int line = 0;
+        for (int j = colon + 1; j < i; j++) {
+            final char c = text.charAt(j);
+            if (c < '0' || c > '9' || line > 100_000_000) {
+                return 0;
+            }
+            line = line * 10 + (c - '0');
+        }
+        return line;
+    }
+
+    private static int tokenEnd(final CharSequence text, final int start, final int length) {
+        int i = start + 1;
+        while (i < length) {
+            final char c = text.charAt(i);
+            if (c == '.') {
+                // A dot only continues the token when an identifier follows
+                if (i + 1 < length && Character.isJavaIdentifierStart(text.charAt(i + 1))) {
+                    i++;
+                    continue;
+                }
+                break;
+            }
+            if (!Character.isJavaIdentifierPart(c) || Character.isIdentifierIgnorable(c)) {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isTokenPart(final char c) {
+        return c == '.' || (Character.isJavaIdentifierPart(c) && !Character.isIdentifierIgnorable(c));
+    }
+
+    private static boolean endsWith(final CharSequence text, final int end, final String suffix) {
+        final int start = end - suffix.length();
+        if (start < 0) {
+            return false;
+        }
+        for (int i = 0; i < suffix.length(); i++) {
+            if (text.charAt(start + i) != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(final CharSequence text, final int start, final String prefix) {
+        return start + prefix.length() <= text.length() && endsWith(text, start + prefix.length(), prefix);
+    }
+
+    private static int lastIndexOf(final CharSequence text, final char c, final int start, final int end) {
+        for (int i = end - 1; i >= start; i--) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
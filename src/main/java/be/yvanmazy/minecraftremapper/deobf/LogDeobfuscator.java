@@ -0,0 +1,189 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.deobf;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Deobfuscates crash reports and logs of any size. The input is cut in line aligned chunks rewritten on several threads,
+ * chunks are written back in order and only a bounded number of them are in memory at the same time.
+ */
+public final class LogDeobfuscator implements Closeable {
+
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private final LineRewriter rewriter;
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final int window;
+
+    public LogDeobfuscator(final @NotNull MappingIndex index) {
+        this(index, Runtime.getRuntime().availableProcessors());
+    }
+
+    public LogDeobfuscator(final @NotNull MappingIndex index, final int threads) {
+        this(index, threads, DEFAULT_CHUNK_SIZE);
+    }
+
+    public LogDeobfuscator(final @NotNull MappingIndex index, final int threads, final int chunkSize) {
+        Objects.requireNonNull(index, "index must not be null");
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.rewriter = new LineRewriter(index);
+        this.chunkSize = chunkSize;
+        this.window = threads * 2;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "Log-Deobfuscator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Deobfuscates a file, the output is written to a temporary file moved in place once complete.
+     *
+     * @return the number of bytes read
+     */
+    public long deobfuscate(final @NotNull Path input, final @NotNull Path output) throws IOException {
+        Objects.requireNonNull(input, "input must not be null");
+        Objects.requireNonNull(output, "output must not be null");
+        final Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        final long read;
+        try (final InputStream in = Files.newInputStream(input); final OutputStream out = Files.newOutputStream(temp)) {
+            read = this.deobfuscate(in, out);
+        } catch (final IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
+        return read;
+    }
+
+    /**
+     * Deobfuscates a UTF-8 stream, neither stream is closed.
+     *
+     * @return the number of bytes read
+     */
+    public long deobfuscate(final @NotNull InputStream in, final @NotNull OutputStream out) throws IOException {
+        Objects.requireNonNull(in, "in must not be null");
+        Objects.requireNonNull(out, "out must not be null");
+        final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        long total = 0;
+        byte[] buffer = new byte[this.chunkSize];
+        int filled = 0;
+        try {
+            int read;
+            while ((read = in.read(buffer, filled, buffer.length - filled)) != -1) {
+                total += read;
+                filled += read;
+                if (filled < buffer.length) {
+                    continue;
+                }
+                final int cut = lastLineEnd(buffer, filled);
+                if (cut == 0) {
+                    // A single line longer than the chunk, grow until its end is found
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    continue;
+                }
+                final byte[] next = new byte[Math.max(this.chunkSize, filled - cut)];
+                System.arraycopy(buffer, cut, next, 0, filled - cut);
+                this.submit(pending, buffer, cut, out);
+                buffer = next;
+                filled -= cut;
+            }
+            if (filled > 0) {
+                this.submit(pending, buffer, filled, out);
+            }
+            while (!pending.isEmpty()) {
+                out.write(await(pending.poll()));
+            }
+            out.flush();
+        } finally {
+            for (final Future<byte[]> future : pending) {
+                future.cancel(true);
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+    private void submit(final Deque<Future<byte[]>> pending, final byte[] buffer, final int length, final OutputStream out) throws IOException {
+        pending.add(this.executor.submit(() -> this.rewrite(buffer, length)));
+        while (pending.size() > this.window) {
+            out.write(await(pending.poll()));
+        }
+    }
+
+    private byte[] rewrite(final byte[] buffer, final int length) {
+        // Chunks end on a line feed, a UTF-8 sequence is never split
+        final String text = new String(buffer, 0, length, StandardCharsets.UTF_8);
+        final StringBuilder builder = new StringBuilder(length + (length >> 3));
+        this.rewriter.rewrite(text, builder);
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int lastLineEnd(final byte[] buffer, final int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buffer[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private static byte[] await(final Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while deobfuscating");
+        } catch (final ExecutionException e) {
+            throw new IOException("Failed to deobfuscate chunk", e.getCause());
+        }
+    }
+
+}
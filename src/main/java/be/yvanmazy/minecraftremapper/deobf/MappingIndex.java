@@ -0,0 +1,257 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.deobf;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Lookup index from obfuscated class and member names to Mojang names, built from a ProGuard mapping.
+ * Names are in the dotted form used by stack traces and logs. Classes keeping their name are only indexed for their
+ * obfuscated members.
+ */
+public final class MappingIndex {
+
+    private final Map<String, ClassEntry> classes;
+    private final int maxClassNameLength;
+
+    private MappingIndex(final Map<String, ClassEntry> classes) {
+        this.classes = classes;
+        int max = 0;
+        for (final String name : classes.keySet()) {
+            max = Math.max(max, name.length());
+        }
+        this.maxClassNameLength = max;
+    }
+
+    @Contract("_ -> new")
+    public static @NotNull MappingIndex load(final @NotNull Path mappingPath) throws IOException {
+        Objects.requireNonNull(mappingPath, "mappingPath must not be null");
+        try (final BufferedReader reader = Files.newBufferedReader(mappingPath, StandardCharsets.UTF_8)) {
+            return load(reader);
+        }
+    }
+
+    @Contract("_ -> new")
+    public static @NotNull MappingIndex load(final @NotNull BufferedReader reader) throws IOException {
+        final Map<String, ClassEntry> classes = new HashMap<>();
+        ClassEntry current = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+            final int arrow = line.indexOf(" -> ");
+            if (arrow == -1) {
+                continue;
+            }
+            if (line.charAt(0) != ' ') {
+                // Class line: "named.Name -> obf:"
+                final String named = line.substring(0, arrow);
+                final String obfuscated = line.substring(arrow + 4, line.length() - 1);
+                current = new ClassEntry(named, named.equals(obfuscated));
+                classes.put(obfuscated, current);
+            } else if (current != null) {
+                parseMember(current, line.trim());
+            }
+        }
+        // Classes keeping their name are only needed for their members, such as net.minecraft.server.Main
+        classes.values().removeIf(entry -> entry.unchanged && entry.fields.isEmpty() && entry.methods.isEmpty());
+        for (final ClassEntry entry : classes.values()) {
+            entry.trim();
+        }
+        return new MappingIndex(classes);
+    }
+
+    private static void parseMember(final ClassEntry entry, final String line) {
+        final int arrow = line.indexOf(" -> ");
+        final String obfuscated = line.substring(arrow + 4);
+        String signature = line.substring(0, arrow);
+        int startLine = 0;
+        int endLine = 0;
+        // Methods are prefixed by their line range: "12:15:void tick() -> a"
+        final int firstColon = signature.indexOf(':');
+        if (firstColon != -1 && Character.isDigit(signature.charAt(0))) {
+            final int secondColon = signature.indexOf(':', firstColon + 1);
+            startLine = Integer.parseInt(signature, 0, firstColon, 10);
+            endLine = Integer.parseInt(signature, firstColon + 1, secondColon, 10);
+            signature = signature.substring(secondColon + 1);
+        }
+        final int space = signature.indexOf(' ');
+        final int parenthesis = signature.indexOf('(');
+        if (parenthesis == -1) {
+            final String named = signature.substring(space + 1);
+            if (!named.equals(obfuscated)) {
+                entry.fields.put(obfuscated, named);
+            }
+        } else {
+            entry.addMethod(obfuscated, signature.substring(space + 1, parenthesis), startLine, endLine);
+        }
+    }
+
+    public @Nullable String mapClass(final @NotNull String obfuscated) {
+        final ClassEntry entry = this.findClass(obfuscated);
+        return entry != null ? entry.named : null;
+    }
+
+    public @Nullable String mapField(final @NotNull String obfuscatedOwner, final @NotNull String obfuscated) {
+        final ClassEntry entry = this.findClass(obfuscatedOwner);
+        return entry != null ? entry.fields.get(obfuscated) : null;
+    }
+
+    /**
+     * Maps a method name, the line number is used to choose between methods sharing the same obfuscated name.
+     * When the line is unknown ({@code <= 0}) and several names are possible, they are all returned separated by {@code |}.
+     */
+    public @Nullable String mapMethod(final @NotNull String obfuscatedOwner, final @NotNull String obfuscated, final int line) {
+        final ClassEntry entry = this.findClass(obfuscatedOwner);
+        return entry != null ? entry.mapMethod(obfuscated, line) : null;
+    }
+
+    public boolean hasMember(final @NotNull String obfuscatedOwner, final @NotNull String obfuscated) {
+        final ClassEntry entry = this.findClass(obfuscatedOwner);
+        return entry != null && (entry.fields.containsKey(obfuscated) || entry.methods.containsKey(obfuscated));
+    }
+
+    /**
+     * Longest obfuscated class name, any longer token can be skipped without a lookup.
+     */
+    public int getMaxClassNameLength() {
+        return this.maxClassNameLength;
+    }
+
+    public int getClassCount() {
+        return this.classes.size();
+    }
+
+    private ClassEntry findClass(final String obfuscated) {
+        if (obfuscated.length() > this.maxClassNameLength) {
+            return null;
+        }
+        return this.classes.get(obfuscated);
+    }
+
+    private static final class ClassEntry {
+
+        private static final int[] NO_LINES = new int[0];
+
+        private final String named;
+        private final boolean unchanged;
+        private final Map<String, String> fields = new HashMap<>(4);
+        // Every method sharing an obfuscated name: names[i] covers lines[i * 2] to lines[i * 2 + 1]
+        private final Map<String, MethodCandidates> methods = new HashMap<>(4);
+
+        private ClassEntry(final String named, final boolean unchanged) {
+            this.named = named;
+            this.unchanged = unchanged;
+        }
+
+        private void addMethod(final String obfuscated, final String named, final int startLine, final int endLine) {
+            if (named.equals(obfuscated)) {
+                return;
+            }
+            this.methods.computeIfAbsent(obfuscated, k -> new MethodCandidates()).add(named, startLine, endLine);
+        }
+
+        private String mapMethod(final String obfuscated, final int line) {
+            final MethodCandidates candidates = this.methods.get(obfuscated);
+            return candidates != null ? candidates.resolve(line) : null;
+        }
+
+        private void trim() {
+            for (final MethodCandidates candidates : this.methods.values()) {
+                candidates.trim();
+            }
+        }
+
+        private static final class MethodCandidates {
+
+            private String[] names = new String[1];
+            private int[] lines = NO_LINES;
+            private int size;
+
+            private void add(final String named, final int startLine, final int endLine) {
+                if (this.size == this.names.length) {
+                    this.names = Arrays.copyOf(this.names, this.size * 2);
+                }
+                if (this.lines.length < (this.size + 1) * 2) {
+                    this.lines = Arrays.copyOf(this.lines, Math.max(2, this.names.length * 2));
+                }
+                this.names[this.size] = named;
+                this.lines[this.size * 2] = startLine;
+                this.lines[this.size * 2 + 1] = endLine;
+                this.size++;
+            }
+
+            private void trim() {
+                this.names = Arrays.copyOf(this.names, this.size);
+                this.lines = Arrays.copyOf(this.lines, this.size * 2);
+            }
+
+            private String resolve(final int line) {
+                if (this.size == 1) {
+                    return this.names[0];
+                }
+                if (line > 0) {
+                    for (int i = 0; i < this.size; i++) {
+                        if (this.lines[i * 2] <= line && line <= this.lines[i * 2 + 1]) {
+                            return this.names[i];
+                        }
+                    }
+                }
+                final StringBuilder builder = new StringBuilder(this.names[0]);
+                for (int i = 1; i < this.size; i++) {
+                    if (!this.contains(this.names[i], i)) {
+                        builder.append('|').append(this.names[i]);
+                    }
+                }
+                return builder.toString();
+            }
+
+            private boolean contains(final String name, final int before) {
+                for (int i = 0; i < before; i++) {
+                    if (this.names[i].equals(name)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.diff;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Change of a class between two versions of a remapped jar.
+ *
+ * @param name    internal name of the class, like {@code net/minecraft/world/entity/Entity}
+ * @param header  whether the declaration of the class changed: access, hierarchy, annotations or nested classes
+ * @param members changed members of a changed class, empty for an added or a removed class
+ */
+public record ClassChange(@NotNull ChangeType type, @NotNull String name, boolean header, @NotNull List<MemberChange> members) {
+
+    public ClassChange {
+        Objects.requireNonNull(type, "type must not be null");
+        Objects.requireNonNull(name, "name must not be null");
+        members = List.copyOf(Objects.requireNonNull(members, "members must not be null"));
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return switch (this.type) {
+            case ADDED -> "+ " + this.name;
+            case REMOVED -> "- " + this.name;
+            case CHANGED -> "~ " + this.name + (this.header ? " (declaration, " : " (") + this.members.size() + " members)";
+        };
+    }
+
+}
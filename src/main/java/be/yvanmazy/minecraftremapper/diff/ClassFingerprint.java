@@ -0,0 +1,124 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.diff;
+
+import org.jetbrains.annotations.NotNull;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Hashes of the declaration and of each member of a class, ignoring the debug information and the class file version.
+ * Each part is written alone in a new class file, so the hashes do not depend on the order of the constant pool.
+ */
+final class ClassFingerprint {
+
+    private static final String HOLDER = "Holder";
+
+    private final long header;
+    // Keyed by name and descriptor separated by a space
+    private final Map<String, Long> members;
+
+    private ClassFingerprint(final long header, final Map<String, Long> members) {
+        this.header = header;
+        this.members = members;
+    }
+
+    static @NotNull ClassFingerprint of(final byte @NotNull [] data) {
+        final ClassNode node = new ClassNode();
+        new ClassReader(data).accept(node, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        final Map<String, Long> members = new HashMap<>(node.fields.size() + node.methods.size());
+        for (final FieldNode field : node.fields) {
+            members.put(field.name + ' ' + field.desc, hashMember(field::accept));
+        }
+        for (final MethodNode method : node.methods) {
+            members.put(method.name + ' ' + method.desc, hashMember(method::accept));
+        }
+        node.fields.clear();
+        node.methods.clear();
+        node.version = Opcodes.V1_8;
+        final ClassWriter writer = new ClassWriter(0);
+        node.accept(writer);
+        return new ClassFingerprint(hash(writer.toByteArray()), members);
+    }
+
+    boolean isHeaderChanged(final @NotNull ClassFingerprint other) {
+        return this.header != other.header;
+    }
+
+    /**
+     * @return the members added, removed or changed in the other version, sorted by name and descriptor
+     */
+    @NotNull List<MemberChange> compareMembers(final @NotNull ClassFingerprint other) {
+        final List<MemberChange> changes = new ArrayList<>();
+        this.members.forEach((key, hash) -> {
+            final Long otherHash = other.members.get(key);
+            if (otherHash == null) {
+                changes.add(toChange(ChangeType.REMOVED, key));
+            } else if (!otherHash.equals(hash)) {
+                changes.add(toChange(ChangeType.CHANGED, key));
+            }
+        });
+        other.members.keySet().stream().filter(key -> !this.members.containsKey(key)).forEach(key -> changes.add(toChange(ChangeType.ADDED, key)));
+        changes.sort(Comparator.comparing(MemberChange::name).thenComparing(MemberChange::descriptor));
+        return changes;
+    }
+
+    private static MemberChange toChange(final ChangeType type, final String key) {
+        final int separator = key.indexOf(' ');
+        return new MemberChange(type, key.substring(0, separator), key.substring(separator + 1));
+    }
+
+    private static long hashMember(final Consumer<ClassVisitor> member) {
+        final ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_8, 0, HOLDER, null, "java/lang/Object", null);
+        member.accept(writer);
+        writer.visitEnd();
+        return hash(writer.toByteArray());
+    }
+
+    private static long hash(final byte[] data) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-1").digest(data)).getLong();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.diff;
+
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.UnmodifiableView;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Classes and members changed between two versions of a remapped jar. Both jars use the Mojang names, so classes and
+ * members are matched by name. Classes with the same size and CRC in both jars are unchanged without being read, the
+ * others are compared member by member on every core. Changes of debug information only, like line numbers, are
+ * ignored.
+ */
+public final class JarDiff {
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final List<ClassChange> changes;
+    private final int unchanged;
+
+    private JarDiff(final List<ClassChange> changes, final int unchanged) {
+        this.changes = changes;
+        this.unchanged = unchanged;
+    }
+
+    public static @NotNull JarDiff compare(final @NotNull MappedJar from, final @NotNull MappedJar to) throws IOException {
+        Objects.requireNonNull(from, "from must not be null");
+        Objects.requireNonNull(to, "to must not be null");
+        final Map<String, Integer> fromClasses = indexClasses(from);
+        final Map<String, Integer> toClasses = indexClasses(to);
+        final SortedSet<String> names = new TreeSet<>(fromClasses.keySet());
+        names.addAll(toClasses.keySet());
+
+        final List<String> sorted = List.copyOf(names);
+        final ClassChange[] changes = new ClassChange[sorted.size()];
+        try {
+            IntStream.range(0, sorted.size()).parallel().forEach(index -> {
+                final String name = sorted.get(index);
+                try {
+                    changes[index] = compare(name, from, fromClasses.get(name), to, toClasses.get(name));
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+        final List<ClassChange> result = Arrays.stream(changes).filter(Objects::nonNull).toList();
+        return new JarDiff(result, sorted.size() - result.size());
+    }
+
+    public @NotNull @UnmodifiableView List<ClassChange> getChanges() {
+        return this.changes;
+    }
+
+    public int getUnchangedCount() {
+        return this.unchanged;
+    }
+
+    public int getCount(final @NotNull ChangeType type) {
+        return (int) this.changes.stream().filter(change -> change.type() == type).count();
+    }
+
+    /**
+     * Writes the changes as JSON, with the version identifiers for reference.
+     */
+    public void write(final @NotNull Path path, final @NotNull String from, final @NotNull String to) throws IOException {
+        final JsonObject json = new JsonObject();
+        json.addProperty("from", Objects.requireNonNull(from, "from must not be null"));
+        json.addProperty("to", Objects.requireNonNull(to, "to must not be null"));
+        json.addProperty("unchanged", this.unchanged);
+        for (final ChangeType type : ChangeType.values()) {
+            json.addProperty(type.name().toLowerCase(), this.getCount(type));
+        }
+        final JsonArray classes = new JsonArray();
+        for (final ClassChange change : this.changes) {
+            final JsonObject object = new JsonObject();
+            object.addProperty("name", change.name());
+            object.addProperty("change", change.type().name());
+            if (change.type() == ChangeType.CHANGED) {
+                object.addProperty("declaration", change.header());
+                final JsonArray members = new JsonArray();
+                for (final MemberChange member : change.members()) {
+                    final JsonObject memberObject = new JsonObject();
+                    memberObject.addProperty("name", member.name());
+                    memberObject.addProperty("descriptor", member.descriptor());
+                    memberObject.addProperty("change", member.type().name());
+                    members.add(memberObject);
+                }
+                object.add("members", members);
+            }
+            classes.add(object);
+        }
+        json.add("classes", classes);
+        Files.writeString(Objects.requireNonNull(path, "path must not be null"), new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(json));
+    }
+
+    private static @Nullable ClassChange compare(final String name, final MappedJar from, final Integer fromIndex, final MappedJar to,
+                                                 final Integer toIndex) throws IOException {
+        if (fromIndex == null) {
+            return new ClassChange(ChangeType.ADDED, name, false, List.of());
+        }
+        if (toIndex == null) {
+            return new ClassChange(ChangeType.REMOVED, name, false, List.of());
+        }
+        if (from.getSize(fromIndex) == to.getSize(toIndex) && from.getCrc(fromIndex) == to.getCrc(toIndex)) {
+            return null;
+        }
+        final ClassFingerprint fromPrint = ClassFingerprint.of(from.read(fromIndex));
+        final ClassFingerprint toPrint = ClassFingerprint.of(to.read(toIndex));
+        final boolean header = fromPrint.isHeaderChanged(toPrint);
+        final List<MemberChange> members = fromPrint.compareMembers(toPrint);
+        if (!header && members.isEmpty()) {
+            return null;
+        }
+        return new ClassChange(ChangeType.CHANGED, name, header, members);
+    }
+
+    private static Map<String, Integer> indexClasses(final MappedJar jar) {
+        final Map<String, Integer> classes = new HashMap<>();
+        for (int i = 0; i < jar.size(); i++) {
+            final String name = jar.getName(i);
+            if (name.endsWith(CLASS_SUFFIX) && !name.startsWith("META-INF/")) {
+                classes.put(name.substring(0, name.length() - CLASS_SUFFIX.length()), i);
+            }
+        }
+        return classes;
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.diff;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+/**
+ * Change of a field or a method between two versions of a class.
+ *
+ * @param descriptor descriptor of the field or the method, like {@code (F)V}
+ */
+public record MemberChange(@NotNull ChangeType type, @NotNull String name, @NotNull String descriptor) {
+
+    public MemberChange {
+        Objects.requireNonNull(type, "type must not be null");
+        Objects.requireNonNull(name, "name must not be null");
+        Objects.requireNonNull(descriptor, "descriptor must not be null");
+    }
+
+    public boolean isMethod() {
+        return this.descriptor.startsWith("(");
+    }
+
+    @Override
+    public @NotNull String toString() {
+        final String member = this.isMethod() ? this.name + this.descriptor : this.name + ":" + this.descriptor;
+        return switch (this.type) {
+            case ADDED -> "+ " + member;
+            case REMOVED -> "- " + member;
+            case CHANGED -> "~ " + member;
+        };
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.export;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Binary mapping: the {@code MRMP} magic, a format version and the namespaces, then deflate compressed records.
+ * A record is a tag ({@code 1} class, {@code 2} field, {@code 3} method, {@code 0} end), the descriptor for members,
+ * then one modified UTF-8 name per namespace.
+ */
+final class CompactMappingWriter implements MappingWriter {
+
+    static final int MAGIC = 0x4D524D50; // MRMP
+    static final int FORMAT_VERSION = 1;
+    static final int TAG_END = 0;
+    static final int TAG_CLASS = 1;
+    static final int TAG_FIELD = 2;
+    static final int TAG_METHOD = 3;
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    private final DataOutputStream out;
+    private final int namespaceCount;
+
+    CompactMappingWriter(final @NotNull OutputStream out, final @NotNull List<String> namespaces) throws IOException {
+        Objects.requireNonNull(out, "out must not be null");
+        Objects.requireNonNull(namespaces, "namespaces must not be null");
+        final DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeByte(FORMAT_VERSION);
+        header.writeByte(namespaces.size());
+        for (final String namespace : namespaces) {
+            header.writeUTF(namespace);
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(out, this.deflater, 1 << 16), 1 << 16));
+        this.namespaceCount = namespaces.size();
+    }
+
+    @Override
+    public void writeClass(final @NotNull String @NotNull ... names) throws IOException {
+        this.out.writeByte(TAG_CLASS);
+        this.writeNames(names);
+    }
+
+    @Override
+    public void writeField(final @NotNull String descriptor, final @NotNull String @NotNull ... names) throws IOException {
+        this.out.writeByte(TAG_FIELD);
+        this.out.writeUTF(descriptor);
+        this.writeNames(names);
+    }
+
+    @Override
+    public void writeMethod(final @NotNull String descriptor, final @NotNull String @NotNull ... names) throws IOException {
+        this.out.writeByte(TAG_METHOD);
+        this.out.writeUTF(descriptor);
+        this.writeNames(names);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.out.writeByte(TAG_END);
+            this.out.close();
+        } finally {
+            this.deflater.end();
+        }
+    }
+
+    private void writeNames(final String[] names) throws IOException {
+        if (names.length != this.namespaceCount) {
+            throw new IllegalArgumentException("Expected " + this.namespaceCount + " names, got " + names.length);
+        }
+        for (final String name : names) {
+            this.out.writeUTF(name);
+        }
+    }
+
+}
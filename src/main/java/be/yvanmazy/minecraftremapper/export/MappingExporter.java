@@ -0,0 +1,224 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.export;
+
+import be.yvanmazy.minecraftremapper.export.ProguardClassReader.ClassBlock;
+import be.yvanmazy.minecraftremapper.export.ProguardClassReader.Member;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Streams ProGuard mappings into a {@link MappingFormat}, one class at a time.
+ */
+public final class MappingExporter {
+
+    private MappingExporter() throws IllegalAccessException {
+        throw new IllegalAccessException("You cannot instantiate a utility class");
+    }
+
+    /**
+     * Exports one mapping with the {@code named} and {@code official} namespaces, in constant memory.
+     */
+    public static void export(final @NotNull Path mapping, final @NotNull Path output, final @NotNull MappingFormat format) throws IOException {
+        Objects.requireNonNull(mapping, "mapping must not be null");
+        Objects.requireNonNull(output, "output must not be null");
+        Objects.requireNonNull(format, "format must not be null");
+        writeAtomically(output, out -> {
+            try (final ProguardClassReader reader = new ProguardClassReader(Files.newBufferedReader(mapping, StandardCharsets.UTF_8));
+                 final MappingWriter writer = MappingWriter.newWriter(format, out, List.of("named", "official"))) {
+                ClassBlock block;
+                while ((block = reader.next()) != null) {
+                    writer.writeClass(block.named(), block.obfuscated());
+                    for (final Member member : block.members()) {
+                        if (member.method()) {
+                            writer.writeMethod(member.descriptor(), member.name(), member.obfuscated());
+                        } else {
+                            writer.writeField(member.descriptor(), member.name(), member.obfuscated());
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Exports the client and server mappings merged by Mojang names, with the {@code named}, {@code client} and
+     * {@code server} namespaces. Both files are read side by side in constant memory when their classes are sorted,
+     * like the mappings published by Mojang; otherwise the server mapping is buffered.
+     */
+    public static void exportMerged(final @NotNull Path clientMapping, final @NotNull Path serverMapping, final @NotNull Path output,
+                                    final @NotNull MappingFormat format) throws IOException {
+        Objects.requireNonNull(clientMapping, "clientMapping must not be null");
+        Objects.requireNonNull(serverMapping, "serverMapping must not be null");
+        Objects.requireNonNull(output, "output must not be null");
+        Objects.requireNonNull(format, "format must not be null");
+        try {
+            writeAtomically(output, out -> mergeSorted(clientMapping, serverMapping, out, format));
+        } catch (final UnsortedMappingException e) {
+            writeAtomically(output, out -> mergeBuffered(clientMapping, serverMapping, out, format));
+        }
+    }
+
+    private static void mergeSorted(final Path clientMapping, final Path serverMapping, final OutputStream out, final MappingFormat format)
+            throws IOException {
+        try (final SortedReader client = new SortedReader(clientMapping);
+             final SortedReader server = new SortedReader(serverMapping);
+             final MappingWriter writer = MappingWriter.newWriter(format, out, List.of("named", "client", "server"))) {
+            ClassBlock clientBlock = client.next();
+            ClassBlock serverBlock = server.next();
+            while (clientBlock != null || serverBlock != null) {
+                final int compare = clientBlock == null ? 1 : serverBlock == null ? -1 : clientBlock.named().compareTo(serverBlock.named());
+                if (compare < 0) {
+                    writeMerged(writer, clientBlock, null);
+                    clientBlock = client.next();
+                } else if (compare > 0) {
+                    writeMerged(writer, null, serverBlock);
+                    serverBlock = server.next();
+                } else {
+                    writeMerged(writer, clientBlock, serverBlock);
+                    clientBlock = client.next();
+                    serverBlock = server.next();
+                }
+            }
+        }
+    }
+
+    private static void mergeBuffered(final Path clientMapping, final Path serverMapping, final OutputStream out, final MappingFormat format)
+            throws IOException {
+        final Map<String, ClassBlock> serverBlocks = new LinkedHashMap<>();
+        try (final ProguardClassReader server = new ProguardClassReader(Files.newBufferedReader(serverMapping, StandardCharsets.UTF_8))) {
+            ClassBlock block;
+            while ((block = server.next()) != null) {
+                serverBlocks.putIfAbsent(block.named(), block);
+            }
+        }
+        try (final ProguardClassReader client = new ProguardClassReader(Files.newBufferedReader(clientMapping, StandardCharsets.UTF_8));
+             final MappingWriter writer = MappingWriter.newWriter(format, out, List.of("named", "client", "server"))) {
+            ClassBlock block;
+            while ((block = client.next()) != null) {
+                writeMerged(writer, block, serverBlocks.remove(block.named()));
+            }
+            for (final ClassBlock serverBlock : serverBlocks.values()) {
+                writeMerged(writer, null, serverBlock);
+            }
+        }
+    }
+
+    private static void writeMerged(final MappingWriter writer, final ClassBlock client, final ClassBlock server) throws IOException {
+        final ClassBlock any = client != null ? client : server;
+        writer.writeClass(any.named(), client != null ? client.obfuscated() : "", server != null ? server.obfuscated() : "");
+        // Members are matched by their Mojang name and descriptor, which are the same on both sides
+        final Map<String, String[]> members = new LinkedHashMap<>();
+        final Map<String, Member> declarations = new HashMap<>();
+        if (client != null) {
+            for (final Member member : client.members()) {
+                final String key = key(member);
+                members.put(key, new String[] {member.name(), member.obfuscated(), ""});
+                declarations.put(key, member);
+            }
+        }
+        if (server != null) {
+            for (final Member member : server.members()) {
+                final String key = key(member);
+                members.computeIfAbsent(key, k -> new String[] {member.name(), "", ""})[2] = member.obfuscated();
+                declarations.putIfAbsent(key, member);
+            }
+        }
+        for (final Map.Entry<String, String[]> entry : members.entrySet()) {
+            final Member member = declarations.get(entry.getKey());
+            if (member.method()) {
+                writer.writeMethod(member.descriptor(), entry.getValue());
+            } else {
+                writer.writeField(member.descriptor(), entry.getValue());
+            }
+        }
+    }
+
+    private static String key(final Member member) {
+        return (member.method() ? "m" : "f") + member.name() + member.descriptor();
+    }
+
+    private static void writeAtomically(final Path output, final Export export) throws IOException {
+        final Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        try (final OutputStream out = Files.newOutputStream(temp)) {
+            export.write(out);
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @FunctionalInterface
+    private interface Export {
+
+        void write(OutputStream out) throws IOException;
+
+    }
+
+    private static final class SortedReader implements AutoCloseable {
+
+        private final ProguardClassReader reader;
+        private String previous;
+
+        private SortedReader(final Path path) throws IOException {
+            this.reader = new ProguardClassReader(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+        }
+
+        private ClassBlock next() throws IOException {
+            final ClassBlock block = this.reader.next();
+            if (block != null) {
+                if (this.previous != null && this.previous.compareTo(block.named()) >= 0) {
+                    throw new UnsortedMappingException();
+                }
+                this.previous = block.named();
+            }
+            return block;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.reader.close();
+        }
+
+    }
+
+    private static final class UnsortedMappingException extends IOException {
+
+        private UnsortedMappingException() {
+            super("Mapping classes are not sorted");
+        }
+
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.export;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Streaming writer of a mapping with several namespaces. Members belong to the last written class, and their
+ * descriptor is in the first namespace. A missing name is an empty string.
+ */
+public interface MappingWriter extends Closeable {
+
+    @Contract("_, _, _ -> new")
+    static @NotNull MappingWriter newWriter(final @NotNull MappingFormat format, final @NotNull OutputStream out, final @NotNull List<String> namespaces)
+            throws IOException {
+        Objects.requireNonNull(format, "format must not be null");
+        return switch (format) {
+            case TINY_V2 -> new TinyV2Writer(out, namespaces);
+            case COMPACT -> new CompactMappingWriter(out, namespaces);
+        };
+    }
+
+    void writeClass(final @NotNull String @NotNull ... names) throws IOException;
+
+    void writeField(final @NotNull String descriptor, final @NotNull String @NotNull ... names) throws IOException;
+
+    void writeMethod(final @NotNull String descriptor, final @NotNull String @NotNull ... names) throws IOException;
+
+}
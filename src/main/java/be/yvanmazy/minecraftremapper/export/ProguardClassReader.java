@@ -0,0 +1,154 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.export;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Reads a ProGuard mapping one class at a time, so only the members of the current class are in memory.
+ * Names are converted to internal names and member signatures to descriptors in Mojang names.
+ */
+final class ProguardClassReader implements Closeable {
+
+    private final BufferedReader reader;
+    private String pending;
+
+    ProguardClassReader(final @NotNull BufferedReader reader) {
+        this.reader = Objects.requireNonNull(reader, "reader must not be null");
+    }
+
+    @Nullable ClassBlock next() throws IOException {
+        String header = this.pending;
+        this.pending = null;
+        while (header == null || !isClassLine(header)) {
+            header = this.reader.readLine();
+            if (header == null) {
+                return null;
+            }
+        }
+        final int arrow = header.indexOf(" -> ");
+        final ClassBlock block = new ClassBlock(toInternalName(header.substring(0, arrow)),
+                toInternalName(header.substring(arrow + 4, header.length() - 1)),
+                new ArrayList<>());
+        // Inlined code repeats a method with other line numbers, only its first entry is kept
+        final Set<String> seen = new HashSet<>();
+        String line;
+        while ((line = this.reader.readLine()) != null) {
+            if (isClassLine(line)) {
+                this.pending = line;
+                break;
+            }
+            final Member member = parseMember(line);
+            if (member != null && seen.add((member.method() ? "m" : "f") + member.name() + member.descriptor())) {
+                block.members().add(member);
+            }
+        }
+        return block;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+
+    private static boolean isClassLine(final String line) {
+        return !line.isEmpty() && line.charAt(0) != ' ' && line.charAt(0) != '#' && line.endsWith(":") && line.contains(" -> ");
+    }
+
+    private static Member parseMember(final String line) {
+        final int arrow = line.indexOf(" -> ");
+        if (arrow == -1) {
+            return null;
+        }
+        final String obfuscated = line.substring(arrow + 4).trim();
+        String signature = line.substring(0, arrow).trim();
+        // Methods are prefixed by their line range: "12:15:void tick() -> a"
+        if (!signature.isEmpty() && Character.isDigit(signature.charAt(0))) {
+            signature = signature.substring(signature.indexOf(':', signature.indexOf(':') + 1) + 1);
+        }
+        final int space = signature.indexOf(' ');
+        if (space == -1) {
+            return null;
+        }
+        final String type = signature.substring(0, space);
+        final int parenthesis = signature.indexOf('(', space);
+        if (parenthesis == -1) {
+            return new Member(false, signature.substring(space + 1), toDescriptor(type), obfuscated);
+        }
+        final int close = signature.indexOf(')', parenthesis);
+        final StringBuilder descriptor = new StringBuilder("(");
+        if (close > parenthesis + 1) {
+            for (final String argument : signature.substring(parenthesis + 1, close).split(",")) {
+                descriptor.append(toDescriptor(argument));
+            }
+        }
+        descriptor.append(')').append(toDescriptor(type));
+        return new Member(true, signature.substring(space + 1, parenthesis), descriptor.toString(), obfuscated);
+    }
+
+    static @NotNull String toInternalName(final @NotNull String name) {
+        return name.replace('.', '/');
+    }
+
+    static @NotNull String toDescriptor(final @NotNull String type) {
+        int dimensions = 0;
+        int end = type.length();
+        while (end > 2 && type.charAt(end - 1) == ']' && type.charAt(end - 2) == '[') {
+            dimensions++;
+            end -= 2;
+        }
+        final String element = type.substring(0, end);
+        final String descriptor = switch (element) {
+            case "void" -> "V";
+            case "boolean" -> "Z";
+            case "byte" -> "B";
+            case "char" -> "C";
+            case "short" -> "S";
+            case "int" -> "I";
+            case "long" -> "J";
+            case "float" -> "F";
+            case "double" -> "D";
+            default -> "L" + toInternalName(element) + ";";
+        };
+        return dimensions == 0 ? descriptor : "[".repeat(dimensions) + descriptor;
+    }
+
+    record ClassBlock(@NotNull String named, @NotNull String obfuscated, @NotNull List<Member> members) {
+    }
+
+    record Member(boolean method, @NotNull String name, @NotNull String descriptor, @NotNull String obfuscated) {
+    }
+
+}
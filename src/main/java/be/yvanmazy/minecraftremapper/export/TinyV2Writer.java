@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.export;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+final class TinyV2Writer implements MappingWriter {
+
+    private final Writer writer;
+    private final int namespaceCount;
+
+    TinyV2Writer(final @NotNull OutputStream out, final @NotNull List<String> namespaces) throws IOException {
+        Objects.requireNonNull(out, "out must not be null");
+        Objects.requireNonNull(namespaces, "namespaces must not be null");
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        this.namespaceCount = namespaces.size();
+        this.writer.write("tiny\t2\t0");
+        for (final String namespace : namespaces) {
+            this.writer.write('\t');
+            this.writer.write(namespace);
+        }
+        this.writer.write('\n');
+    }
+
+    @Override
+    public void writeClass(final @NotNull String @NotNull ... names) throws IOException {
+        this.writer.write('c');
+        this.writeNames(names);
+    }
+
+    @Override
+    public void writeField(final @NotNull String descriptor, final @NotNull String @NotNull ... names) throws IOException {
+        this.writer.write("\tf\t");
+        this.writer.write(descriptor);
+        this.writeNames(names);
+    }
+
+    @Override
+    public void writeMethod(final @NotNull String descriptor, final @NotNull String @NotNull ... names) throws IOException {
+        this.writer.write("\tm\t");
+        this.writer.write(descriptor);
+        this.writeNames(names);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+
+    private void writeNames(final String[] names) throws IOException {
+        if (names.length != this.namespaceCount) {
+            throw new IllegalArgumentException("Expected " + this.namespaceCount + " names, got " + names.length);
+        }
+        for (final String name : names) {
+            this.writer.write('\t');
+            this.writer.write(name);
+        }
+        this.writer.write('\n');
+    }
+
+}
@@ -0,0 +1,254 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.hierarchy;
+
+import be.yvanmazy.minecraftremapper.util.HashTable;
+import be.yvanmazy.minecraftremapper.util.StringTable;
+import net.md_5.specialsource.provider.InheritanceProvider;
+import net.md_5.specialsource.repo.CachingRepo;
+import net.md_5.specialsource.repo.ClassRepo;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Memory-mapped class hierarchy written by {@link HierarchyIndexWriter}. Classes, supertypes, interfaces and declared
+ * members are int-indexed tables referencing a shared string table, classes are found through an open addressing table.
+ * The index is read-only and can be used from several threads.
+ */
+public final class HierarchyIndex implements InheritanceProvider {
+
+    static final int MAGIC = 0x4D524849; // MRHI
+    static final int FORMAT_VERSION = 1;
+    static final int CLASS_RECORD = 7;
+    static final int MEMBER_RECORD = 4;
+    static final int KIND_FIELD = 0;
+    static final int KIND_METHOD = 1;
+
+    private final ByteBuffer buffer;
+    private final String source;
+    private final int classCount;
+    private final int classesPosition;
+    private final int interfacesPosition;
+    private final int membersPosition;
+    private final HashTable table;
+    private final StringTable strings;
+
+    private HierarchyIndex(final ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            throw new IOException("Unsupported hierarchy index");
+        }
+        final byte[] sourceBytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(sourceBytes);
+        this.source = new String(sourceBytes, StandardCharsets.UTF_8);
+        final int stringCount = buffer.getInt();
+        this.classCount = buffer.getInt();
+        final int interfaceCount = buffer.getInt();
+        final int memberCount = buffer.getInt();
+        final int tableSize = buffer.getInt();
+        final int stringOffsetsPosition = buffer.position();
+        this.classesPosition = stringOffsetsPosition + StringTable.getOffsetsByteSize(stringCount);
+        this.interfacesPosition = this.classesPosition + this.classCount * CLASS_RECORD * Integer.BYTES;
+        this.membersPosition = this.interfacesPosition + interfaceCount * Integer.BYTES;
+        final int tablePosition = this.membersPosition + memberCount * MEMBER_RECORD * Integer.BYTES;
+        this.table = new HashTable(buffer, tablePosition, tableSize);
+        this.strings = new StringTable(buffer, stringOffsetsPosition, tablePosition + HashTable.getByteSize(tableSize), stringCount);
+    }
+
+    /**
+     * Maps an index written by {@link HierarchyIndexWriter#write(Path, String)}.
+     *
+     * @param source the source given to the writer, or {@code null} to accept any source
+     * @return the index, or {@code null} when it is missing, unreadable or was built from another source
+     */
+    public static @Nullable HierarchyIndex open(final @NotNull Path path, final @Nullable String source) throws IOException {
+        Objects.requireNonNull(path, "path must not be null");
+        if (Files.notExists(path)) {
+            return null;
+        }
+        final ByteBuffer buffer;
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        final HierarchyIndex index;
+        try {
+            index = new HierarchyIndex(buffer);
+        } catch (final IOException | RuntimeException e) {
+            return null;
+        }
+        return source == null || index.source.equals(source) ? index : null;
+    }
+
+    @Override
+    public @Nullable List<String> getParents(final @NotNull String className) {
+        final int index = this.indexOf(className);
+        if (index == -1) {
+            return null;
+        }
+        final int record = this.record(index);
+        final int superName = this.buffer.getInt(record + Integer.BYTES);
+        final int interfaceStart = this.buffer.getInt(record + 3 * Integer.BYTES);
+        final int interfaceCount = this.buffer.getInt(record + 4 * Integer.BYTES);
+        final List<String> parents = new ArrayList<>(1 + interfaceCount);
+        if (superName != -1) {
+            parents.add(this.string(superName));
+        }
+        for (int i = 0; i < interfaceCount; i++) {
+            parents.add(this.string(this.buffer.getInt(this.interfacesPosition + (interfaceStart + i) * Integer.BYTES)));
+        }
+        return parents;
+    }
+
+    public boolean contains(final @NotNull String className) {
+        return this.indexOf(className) != -1;
+    }
+
+    /**
+     * Builds a class node holding the hierarchy and the declared members of a class, without any code.
+     */
+    public @Nullable ClassNode findClass(final @NotNull String className) {
+        final int index = this.indexOf(className);
+        return index != -1 ? this.toClassNode(index) : null;
+    }
+
+    /**
+     * A {@link ClassRepo} answering the member access lookups of the remapper from the index.
+     */
+    @Contract("-> new")
+    public @NotNull ClassRepo asClassRepo() {
+        return new CachingRepo() {
+            @Override
+            protected ClassNode findClass0(final String internalName) {
+                return HierarchyIndex.this.findClass(internalName);
+            }
+        };
+    }
+
+    /**
+     * A {@link ClassRepo} like {@link #asClassRepo()} keeping at most this many classes, the least recently used
+     * classes are built again from the index when they are looked up.
+     */
+    @Contract("_ -> new")
+    public @NotNull ClassRepo asClassRepo(final int maxClasses) {
+        if (maxClasses <= 0) {
+            throw new IllegalArgumentException("maxClasses must be positive");
+        }
+        final Map<String, ClassNode> cache = new LinkedHashMap<>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, ClassNode> eldest) {
+                return this.size() > maxClasses;
+            }
+        };
+        return internalName -> {
+            synchronized (cache) {
+                final ClassNode cached = cache.get(internalName);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            final ClassNode node = this.findClass(internalName);
+            if (node != null) {
+                synchronized (cache) {
+                    cache.put(internalName, node);
+                }
+            }
+            return node;
+        };
+    }
+
+    public int getClassCount() {
+        return this.classCount;
+    }
+
+    public @NotNull String getSource() {
+        return this.source;
+    }
+
+    @NotNull String getClassName(final int index) {
+        return this.string(this.buffer.getInt(this.record(index)));
+    }
+
+    @NotNull ClassNode toClassNode(final int index) {
+        final int record = this.record(index);
+        final ClassNode node = new ClassNode();
+        node.name = this.string(this.buffer.getInt(record));
+        final int superName = this.buffer.getInt(record + Integer.BYTES);
+        node.superName = superName != -1 ? this.string(superName) : null;
+        node.access = this.buffer.getInt(record + 2 * Integer.BYTES);
+        final int interfaceStart = this.buffer.getInt(record + 3 * Integer.BYTES);
+        final int interfaceCount = this.buffer.getInt(record + 4 * Integer.BYTES);
+        final String[] interfaces = new String[interfaceCount];
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaces[i] = this.string(this.buffer.getInt(this.interfacesPosition + (interfaceStart + i) * Integer.BYTES));
+        }
+        node.interfaces = new ArrayList<>(Arrays.asList(interfaces));
+        final int memberStart = this.buffer.getInt(record + 5 * Integer.BYTES);
+        final int memberCount = this.buffer.getInt(record + 6 * Integer.BYTES);
+        for (int i = 0; i < memberCount; i++) {
+            final int member = this.membersPosition + (memberStart + i) * MEMBER_RECORD * Integer.BYTES;
+            final int kind = this.buffer.getInt(member);
+            final String name = this.string(this.buffer.getInt(member + Integer.BYTES));
+            final String desc = this.string(this.buffer.getInt(member + 2 * Integer.BYTES));
+            final int access = this.buffer.getInt(member + 3 * Integer.BYTES);
+            if (kind == KIND_FIELD) {
+                node.fields.add(new FieldNode(access, name, desc, null, null));
+            } else {
+                node.methods.add(new MethodNode(access, name, desc, null, null));
+            }
+        }
+        return node;
+    }
+
+    private int indexOf(final String className) {
+        return this.table.find(className.hashCode(), index -> this.getClassName(index).equals(className));
+    }
+
+    private int record(final int index) {
+        return this.classesPosition + index * CLASS_RECORD * Integer.BYTES;
+    }
+
+    private String string(final int id) {
+        return this.strings.get(id);
+    }
+
+}
@@ -0,0 +1,218 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.hierarchy;
+
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import be.yvanmazy.minecraftremapper.util.HashTableWriter;
+import be.yvanmazy.minecraftremapper.util.IntList;
+import be.yvanmazy.minecraftremapper.util.StringTableWriter;
+import net.md_5.specialsource.JarRemapper;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Collects the hierarchy and the declared members of classes and writes them as a {@link HierarchyIndex}.
+ */
+public final class HierarchyIndexWriter {
+
+    private static final int READER_FLAGS = ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
+
+    private final Map<String, ClassEntry> classes = new LinkedHashMap<>();
+
+    /**
+     * Collects every class of a jar, only the class headers and member declarations are read.
+     */
+    @Contract("_ -> new")
+    public static @NotNull HierarchyIndexWriter fromJar(final @NotNull MappedJar jar) throws IOException {
+        Objects.requireNonNull(jar, "jar must not be null");
+        final HierarchyIndexWriter writer = new HierarchyIndexWriter();
+        for (int i = 0; i < jar.size(); i++) {
+            final String name = jar.getName(i);
+            if (name.endsWith(".class") && !name.startsWith("META-INF/")) {
+                writer.add(new ClassReader(jar.read(i)));
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * Collects the classes of an index with their names remapped, like the obfuscated hierarchy of a version
+     * translated to Mojang names.
+     */
+    @Contract("_, _ -> new")
+    public static @NotNull HierarchyIndexWriter remap(final @NotNull HierarchyIndex index, final @NotNull JarRemapper remapper) {
+        Objects.requireNonNull(index, "index must not be null");
+        Objects.requireNonNull(remapper, "remapper must not be null");
+        final HierarchyIndexWriter writer = new HierarchyIndexWriter();
+        for (int i = 0; i < index.getClassCount(); i++) {
+            final ClassNode node = index.toClassNode(i);
+            final ClassEntry entry = new ClassEntry(remapper.map(node.name),
+                    node.superName != null ? remapper.map(node.superName) : null,
+                    node.access,
+                    node.interfaces.stream().map(remapper::map).toArray(String[]::new));
+            for (final FieldNode field : node.fields) {
+                entry.members.add(new Member(HierarchyIndex.KIND_FIELD,
+                        remapper.mapFieldName(node.name, field.name, field.desc, field.access),
+                        remapper.mapDesc(field.desc),
+                        field.access));
+            }
+            for (final MethodNode method : node.methods) {
+                entry.members.add(new Member(HierarchyIndex.KIND_METHOD,
+                        remapper.mapMethodName(node.name, method.name, method.desc, method.access),
+                        remapper.mapMethodDesc(method.desc),
+                        method.access));
+            }
+            writer.classes.putIfAbsent(entry.name, entry);
+        }
+        return writer;
+    }
+
+    public void add(final byte @NotNull [] classFile) {
+        this.add(new ClassReader(Objects.requireNonNull(classFile, "classFile must not be null")));
+    }
+
+    public void add(final @NotNull ClassReader reader) {
+        Objects.requireNonNull(reader, "reader must not be null");
+        reader.accept(new ClassVisitor(Opcodes.ASM9) {
+            private ClassEntry entry;
+
+            @Override
+            public void visit(final int version, final int access, final String name, final String signature, final String superName, final String[] interfaces) {
+                this.entry = new ClassEntry(name, superName, access, interfaces != null ? interfaces : new String[0]);
+                HierarchyIndexWriter.this.classes.putIfAbsent(name, this.entry);
+            }
+
+            @Override
+            public FieldVisitor visitField(final int access, final String name, final String descriptor, final String signature, final Object value) {
+                this.entry.members.add(new Member(HierarchyIndex.KIND_FIELD, name, descriptor, access));
+                return null;
+            }
+
+            @Override
+            public MethodVisitor visitMethod(final int access, final String name, final String descriptor, final String signature, final String[] exceptions) {
+                this.entry.members.add(new Member(HierarchyIndex.KIND_METHOD, name, descriptor, access));
+                return null;
+            }
+        }, READER_FLAGS);
+    }
+
+    public int getClassCount() {
+        return this.classes.size();
+    }
+
+    /**
+     * Writes the index, the source identifies what it was built from and is checked by {@link HierarchyIndex#open}.
+     */
+    public void write(final @NotNull Path path, final @NotNull String source) throws IOException {
+        Objects.requireNonNull(path, "path must not be null");
+        Objects.requireNonNull(source, "source must not be null");
+        final StringTableWriter strings = new StringTableWriter();
+        final IntList classRecords = new IntList(this.classes.size() * HierarchyIndex.CLASS_RECORD);
+        final IntList interfaces = new IntList(1024);
+        final IntList members = new IntList(1024);
+        final HashTableWriter table = new HashTableWriter(this.classes.size());
+
+        int index = 0;
+        for (final ClassEntry entry : this.classes.values()) {
+            classRecords.add(strings.id(entry.name));
+            classRecords.add(entry.superName != null ? strings.id(entry.superName) : -1);
+            classRecords.add(entry.access);
+            classRecords.add(interfaces.size());
+            classRecords.add(entry.interfaces.length);
+            for (final String itf : entry.interfaces) {
+                interfaces.add(strings.id(itf));
+            }
+            classRecords.add(members.size() / HierarchyIndex.MEMBER_RECORD);
+            classRecords.add(entry.members.size());
+            for (final Member member : entry.members) {
+                members.add(member.kind);
+                members.add(strings.id(member.name));
+                members.add(strings.id(member.desc));
+                members.add(member.access);
+            }
+            table.put(entry.name.hashCode(), index++);
+        }
+
+        final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(HierarchyIndex.MAGIC);
+            out.writeInt(HierarchyIndex.FORMAT_VERSION);
+            final byte[] sourceBytes = source.getBytes(StandardCharsets.UTF_8);
+            out.writeShort(sourceBytes.length);
+            out.write(sourceBytes);
+            out.writeInt(strings.size());
+            out.writeInt(this.classes.size());
+            out.writeInt(interfaces.size());
+            out.writeInt(members.size() / HierarchyIndex.MEMBER_RECORD);
+            out.writeInt(table.getSize());
+            strings.writeOffsets(out);
+            classRecords.write(out);
+            interfaces.write(out);
+            members.write(out);
+            table.write(out);
+            strings.writeStrings(out);
+        } catch (final IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private record Member(int kind, String name, String desc, int access) {
+    }
+
+    private static final class ClassEntry {
+
+        private final String name;
+        private final String superName;
+        private final int access;
+        private final String[] interfaces;
+        private final List<Member> members = new ArrayList<>();
+
+        private ClassEntry(final String name, final String superName, final int access, final String[] interfaces) {
+            this.name = name;
+            this.superName = superName;
+            this.access = access;
+            this.interfaces = interfaces;
+        }
+
+    }
+
+}
@@ -0,0 +1,180 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.history;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Lines of one class in every stored version: each distinct line is kept once with the versions containing it.
+ * Lines are ordered so that the lines of any version are in the order of its mapping file.
+ */
+final class ClassHistory {
+
+    private final String name;
+    private final List<String> lines;
+    private final List<BitSet> versions;
+
+    ClassHistory(final @NotNull String name) {
+        this(name, new ArrayList<>(), new ArrayList<>());
+    }
+
+    private ClassHistory(final String name, final List<String> lines, final List<BitSet> versions) {
+        this.name = Objects.requireNonNull(name, "name must not be null");
+        this.lines = lines;
+        this.versions = versions;
+    }
+
+    static @NotNull ClassHistory read(final @NotNull DataInputStream in) throws IOException {
+        final String name = in.readUTF();
+        final int count = in.readInt();
+        final List<String> lines = new ArrayList<>(count);
+        final List<BitSet> versions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(in.readUTF());
+            final BitSet set = new BitSet();
+            final int ranges = in.readUnsignedShort();
+            for (int range = 0; range < ranges; range++) {
+                final int from = in.readUnsignedShort();
+                set.set(from, from + in.readUnsignedShort());
+            }
+            versions.add(set);
+        }
+        return new ClassHistory(name, lines, versions);
+    }
+
+    void write(final @NotNull DataOutputStream out) throws IOException {
+        out.writeUTF(this.name);
+        out.writeInt(this.lines.size());
+        for (int i = 0; i < this.lines.size(); i++) {
+            out.writeUTF(this.lines.get(i));
+            // Versions are stored as ranges, a line kept across consecutive versions is a single range
+            final BitSet set = this.versions.get(i);
+            int ranges = 0;
+            for (int from = set.nextSetBit(0); from >= 0; from = set.nextSetBit(set.nextClearBit(from))) {
+                ranges++;
+            }
+            out.writeShort(ranges);
+            for (int from = set.nextSetBit(0); from >= 0; from = set.nextSetBit(set.nextClearBit(from))) {
+                out.writeShort(from);
+                out.writeShort(set.nextClearBit(from) - from);
+            }
+        }
+    }
+
+    @NotNull String getName() {
+        return this.name;
+    }
+
+    int getLineCount() {
+        return this.lines.size();
+    }
+
+    boolean contains(final int version) {
+        for (final BitSet set : this.versions) {
+            if (set.get(version)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void forEachLine(final int version, final @NotNull Consumer<String> consumer) {
+        for (int i = 0; i < this.lines.size(); i++) {
+            if (this.versions.get(i).get(version)) {
+                consumer.accept(this.lines.get(i));
+            }
+        }
+    }
+
+    /**
+     * Adds the lines of a version, the lines already stored are reused and the others are inserted where they
+     * appear in the version. A stored line coming before a line already reused, when the version reorders lines, is
+     * stored again so that the version keeps its order.
+     */
+    void add(final int version, final @NotNull List<String> added) {
+        // Repeated lines are told apart by their occurrence, the n-th occurrence of a version is the n-th stored one
+        final Map<String, Integer> positions = new HashMap<>();
+        final Map<String, Integer> occurrences = new HashMap<>();
+        for (int i = 0; i < this.lines.size(); i++) {
+            positions.put(occurrenceKey(occurrences, this.lines.get(i)), i);
+        }
+        occurrences.clear();
+        final List<String> lines = new ArrayList<>(this.lines.size() + added.size());
+        final List<BitSet> versions = new ArrayList<>(this.versions.size() + added.size());
+        int next = 0;
+        for (final String line : added) {
+            final Integer position = positions.get(occurrenceKey(occurrences, line));
+            if (position == null || position < next) {
+                final BitSet set = new BitSet();
+                set.set(version);
+                lines.add(line);
+                versions.add(set);
+                continue;
+            }
+            // A stored line is kept in place, the stored lines before it come first
+            for (; next <= position; next++) {
+                lines.add(this.lines.get(next));
+                versions.add(this.versions.get(next));
+            }
+            this.versions.get(position).set(version);
+        }
+        for (; next < this.lines.size(); next++) {
+            lines.add(this.lines.get(next));
+            versions.add(this.versions.get(next));
+        }
+        this.lines.clear();
+        this.lines.addAll(lines);
+        this.versions.clear();
+        this.versions.addAll(versions);
+    }
+
+    void remove(final int version) {
+        for (int i = this.lines.size() - 1; i >= 0; i--) {
+            final BitSet set = this.versions.get(i);
+            set.clear(version);
+            if (set.isEmpty()) {
+                this.lines.remove(i);
+                this.versions.remove(i);
+            }
+        }
+    }
+
+    private static String occurrenceKey(final Map<String, Integer> occurrences, final String line) {
+        final int occurrence = occurrences.merge(line, 1, Integer::sum);
+        return occurrence == 1 ? line : line + '\n' + occurrence;
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.history;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+/**
+ * Change of a class or of a member between two versions of a mapping.
+ *
+ * @param owner  Mojang name of the class, like {@code net.minecraft.world.entity.Entity}
+ * @param member ProGuard signature of the member without line numbers, like {@code void tick()}, {@code null} for the class
+ * @param from   obfuscated name in the first version, {@code null} when added
+ * @param to     obfuscated name in the second version, {@code null} when removed
+ */
+public record MappingChange(@NotNull MappingChangeType type,
+                            @NotNull String owner,
+                            @Nullable String member,
+                            @Nullable String from,
+                            @Nullable String to) {
+
+    public MappingChange {
+        Objects.requireNonNull(type, "type must not be null");
+        Objects.requireNonNull(owner, "owner must not be null");
+    }
+
+    @Override
+    public @NotNull String toString() {
+        final String name = this.member != null ? this.owner + "#" + this.member : this.owner;
+        return switch (this.type) {
+            case ADDED -> "+ " + name + " -> " + this.to;
+            case REMOVED -> "- " + name + " -> " + this.from;
+            case REMAPPED -> "~ " + name + " -> " + this.from + " => " + this.to;
+        };
+    }
+
+}
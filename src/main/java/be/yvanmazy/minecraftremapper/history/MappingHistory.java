@@ -0,0 +1,284 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.history;
+
+import be.yvanmazy.minecraftremapper.DirectionType;
+import be.yvanmazy.minecraftremapper.util.HashUtil;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Mappings of every stored version of one side, where each distinct line of a class is stored once with the range of
+ * versions containing it. The {@code MRMH} magic, a format version and the versions with the hash of their mapping are
+ * followed by deflate compressed classes, which are streamed by the queries.
+ */
+public final class MappingHistory {
+
+    static final int MAGIC = 0x4D524D48; // MRMH
+    static final int FORMAT_VERSION = 1;
+    static final int TAG_END = 0;
+    static final int TAG_CLASS = 1;
+    static final int MAX_VERSIONS = 0xFFFF;
+
+    private static final Object LOCK = new Object();
+
+    private final Path path;
+    private final List<String> versions;
+    private final List<String> hashes;
+
+    private MappingHistory(final Path path, final List<String> versions, final List<String> hashes) {
+        this.path = path;
+        this.versions = versions;
+        this.hashes = hashes;
+    }
+
+    /**
+     * @return the history, or {@code null} when no mapping is stored yet
+     */
+    public static @Nullable MappingHistory open(final @NotNull Path path) throws IOException {
+        Objects.requireNonNull(path, "path must not be null");
+        if (Files.notExists(path)) {
+            return null;
+        }
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            final List<String> versions = new ArrayList<>();
+            final List<String> hashes = new ArrayList<>();
+            readHeader(in, versions, hashes);
+            return new MappingHistory(path, Collections.unmodifiableList(versions), Collections.unmodifiableList(hashes));
+        }
+    }
+
+    /**
+     * Stores the mapping of a version. A version already stored with the same mapping is skipped after reading the
+     * header only, a version stored with another mapping is replaced.
+     *
+     * @return {@code true} if the history changed
+     */
+    public static boolean update(final @NotNull Path path, final @NotNull String versionId, final @NotNull Path mapping) throws IOException {
+        Objects.requireNonNull(path, "path must not be null");
+        Objects.requireNonNull(versionId, "versionId must not be null");
+        Objects.requireNonNull(mapping, "mapping must not be null");
+        final String hash = HashUtil.hash(mapping);
+        // Processors of several versions can share the history, in this JVM or in other ones. A file lock is held by
+        // the whole JVM, so the threads of this one are still serialised first
+        synchronized (LOCK) {
+            try (final FileChannel channel = FileChannel.open(path.resolveSibling(path.getFileName() + ".lock"),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE)) {
+                final FileLock lock = channel.lock();
+                try {
+                    return MappingHistoryWriter.update(path, versionId, hash, mapping);
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    public static @NotNull String getFileName(final @NotNull DirectionType type) {
+        Objects.requireNonNull(type, "type must not be null");
+        return "mapping-history-" + type.name().toLowerCase() + ".bin";
+    }
+
+    public @NotNull Path getPath() {
+        return this.path;
+    }
+
+    public @NotNull @Unmodifiable List<String> getVersions() {
+        return this.versions;
+    }
+
+    public boolean contains(final @NotNull String versionId) {
+        return this.versions.contains(versionId);
+    }
+
+    /**
+     * @return the SHA-1 of the stored mapping of the version, or {@code null} if it is not stored
+     */
+    public @Nullable String getHash(final @NotNull String versionId) {
+        final int index = this.versions.indexOf(versionId);
+        return index != -1 ? this.hashes.get(index) : null;
+    }
+
+    /**
+     * Writes the mapping of a stored version back in the ProGuard format, line for line.
+     */
+    public void materialize(final @NotNull String versionId, final @NotNull Path output) throws IOException {
+        Objects.requireNonNull(output, "output must not be null");
+        final int version = this.indexOf(versionId);
+        final Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        try (final BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            this.forEachClass(history -> history.forEachLine(version, line -> {
+                try {
+                    writer.write(line);
+                    writer.write('\n');
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (final UncheckedIOException e) {
+            Files.deleteIfExists(temp);
+            throw e.getCause();
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Compares the classes and members of two stored versions by their Mojang names. Changes of line numbers only
+     * are ignored.
+     */
+    @Contract(pure = true)
+    public @NotNull List<MappingChange> diff(final @NotNull String fromVersionId, final @NotNull String toVersionId) throws IOException {
+        final int from = this.indexOf(fromVersionId);
+        final int to = this.indexOf(toVersionId);
+        final List<MappingChange> changes = new ArrayList<>();
+        this.forEachClass(history -> {
+            // Lines before the first class are comments
+            if (history.getName().isEmpty()) {
+                return;
+            }
+            final Map<String, String> before = new LinkedHashMap<>();
+            final Map<String, String> after = new LinkedHashMap<>();
+            history.forEachLine(from, line -> addDeclaration(before, line));
+            history.forEachLine(to, line -> addDeclaration(after, line));
+            compare(changes, history.getName(), before, after);
+        });
+        return changes;
+    }
+
+    void forEachClass(final @NotNull ClassConsumer consumer) throws IOException {
+        try (final InputStream raw = new BufferedInputStream(Files.newInputStream(this.path), 1 << 16)) {
+            readHeader(new DataInputStream(raw), new ArrayList<>(), new ArrayList<>());
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(raw), 1 << 16));
+            int tag;
+            while ((tag = in.readUnsignedByte()) != TAG_END) {
+                if (tag != TAG_CLASS) {
+                    throw new IOException("Mapping history is corrupted: unknown tag " + tag);
+                }
+                consumer.accept(ClassHistory.read(in));
+            }
+        }
+    }
+
+    static boolean isClassLine(final @NotNull String line) {
+        return !line.isEmpty() && line.charAt(0) != ' ' && line.charAt(0) != '#' && line.endsWith(":") && line.contains(" -> ");
+    }
+
+    private int indexOf(final String versionId) {
+        Objects.requireNonNull(versionId, "versionId must not be null");
+        final int index = this.versions.indexOf(versionId);
+        if (index == -1) {
+            throw new IllegalArgumentException("Version '" + versionId + "' is not in the mapping history");
+        }
+        return index;
+    }
+
+    private static void readHeader(final DataInputStream in, final List<String> versions, final List<String> hashes) throws IOException {
+        if (in.readInt() != MAGIC || in.readUnsignedByte() != FORMAT_VERSION) {
+            throw new IOException("Unsupported mapping history format");
+        }
+        final int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            versions.add(in.readUTF());
+            hashes.add(in.readUTF());
+        }
+    }
+
+    /**
+     * Adds the obfuscated name of a class or member line, keyed by its signature without line numbers.
+     * Inlined methods repeat their signature, only the first line is kept.
+     */
+    private static void addDeclaration(final Map<String, String> declarations, final String line) {
+        final int arrow = line.indexOf(" -> ");
+        if (arrow == -1 || line.isEmpty() || line.trim().startsWith("#")) {
+            return;
+        }
+        if (isClassLine(line)) {
+            declarations.putIfAbsent("", line.substring(arrow + 4, line.length() - 1));
+            return;
+        }
+        String signature = line.substring(0, arrow).trim();
+        // "12:15:void tick():100:103 -> a"
+        if (!signature.isEmpty() && Character.isDigit(signature.charAt(0))) {
+            signature = signature.substring(signature.indexOf(':', signature.indexOf(':') + 1) + 1);
+        }
+        final int close = signature.lastIndexOf(')');
+        if (close != -1) {
+            signature = signature.substring(0, close + 1);
+        }
+        declarations.putIfAbsent(signature, line.substring(arrow + 4).trim());
+    }
+
+    private static void compare(final List<MappingChange> changes, final String owner, final Map<String, String> before, final Map<String, String> after) {
+        // The members of an added or removed class are not listed
+        if (before.isEmpty() || after.isEmpty()) {
+            if (before.containsKey("")) {
+                changes.add(new MappingChange(MappingChangeType.REMOVED, owner, null, before.get(""), null));
+            } else if (after.containsKey("")) {
+                changes.add(new MappingChange(MappingChangeType.ADDED, owner, null, null, after.get("")));
+            }
+            return;
+        }
+        for (final Map.Entry<String, String> entry : before.entrySet()) {
+            final String member = entry.getKey().isEmpty() ? null : entry.getKey();
+            final String to = after.get(entry.getKey());
+            if (to == null) {
+                changes.add(new MappingChange(MappingChangeType.REMOVED, owner, member, entry.getValue(), null));
+            } else if (!to.equals(entry.getValue())) {
+                changes.add(new MappingChange(MappingChangeType.REMAPPED, owner, member, entry.getValue(), to));
+            }
+        }
+        for (final Map.Entry<String, String> entry : after.entrySet()) {
+            if (!before.containsKey(entry.getKey())) {
+                final String member = entry.getKey().isEmpty() ? null : entry.getKey();
+                changes.add(new MappingChange(MappingChangeType.ADDED, owner, member, null, entry.getValue()));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface ClassConsumer {
+
+        void accept(@NotNull ClassHistory history) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.history;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import static be.yvanmazy.minecraftremapper.history.MappingHistory.*;
+
+final class MappingHistoryWriter {
+
+    private MappingHistoryWriter() throws IllegalAccessException {
+        throw new IllegalAccessException("You cannot instantiate a utility class");
+    }
+
+    static boolean update(final @NotNull Path path, final @NotNull String versionId, final @NotNull String hash, final @NotNull Path mapping)
+            throws IOException {
+        final MappingHistory history = MappingHistory.open(path);
+        final List<String> versions = history != null ? new ArrayList<>(history.getVersions()) : new ArrayList<>();
+        final List<String> hashes = new ArrayList<>(versions.size() + 1);
+        for (final String version : versions) {
+            hashes.add(history.getHash(version));
+        }
+        int version = versions.indexOf(versionId);
+        if (version != -1 && hashes.get(version).equals(hash)) {
+            return false;
+        }
+
+        final List<ClassHistory> classes = new ArrayList<>();
+        if (history != null) {
+            history.forEachClass(classes::add);
+        }
+        if (version != -1) {
+            // The mapping of the version changed, its lines are replaced
+            for (final ClassHistory existing : classes) {
+                existing.remove(version);
+            }
+            classes.removeIf(existing -> existing.getLineCount() == 0);
+            hashes.set(version, hash);
+        } else {
+            if (versions.size() >= MAX_VERSIONS) {
+                throw new IOException("Mapping history is full");
+            }
+            version = versions.size();
+            versions.add(versionId);
+            hashes.add(hash);
+        }
+
+        final Map<String, List<String>> added = readClasses(mapping);
+        final List<ClassHistory> merged = merge(classes, added.keySet());
+        for (final ClassHistory merging : merged) {
+            final List<String> lines = added.get(merging.getName());
+            if (lines != null) {
+                merging.add(version, lines);
+            }
+        }
+        write(path, versions, hashes, merged);
+        return true;
+    }
+
+    /**
+     * Lines of the mapping grouped by class, in the order of the file. Lines before the first class belong to the
+     * class with an empty name.
+     */
+    private static Map<String, List<String>> readClasses(final Path mapping) throws IOException {
+        final Map<String, List<String>> classes = new LinkedHashMap<>();
+        try (final BufferedReader reader = Files.newBufferedReader(mapping, StandardCharsets.UTF_8)) {
+            List<String> lines = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (isClassLine(line)) {
+                    lines = classes.computeIfAbsent(line.substring(0, line.indexOf(" -> ")), k -> new ArrayList<>());
+                } else if (lines == null) {
+                    lines = classes.computeIfAbsent("", k -> new ArrayList<>());
+                }
+                lines.add(line);
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Orders the stored classes and the added ones like the added mapping, stored classes keep their place.
+     */
+    private static List<ClassHistory> merge(final List<ClassHistory> classes, final Collection<String> names) {
+        final Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < classes.size(); i++) {
+            positions.put(classes.get(i).getName(), i);
+        }
+        final List<ClassHistory> merged = new ArrayList<>(classes.size() + names.size());
+        int next = 0;
+        for (final String name : names) {
+            final Integer position = positions.get(name);
+            if (position == null) {
+                merged.add(new ClassHistory(name));
+                continue;
+            }
+            for (; next <= position; next++) {
+                merged.add(classes.get(next));
+            }
+        }
+        for (; next < classes.size(); next++) {
+            merged.add(classes.get(next));
+        }
+        return merged;
+    }
+
+    private static void write(final Path path, final List<String> versions, final List<String> hashes, final List<ClassHistory> classes)
+            throws IOException {
+        final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try (final OutputStream raw = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16)) {
+            final DataOutputStream header = new DataOutputStream(raw);
+            header.writeInt(MAGIC);
+            header.writeByte(FORMAT_VERSION);
+            header.writeShort(versions.size());
+            for (int i = 0; i < versions.size(); i++) {
+                header.writeUTF(versions.get(i));
+                header.writeUTF(hashes.get(i));
+            }
+            header.flush();
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(raw, deflater, 1 << 16), 1 << 16));
+            for (final ClassHistory history : classes) {
+                out.writeByte(TAG_CLASS);
+                history.write(out);
+            }
+            out.writeByte(TAG_END);
+            out.close();
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            deflater.end();
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+}
@@ -26,6 +26,7 @@ package be.yvanmazy.minecraftremapper.http;
 
 import be.yvanmazy.minecraftremapper.http.exception.RequestHttpException;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.net.URI;
 import java.net.http.HttpClient;
@@ -51,6 +52,33 @@ final class DefaultRequestHttpClient implements RequestHttpClient {
         return this.get(url, HttpResponse.BodyHandlers.ofByteArray());
     }
 
+    @Override
+    public @NotNull ConditionalResponse getStringIfModified(final @NotNull String url, final @Nullable String etag, final @Nullable String lastModified)
+            throws RequestHttpException {
+        final HttpRequest.Builder builder = HttpRequest.newBuilder().uri(URI.create(url)).GET();
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            builder.header("If-Modified-Since", lastModified);
+        }
+        final HttpResponse<String> response;
+        try {
+            response = this.client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (final Exception e) {
+            throw new RequestHttpException(e);
+        }
+        final String newEtag = response.headers().firstValue("ETag").orElse(etag);
+        final String newLastModified = response.headers().firstValue("Last-Modified").orElse(lastModified);
+        if (response.statusCode() == 304) {
+            return ConditionalResponse.notModified(newEtag, newLastModified);
+        }
+        if (response.statusCode() >= 400) {
+            throw new RequestHttpException("Unexpected status " + response.statusCode() + " for " + url);
+        }
+        return new ConditionalResponse(response.body(), newEtag, newLastModified);
+    }
+
     private <T> T get(final @NotNull String url, final @NotNull HttpResponse.BodyHandler<T> bodyHandler) throws RequestHttpException {
         final HttpRequest request = HttpRequest.newBuilder().uri(URI.create(url)).GET().build();
         try {
@@ -0,0 +1,81 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.http;
+
+import be.yvanmazy.minecraftremapper.http.exception.RequestHttpException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.URI;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Sends the requests to the Mojang hosts to a mirror serving the same paths, see {@code MirrorServer}.
+ */
+final class MirroredRequestHttpClient implements RequestHttpClient {
+
+    private static final Set<String> MOJANG_HOSTS =
+            Set.of("launchermeta.mojang.com", "launcher.mojang.com", "piston-meta.mojang.com", "piston-data.mojang.com");
+
+    private final RequestHttpClient client;
+    private final String mirrorUrl;
+
+    public MirroredRequestHttpClient(final @NotNull RequestHttpClient client, final @NotNull String mirrorUrl) {
+        this.client = Objects.requireNonNull(client, "client must not be null");
+        Objects.requireNonNull(mirrorUrl, "mirrorUrl must not be null");
+        this.mirrorUrl = mirrorUrl.endsWith("/") ? mirrorUrl.substring(0, mirrorUrl.length() - 1) : mirrorUrl;
+    }
+
+    @Override
+    public @NotNull String getString(final @NotNull String url) throws RequestHttpException {
+        return this.client.getString(this.toMirrorUrl(url));
+    }
+
+    @Override
+    public byte @NotNull [] getBytes(final @NotNull String url) throws RequestHttpException {
+        return this.client.getBytes(this.toMirrorUrl(url));
+    }
+
+    @Override
+    public @NotNull ConditionalResponse getStringIfModified(final @NotNull String url, final @Nullable String etag, final @Nullable String lastModified)
+            throws RequestHttpException {
+        return this.client.getStringIfModified(this.toMirrorUrl(url), etag, lastModified);
+    }
+
+    private String toMirrorUrl(final String url) throws RequestHttpException {
+        final URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (final IllegalArgumentException e) {
+            throw new RequestHttpException(e);
+        }
+        if (uri.getHost() == null || !MOJANG_HOSTS.contains(uri.getHost())) {
+            return url;
+        }
+        return this.mirrorUrl + uri.getRawPath() + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+    }
+
+}
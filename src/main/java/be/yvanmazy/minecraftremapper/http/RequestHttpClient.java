@@ -27,6 +27,7 @@ package be.yvanmazy.minecraftremapper.http;
 import be.yvanmazy.minecraftremapper.http.exception.RequestHttpException;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.net.http.HttpClient;
 import java.util.function.Consumer;
@@ -53,9 +54,28 @@ public interface RequestHttpClient {
         return new DefaultRequestHttpClient(httpClient);
     }
 
+    /**
+     * Sends the requests to Mojang through a mirror started with the {@code serve} command, other URLs are unchanged.
+     */
+    @Contract("_, _ -> new")
+    @NotNull
+    static RequestHttpClient mirrored(final @NotNull RequestHttpClient client, final @NotNull String mirrorUrl) {
+        return new MirroredRequestHttpClient(client, mirrorUrl);
+    }
+
     @NotNull
     String getString(final @NotNull String url) throws RequestHttpException;
 
     byte @NotNull [] getBytes(final @NotNull String url) throws RequestHttpException;
 
+    /**
+     * Sends a conditional request with the validators of a previous response, implementations without
+     * conditional request support always return the body.
+     */
+    @NotNull
+    default ConditionalResponse getStringIfModified(final @NotNull String url, final @Nullable String etag, final @Nullable String lastModified)
+            throws RequestHttpException {
+        return new ConditionalResponse(this.getString(url), null, null);
+    }
+
 }
\ No newline at end of file
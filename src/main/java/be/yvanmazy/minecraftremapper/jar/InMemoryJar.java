@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.jar;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.UnmodifiableView;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Jar content kept in memory, entries keep their insertion order.
+ * The jar must be fully built before being shared between threads.
+ */
+public final class InMemoryJar {
+
+    private final Map<String, byte[]> entries = new LinkedHashMap<>();
+    private long size;
+
+    public void put(final @NotNull String name, final byte @NotNull [] data) {
+        Objects.requireNonNull(name, "name must not be null");
+        Objects.requireNonNull(data, "data must not be null");
+        final byte[] previous = this.entries.put(name, data);
+        this.size += data.length - (previous != null ? previous.length : 0);
+    }
+
+    public byte @Nullable [] get(final @NotNull String name) {
+        return this.entries.get(name);
+    }
+
+    public boolean contains(final @NotNull String name) {
+        return this.entries.containsKey(name);
+    }
+
+    public @NotNull @UnmodifiableView Map<String, byte[]> getEntries() {
+        return Collections.unmodifiableMap(this.entries);
+    }
+
+    public int getEntryCount() {
+        return this.entries.size();
+    }
+
+    public long getSize() {
+        return this.size;
+    }
+
+    public void writeTo(final @NotNull Path path, final @NotNull JarCompression compression) throws IOException {
+        this.writeTo(path, compression, false);
+    }
+
+    /**
+     * @param reproducible whether the jar only depends on its entries: they are sorted by name after the manifest, with a
+     *                     fixed time, and the manifest is normalised
+     */
+    public void writeTo(final @NotNull Path path, final @NotNull JarCompression compression, final boolean reproducible) throws IOException {
+        try (final ParallelJarWriter writer = new ParallelJarWriter(path, compression, Runtime.getRuntime().availableProcessors(), reproducible)) {
+            final List<String> names = new ArrayList<>(this.entries.keySet());
+            if (reproducible) {
+                names.sort(ParallelJarWriter.REPRODUCIBLE_ORDER);
+            }
+            for (final String name : names) {
+                writer.write(name, this.entries.get(name));
+            }
+        }
+    }
+
+}
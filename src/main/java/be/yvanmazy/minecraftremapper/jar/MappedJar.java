@@ -0,0 +1,308 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.jar;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.UnmodifiableView;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Read-only jar mapped in memory once, with its central directory parsed into a compact index.
+ * Stored entries are exposed without copy and every read uses absolute positions, so a single instance can be read
+ * by many threads at the same time.
+ */
+public final class MappedJar implements Closeable {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int END_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    private static final int ZIP64_ENTRIES = 0xFFFF;
+    private static final int ZIP64_VALUE = 0xFFFFFFFF;
+
+    // Entry records: method, compressed size, uncompressed size, local header offset, crc
+    private static final int RECORD_SIZE = 5;
+
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final String[] names;
+    private final int[] records;
+    private final Map<String, Integer> indexes;
+    private volatile boolean closed;
+
+    private MappedJar(final Path path, final ByteBuffer buffer, final String[] names, final int[] records) {
+        this.path = path;
+        this.buffer = buffer;
+        this.names = names;
+        this.records = records;
+        this.indexes = new HashMap<>(names.length * 4 / 3 + 1);
+        for (int i = 0; i < names.length; i++) {
+            this.indexes.putIfAbsent(names[i], i);
+        }
+    }
+
+    @Contract("_ -> new")
+    public static @NotNull MappedJar open(final @NotNull Path path) throws IOException {
+        Objects.requireNonNull(path, "path must not be null");
+        final MappedByteBuffer mapped;
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new ZipException("Jar is too large to be mapped: " + path);
+            }
+            // The mapping stays valid once the channel is closed
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        final ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        final int end = findEnd(buffer);
+        if (end == -1) {
+            throw new ZipException("End of central directory is missing: " + path);
+        }
+        final int count = Short.toUnsignedInt(buffer.getShort(end + 10));
+        final int directorySize = buffer.getInt(end + 12);
+        final int directoryOffset = buffer.getInt(end + 16);
+        if (count == ZIP64_ENTRIES || directorySize == ZIP64_VALUE || directoryOffset == ZIP64_VALUE) {
+            throw new ZipException("Zip64 jars are not supported: " + path);
+        }
+        if (directoryOffset < 0 || directorySize < 0 || (long) directoryOffset + directorySize > end) {
+            throw new ZipException("Invalid central directory: " + path);
+        }
+
+        final String[] names = new String[count];
+        final int[] records = new int[count * RECORD_SIZE];
+        int position = directoryOffset;
+        for (int i = 0; i < count; i++) {
+            if (position + CENTRAL_HEADER_SIZE > end || buffer.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+                throw new ZipException("Invalid central directory entry " + i + ": " + path);
+            }
+            final int nameLength = Short.toUnsignedInt(buffer.getShort(position + 28));
+            final int extraLength = Short.toUnsignedInt(buffer.getShort(position + 30));
+            final int commentLength = Short.toUnsignedInt(buffer.getShort(position + 32));
+            final int record = i * RECORD_SIZE;
+            records[record] = Short.toUnsignedInt(buffer.getShort(position + 10));
+            records[record + 1] = buffer.getInt(position + 20);
+            records[record + 2] = buffer.getInt(position + 24);
+            records[record + 3] = buffer.getInt(position + 42);
+            records[record + 4] = buffer.getInt(position + 16);
+            if (records[record + 1] < 0 || records[record + 2] < 0 || records[record + 3] < 0 || records[record + 3] >= directoryOffset) {
+                throw new ZipException("Invalid central directory entry " + i + ": " + path);
+            }
+            final byte[] name = new byte[nameLength];
+            buffer.get(position + CENTRAL_HEADER_SIZE, name);
+            names[i] = new String(name, StandardCharsets.UTF_8);
+            position += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+        return new MappedJar(path, buffer, names, records);
+    }
+
+    private static int findEnd(final ByteBuffer buffer) {
+        final int limit = Math.max(0, buffer.capacity() - END_SIZE - MAX_COMMENT_SIZE);
+        for (int position = buffer.capacity() - END_SIZE; position >= limit; position--) {
+            if (buffer.getInt(position) == END_SIGNATURE) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    public @NotNull Path getPath() {
+        return this.path;
+    }
+
+    public int size() {
+        return this.names.length;
+    }
+
+    public @NotNull String getName(final int index) {
+        return this.names[index];
+    }
+
+    public @NotNull @UnmodifiableView List<String> getEntryNames() {
+        return Collections.unmodifiableList(Arrays.asList(this.names));
+    }
+
+    /**
+     * @return the index of the entry, or {@code -1} if the jar does not contain it
+     */
+    public int indexOf(final @NotNull String name) {
+        final Integer index = this.indexes.get(name);
+        return index != null ? index : -1;
+    }
+
+    public boolean contains(final @NotNull String name) {
+        return this.indexes.containsKey(name);
+    }
+
+    public boolean isStored(final int index) {
+        return this.records[index * RECORD_SIZE] == METHOD_STORED;
+    }
+
+    public int getSize(final int index) {
+        return this.records[index * RECORD_SIZE + 2];
+    }
+
+    /**
+     * CRC-32 of the entry recorded in the central directory, read without inflating the entry.
+     */
+    public int getCrc(final int index) {
+        return this.records[index * RECORD_SIZE + 4];
+    }
+
+    /**
+     * @return a read-only view of the stored entry in the mapped jar, or {@code null} if the entry is compressed
+     */
+    public @Nullable ByteBuffer getStoredBuffer(final int index) throws IOException {
+        return this.isStored(index) ? this.data(index).asReadOnlyBuffer() : null;
+    }
+
+    public byte @NotNull [] read(final int index) throws IOException {
+        final ByteBuffer data = this.data(index);
+        final int size = this.getSize(index);
+        final byte[] bytes = new byte[size];
+        final int method = this.records[index * RECORD_SIZE];
+        if (method == METHOD_STORED) {
+            data.get(0, bytes);
+            return bytes;
+        }
+        if (method != METHOD_DEFLATED) {
+            throw new ZipException("Unsupported compression method " + method + " of entry " + this.names[index]);
+        }
+        final Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(data);
+        try {
+            int length = 0;
+            while (length < size) {
+                final int count = inflater.inflate(bytes, length, size - length);
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += count;
+            }
+            if (length != size) {
+                throw new ZipException("Truncated entry " + this.names[index]);
+            }
+        } catch (final DataFormatException e) {
+            throw new ZipException("Invalid compressed entry " + this.names[index] + ": " + e.getMessage());
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the content of the entry, or {@code null} if the jar does not contain it
+     */
+    public byte @Nullable [] read(final @NotNull String name) throws IOException {
+        final int index = this.indexOf(name);
+        return index != -1 ? this.read(index) : null;
+    }
+
+    public @NotNull InputStream openStream(final int index) throws IOException {
+        return new ByteArrayInputStream(this.read(index));
+    }
+
+    /**
+     * Copies an entry to a file, stored entries are written straight from the mapped jar.
+     *
+     * @param target file other than this jar, which would be truncated while it is still read
+     */
+    public void copyTo(final int index, final @NotNull Path target) throws IOException {
+        Objects.requireNonNull(target, "target must not be null");
+        if (target.toAbsolutePath().normalize().equals(this.path.toAbsolutePath().normalize()) ||
+                (Files.exists(target) && Files.isSameFile(target, this.path))) {
+            throw new IllegalArgumentException("Cannot copy an entry over its own jar: " + target);
+        }
+        final ByteBuffer stored = this.getStoredBuffer(index);
+        if (stored == null) {
+            Files.write(target, this.read(index));
+            return;
+        }
+        try (final FileChannel channel = FileChannel.open(target,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            while (stored.hasRemaining()) {
+                channel.write(stored);
+            }
+        }
+    }
+
+    /**
+     * Forbids further reads. The mapping is only released once the buffer is garbage collected, until then the jar
+     * cannot be deleted or replaced on Windows.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+    }
+
+    private ByteBuffer data(final int index) throws IOException {
+        if (this.closed) {
+            throw new IOException("Jar is closed: " + this.path);
+        }
+        final int record = index * RECORD_SIZE;
+        final int header = this.records[record + 3];
+        if (header + LOCAL_HEADER_SIZE > this.buffer.capacity() || this.buffer.getInt(header) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local header of entry " + this.names[index]);
+        }
+        final int offset = header + LOCAL_HEADER_SIZE + Short.toUnsignedInt(this.buffer.getShort(header + 26)) +
+                Short.toUnsignedInt(this.buffer.getShort(header + 28));
+        final int length = this.records[record + 1];
+        if ((long) offset + length > this.buffer.capacity()) {
+            throw new ZipException("Truncated entry " + this.names[index]);
+        }
+        return this.buffer.slice(offset, length);
+    }
+
+}
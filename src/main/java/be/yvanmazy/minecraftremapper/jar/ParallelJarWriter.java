@@ -0,0 +1,322 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.jar;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+/**
+ * Jar writer compressing entries on several threads. Entries are written in the order they are submitted,
+ * so the output only depends on the input, the compression level and the time of the entries. Reproducible jars
+ * use a fixed time instead of the current one and a normalised manifest.
+ */
+public final class ParallelJarWriter implements Closeable {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int END_SIZE = 22;
+    private static final int UTF8_FLAG = 0x800;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    // An entry count of 0xFFFF marks a ZIP64 end of central directory
+    private static final int MAX_ENTRIES = 0xFFFF;
+    private static final long MAX_OFFSET = 0xFFFFFFFFL;
+    // Same fixed time as the reproducible archives of Gradle, the first valid DOS date is avoided by some tools
+    private static final int REPRODUCIBLE_DOS_TIME = toDosTime(LocalDateTime.of(1980, 2, 1, 0, 0));
+
+    /**
+     * Order of the entries of a reproducible jar, by name after the manifest. The manifest stays first, JarInputStream
+     * only finds it there.
+     */
+    public static final Comparator<String> REPRODUCIBLE_ORDER = Comparator.comparingInt(ParallelJarWriter::getRank)
+            .thenComparing(Comparator.naturalOrder());
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+
+    private final OutputStream out;
+    private final JarCompression compression;
+    private final ExecutorService executor;
+    private final int window;
+    private final long maxPendingBytes;
+    private final boolean reproducible;
+    private final int dosTime;
+    private final Deque<Future<CompressedEntry>> pending = new ArrayDeque<>();
+    private final List<CentralEntry> centralEntries = new ArrayList<>();
+    private final Set<String> names = new HashSet<>();
+    private final ByteBuffer header = ByteBuffer.allocate(CENTRAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long position;
+    private long pendingBytes;
+    private boolean closed;
+
+    public ParallelJarWriter(final @NotNull Path path, final @NotNull JarCompression compression) throws IOException {
+        this(path, compression, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelJarWriter(final @NotNull Path path, final @NotNull JarCompression compression, final int threads) throws IOException {
+        this(path, compression, threads, false);
+    }
+
+    public ParallelJarWriter(final @NotNull Path path, final @NotNull JarCompression compression, final int threads, final boolean reproducible)
+            throws IOException {
+        this(path, compression, threads, reproducible, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param maxPendingBytes size of the submitted entries kept in memory until they are written, at least one entry is
+     *                        always kept
+     */
+    public ParallelJarWriter(final @NotNull Path path,
+                             final @NotNull JarCompression compression,
+                             final int threads,
+                             final boolean reproducible,
+                             final long maxPendingBytes) throws IOException {
+        this.compression = Objects.requireNonNull(compression, "compression must not be null");
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        if (maxPendingBytes <= 0) {
+            throw new IllegalArgumentException("maxPendingBytes must be positive");
+        }
+        this.out = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16);
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "Jar-Compression");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Keep enough entries in flight to feed every thread without buffering the whole jar
+        this.window = threads * 8;
+        this.maxPendingBytes = maxPendingBytes;
+        this.reproducible = reproducible;
+        this.dosTime = reproducible ? REPRODUCIBLE_DOS_TIME : toDosTime(LocalDateTime.now());
+    }
+
+    public void write(final @NotNull String name, final byte @NotNull [] data) throws IOException {
+        Objects.requireNonNull(name, "name must not be null");
+        Objects.requireNonNull(data, "data must not be null");
+        if (this.closed) {
+            throw new IOException("Writer is closed");
+        }
+        if (!this.names.add(name)) {
+            throw new ZipException("duplicate entry: " + name);
+        }
+        if (this.names.size() >= MAX_ENTRIES) {
+            throw new ZipException("Too many entries, ZIP64 is not supported");
+        }
+        final byte[] content = this.reproducible && name.equals(JarFile.MANIFEST_NAME) ? normalizeManifest(data) : data;
+        final boolean stored = this.compression.isStored() || name.endsWith("/");
+        this.pending.add(this.executor.submit(() -> compress(name, content, stored, this.compression.getLevel())));
+        this.pendingBytes += content.length;
+        while (this.pending.size() > this.window || (this.pendingBytes > this.maxPendingBytes && this.pending.size() > 1)) {
+            this.writeEntry(this.await(this.pending.poll()));
+        }
+    }
+
+    public boolean isReproducible() {
+        return this.reproducible;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            while (!this.pending.isEmpty()) {
+                this.writeEntry(this.await(this.pending.poll()));
+            }
+            this.writeCentralDirectory();
+        } finally {
+            this.executor.shutdownNow();
+            this.out.close();
+        }
+    }
+
+    private CompressedEntry await(final Future<CompressedEntry> future) throws IOException {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing jar entries");
+        } catch (final ExecutionException e) {
+            throw new IOException("Failed to compress jar entry", e.getCause());
+        }
+    }
+
+    private static CompressedEntry compress(final String name, final byte[] data, final boolean stored, final int level) {
+        final CRC32 crc = new CRC32();
+        crc.update(data);
+        final byte[] rawName = name.getBytes(StandardCharsets.UTF_8);
+        if (stored || data.length == 0) {
+            return new CompressedEntry(rawName, METHOD_STORED, crc.getValue(), data.length, data, data.length);
+        }
+
+        final Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setLevel(level);
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] buffer = new byte[Math.max(64, data.length + (data.length >> 4) + 64)];
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            length += deflater.deflate(buffer, length, buffer.length - length);
+        }
+        if (length >= data.length) {
+            // Incompressible data, storing it is smaller and faster to read back
+            return new CompressedEntry(rawName, METHOD_STORED, crc.getValue(), data.length, data, data.length);
+        }
+        return new CompressedEntry(rawName, METHOD_DEFLATED, crc.getValue(), data.length, buffer, length);
+    }
+
+    private void writeEntry(final CompressedEntry entry) throws IOException {
+        final long offset = this.position;
+        if (offset + LOCAL_HEADER_SIZE + entry.name().length + entry.length() > MAX_OFFSET) {
+            throw new ZipException("Jar is too large, ZIP64 is not supported");
+        }
+        final ByteBuffer buffer = this.header.clear();
+        buffer.putInt(LOCAL_HEADER_SIGNATURE);
+        buffer.putShort((short) (entry.method() == METHOD_STORED ? 10 : 20));
+        buffer.putShort((short) UTF8_FLAG);
+        buffer.putShort((short) entry.method());
+        buffer.putInt(this.dosTime);
+        buffer.putInt((int) entry.crc());
+        buffer.putInt(entry.length());
+        buffer.putInt(entry.size());
+        buffer.putShort((short) entry.name().length);
+        buffer.putShort((short) 0);
+        this.out.write(buffer.array(), 0, LOCAL_HEADER_SIZE);
+        this.out.write(entry.name());
+        this.out.write(entry.data(), 0, entry.length());
+        this.position += LOCAL_HEADER_SIZE + entry.name().length + entry.length();
+        this.pendingBytes -= entry.size();
+        this.centralEntries.add(new CentralEntry(entry.name(), entry.method(), entry.crc(), entry.length(), entry.size(), offset));
+    }
+
+    private void writeCentralDirectory() throws IOException {
+        final long start = this.position;
+        for (final CentralEntry entry : this.centralEntries) {
+            final ByteBuffer buffer = this.header.clear();
+            buffer.putInt(CENTRAL_HEADER_SIGNATURE);
+            buffer.putShort((short) 20);
+            buffer.putShort((short) (entry.method() == METHOD_STORED ? 10 : 20));
+            buffer.putShort((short) UTF8_FLAG);
+            buffer.putShort((short) entry.method());
+            buffer.putInt(this.dosTime);
+            buffer.putInt((int) entry.crc());
+            buffer.putInt(entry.compressedSize());
+            buffer.putInt(entry.size());
+            buffer.putShort((short) entry.name().length);
+            buffer.putShort((short) 0); // extra
+            buffer.putShort((short) 0); // comment
+            buffer.putShort((short) 0); // disk
+            buffer.putShort((short) 0); // internal attributes
+            buffer.putInt(0); // external attributes
+            buffer.putInt((int) entry.offset());
+            this.out.write(buffer.array(), 0, CENTRAL_HEADER_SIZE);
+            this.out.write(entry.name());
+            this.position += CENTRAL_HEADER_SIZE + entry.name().length;
+        }
+        if (this.position > MAX_OFFSET) {
+            throw new ZipException("Jar is too large, ZIP64 is not supported");
+        }
+        final ByteBuffer buffer = this.header.clear();
+        buffer.putInt(END_SIGNATURE);
+        buffer.putShort((short) 0);
+        buffer.putShort((short) 0);
+        buffer.putShort((short) this.centralEntries.size());
+        buffer.putShort((short) this.centralEntries.size());
+        buffer.putInt((int) (this.position - start));
+        buffer.putInt((int) start);
+        buffer.putShort((short) 0);
+        this.out.write(buffer.array(), 0, END_SIZE);
+        this.out.flush();
+    }
+
+    private static int getRank(final String name) {
+        if (name.equals("META-INF/")) {
+            return 0;
+        }
+        return name.equals(JarFile.MANIFEST_NAME) ? 1 : 2;
+    }
+
+    /**
+     * Sorts the main attributes and drops the sections of the entries, their digests are the ones of the original
+     * classes.
+     */
+    private static byte[] normalizeManifest(final byte[] data) throws IOException {
+        final Attributes source = new Manifest(new ByteArrayInputStream(data)).getMainAttributes();
+        final Manifest manifest = new Manifest();
+        final Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, Objects.requireNonNullElse(source.getValue(Attributes.Name.MANIFEST_VERSION), "1.0"));
+        source.entrySet()
+                .stream()
+                .sorted(Comparator.comparing(entry -> entry.getKey().toString()))
+                .forEach(entry -> attributes.put(entry.getKey(), entry.getValue()));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+        manifest.write(out);
+        return out.toByteArray();
+    }
+
+    private static int toDosTime(final LocalDateTime time) {
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (time.getYear() - 1980) << 25 | time.getMonthValue() << 21 | time.getDayOfMonth() << 16 | time.getHour() << 11 |
+                time.getMinute() << 5 | time.getSecond() >> 1;
+    }
+
+    private record CompressedEntry(byte[] name, int method, long crc, int size, byte[] data, int length) {
+
+    }
+
+    private record CentralEntry(byte[] name, int method, long crc, int compressedSize, int size, long offset) {
+
+    }
+
+}
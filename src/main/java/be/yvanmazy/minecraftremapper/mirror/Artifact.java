@@ -0,0 +1,55 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.mirror;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * @param etag      strong validator, quoted
+ * @param immutable whether the content never changes for this path, like the objects addressed by their sha1
+ */
+record Artifact(Path path, String etag, String contentType, boolean immutable) {
+
+    Artifact {
+        Objects.requireNonNull(path, "path must not be null");
+        Objects.requireNonNull(etag, "etag must not be null");
+        Objects.requireNonNull(contentType, "contentType must not be null");
+    }
+
+    static String getContentType(final String name) {
+        if (name.endsWith(".json")) {
+            return "application/json";
+        }
+        if (name.endsWith(".jar")) {
+            return "application/java-archive";
+        }
+        if (name.endsWith(".txt") || name.endsWith(".map") || name.endsWith(".java")) {
+            return "text/plain; charset=utf-8";
+        }
+        return "application/octet-stream";
+    }
+
+}
@@ -0,0 +1,281 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.mirror;
+
+import be.yvanmazy.minecraftremapper.DirectionType;
+import be.yvanmazy.minecraftremapper.http.ConditionalResponse;
+import be.yvanmazy.minecraftremapper.http.RequestHttpClient;
+import be.yvanmazy.minecraftremapper.http.exception.RequestHttpException;
+import be.yvanmazy.minecraftremapper.util.HashUtil;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Resolves the paths of the Mojang launcher meta endpoints and of the outputs to local files. Objects are looked up by
+ * their sha1 in the downloads of the output directory, then in the cache of the mirror, and are fetched from Mojang on
+ * the first request when an upstream client is set.
+ */
+final class ArtifactStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactStore.class);
+
+    private static final String META_URL = "https://piston-meta.mojang.com";
+    private static final String DATA_URL = "https://piston-data.mojang.com";
+    private static final String MANIFEST_PATH = "/mc/game/";
+    private static final String PACKAGES_PATH = "/v1/packages/";
+    private static final String OBJECTS_PATH = "/v1/objects/";
+    private static final String OUTPUTS_PATH = "/outputs/";
+    private static final Set<String> MANIFESTS = Set.of("version_manifest.json", "version_manifest_v2.json");
+    private static final Pattern SHA1 = Pattern.compile("[0-9a-f]{40}");
+    private static final long MANIFEST_TTL = Duration.ofMinutes(1).toMillis();
+
+    private final Path outputDirectory;
+    private final Path directory;
+    private final RequestHttpClient upstream;
+    // Hashes of the local files, only computed again when their size or modification time changes
+    private final Map<Path, Fingerprint> hashes = new ConcurrentHashMap<>();
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+    private final Map<String, Manifest> manifests = new ConcurrentHashMap<>();
+
+    /**
+     * @param upstream client used to fetch what is missing, or {@code null} to only serve the local files
+     */
+    ArtifactStore(final Path outputDirectory, final @Nullable RequestHttpClient upstream) {
+        this.outputDirectory = outputDirectory.toAbsolutePath().normalize();
+        this.directory = this.outputDirectory.resolve("mirror");
+        this.upstream = upstream;
+    }
+
+    /**
+     * @param path decoded path of the request
+     * @return the artifact, or {@code null} when it is not known
+     */
+    @Nullable Artifact resolve(final String path) throws IOException {
+        if (path.startsWith(MANIFEST_PATH)) {
+            final String name = path.substring(MANIFEST_PATH.length());
+            return MANIFESTS.contains(name) ? this.resolveManifest(name) : null;
+        }
+        if (path.startsWith(PACKAGES_PATH)) {
+            return this.resolveObject(path, PACKAGES_PATH, META_URL);
+        }
+        if (path.startsWith(OBJECTS_PATH)) {
+            return this.resolveObject(path, OBJECTS_PATH, DATA_URL);
+        }
+        if (path.startsWith(OUTPUTS_PATH)) {
+            return this.resolveOutput(path.substring(OUTPUTS_PATH.length()));
+        }
+        return null;
+    }
+
+    private Artifact resolveManifest(final String name) throws IOException {
+        synchronized (this.locks.computeIfAbsent(name, key -> new Object())) {
+            final Path file = this.directory.resolve(name);
+            Manifest manifest = this.manifests.get(name);
+            if (manifest == null && Files.isRegularFile(file)) {
+                manifest = new Manifest(HashUtil.hash(file), null, null, 0L);
+            }
+            // Agents revalidate the manifest often, Mojang is asked at most once per minute
+            if (this.upstream != null && (manifest == null || System.currentTimeMillis() - manifest.checked() > MANIFEST_TTL)) {
+                try {
+                    manifest = this.fetchManifest(name, file, manifest);
+                } catch (final RequestHttpException | IOException e) {
+                    if (manifest == null) {
+                        throw new IOException("Failed to fetch " + name, e);
+                    }
+                    LOGGER.warn("Failed to revalidate {}, the cached copy is served", name, e);
+                }
+            }
+            if (manifest == null) {
+                return null;
+            }
+            this.manifests.put(name, manifest);
+            return new Artifact(file, '"' + manifest.sha1() + '"', Artifact.getContentType(name), false);
+        }
+    }
+
+    private Manifest fetchManifest(final String name, final Path file, final @Nullable Manifest previous) throws RequestHttpException, IOException {
+        final ConditionalResponse response = this.upstream.getStringIfModified(META_URL + MANIFEST_PATH + name,
+                previous != null ? previous.etag() : null,
+                previous != null ? previous.lastModified() : null);
+        if (!response.isModified() && previous != null) {
+            return new Manifest(previous.sha1(), response.etag(), response.lastModified(), System.currentTimeMillis());
+        }
+        final byte[] content = response.body() != null ? response.body().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        this.write(file, content);
+        return new Manifest(HashUtil.hash(new ByteArrayInputStream(content)), response.etag(), response.lastModified(), System.currentTimeMillis());
+    }
+
+    private Artifact resolveObject(final String path, final String prefix, final String host) throws IOException {
+        final String[] segments = path.substring(prefix.length()).split("/", -1);
+        if (segments.length != 2 || !SHA1.matcher(segments[0]).matches() || segments[1].isEmpty()) {
+            return null;
+        }
+        final String sha1 = segments[0];
+        final String name = segments[1];
+        Path file = this.findObject(sha1, name);
+        if (file == null) {
+            if (this.upstream == null) {
+                return null;
+            }
+            // Concurrent agents asking for the same object wait for a single download
+            synchronized (this.locks.computeIfAbsent(sha1, key -> new Object())) {
+                file = this.findObject(sha1, name);
+                if (file == null) {
+                    file = this.fetchObject(host + path, sha1);
+                }
+            }
+        }
+        return new Artifact(file, '"' + sha1 + '"', Artifact.getContentType(name), true);
+    }
+
+    private Path findObject(final String sha1, final String name) throws IOException {
+        final List<Path> candidates = new ArrayList<>();
+        candidates.add(this.directory.resolve("objects").resolve(sha1));
+        if (name.endsWith(".json")) {
+            // Version metadata is cached as <version>.json in the directory of each side
+            final String id = name.substring(0, name.length() - ".json".length());
+            for (final DirectionType type : DirectionType.values()) {
+                candidates.add(this.outputDirectory.resolve(id + type.getKey()).resolve(name));
+            }
+        } else {
+            this.findDownloads(sha1, candidates);
+        }
+        // The sidecar is not enough, the server jar is replaced by the jar it bundles once unpacked
+        for (final Path candidate : candidates) {
+            if (sha1.equals(this.hash(candidate))) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private void findDownloads(final String sha1, final List<Path> candidates) throws IOException {
+        if (!Files.isDirectory(this.outputDirectory)) {
+            return;
+        }
+        try (final Stream<Path> directories = Files.list(this.outputDirectory)) {
+            for (final Path directory : directories.filter(Files::isDirectory).toList()) {
+                try (final Stream<Path> files = Files.list(directory)) {
+                    for (final Path file : files.filter(file -> file.getFileName().toString().endsWith(".sha1")).toList()) {
+                        if (Files.readString(file).trim().equals(sha1)) {
+                            final String fileName = file.getFileName().toString();
+                            candidates.add(file.resolveSibling(fileName.substring(0, fileName.length() - ".sha1".length())));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private Path fetchObject(final String url, final String sha1) throws IOException {
+        LOGGER.info("Fetching {}...", url);
+        final byte[] content;
+        try {
+            content = this.upstream.getBytes(url);
+        } catch (final RequestHttpException e) {
+            throw new IOException("Failed to fetch " + url, e);
+        }
+        if (!sha1.equals(HashUtil.hash(new ByteArrayInputStream(content)))) {
+            throw new IOException("Checksum failed for " + url);
+        }
+        final Path file = this.directory.resolve("objects").resolve(sha1);
+        this.write(file, content);
+        return file;
+    }
+
+    private Artifact resolveOutput(final String relative) throws IOException {
+        final Path file = this.outputDirectory.resolve(relative).normalize();
+        if (!file.startsWith(this.outputDirectory) || file.startsWith(this.directory)) {
+            return null;
+        }
+        final BasicFileAttributes attributes = this.readAttributes(file);
+        if (attributes == null) {
+            return null;
+        }
+        final String etag = '"' + Long.toHexString(attributes.size()) + '-' + Long.toHexString(attributes.lastModifiedTime().toMillis()) + '"';
+        return new Artifact(file, etag, Artifact.getContentType(file.getFileName().toString()), false);
+    }
+
+    private @Nullable String hash(final Path path) throws IOException {
+        final BasicFileAttributes attributes = this.readAttributes(path);
+        if (attributes == null) {
+            return null;
+        }
+        final long modified = attributes.lastModifiedTime().toMillis();
+        final Fingerprint known = this.hashes.get(path);
+        if (known != null && known.size() == attributes.size() && known.modified() == modified) {
+            return known.sha1();
+        }
+        final String sha1 = HashUtil.hash(path);
+        this.hashes.put(path, new Fingerprint(attributes.size(), modified, sha1));
+        return sha1;
+    }
+
+    private @Nullable BasicFileAttributes readAttributes(final Path path) throws IOException {
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (final NoSuchFileException e) {
+            return null;
+        }
+        return attributes.isRegularFile() ? attributes : null;
+    }
+
+    // Served files are replaced atomically, a transfer in progress keeps reading the previous one
+    private void write(final Path file, final byte[] content) throws IOException {
+        Files.createDirectories(file.getParent());
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, content);
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private record Fingerprint(long size, long modified, String sha1) {
+
+    }
+
+    private record Manifest(String sha1, @Nullable String etag, @Nullable String lastModified, long checked) {
+
+    }
+
+}
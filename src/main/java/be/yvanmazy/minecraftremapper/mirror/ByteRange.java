@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.mirror;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Single range of a {@code Range} header, resolved against the length of the file.
+ *
+ * @param start first byte, inclusive
+ * @param end   last byte, exclusive
+ */
+record ByteRange(long start, long end) {
+
+    private static final String UNIT = "bytes=";
+
+    /**
+     * @return the range, or {@code null} when the header is malformed or asks for several ranges, in which case the
+     * whole file is sent
+     */
+    static @Nullable ByteRange parse(final String value, final long length) {
+        if (!value.startsWith(UNIT) || value.indexOf(',') != -1) {
+            return null;
+        }
+        final String spec = value.substring(UNIT.length()).trim();
+        final int dash = spec.indexOf('-');
+        if (dash == -1) {
+            return null;
+        }
+        try {
+            if (dash == 0) {
+                // Suffix range, the last bytes of the file
+                final long suffix = Long.parseLong(spec.substring(1));
+                if (suffix < 0L) {
+                    return null;
+                }
+                return new ByteRange(Math.max(0L, length - suffix), length);
+            }
+            final long start = Long.parseLong(spec.substring(0, dash));
+            if (dash == spec.length() - 1) {
+                return new ByteRange(start, length);
+            }
+            final long last = Long.parseLong(spec.substring(dash + 1));
+            if (last < start) {
+                return null;
+            }
+            return new ByteRange(start, Math.min(last + 1, length));
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+
+    boolean isSatisfiable() {
+        return this.start < this.end;
+    }
+
+    long length() {
+        return this.end - this.start;
+    }
+
+}
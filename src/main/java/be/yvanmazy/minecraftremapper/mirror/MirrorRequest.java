@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.mirror;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Head of an HTTP/1.x request, the header names are lower case.
+ */
+record MirrorRequest(String method, String target, String version, Map<String, String> headers) {
+
+    private static final int MAX_LINE_LENGTH = 8192;
+    private static final int MAX_HEADERS = 100;
+
+    MirrorRequest {
+        Objects.requireNonNull(method, "method must not be null");
+        Objects.requireNonNull(target, "target must not be null");
+        Objects.requireNonNull(version, "version must not be null");
+        headers = Map.copyOf(headers);
+    }
+
+    /**
+     * @return the next request of the connection, or {@code null} when the client closed it
+     */
+    static @Nullable MirrorRequest read(final InputStream in) throws IOException {
+        String line = readLine(in);
+        while (line != null && line.isEmpty()) {
+            line = readLine(in);
+        }
+        if (line == null) {
+            return null;
+        }
+        final String[] parts = line.split(" ");
+        if (parts.length != 3 || !parts[2].startsWith("HTTP/1.")) {
+            throw new ProtocolException("Malformed request line: " + line);
+        }
+        final Map<String, String> headers = new HashMap<>();
+        while (true) {
+            final String header = readLine(in);
+            if (header == null) {
+                throw new EOFException("Unexpected end of request");
+            }
+            if (header.isEmpty()) {
+                break;
+            }
+            final int colon = header.indexOf(':');
+            if (colon <= 0 || headers.size() >= MAX_HEADERS) {
+                throw new ProtocolException("Malformed header: " + header);
+            }
+            headers.merge(header.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                    header.substring(colon + 1).trim(),
+                    (first, second) -> first + ", " + second);
+        }
+        return new MirrorRequest(parts[0], parts[1], parts[2], headers);
+    }
+
+    private static String readLine(final InputStream in) throws IOException {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b == -1) {
+                if (line.size() == 0) {
+                    return null;
+                }
+                throw new EOFException("Unexpected end of request");
+            }
+            if (line.size() >= MAX_LINE_LENGTH) {
+                throw new ProtocolException("Line too long");
+            }
+            line.write(b);
+        }
+        final String value = line.toString(StandardCharsets.ISO_8859_1);
+        return value.endsWith("\r") ? value.substring(0, value.length() - 1) : value;
+    }
+
+    @Nullable String header(final String name) {
+        return this.headers.get(name);
+    }
+
+    /**
+     * Requests with a body are not read, so the connection is closed after them.
+     */
+    boolean isKeepAlive() {
+        if (this.headers.containsKey("content-length") || this.headers.containsKey("transfer-encoding")) {
+            return false;
+        }
+        final String connection = this.header("connection");
+        if (connection != null) {
+            for (final String token : connection.split(",")) {
+                if (token.trim().equalsIgnoreCase("close")) {
+                    return false;
+                }
+                if (token.trim().equalsIgnoreCase("keep-alive")) {
+                    return true;
+                }
+            }
+        }
+        return this.version.equals("HTTP/1.1");
+    }
+
+    /**
+     * @return whether one of the entity tags of the header matches, {@code *} matching any
+     */
+    boolean matches(final String headerName, final String etag) {
+        final String value = this.header(headerName);
+        if (value == null) {
+            return false;
+        }
+        for (final String tag : value.split(",")) {
+            final String trimmed = tag.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,329 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.mirror;
+
+import be.yvanmazy.minecraftremapper.http.RequestHttpClient;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP/1.1 server mirroring the paths of the Mojang launcher meta endpoints from the local downloads, and serving the
+ * output directory under {@code /outputs/}. Files are sent with {@link FileChannel#transferTo} straight to the socket,
+ * with support of keep-alive, single byte ranges and entity tags.
+ *
+ * @see RequestHttpClient#mirrored(RequestHttpClient, String)
+ */
+public final class MirrorServer implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MirrorServer.class);
+
+    private static final int KEEP_ALIVE_TIMEOUT = 15_000;
+
+    private final ServerSocketChannel serverChannel;
+    private final ArtifactStore store;
+    private final ExecutorService executor;
+    private final Thread acceptor;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong servedBytes = new AtomicLong();
+
+    private MirrorServer(final ServerSocketChannel serverChannel, final ArtifactStore store, final int threads) {
+        this.serverChannel = serverChannel;
+        this.store = store;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "Mirror-Server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.acceptor = new Thread(this::accept, "Mirror-Server-Acceptor");
+    }
+
+    /**
+     * @param upstream client used to fetch the missing artifacts from Mojang, or {@code null} to only serve the local ones
+     * @param threads  maximum number of connections served at the same time
+     */
+    @Contract("_, _, _, _ -> new")
+    public static @NotNull MirrorServer start(final @NotNull Path outputDirectory,
+                                              final @Nullable RequestHttpClient upstream,
+                                              final @NotNull InetSocketAddress address,
+                                              final int threads) throws IOException {
+        Objects.requireNonNull(outputDirectory, "outputDirectory must not be null");
+        Objects.requireNonNull(address, "address must not be null");
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        final ServerSocketChannel channel = ServerSocketChannel.open();
+        try {
+            channel.bind(address, threads);
+        } catch (final IOException e) {
+            channel.close();
+            throw e;
+        }
+        final MirrorServer server = new MirrorServer(channel, new ArtifactStore(outputDirectory, upstream), threads);
+        server.acceptor.start();
+        LOGGER.info("Mirror server started on {}", server.getBaseUrl());
+        return server;
+    }
+
+    public @NotNull String getBaseUrl() {
+        final InetSocketAddress address;
+        try {
+            address = (InetSocketAddress) this.serverChannel.getLocalAddress();
+        } catch (final IOException e) {
+            throw new IllegalStateException("Mirror server is closed", e);
+        }
+        String host = address.getHostString();
+        if (address.getAddress().isAnyLocalAddress()) {
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (final UnknownHostException e) {
+                host = InetAddress.getLoopbackAddress().getHostAddress();
+            }
+        }
+        return "http://" + host + ":" + address.getPort();
+    }
+
+    public long getRequestCount() {
+        return this.requestCount.get();
+    }
+
+    public long getServedBytes() {
+        return this.servedBytes.get();
+    }
+
+    public void join() throws InterruptedException {
+        this.acceptor.join();
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.serverChannel.close();
+        } catch (final IOException e) {
+            LOGGER.warn("Failed to close mirror server", e);
+        }
+        // Interrupting the connections closes their channels
+        this.executor.shutdownNow();
+    }
+
+    private void accept() {
+        while (this.serverChannel.isOpen()) {
+            final SocketChannel channel;
+            try {
+                channel = this.serverChannel.accept();
+            } catch (final ClosedChannelException e) {
+                return;
+            } catch (final IOException e) {
+                LOGGER.warn("Failed to accept connection", e);
+                continue;
+            }
+            try {
+                this.executor.execute(() -> this.serve(channel));
+            } catch (final RejectedExecutionException e) {
+                closeQuietly(channel);
+                return;
+            }
+        }
+    }
+
+    private void serve(final SocketChannel channel) {
+        try (channel) {
+            // Reads through the socket adaptor honour the timeout, the responses are written to the channel
+            final Socket socket = channel.socket();
+            socket.setSoTimeout(KEEP_ALIVE_TIMEOUT);
+            socket.setTcpNoDelay(true);
+            final InputStream in = new BufferedInputStream(socket.getInputStream());
+            MirrorRequest request;
+            do {
+                try {
+                    request = MirrorRequest.read(in);
+                } catch (final ProtocolException e) {
+                    this.sendError(channel, 400, "Bad Request", null, false, false);
+                    return;
+                }
+            } while (request != null && this.respond(channel, request));
+        } catch (final SocketTimeoutException | ClosedChannelException ignored) {
+        } catch (final IOException e) {
+            LOGGER.debug("Connection closed", e);
+        }
+    }
+
+    /**
+     * @return whether the connection is kept alive
+     */
+    private boolean respond(final SocketChannel channel, final MirrorRequest request) throws IOException {
+        this.requestCount.incrementAndGet();
+        final boolean head = request.method().equals("HEAD");
+        if (!head && !request.method().equals("GET")) {
+            this.sendError(channel, 405, "Method Not Allowed", "Allow: GET, HEAD\r\n", false, false);
+            return false;
+        }
+        final boolean keepAlive = request.isKeepAlive();
+        final String path;
+        try {
+            path = new URI(request.target()).getPath();
+        } catch (final URISyntaxException e) {
+            this.sendError(channel, 400, "Bad Request", null, head, false);
+            return false;
+        }
+        final Artifact artifact;
+        try {
+            artifact = path != null ? this.store.resolve(path) : null;
+        } catch (final IOException e) {
+            LOGGER.warn("Failed to resolve {}", path, e);
+            this.sendError(channel, 502, "Bad Gateway", null, head, keepAlive);
+            return keepAlive;
+        }
+        if (artifact == null) {
+            this.sendError(channel, 404, "Not Found", null, head, keepAlive);
+            return keepAlive;
+        }
+        LOGGER.debug("{} {}", request.method(), path);
+
+        try (final FileChannel file = FileChannel.open(artifact.path(), StandardOpenOption.READ)) {
+            final long length = file.size();
+            final StringBuilder headers = new StringBuilder();
+            headers.append("ETag: ").append(artifact.etag()).append("\r\n");
+            headers.append("Cache-Control: ").append(artifact.immutable() ? "public, max-age=31536000, immutable" : "no-cache").append("\r\n");
+            headers.append("Accept-Ranges: bytes\r\n");
+            if (request.matches("if-none-match", artifact.etag())) {
+                this.sendHead(channel, 304, "Not Modified", headers, -1L, keepAlive);
+                return keepAlive;
+            }
+            headers.append("Content-Type: ").append(artifact.contentType()).append("\r\n");
+
+            // An outdated If-Range asks for the whole file
+            final String rangeHeader = request.header("range");
+            final String ifRange = request.header("if-range");
+            final ByteRange range = rangeHeader != null && (ifRange == null || ifRange.equals(artifact.etag()))
+                    ? ByteRange.parse(rangeHeader, length)
+                    : null;
+            if (range != null && !range.isSatisfiable()) {
+                headers.append("Content-Range: bytes */").append(length).append("\r\n");
+                this.sendHead(channel, 416, "Range Not Satisfiable", headers, 0L, keepAlive);
+                return keepAlive;
+            }
+            final long start = range != null ? range.start() : 0L;
+            final long count = range != null ? range.length() : length;
+            if (range != null) {
+                headers.append("Content-Range: bytes ").append(start).append('-').append(range.end() - 1).append('/').append(length).append("\r\n");
+                this.sendHead(channel, 206, "Partial Content", headers, count, keepAlive);
+            } else {
+                this.sendHead(channel, 200, "OK", headers, count, keepAlive);
+            }
+            if (!head) {
+                this.transfer(file, start, count, channel);
+            }
+        }
+        return keepAlive;
+    }
+
+    private void transfer(final FileChannel file, final long start, final long count, final SocketChannel channel) throws IOException {
+        long position = start;
+        final long end = start + count;
+        while (position < end) {
+            final long sent = file.transferTo(position, end - position, channel);
+            if (sent <= 0L && position >= file.size()) {
+                throw new IOException("File truncated while serving it");
+            }
+            position += sent;
+            this.servedBytes.addAndGet(sent);
+        }
+    }
+
+    /**
+     * @param head whether the request is a {@code HEAD}, whose response has the headers of the body but not the body
+     */
+    private void sendError(final SocketChannel channel,
+                           final int status,
+                           final String reason,
+                           final @Nullable String extraHeaders,
+                           final boolean head,
+                           final boolean keepAlive) throws IOException {
+        final byte[] body = (status + " " + reason + "\n").getBytes(StandardCharsets.UTF_8);
+        final StringBuilder headers = new StringBuilder("Content-Type: text/plain; charset=utf-8\r\n");
+        if (extraHeaders != null) {
+            headers.append(extraHeaders);
+        }
+        this.sendHead(channel, status, reason, headers, body.length, keepAlive);
+        if (!head) {
+            write(channel, ByteBuffer.wrap(body));
+        }
+    }
+
+    /**
+     * @param contentLength length of the body, or -1 for a response without body
+     */
+    private void sendHead(final SocketChannel channel,
+                          final int status,
+                          final String reason,
+                          final StringBuilder headers,
+                          final long contentLength,
+                          final boolean keepAlive) throws IOException {
+        final StringBuilder head = new StringBuilder(256);
+        head.append("HTTP/1.1 ").append(status).append(' ').append(reason).append("\r\n");
+        head.append("Server: MinecraftRemapper\r\n");
+        head.append(headers);
+        if (contentLength >= 0L) {
+            head.append("Content-Length: ").append(contentLength).append("\r\n");
+        }
+        head.append("Connection: ").append(keepAlive ? "keep-alive" : "close").append("\r\n\r\n");
+        write(channel, ByteBuffer.wrap(head.toString().getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    private static void write(final SocketChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void closeQuietly(final SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (final IOException ignored) {
+        }
+    }
+
+}
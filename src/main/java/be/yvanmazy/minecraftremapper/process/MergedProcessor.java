@@ -0,0 +1,267 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.process;
+
+import be.yvanmazy.minecraftremapper.DirectionType;
+import be.yvanmazy.minecraftremapper.decompile.ClassTiming;
+import be.yvanmazy.minecraftremapper.decompile.DecompileProgress;
+import be.yvanmazy.minecraftremapper.decompile.DecompileReport;
+import be.yvanmazy.minecraftremapper.decompile.ForkedDecompiler;
+import be.yvanmazy.minecraftremapper.decompile.InMemoryContextSource;
+import be.yvanmazy.minecraftremapper.decompile.PriorityDecompiler;
+import be.yvanmazy.minecraftremapper.jar.InMemoryJar;
+import be.yvanmazy.minecraftremapper.jar.JarCompression;
+import be.yvanmazy.minecraftremapper.process.exception.ProcessingException;
+import be.yvanmazy.minecraftremapper.setting.PreparationSettings;
+import be.yvanmazy.minecraftremapper.symbol.SourceIndexer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.UnmodifiableView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Processes the client and the server of a version together. Both jars are remapped, then the entries whose remapped
+ * bytes are identical on both sides are decompiled once into a {@code shared} tree, and only the remaining entries
+ * into the {@code client} and {@code server} trees.
+ */
+public class MergedProcessor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MergedProcessor.class);
+
+    private final PreparationSettings config;
+    private final Path root;
+
+    private final Map<String, Duration> stageTimings = new LinkedHashMap<>();
+
+    public MergedProcessor(final @NotNull PreparationSettings config) {
+        this.config = Objects.requireNonNull(config, "config must not be null");
+        this.root = Path.of(config.outputDirectory(), config.version().id() + "merged");
+    }
+
+    public void process() throws ProcessingException {
+        this.stageTimings.clear();
+        // Each side runs its stage graph without decompiling, the merged trees are decompiled here
+        final RemapperProcessor client = new RemapperProcessor(this.config.toBuilder().target(DirectionType.CLIENT).decompile(false).build());
+        final RemapperProcessor server = new RemapperProcessor(this.config.toBuilder().target(DirectionType.SERVER).decompile(false).build());
+        // Both sides are downloaded and remapped at the same time, they only share the network
+        final CompletableFuture<InMemoryJar> serverTask = CompletableFuture.supplyAsync(() -> prepare(server));
+        final InMemoryJar clientJar = this.timed("client", () -> prepare(client));
+        final InMemoryJar serverJar = this.timed("server", () -> {
+            try {
+                return serverTask.join();
+            } catch (final CompletionException e) {
+                if (e.getCause() instanceof final ProcessingException cause) {
+                    throw cause;
+                }
+                throw new ProcessingException("Failed to prepare server", e.getCause());
+            }
+        });
+        client.getStageTimings().forEach((stage, duration) -> this.stageTimings.put("client-" + stage, duration));
+        server.getStageTimings().forEach((stage, duration) -> this.stageTimings.put("server-" + stage, duration));
+
+        final SplitJars split = this.timed("dedupe", () -> split(clientJar, serverJar));
+        LOGGER.info("{} entries are shared, {} are client only and {} are server only.",
+                split.shared().getEntryCount(),
+                split.client().getEntryCount(),
+                split.server().getEntryCount());
+        if (!this.config.decompile()) {
+            return;
+        }
+        // Classes of the other trees are given as libraries, so references across trees are still resolved
+        final Path decompiled = this.getDecompiledPath();
+        try {
+            Files.createDirectories(decompiled);
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to create output directory", e);
+        }
+        this.timed("decompile-shared", () -> this.decompile(split.shared(), split.client(), decompiled.resolve("shared")));
+        this.timed("decompile-client", () -> this.decompile(split.client(), split.shared(), decompiled.resolve("client")));
+        this.timed("decompile-server", () -> this.decompile(split.server(), split.shared(), decompiled.resolve("server")));
+        this.timed("symbol-index", () -> RemapperProcessor.indexSymbols(decompiled, this.getSymbolIndexPath()));
+    }
+
+    public @NotNull @UnmodifiableView Map<String, Duration> getStageTimings() {
+        return Collections.unmodifiableMap(this.stageTimings);
+    }
+
+    public @NotNull Path getDecompiledPath() {
+        return this.root.resolve("decompiled");
+    }
+
+    /**
+     * @param tree {@code shared}, {@code client} or {@code server}
+     */
+    public @NotNull Path getDecompileReportPath(final @NotNull String tree) {
+        return this.root.resolve("decompile-timings-" + tree + "-" + this.config.version().id() + ".txt");
+    }
+
+    /**
+     * @param tree {@code shared}, {@code client} or {@code server}
+     */
+    public @NotNull Path getDecompileProgressPath(final @NotNull String tree) {
+        return this.root.resolve("decompile-progress-" + tree + "-" + this.config.version().id() + ".txt");
+    }
+
+    public @NotNull Path getSymbolIndexPath() {
+        return this.root.resolve(SourceIndexer.getIndexFileName(this.config.version().id()));
+    }
+
+    /**
+     * Nested classes are decompiled with their outer class, so a class is only shared when the outer class and all
+     * its nested classes are identical on both sides.
+     */
+    static @NotNull SplitJars split(final @NotNull InMemoryJar client, final @NotNull InMemoryJar server) {
+        final Map<String, Boolean> identical = new HashMap<>();
+        for (final Map.Entry<String, byte[]> entry : client.getEntries().entrySet()) {
+            final byte[] other = server.get(entry.getKey());
+            identical.merge(getGroup(entry.getKey()), other != null && Arrays.equals(entry.getValue(), other), Boolean::logicalAnd);
+        }
+        for (final String name : server.getEntries().keySet()) {
+            if (!client.contains(name)) {
+                identical.put(getGroup(name), false);
+            }
+        }
+        final SplitJars split = new SplitJars(new InMemoryJar(), new InMemoryJar(), new InMemoryJar());
+        for (final Map.Entry<String, byte[]> entry : client.getEntries().entrySet()) {
+            if (identical.get(getGroup(entry.getKey()))) {
+                split.shared().put(entry.getKey(), entry.getValue());
+            } else {
+                split.client().put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (final Map.Entry<String, byte[]> entry : server.getEntries().entrySet()) {
+            if (!identical.get(getGroup(entry.getKey()))) {
+                split.server().put(entry.getKey(), entry.getValue());
+            }
+        }
+        return split;
+    }
+
+    private static String getGroup(final String name) {
+        return name.endsWith(".class") ? ForkedDecompiler.getOuterName(name) : name;
+    }
+
+    private static InMemoryJar prepare(final RemapperProcessor processor) {
+        try {
+            return processor.prepareRemappedJar();
+        } catch (final ProcessingException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private Void decompile(final InMemoryJar jar, final InMemoryJar library, final Path output) throws ProcessingException {
+        if (jar.getEntryCount() == 0) {
+            return null;
+        }
+        LOGGER.info("Decompiling {}...", output.getFileName());
+        final String name = output.getFileName().toString();
+        final Path progress = this.getDecompileProgressPath(name);
+        // Sources are published over the previous ones
+        final Set<String> previous;
+        try {
+            previous = DecompileProgress.prepare(output, progress);
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to prepare directory with decompiled files", e);
+        }
+        if (this.config.decompileSettings().isForked()) {
+            this.decompileForked(jar, library, output, name);
+        } else {
+            final List<ClassTiming> timings;
+            try {
+                timings = new PriorityDecompiler(this.config.decompileSettings()).decompile(new InMemoryContextSource(name, jar, output),
+                        new InMemoryContextSource(name + "-library", library, output),
+                        output,
+                        progress);
+            } catch (final IOException | UncheckedIOException e) {
+                throw new ProcessingException("Failed to decompile " + name, e);
+            }
+            DecompileReport.report(this.getDecompileReportPath(name), timings);
+        }
+        try {
+            DecompileProgress.deleteRemoved(output, previous, progress);
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to delete the sources of removed classes of " + name, e);
+        }
+        return null;
+    }
+
+    private void decompileForked(final InMemoryJar jar, final InMemoryJar library, final Path output, final String name) throws ProcessingException {
+        // Workers read the trees from temporary jars
+        final Path jarPath = this.root.resolve("decompile-" + name + ".jar");
+        final Path libraryPath = this.root.resolve("decompile-" + name + "-library.jar");
+        try {
+            jar.writeTo(jarPath, JarCompression.STORE);
+            library.writeTo(libraryPath, JarCompression.STORE);
+            final ForkedDecompiler decompiler = new ForkedDecompiler(this.config.decompileSettings(), this.root.resolve("decompile-workers"));
+            decompiler.decompile(jarPath, libraryPath, output, this.getDecompileProgressPath(name));
+            DecompileReport.report(this.getDecompileReportPath(name), decompiler.getTimings());
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to decompile " + name + " in workers", e);
+        } finally {
+            try {
+                Files.deleteIfExists(jarPath);
+                Files.deleteIfExists(libraryPath);
+            } catch (final IOException e) {
+                LOGGER.error("Failed to delete temporary jars", e);
+            }
+        }
+    }
+
+    private <T> T timed(final String stage, final Stage<T> action) throws ProcessingException {
+        final long start = System.nanoTime();
+        try {
+            return action.run();
+        } finally {
+            this.stageTimings.put(stage, Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    record SplitJars(@NotNull InMemoryJar shared, @NotNull InMemoryJar client, @NotNull InMemoryJar server) {
+    }
+
+    @FunctionalInterface
+    private interface Stage<T> {
+
+        T run() throws ProcessingException;
+
+    }
+
+}
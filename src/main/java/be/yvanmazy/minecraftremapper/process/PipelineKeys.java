@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.process;
+
+import be.yvanmazy.minecraftremapper.hierarchy.HierarchyIndex;
+import be.yvanmazy.minecraftremapper.jar.InMemoryJar;
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import be.yvanmazy.minecraftremapper.process.graph.StageKey;
+import be.yvanmazy.minecraftremapper.symbol.SymbolIndex;
+import com.google.gson.JsonObject;
+import net.md_5.specialsource.JarMapping;
+
+import java.nio.file.Path;
+
+/**
+ * Keys published by the stages of {@link RemapperProcessor#getStageGraph()}, for stages added by embedders.
+ */
+public final class PipelineKeys {
+
+    /**
+     * Downloads of the version json.
+     */
+    public static final StageKey<JsonObject> VERSION_DOWNLOADS = StageKey.of("version-downloads", JsonObject.class);
+    /**
+     * Jar downloaded from Mojang, the bundle of a server.
+     */
+    public static final StageKey<DownloadResult> DOWNLOADED_JAR = StageKey.of("downloaded-jar", DownloadResult.class);
+    /**
+     * Obfuscated game jar, unpacked from the bundle of a server.
+     */
+    public static final StageKey<DownloadResult> GAME_JAR = StageKey.of("game-jar", DownloadResult.class);
+    public static final StageKey<Path> MAPPING = StageKey.of("mapping", Path.class);
+    /**
+     * Parsed mapping, {@code null} when the remapped jar looked up to date before the game jar was checked.
+     */
+    public static final StageKey<JarMapping> JAR_MAPPING = StageKey.of("jar-mapping", JarMapping.class);
+    /**
+     * Game jar mapped in memory, {@code null} when the remapped jar is up to date.
+     */
+    public static final StageKey<MappedJar> MAPPED_GAME_JAR = StageKey.of("mapped-game-jar", MappedJar.class);
+    /**
+     * Hierarchy of the obfuscated game, {@code null} when the remapped jar is up to date.
+     */
+    public static final StageKey<HierarchyIndex> HIERARCHY = StageKey.of("hierarchy", HierarchyIndex.class);
+    /**
+     * Remapped classes and resources, {@code null} when the remapped jar is up to date.
+     */
+    public static final StageKey<InMemoryJar> REMAPPED = StageKey.of("remapped", InMemoryJar.class);
+    public static final StageKey<Path> REMAPPED_JAR = StageKey.of("remapped-jar", Path.class);
+    public static final StageKey<Path> API_JAR = StageKey.of("api-jar", Path.class);
+    public static final StageKey<Path> DECOMPILED = StageKey.of("decompiled", Path.class);
+    /**
+     * Declarations and references of the decompiled sources.
+     */
+    public static final StageKey<SymbolIndex> SYMBOL_INDEX = StageKey.of("symbol-index", SymbolIndex.class);
+    /**
+     * Call sites, field accesses, type references and strings of the remapped classes.
+     */
+    public static final StageKey<SymbolIndex> REFERENCE_INDEX = StageKey.of("reference-index", SymbolIndex.class);
+
+    private PipelineKeys() throws IllegalAccessException {
+        throw new IllegalAccessException("You cannot instantiate a utility class");
+    }
+
+}
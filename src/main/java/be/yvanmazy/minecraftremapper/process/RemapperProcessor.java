@@ -25,24 +25,65 @@
 package be.yvanmazy.minecraftremapper.process;
 
 import be.yvanmazy.minecraftremapper.DirectionType;
+import be.yvanmazy.minecraftremapper.api.ApiJarGenerator;
+import be.yvanmazy.minecraftremapper.decompile.ClassTiming;
+import be.yvanmazy.minecraftremapper.decompile.DecompileProgress;
+import be.yvanmazy.minecraftremapper.decompile.DecompileReport;
+import be.yvanmazy.minecraftremapper.decompile.ForkedDecompiler;
+import be.yvanmazy.minecraftremapper.decompile.InMemoryContextSource;
+import be.yvanmazy.minecraftremapper.decompile.MappedJarContextSource;
+import be.yvanmazy.minecraftremapper.decompile.PriorityDecompiler;
+import be.yvanmazy.minecraftremapper.export.MappingExporter;
+import be.yvanmazy.minecraftremapper.export.MappingFormat;
+import be.yvanmazy.minecraftremapper.hierarchy.HierarchyIndex;
+import be.yvanmazy.minecraftremapper.hierarchy.HierarchyIndexWriter;
+import be.yvanmazy.minecraftremapper.history.MappingHistory;
 import be.yvanmazy.minecraftremapper.http.exception.RequestHttpException;
+import be.yvanmazy.minecraftremapper.jar.InMemoryJar;
+import be.yvanmazy.minecraftremapper.jar.JarCompression;
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import be.yvanmazy.minecraftremapper.jar.ParallelJarWriter;
 import be.yvanmazy.minecraftremapper.process.exception.ProcessingException;
+import be.yvanmazy.minecraftremapper.process.graph.PipelineStage;
+import be.yvanmazy.minecraftremapper.process.graph.StageContext;
+import be.yvanmazy.minecraftremapper.process.graph.StageKey;
+import be.yvanmazy.minecraftremapper.process.graph.StageGraph;
+import be.yvanmazy.minecraftremapper.remap.MappingTable;
+import be.yvanmazy.minecraftremapper.remap.MappingTableWriter;
+import be.yvanmazy.minecraftremapper.remap.RemapperEngine;
+import be.yvanmazy.minecraftremapper.reobf.ReobfMapping;
 import be.yvanmazy.minecraftremapper.setting.PreparationSettings;
+import be.yvanmazy.minecraftremapper.symbol.BytecodeIndexer;
+import be.yvanmazy.minecraftremapper.symbol.SourceIndexer;
+import be.yvanmazy.minecraftremapper.symbol.SymbolIndex;
+import be.yvanmazy.minecraftremapper.symbol.SymbolIndexUpdate;
 import be.yvanmazy.minecraftremapper.util.FileUtil;
 import be.yvanmazy.minecraftremapper.util.HashUtil;
 import com.google.gson.JsonObject;
-import net.md_5.specialsource.Jar;
 import net.md_5.specialsource.JarMapping;
-import net.md_5.specialsource.JarRemapper;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.java.decompiler.api.Decompiler;
-import org.jetbrains.java.decompiler.main.decompiler.DirectoryResultSaver;
+import org.jetbrains.annotations.UnmodifiableView;
+import org.jetbrains.java.decompiler.main.extern.IContextSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.*;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static be.yvanmazy.minecraftremapper.process.PipelineKeys.*;
 
 public class RemapperProcessor {
 
@@ -51,7 +92,11 @@ public class RemapperProcessor {
     private final PreparationSettings config;
     private final Path root;
 
-    private JsonObject downloadJson;
+    private final Map<String, Duration> stageTimings = new LinkedHashMap<>();
+
+    private volatile JsonObject downloadJson;
+    private volatile RemappedJarHash remappedJarHash;
+    private StageGraph stageGraph;
 
     public RemapperProcessor(final @NotNull PreparationSettings config) {
         this.config = Objects.requireNonNull(config, "config must not be null");
@@ -59,32 +104,229 @@ public class RemapperProcessor {
     }
 
     public void process() throws ProcessingException {
-        this.createOutputDirectory();
-        this.downloadJson = this.downloadVersionJson();
+        this.run(this.getStageGraph());
+    }
+
+    /**
+     * Stages run by {@link #process()}, created on the first call. Stages can be added or replaced before processing,
+     * they consume and publish the {@link PipelineKeys}.
+     */
+    public synchronized @NotNull StageGraph getStageGraph() {
+        if (this.stageGraph == null) {
+            this.stageGraph = this.createStageGraph();
+        }
+        return this.stageGraph;
+    }
 
-        final DownloadResult jarResult = this.downloadJar();
-        // Unpack server version jar
-        if (this.config.target() == DirectionType.SERVER) {
-            if (jarResult.skipped()) {
+    private StageGraph createStageGraph() {
+        final Path remapPath = this.getRemappedJarPath();
+        final StageGraph graph = new StageGraph();
+        graph.add(PipelineStage.of("version-json", Set.of(), Set.of(VERSION_DOWNLOADS), context -> {
+            this.downloadJson = this.downloadVersionJson();
+            context.put(VERSION_DOWNLOADS, this.downloadJson);
+        }));
+        // The jar and the mapping are downloaded at the same time
+        graph.add(PipelineStage.of("download-jar", Set.of(VERSION_DOWNLOADS), Set.of(DOWNLOADED_JAR),
+                context -> context.put(DOWNLOADED_JAR, this.downloadJar())));
+        graph.add(PipelineStage.of("download-mapping", Set.of(VERSION_DOWNLOADS), Set.of(MAPPING),
+                context -> context.put(MAPPING, this.downloadMapping())));
+        graph.add(PipelineStage.of("mapping-history", Set.of(MAPPING), Set.of(), context -> this.updateMappingHistory(context.get(MAPPING))));
+        graph.add(PipelineStage.of("unpack", Set.of(DOWNLOADED_JAR), Set.of(GAME_JAR), context -> {
+            final DownloadResult jarResult = context.get(DOWNLOADED_JAR);
+            if (this.config.target() == DirectionType.SERVER && jarResult.skipped()) {
                 LOGGER.info("SKIP --> Unpack server is already done.");
-            } else {
-                this.unpackServerJar(jarResult.path());
             }
+            return this.config.target() != DirectionType.SERVER || jarResult.skipped();
+        }, context -> {
+            final DownloadResult jarResult = context.get(DOWNLOADED_JAR);
+            this.unpackServerJar(jarResult.path());
+            context.put(GAME_JAR, jarResult);
+        }, context -> context.put(GAME_JAR, context.get(DOWNLOADED_JAR))));
+        if (!this.config.remap()) {
+            return graph;
         }
-        final Path mappingPath = this.downloadMapping();
-        if (this.config.remap()) {
-            final Path remapPath = this.remapJar(jarResult, mappingPath, this.getRemappedJarPath());
-            if (this.config.decompile()) {
-                LOGGER.info("Decompiling...");
-                final Path path = remapPath.resolveSibling("decompiled");
-                try {
-                    FileUtil.recursiveDelete(path);
-                } catch (final IOException e) {
-                    LOGGER.error("Failed to delete directory with decompiled files, continue to decompile...", e);
+
+        if (!this.config.writeRemappedJar() && !this.config.decompile()) {
+            LOGGER.warn("Remapped jar is neither written nor decompiled.");
+        }
+        final boolean streaming = this.config.isStreamingRemap();
+        if (!streaming) {
+            // The mapping is parsed during the jar download, unless the remapped jar is already up to date
+            graph.add(PipelineStage.of("parse-mapping",
+                    Set.of(MAPPING),
+                    Set.of(JAR_MAPPING),
+                    context -> this.isRemappedJarUpToDate(remapPath),
+                    context -> context.put(JAR_MAPPING, this.loadJarMapping(context.get(MAPPING), false)),
+                    context -> context.put(JAR_MAPPING, null)));
+        }
+        final PipelineStage.UpToDateCheck remapUpToDate = context -> this.isRemappedJarUpToDate(remapPath);
+        graph.add(PipelineStage.of("map-jar", Set.of(GAME_JAR), Set.of(MAPPED_GAME_JAR), remapUpToDate, context -> {
+            final MappedJar jar = openJar(context.get(GAME_JAR).path());
+            context.closeOnFinish(jar);
+            context.put(MAPPED_GAME_JAR, jar);
+        }, context -> context.put(MAPPED_GAME_JAR, null)));
+        graph.add(PipelineStage.of("hierarchy", Set.of(GAME_JAR, MAPPED_GAME_JAR), Set.of(HIERARCHY), remapUpToDate, context -> {
+            final MappedJar jar = context.get(MAPPED_GAME_JAR);
+            context.put(HIERARCHY, this.loadHierarchyIndex(jar.getPath(), jar));
+        }, context -> context.put(HIERARCHY, null)));
+        final PipelineStage.UpToDateCheck remapDone = context -> {
+            final boolean upToDate = remapUpToDate.test(context);
+            if (upToDate) {
+                LOGGER.info("SKIP --> Remapping is already done.");
+            }
+            return upToDate;
+        };
+        if (streaming) {
+            // The remapped jar is written while remapping, the decompiler reads it back from the disk
+            graph.add(PipelineStage.of("remap", Set.of(GAME_JAR, MAPPING, MAPPED_GAME_JAR, HIERARCHY), Set.of(REMAPPED, REMAPPED_JAR), remapDone, context -> {
+                this.remapJarStreaming(context.get(MAPPED_GAME_JAR), context.get(MAPPING), context.get(HIERARCHY), remapPath);
+                context.put(REMAPPED, null);
+                context.put(REMAPPED_JAR, remapPath);
+            }, context -> {
+                context.put(REMAPPED, null);
+                context.put(REMAPPED_JAR, remapPath);
+            }));
+        } else {
+            graph.add(PipelineStage.of("remap", Set.of(GAME_JAR, MAPPING, JAR_MAPPING, MAPPED_GAME_JAR, HIERARCHY), Set.of(REMAPPED), remapDone, context -> {
+                JarMapping jarMapping = context.get(JAR_MAPPING);
+                if (jarMapping == null) {
+                    // The remapped jar changed while the mapping was skipped
+                    jarMapping = this.loadJarMapping(context.get(MAPPING), false);
                 }
-                Decompiler.builder().inputs(remapPath.toFile()).output(new DirectoryResultSaver(path.toFile())).build().decompile();
+                context.put(REMAPPED, this.remapJar(context.get(MAPPED_GAME_JAR), jarMapping, context.get(HIERARCHY)));
+            }, context -> context.put(REMAPPED, null)));
+        }
+
+        // The jar is written while the remapped classes are decompiled from memory
+        if (this.config.writeRemappedJar() && !streaming) {
+            graph.add(PipelineStage.of("write-remapped-jar",
+                    Set.of(REMAPPED),
+                    Set.of(REMAPPED_JAR),
+                    context -> context.get(REMAPPED) == null,
+                    context -> {
+                        this.writeRemappedJar(context.get(REMAPPED), remapPath);
+                        context.put(REMAPPED_JAR, remapPath);
+                    },
+                    context -> context.put(REMAPPED_JAR, remapPath)));
+        }
+        if (this.config.decompile()) {
+            // Workers read the remapped jar from the disk, they wait for it when it is written
+            final boolean forked = this.config.decompileSettings().isForked();
+            final Set<StageKey<?>> inputs = forked && this.config.writeRemappedJar() ? Set.of(REMAPPED, REMAPPED_JAR) : Set.of(REMAPPED);
+            graph.add(PipelineStage.of("decompile", inputs, Set.of(DECOMPILED), context -> {
+                final InMemoryJar remapped = context.get(REMAPPED);
+                if (forked) {
+                    this.decompileForked(remapped, remapPath);
+                } else if (remapped != null) {
+                    this.decompile(new InMemoryContextSource(remapPath.getFileName().toString(), remapped, this.getDecompiledPath()));
+                } else {
+                    try (final MappedJar jar = openJar(remapPath)) {
+                        this.decompile(new MappedJarContextSource(jar, this.getDecompiledPath()));
+                    }
+                }
+                context.put(DECOMPILED, this.getDecompiledPath());
+            }));
+            graph.add(PipelineStage.of("symbol-index", Set.of(DECOMPILED), Set.of(SYMBOL_INDEX),
+                    context -> context.put(SYMBOL_INDEX, indexSymbols(context.get(DECOMPILED), this.getSymbolIndexPath()))));
+        }
+        if (this.config.writeApiJar()) {
+            if (this.config.writeRemappedJar()) {
+                graph.add(PipelineStage.of("api-jar", Set.of(REMAPPED_JAR), Set.of(API_JAR),
+                        context -> context.put(API_JAR, this.writeApiJar(context.get(REMAPPED_JAR)))));
+            } else {
+                LOGGER.warn("API jar is generated from the remapped jar, which is not written.");
             }
         }
+        if (this.config.writeReferenceIndex()) {
+            if (this.config.writeRemappedJar()) {
+                graph.add(PipelineStage.of("reference-index", Set.of(REMAPPED_JAR), Set.of(REFERENCE_INDEX),
+                        context -> context.put(REFERENCE_INDEX, this.indexReferences(context.get(REMAPPED_JAR)))));
+            } else {
+                LOGGER.warn("Reference index is built from the remapped jar, which is not written.");
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Runs the stages of the graph without decompiling, the remapped jar, the API jar and the reference index are
+     * written when enabled. A remapped jar that is already up to date, or remapped in chunks, is read back.
+     */
+    public @NotNull InMemoryJar prepareRemappedJar() throws ProcessingException {
+        return this.run(this.getStageGraph().without(Set.of(DECOMPILED)), "read-remapped-jar", Set.of(REMAPPED), context -> {
+            final InMemoryJar remapped = context.get(REMAPPED);
+            return remapped != null ? remapped : readJar(this.getRemappedJarPath());
+        });
+    }
+
+    /**
+     * Downloads the game jar and the mapping, then loads them once into an engine that can be shared by any number of
+     * threads to remap other jars, classes or entries against this version.
+     */
+    public @NotNull RemapperEngine prepareRemapperEngine() throws ProcessingException {
+        final Set<StageKey<?>> inputs = Set.of(GAME_JAR, MAPPING);
+        return this.run(this.getStageGraph().upTo(inputs), "remapper-engine", inputs, context -> {
+            final HierarchyIndex hierarchy = this.loadHierarchyIndex(context.get(GAME_JAR).path(), null);
+            return RemapperEngine.of(this.loadJarMapping(context.get(MAPPING), false), hierarchy);
+        });
+    }
+
+    /**
+     * Only downloads the version metadata and the mapping, enough to deobfuscate logs without touching the jar.
+     */
+    public @NotNull Path prepareMapping() throws ProcessingException {
+        final Set<StageKey<?>> inputs = Set.of(MAPPING);
+        return this.run(this.getStageGraph().upTo(inputs), "mapping", inputs, context -> context.get(MAPPING));
+    }
+
+    /**
+     * Downloads the game jar and the mapping, then loads the inverse mapping used to reobfuscate jars compiled
+     * against Mojang names. The inverse mapping is cached, only the first call for a version reads the mapping.
+     */
+    public @NotNull ReobfMapping prepareReobfuscation() throws ProcessingException {
+        final Set<StageKey<?>> inputs = Set.of(GAME_JAR, MAPPING);
+        return this.run(this.getStageGraph().upTo(inputs), "reobf-mapping", inputs,
+                context -> this.loadReobfMapping(context.get(GAME_JAR).path(), context.get(MAPPING)));
+    }
+
+    /**
+     * Exports the mapping to another format. With {@code merge}, the client and server mappings are both downloaded
+     * and exported into one file. The export is skipped when the mappings did not change since the last one.
+     */
+    public @NotNull Path exportMapping(final @NotNull MappingFormat format, final boolean merge) throws ProcessingException {
+        Objects.requireNonNull(format, "format must not be null");
+        final Path mappingPath = this.prepareMapping();
+        final Path otherMappingPath = merge ?
+                new RemapperProcessor(this.config.withTarget(this.config.target() == DirectionType.CLIENT ? DirectionType.SERVER : DirectionType.CLIENT))
+                        .prepareMapping() :
+                null;
+        final Path output = this.getExportPath(format, merge);
+        return this.timed("export-mapping", () -> {
+            try {
+                final String key = format.name() + ":" + HashUtil.hash(mappingPath) + (merge ? ":" + HashUtil.hash(otherMappingPath) : "");
+                // The sidecar records the format and the hashes of the exported mappings
+                final Path keyPath = output.resolveSibling(output.getFileName() + ".key");
+                if (Files.isRegularFile(output) && Files.isRegularFile(keyPath) && Files.readString(keyPath).equals(key)) {
+                    LOGGER.info("SKIP --> Mapping is already exported.");
+                    return output;
+                }
+                if (!merge) {
+                    MappingExporter.export(mappingPath, output, format);
+                } else if (this.config.target() == DirectionType.CLIENT) {
+                    MappingExporter.exportMerged(mappingPath, otherMappingPath, output, format);
+                } else {
+                    MappingExporter.exportMerged(otherMappingPath, mappingPath, output, format);
+                }
+                Files.writeString(keyPath, key);
+                return output;
+            } catch (final IOException e) {
+                throw new ProcessingException("Failed to export mapping", e);
+            }
+        });
+    }
+
+    public @NotNull @UnmodifiableView Map<String, Duration> getStageTimings() {
+        return Collections.unmodifiableMap(this.stageTimings);
     }
 
     public @NotNull Path getVersionJarPath() {
@@ -99,10 +341,78 @@ public class RemapperProcessor {
         return this.root.resolve("remapped-" + this.config.version().id() + ".jar");
     }
 
+    public @NotNull Path getApiJarPath() {
+        return this.root.resolve("api-" + this.config.version().id() + ".jar");
+    }
+
+    public @NotNull Path getDecompiledPath() {
+        return this.root.resolve("decompiled");
+    }
+
+    public @NotNull Path getDecompileReportPath() {
+        return this.root.resolve("decompile-timings-" + this.config.version().id() + ".txt");
+    }
+
+    /**
+     * @return the manifest of the classes published in the decompiled directory, see {@link DecompileProgress}
+     */
+    public @NotNull Path getDecompileProgressPath() {
+        return this.root.resolve("decompile-progress-" + this.config.version().id() + ".txt");
+    }
+
+    public @NotNull Path getSymbolIndexPath() {
+        return this.root.resolve(SourceIndexer.getIndexFileName(this.config.version().id()));
+    }
+
+    public @NotNull Path getReferenceIndexPath() {
+        return this.root.resolve(BytecodeIndexer.getIndexFileName(this.config.version().id()));
+    }
+
+    public @NotNull Path getHierarchyIndexPath() {
+        return this.root.resolve("hierarchy-" + this.config.version().id() + ".idx");
+    }
+
+    public @NotNull Path getMappingTablePath() {
+        return this.root.resolve("mapping-table-" + this.config.version().id() + ".idx");
+    }
+
+    public @NotNull Path getRemappedHierarchyIndexPath() {
+        return this.root.resolve("remapped-hierarchy-" + this.config.version().id() + ".idx");
+    }
+
+    public @NotNull Path getReobfCachePath() {
+        return this.root.resolve("reobf-" + this.config.version().id() + ".cache");
+    }
+
+    public @NotNull Path getExportPath(final @NotNull MappingFormat format, final boolean merge) {
+        return this.root.resolve("mappings-" + this.config.version().id() + (merge ? "-merged." : ".") + format.getExtension());
+    }
+
+    public @NotNull Path getMappingHistoryPath() {
+        return Path.of(this.config.outputDirectory(), MappingHistory.getFileName(this.config.target()));
+    }
+
     public @NotNull Path getVersionMetaPath() {
         return this.root.resolve(this.config.version().id() + ".json");
     }
 
+    private void run(final StageGraph graph) throws ProcessingException {
+        this.stageTimings.clear();
+        this.createOutputDirectory();
+        this.stageTimings.putAll(graph.run());
+    }
+
+    /**
+     * Runs a part of the stage graph followed by a stage computing the result from the given keys.
+     */
+    private <T> T run(final StageGraph graph, final String name, final Set<StageKey<?>> inputs, final StageResult<T> result)
+            throws ProcessingException {
+        final AtomicReference<T> value = new AtomicReference<>();
+        graph.add(PipelineStage.of(name, inputs, Set.of(), context -> value.set(result.compute(context))));
+        this.run(graph);
+        return value.get();
+    }
+
     private void createOutputDirectory() throws ProcessingException {
         if (!Files.isDirectory(this.root)) {
             try {
@@ -148,41 +458,397 @@ public class RemapperProcessor {
         return this.download("Version mapping", this.config.getTargetKey() + "_mappings", this.getMappingPath()).path();
     }
 
+    private void updateMappingHistory(final Path mappingPath) {
+        // The history is only an archive of the mappings, the processing goes on without it
+        try {
+            if (MappingHistory.update(this.getMappingHistoryPath(), this.config.version().id(), mappingPath)) {
+                LOGGER.info("Mapping of {} is added to the mapping history.", this.config.version().id());
+            }
+        } catch (final IOException e) {
+            LOGGER.error("Failed to update mapping history", e);
+        }
+    }
+
     private void unpackServerJar(final Path path) throws ProcessingException {
         LOGGER.info("Unpack server jar...");
         final String id = this.config.version().id();
-        try (final FileSystem fs = FileSystems.newFileSystem(path, (ClassLoader) null)) {
-            final Path source = fs.getPath("META-INF/versions/" + id + "/server-" + id + ".jar");
-            if (Files.notExists(source)) {
-                return;
+        final Path target = path.getParent().resolve(id + ".jar");
+        // The bundled jar usually replaces the bundler itself. The bundler is not mapped: a mapping is only released once
+        // it is garbage collected, and a mapped file cannot be replaced on Windows
+        final Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (final ZipFile bundler = new ZipFile(path.toFile())) {
+                final ZipEntry entry = bundler.getEntry("META-INF/versions/" + id + "/server-" + id + ".jar");
+                if (entry == null) {
+                    return;
+                }
+                try (final InputStream input = bundler.getInputStream(entry)) {
+                    Files.copy(input, temp, StandardCopyOption.REPLACE_EXISTING);
+                }
             }
-            final Path destination = path.getParent().resolve(id + ".jar");
-            Files.copy(source, destination, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
         } catch (final IOException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (final IOException ignored) {
+            }
             throw new ProcessingException("Failed to unpack server jar", e);
         }
     }
 
-    private Path remapJar(final DownloadResult jarResult, final Path mappingPath, final Path outPath) throws ProcessingException {
-        if (jarResult.skipped() && FileUtil.isValidJar(outPath)) {
-            LOGGER.info("SKIP --> Remapping is already done.");
-            return outPath;
-        }
+    private JarMapping loadJarMapping(final Path mappingPath, final boolean reverse) throws ProcessingException {
         LOGGER.info("Load mappings...");
         final JarMapping jarMapping = new JarMapping();
-        try {
-            jarMapping.loadMappings(mappingPath.toFile());
+        try (final BufferedReader reader = Files.newBufferedReader(mappingPath)) {
+            jarMapping.loadMappings(reader, null, null, reverse);
         } catch (final IOException e) {
             throw new ProcessingException("Failed to load mapping", e);
         }
-        final JarRemapper jarRemapper = new JarRemapper(jarMapping);
+        return jarMapping;
+    }
+
+    private ReobfMapping loadReobfMapping(final Path jarPath, final Path mappingPath) throws ProcessingException {
+        final HierarchyIndex hierarchy = this.loadHierarchyIndex(jarPath, null);
+        final Path cachePath = this.getReobfCachePath();
+        try {
+            final String mappingHash = HashUtil.hash(mappingPath);
+            final HierarchyIndex remappedHierarchy = this.loadRemappedHierarchyIndex(hierarchy, mappingPath, mappingHash);
+            final ReobfMapping cached = ReobfMapping.load(cachePath, mappingHash, remappedHierarchy);
+            if (cached != null) {
+                LOGGER.info("SKIP --> Inverse mapping is already cached.");
+                return cached;
+            }
+            final ReobfMapping mapping = ReobfMapping.create(this.loadJarMapping(mappingPath, true), remappedHierarchy);
+            mapping.save(cachePath, mappingHash);
+            return mapping;
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to prepare inverse mapping", e);
+        }
+    }
+
+    /**
+     * @param jar the mapped game jar if it is already open, otherwise it is only mapped when the index is stale
+     */
+    private HierarchyIndex loadHierarchyIndex(final Path jarPath, final MappedJar jar) throws ProcessingException {
+        final Path path = this.getHierarchyIndexPath();
+        try {
+            final String source = Files.size(jarPath) + ":" + Files.getLastModifiedTime(jarPath).toMillis();
+            HierarchyIndex index = HierarchyIndex.open(path, source);
+            if (index != null) {
+                LOGGER.info("SKIP --> Class hierarchy is already indexed.");
+                return index;
+            }
+            LOGGER.info("Index class hierarchy...");
+            if (jar != null) {
+                HierarchyIndexWriter.fromJar(jar).write(path, source);
+            } else {
+                try (final MappedJar opened = MappedJar.open(jarPath)) {
+                    HierarchyIndexWriter.fromJar(opened).write(path, source);
+                }
+            }
+            index = HierarchyIndex.open(path, source);
+            if (index == null) {
+                throw new ProcessingException("Class hierarchy index is unreadable");
+            }
+            return index;
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to index class hierarchy", e);
+        }
+    }
+
+    private HierarchyIndex loadRemappedHierarchyIndex(final HierarchyIndex hierarchy, final Path mappingPath, final String mappingHash)
+            throws ProcessingException {
+        final Path path = this.getRemappedHierarchyIndexPath();
+        final String source = mappingHash + "/" + hierarchy.getSource();
+        try {
+            HierarchyIndex index = HierarchyIndex.open(path, source);
+            if (index != null) {
+                return index;
+            }
+            LOGGER.info("Index remapped class hierarchy...");
+            final RemapperEngine engine = RemapperEngine.of(this.loadJarMapping(mappingPath, false), hierarchy);
+            HierarchyIndexWriter.remap(hierarchy, engine.getJarRemapper()).write(path, source);
+            index = HierarchyIndex.open(path, source);
+            if (index == null) {
+                throw new ProcessingException("Remapped class hierarchy index is unreadable");
+            }
+            return index;
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to index remapped class hierarchy", e);
+        }
+    }
+
+    /**
+     * The remapped jar is up to date when it was written from the same inputs, recorded in its key sidecar, and still
+     * has the content recorded in its hash sidecar.
+     */
+    private boolean isRemappedJarUpToDate(final Path remapPath) {
+        if (!this.config.writeRemappedJar()) {
+            return false;
+        }
+        final Path keyPath = this.toKeyPath(remapPath);
+        final Path hashPath = this.toHashPath(remapPath);
+        try {
+            return Files.isRegularFile(remapPath) && Files.isRegularFile(keyPath) && Files.isRegularFile(hashPath) &&
+                    Files.readString(keyPath).equals(this.getRemapKey()) && Files.readString(hashPath).equals(this.hashRemappedJar(remapPath));
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+
+    private String getRemapKey() {
+        final String target = this.config.getTargetKey();
+        return this.downloadJson.getAsJsonObject(target).get("sha1").getAsString() + '\n' +
+                this.getMappingSha1() + '\n' +
+                this.config.classFilter() + '\n' +
+                this.config.compression() + '\n' +
+                this.config.reproducible() + '\n';
+    }
+
+    private String getMappingSha1() {
+        return this.downloadJson.getAsJsonObject(this.config.getTargetKey() + "_mappings").get("sha1").getAsString();
+    }
+
+    // The up to date check runs for several stages, the jar is only hashed again when its file changes
+    private String hashRemappedJar(final Path remapPath) throws IOException {
+        final long size = Files.size(remapPath);
+        final long modified = Files.getLastModifiedTime(remapPath).toMillis();
+        final RemappedJarHash known = this.remappedJarHash;
+        if (known != null && known.size() == size && known.modified() == modified) {
+            return known.sha1();
+        }
+        final String sha1 = HashUtil.hash(remapPath);
+        this.remappedJarHash = new RemappedJarHash(size, modified, sha1);
+        return sha1;
+    }
+
+    private InMemoryJar remapJar(final MappedJar jar, final JarMapping jarMapping, final HierarchyIndex hierarchy) throws ProcessingException {
+        // Inherited members are resolved by climbing the indexed hierarchy of the game
+        final RemapperEngine engine = RemapperEngine.of(jarMapping, hierarchy);
         LOGGER.info("Remapping...");
         try {
-            jarRemapper.remapJar(Jar.init(jarResult.path().toFile()), outPath.toFile());
+            return engine.remapJar(jar, this.config.classFilter());
         } catch (final IOException e) {
             throw new ProcessingException("Failed to remap jar", e);
         }
-        return outPath;
+    }
+
+    /**
+     * Remaps the jar in chunks straight into the remapped jar, the mapping is looked up in a memory-mapped table.
+     */
+    private void remapJarStreaming(final MappedJar jar, final Path mappingPath, final HierarchyIndex hierarchy, final Path outPath)
+            throws ProcessingException {
+        final RemapperEngine engine = RemapperEngine.of(this.loadMappingTable(mappingPath), hierarchy);
+        // A chunk and its remapped entries take half of the budget, the entries waiting to be compressed the other half
+        final long budget = (long) this.config.remapMemory() << 20;
+        LOGGER.info("Remapping in chunks of {} KB...", budget >> 12);
+        this.writeRemappedJar(outPath, temp -> {
+            try (final ParallelJarWriter writer = new ParallelJarWriter(temp,
+                    this.config.compression(),
+                    Runtime.getRuntime().availableProcessors(),
+                    this.config.reproducible(),
+                    budget / 2)) {
+                engine.remapJar(jar, this.config.classFilter(), writer, budget / 4);
+            }
+        });
+    }
+
+    private MappingTable loadMappingTable(final Path mappingPath) throws ProcessingException {
+        final Path path = this.getMappingTablePath();
+        final String source = this.getMappingSha1();
+        try {
+            MappingTable table = MappingTable.open(path, source);
+            if (table != null) {
+                LOGGER.info("SKIP --> Mapping table is already built.");
+                return table;
+            }
+            LOGGER.info("Build mapping table...");
+            MappingTableWriter.write(mappingPath, path, source);
+            table = MappingTable.open(path, source);
+            if (table == null) {
+                throw new ProcessingException("Mapping table is unreadable");
+            }
+            return table;
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to build mapping table", e);
+        }
+    }
+
+    private static InMemoryJar readJar(final Path path) throws ProcessingException {
+        final InMemoryJar content = new InMemoryJar();
+        try (final MappedJar jar = MappedJar.open(path)) {
+            for (int i = 0; i < jar.size(); i++) {
+                content.put(jar.getName(i), jar.read(i));
+            }
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to read jar " + path, e);
+        }
+        return content;
+    }
+
+    private static MappedJar openJar(final Path path) throws ProcessingException {
+        try {
+            return MappedJar.open(path);
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to open jar " + path, e);
+        }
+    }
+
+    /**
+     * Strips the remapped jar into an API stub jar, unless the stub jar was already generated from the same remapped jar.
+     */
+    private Path writeApiJar(final Path remapPath) throws ProcessingException {
+        final Path apiPath = this.getApiJarPath();
+        // The sidecar records the hash of the remapped jar the stub jar was generated from
+        final Path keyPath = apiPath.resolveSibling(apiPath.getFileName() + ".key");
+        try {
+            final String hash = HashUtil.hash(remapPath);
+            if (FileUtil.isValidJar(apiPath) && Files.isRegularFile(keyPath) && Files.readString(keyPath).equals(hash)) {
+                LOGGER.info("SKIP --> API jar is already generated.");
+                return apiPath;
+            }
+            LOGGER.info("Writing API jar...");
+            final int count;
+            try (final MappedJar jar = MappedJar.open(remapPath)) {
+                count = ApiJarGenerator.generate(jar, apiPath, this.config.compression());
+            }
+            Files.writeString(keyPath, hash);
+            LOGGER.info("API jar of {} classes: {} KB (remapped jar: {} KB)", count, Files.size(apiPath) >> 10, Files.size(remapPath) >> 10);
+            return apiPath;
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to write API jar", e);
+        }
+    }
+
+    private void writeRemappedJar(final InMemoryJar remapped, final Path outPath) throws ProcessingException {
+        LOGGER.info("Writing remapped jar...");
+        this.writeRemappedJar(outPath, temp -> remapped.writeTo(temp, this.config.compression(), this.config.reproducible()));
+    }
+
+    private void writeRemappedJar(final Path outPath, final JarContent content) throws ProcessingException {
+        final Path temp = outPath.resolveSibling(outPath.getFileName() + ".tmp");
+        final Path hashPath = this.toHashPath(outPath);
+        try {
+            content.writeTo(temp);
+            final String hash = HashUtil.hash(temp);
+            // An identical jar is kept, the files and caches depending on it stay valid
+            if (Files.isRegularFile(outPath) && Files.isRegularFile(hashPath) && Files.readString(hashPath).equals(hash) &&
+                    hash.equals(this.hashRemappedJar(outPath))) {
+                Files.delete(temp);
+                LOGGER.info("Remapped jar is unchanged ({}).", hash);
+            } else {
+                Files.move(temp, outPath, StandardCopyOption.REPLACE_EXISTING);
+                Files.writeString(hashPath, hash);
+            }
+            Files.writeString(this.toKeyPath(outPath), this.getRemapKey());
+        } catch (final IOException e) {
+            // Never keep a partial jar, it would be considered as valid by the next run
+            try {
+                Files.deleteIfExists(temp);
+                Files.deleteIfExists(this.toKeyPath(outPath));
+            } catch (final IOException ignored) {
+            }
+            throw new ProcessingException("Failed to write remapped jar", e);
+        }
+    }
+
+    private Path toKeyPath(final Path path) {
+        return path.resolveSibling(path.getFileName().toString() + ".key");
+    }
+
+    private void decompile(final IContextSource source) throws ProcessingException {
+        final Set<String> previous = this.prepareDecompiledDirectory();
+        final List<ClassTiming> timings;
+        try {
+            final PriorityDecompiler decompiler = new PriorityDecompiler(this.config.decompileSettings());
+            timings = decompiler.decompile(source, null, this.getDecompiledPath(), this.getDecompileProgressPath());
+        } catch (final IOException | UncheckedIOException e) {
+            throw new ProcessingException("Failed to decompile", e);
+        }
+        DecompileReport.report(this.getDecompileReportPath(), timings);
+        this.deleteRemovedSources(previous);
+    }
+
+    private void decompileForked(final InMemoryJar remapped, final Path remapPath) throws ProcessingException {
+        final Set<String> previous = this.prepareDecompiledDirectory();
+        // Remapped classes only held in memory are written to a temporary jar for the workers
+        final boolean temporary = remapped != null && !this.config.writeRemappedJar();
+        final Path jarPath = temporary ? this.root.resolve("decompile-input.jar") : remapPath;
+        try {
+            if (temporary) {
+                remapped.writeTo(jarPath, JarCompression.STORE);
+            }
+            final ForkedDecompiler decompiler = new ForkedDecompiler(this.config.decompileSettings(), this.root.resolve("decompile-workers"));
+            decompiler.decompile(jarPath, null, this.getDecompiledPath(), this.getDecompileProgressPath());
+            DecompileReport.report(this.getDecompileReportPath(), decompiler.getTimings());
+            this.deleteRemovedSources(previous);
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to decompile in workers", e);
+        } finally {
+            if (temporary) {
+                try {
+                    Files.deleteIfExists(jarPath);
+                } catch (final IOException e) {
+                    LOGGER.error("Failed to delete temporary jar", e);
+                }
+            }
+        }
+    }
+
+    private SymbolIndex indexReferences(final Path remapPath) throws ProcessingException {
+        LOGGER.info("Indexing references...");
+        final SymbolIndexUpdate update;
+        try (final MappedJar jar = openJar(remapPath)) {
+            update = BytecodeIndexer.update(jar, this.getReferenceIndexPath());
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to index references", e);
+        }
+        LOGGER.info("Indexed {} symbols of {} classes ({} scanned, {} removed).",
+                update.index().getSymbolCount(),
+                update.documents(),
+                update.scanned(),
+                update.removed());
+        return update.index();
+    }
+
+    static @NotNull SymbolIndex indexSymbols(final @NotNull Path sources, final @NotNull Path indexPath) throws ProcessingException {
+        LOGGER.info("Indexing symbols...");
+        final SymbolIndexUpdate update;
+        try {
+            update = SourceIndexer.update(sources, indexPath);
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to index symbols", e);
+        }
+        LOGGER.info("Indexed {} symbols of {} files ({} scanned, {} removed).",
+                update.index().getSymbolCount(),
+                update.documents(),
+                update.scanned(),
+                update.removed());
+        return update.index();
+    }
+
+    /**
+     * Sources are published over the previous ones, see {@link DecompileProgress#prepare(Path, Path)}.
+     */
+    private Set<String> prepareDecompiledDirectory() {
+        LOGGER.info("Decompiling...");
+        try {
+            return DecompileProgress.prepare(this.getDecompiledPath(), this.getDecompileProgressPath());
+        } catch (final IOException e) {
+            LOGGER.error("Failed to prepare directory with decompiled files, continue to decompile...", e);
+            return Set.of();
+        }
+    }
+
+    private void deleteRemovedSources(final Set<String> previous) throws ProcessingException {
+        try {
+            final int deleted = DecompileProgress.deleteRemoved(this.getDecompiledPath(), previous, this.getDecompileProgressPath());
+            if (deleted != 0) {
+                LOGGER.info("Deleted the sources of {} removed classes.", deleted);
+            }
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to delete the sources of removed classes", e);
+        }
     }
 
     private DownloadResult download(final String display, final String jsonKey, final Path outPath) throws ProcessingException {
@@ -260,4 +926,38 @@ public class RemapperProcessor {
         return path.toAbsolutePath().resolveSibling(path.getFileName().toString() + ".sha1");
     }
 
+    private <T> T timed(final String stage, final Stage<T> action) throws ProcessingException {
+        final long start = System.nanoTime();
+        try {
+            return action.run();
+        } finally {
+            this.stageTimings.put(stage, Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    private record RemappedJarHash(long size, long modified, String sha1) {
+
+    }
+
+    @FunctionalInterface
+    private interface Stage<T> {
+
+        T run() throws ProcessingException;
+
+    }
+
+    @FunctionalInterface
+    private interface StageResult<T> {
+
+        T compute(final StageContext context) throws ProcessingException;
+
+    }
+
+    @FunctionalInterface
+    private interface JarContent {
+
+        void writeTo(final Path path) throws IOException;
+
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.process.graph;
+
+import be.yvanmazy.minecraftremapper.process.exception.ProcessingException;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Set;
+
+/**
+ * Step of a {@link StageGraph}. A stage runs as soon as the stages publishing its inputs are done, and must publish
+ * all its outputs. A stage that is up to date is skipped, its outputs are then published by {@link #skip}.
+ */
+public interface PipelineStage {
+
+    @Contract("_, _, _, _ -> new")
+    static @NotNull PipelineStage of(final @NotNull String name,
+                                     final @NotNull Set<StageKey<?>> inputs,
+                                     final @NotNull Set<StageKey<?>> outputs,
+                                     final @NotNull Action action) {
+        return new SimplePipelineStage(name, inputs, outputs, context -> false, action, null);
+    }
+
+    @Contract("_, _, _, _, _, _ -> new")
+    static @NotNull PipelineStage of(final @NotNull String name,
+                                     final @NotNull Set<StageKey<?>> inputs,
+                                     final @NotNull Set<StageKey<?>> outputs,
+                                     final @NotNull UpToDateCheck upToDate,
+                                     final @NotNull Action action,
+                                     final @NotNull Action skip) {
+        return new SimplePipelineStage(name, inputs, outputs, upToDate, action, skip);
+    }
+
+    @NotNull String getName();
+
+    @NotNull Set<StageKey<?>> getInputs();
+
+    @NotNull Set<StageKey<?>> getOutputs();
+
+    /**
+     * Checked once the inputs are published.
+     */
+    default boolean isUpToDate(final @NotNull StageContext context) throws ProcessingException {
+        return false;
+    }
+
+    void run(@NotNull StageContext context) throws ProcessingException;
+
+    /**
+     * Publishes the outputs of an up to date stage, {@code null} by default.
+     */
+    default void skip(final @NotNull StageContext context) throws ProcessingException {
+        for (final StageKey<?> output : this.getOutputs()) {
+            context.put(output, null);
+        }
+    }
+
+    @FunctionalInterface
+    interface Action {
+
+        void run(@NotNull StageContext context) throws ProcessingException;
+
+    }
+
+    @FunctionalInterface
+    interface UpToDateCheck {
+
+        boolean test(@NotNull StageContext context) throws ProcessingException;
+
+    }
+
+}
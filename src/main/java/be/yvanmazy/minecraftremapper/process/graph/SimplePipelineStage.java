@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.process.graph;
+
+import be.yvanmazy.minecraftremapper.process.exception.ProcessingException;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+import java.util.Set;
+
+final class SimplePipelineStage implements PipelineStage {
+
+    private final String name;
+    private final Set<StageKey<?>> inputs;
+    private final Set<StageKey<?>> outputs;
+    private final UpToDateCheck upToDate;
+    private final Action action;
+    private final Action skip;
+
+    SimplePipelineStage(final @NotNull String name,
+                        final @NotNull Set<StageKey<?>> inputs,
+                        final @NotNull Set<StageKey<?>> outputs,
+                        final @NotNull UpToDateCheck upToDate,
+                        final @NotNull Action action,
+                        final Action skip) {
+        this.name = Objects.requireNonNull(name, "name must not be null");
+        this.inputs = Set.copyOf(Objects.requireNonNull(inputs, "inputs must not be null"));
+        this.outputs = Set.copyOf(Objects.requireNonNull(outputs, "outputs must not be null"));
+        this.upToDate = Objects.requireNonNull(upToDate, "upToDate must not be null");
+        this.action = Objects.requireNonNull(action, "action must not be null");
+        this.skip = skip;
+    }
+
+    @Override
+    public @NotNull String getName() {
+        return this.name;
+    }
+
+    @Override
+    public @NotNull Set<StageKey<?>> getInputs() {
+        return this.inputs;
+    }
+
+    @Override
+    public @NotNull Set<StageKey<?>> getOutputs() {
+        return this.outputs;
+    }
+
+    @Override
+    public boolean isUpToDate(final @NotNull StageContext context) throws ProcessingException {
+        return this.upToDate.test(context);
+    }
+
+    @Override
+    public void run(final @NotNull StageContext context) throws ProcessingException {
+        this.action.run(context);
+    }
+
+    @Override
+    public void skip(final @NotNull StageContext context) throws ProcessingException {
+        if (this.skip != null) {
+            this.skip.run(context);
+        } else {
+            PipelineStage.super.skip(context);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.process.graph;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Values published by the stages of one run of a {@link StageGraph}.
+ * A stage only reads the keys it declared as inputs, which are always published before it runs.
+ */
+public final class StageContext {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StageContext.class);
+    private static final Object NULL = new Object();
+
+    private final Map<StageKey<?>, Object> values = new ConcurrentHashMap<>();
+    private final Deque<AutoCloseable> closeables = new ArrayDeque<>();
+
+    StageContext() {
+    }
+
+    /**
+     * @return the published value, which may be {@code null} when its stage was skipped
+     */
+    public <T> @Nullable T get(final @NotNull StageKey<T> key) {
+        Objects.requireNonNull(key, "key must not be null");
+        final Object value = this.values.get(key);
+        if (value == null) {
+            throw new IllegalStateException("Key '" + key + "' is not published");
+        }
+        return value == NULL ? null : key.type().cast(value);
+    }
+
+    public <T> void put(final @NotNull StageKey<T> key, final @Nullable T value) {
+        Objects.requireNonNull(key, "key must not be null");
+        this.values.put(key, value != null ? key.type().cast(value) : NULL);
+    }
+
+    public boolean contains(final @NotNull StageKey<?> key) {
+        return this.values.containsKey(key);
+    }
+
+    /**
+     * Registers a resource shared by several stages, closed once the whole graph is done.
+     */
+    public synchronized void closeOnFinish(final @NotNull AutoCloseable closeable) {
+        this.closeables.push(Objects.requireNonNull(closeable, "closeable must not be null"));
+    }
+
+    synchronized void close() {
+        while (!this.closeables.isEmpty()) {
+            try {
+                this.closeables.pop().close();
+            } catch (final Exception e) {
+                LOGGER.warn("Failed to close stage resource", e);
+            }
+        }
+    }
+
+}
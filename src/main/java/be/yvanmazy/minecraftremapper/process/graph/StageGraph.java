@@ -0,0 +1,281 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.process.graph;
+
+import be.yvanmazy.minecraftremapper.process.exception.ProcessingException;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Set of {@link PipelineStage stages} linked by the keys they consume and publish. Running the graph starts every stage
+ * as soon as its inputs are published, so independent stages run concurrently. After a failure, stages that did not
+ * start yet are cancelled.
+ */
+public final class StageGraph {
+
+    private final Map<String, PipelineStage> stages = new LinkedHashMap<>();
+
+    @Contract("_ -> this")
+    public synchronized @NotNull StageGraph add(final @NotNull PipelineStage stage) {
+        Objects.requireNonNull(stage, "stage must not be null");
+        if (this.stages.containsKey(stage.getName())) {
+            throw new IllegalArgumentException("Stage '" + stage.getName() + "' already exists");
+        }
+        for (final PipelineStage other : this.stages.values()) {
+            for (final StageKey<?> output : stage.getOutputs()) {
+                if (other.getOutputs().contains(output)) {
+                    throw new IllegalArgumentException("Key '" + output + "' is already published by stage '" + other.getName() + "'");
+                }
+            }
+        }
+        this.stages.put(stage.getName(), stage);
+        return this;
+    }
+
+    /**
+     * Replaces the stage with the same name, the new stage must publish the same keys to keep the graph complete.
+     */
+    @Contract("_ -> this")
+    public synchronized @NotNull StageGraph replace(final @NotNull PipelineStage stage) {
+        Objects.requireNonNull(stage, "stage must not be null");
+        if (this.stages.replace(stage.getName(), stage) == null) {
+            throw new IllegalArgumentException("Stage '" + stage.getName() + "' does not exist");
+        }
+        return this;
+    }
+
+    public synchronized boolean remove(final @NotNull String name) {
+        return this.stages.remove(name) != null;
+    }
+
+    public synchronized @Nullable PipelineStage getStage(final @NotNull String name) {
+        return this.stages.get(name);
+    }
+
+    public synchronized @NotNull List<PipelineStage> getStages() {
+        return List.copyOf(this.stages.values());
+    }
+
+    /**
+     * @return a copy of this graph with only the stages needed to publish these keys, and the stages publishing
+     * nothing that only consume them, like archiving a downloaded file
+     */
+    @Contract("_ -> new")
+    public synchronized @NotNull StageGraph upTo(final @NotNull Set<StageKey<?>> keys) {
+        Objects.requireNonNull(keys, "keys must not be null");
+        final Map<StageKey<?>, PipelineStage> producers = this.getProducers();
+        final Set<PipelineStage> included = new HashSet<>();
+        final Set<StageKey<?>> published = new HashSet<>();
+        final Deque<StageKey<?>> pending = new ArrayDeque<>(keys);
+        while (!pending.isEmpty()) {
+            final StageKey<?> key = pending.poll();
+            final PipelineStage producer = producers.get(key);
+            if (producer == null) {
+                throw new IllegalArgumentException("No stage publishes '" + key + "'");
+            }
+            if (included.add(producer)) {
+                published.addAll(producer.getOutputs());
+                pending.addAll(producer.getInputs());
+            }
+        }
+        final StageGraph graph = new StageGraph();
+        for (final PipelineStage stage : this.stages.values()) {
+            if (included.contains(stage) || (stage.getOutputs().isEmpty() && published.containsAll(stage.getInputs()))) {
+                graph.stages.put(stage.getName(), stage);
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * @return a copy of this graph without the stages publishing these keys, nor the stages depending on them
+     */
+    @Contract("_ -> new")
+    public synchronized @NotNull StageGraph without(final @NotNull Set<StageKey<?>> keys) {
+        Objects.requireNonNull(keys, "keys must not be null");
+        final Set<StageKey<?>> removed = new HashSet<>(keys);
+        final Set<PipelineStage> excluded = new HashSet<>();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (final PipelineStage stage : this.stages.values()) {
+                if (!excluded.contains(stage) && (containsAny(removed, stage.getOutputs()) || containsAny(removed, stage.getInputs()))) {
+                    excluded.add(stage);
+                    removed.addAll(stage.getOutputs());
+                    changed = true;
+                }
+            }
+        }
+        final StageGraph graph = new StageGraph();
+        for (final PipelineStage stage : this.stages.values()) {
+            if (!excluded.contains(stage)) {
+                graph.stages.put(stage.getName(), stage);
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * @return the duration of each stage, in completion order
+     */
+    public @NotNull Map<String, Duration> run() throws ProcessingException {
+        final List<PipelineStage> order = this.sort();
+        final Map<StageKey<?>, PipelineStage> producers = this.getProducers();
+
+        final StageContext context = new StageContext();
+        final Map<String, Duration> timings = Collections.synchronizedMap(new LinkedHashMap<>());
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "Pipeline-Stage");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final Map<PipelineStage, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        try {
+            for (final PipelineStage stage : order) {
+                final CompletableFuture<?>[] dependencies =
+                        stage.getInputs().stream().map(producers::get).distinct().map(futures::get).toArray(CompletableFuture[]::new);
+                futures.put(stage, CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+                    if (failure.get() != null) {
+                        throw new CancellationException("Stage '" + stage.getName() + "' is cancelled");
+                    }
+                    try {
+                        execute(stage, context, timings);
+                    } catch (final ProcessingException | RuntimeException | Error e) {
+                        // Errors are recorded too, like running out of memory, the following stages would silently not run
+                        failure.compareAndSet(null, e);
+                        throw new CompletionException(e);
+                    }
+                }, executor));
+            }
+            // Wait for the running stages even after a failure, they may still use shared resources
+            CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+        } finally {
+            context.close();
+            executor.shutdownNow();
+        }
+
+        final Throwable error = failure.get();
+        if (error instanceof final ProcessingException e) {
+            throw e;
+        }
+        if (error != null) {
+            throw new ProcessingException("Stage failed unexpectedly", error);
+        }
+        return new LinkedHashMap<>(timings);
+    }
+
+    private static void execute(final PipelineStage stage, final StageContext context, final Map<String, Duration> timings)
+            throws ProcessingException {
+        final long start = System.nanoTime();
+        try {
+            if (stage.isUpToDate(context)) {
+                stage.skip(context);
+            } else {
+                stage.run(context);
+            }
+        } finally {
+            timings.put(stage.getName(), Duration.ofNanos(System.nanoTime() - start));
+        }
+        for (final StageKey<?> output : stage.getOutputs()) {
+            if (!context.contains(output)) {
+                throw new IllegalStateException("Stage '" + stage.getName() + "' did not publish '" + output + "'");
+            }
+        }
+    }
+
+    private synchronized Map<StageKey<?>, PipelineStage> getProducers() {
+        final Map<StageKey<?>, PipelineStage> producers = new HashMap<>();
+        for (final PipelineStage stage : this.stages.values()) {
+            for (final StageKey<?> output : stage.getOutputs()) {
+                producers.put(output, stage);
+            }
+        }
+        return producers;
+    }
+
+    private static boolean containsAny(final Set<StageKey<?>> keys, final Set<StageKey<?>> other) {
+        for (final StageKey<?> key : other) {
+            if (keys.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the stages ordered so that every stage comes after the producers of its inputs
+     */
+    private synchronized List<PipelineStage> sort() {
+        final Map<StageKey<?>, PipelineStage> producers = this.getProducers();
+        final Map<PipelineStage, Integer> remaining = new HashMap<>();
+        final Map<PipelineStage, List<PipelineStage>> dependents = new HashMap<>();
+        for (final PipelineStage stage : this.stages.values()) {
+            final Set<PipelineStage> dependencies = new HashSet<>();
+            for (final StageKey<?> input : stage.getInputs()) {
+                final PipelineStage producer = producers.get(input);
+                if (producer == null) {
+                    throw new IllegalStateException("Stage '" + stage.getName() + "' needs '" + input + "', but no stage publishes it");
+                }
+                dependencies.add(producer);
+            }
+            remaining.put(stage, dependencies.size());
+            for (final PipelineStage dependency : dependencies) {
+                dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(stage);
+            }
+        }
+        final Deque<PipelineStage> ready = new ArrayDeque<>();
+        for (final PipelineStage stage : this.stages.values()) {
+            if (remaining.get(stage) == 0) {
+                ready.add(stage);
+            }
+        }
+        final List<PipelineStage> order = new ArrayList<>(this.stages.size());
+        while (!ready.isEmpty()) {
+            final PipelineStage stage = ready.poll();
+            order.add(stage);
+            for (final PipelineStage dependent : dependents.getOrDefault(stage, List.of())) {
+                if (remaining.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (order.size() != this.stages.size()) {
+            throw new IllegalStateException("Stages have a cyclic dependency");
+        }
+        return order;
+    }
+
+}
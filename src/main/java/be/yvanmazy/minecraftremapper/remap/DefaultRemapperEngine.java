@@ -0,0 +1,253 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.remap;
+
+import be.yvanmazy.minecraftremapper.jar.InMemoryJar;
+import be.yvanmazy.minecraftremapper.jar.JarCompression;
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import be.yvanmazy.minecraftremapper.jar.ParallelJarWriter;
+import be.yvanmazy.minecraftremapper.setting.ClassFilter;
+import net.md_5.specialsource.JarRemapper;
+import net.md_5.specialsource.repo.ClassRepo;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+final class DefaultRemapperEngine implements RemapperEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultRemapperEngine.class);
+
+    private final HierarchyJarRemapper jarRemapper;
+    private final ClassRepo repo;
+
+    DefaultRemapperEngine(final @NotNull HierarchyJarRemapper jarRemapper, final @NotNull ClassRepo repo) {
+        this.jarRemapper = Objects.requireNonNull(jarRemapper, "jarRemapper must not be null");
+        this.repo = Objects.requireNonNull(repo, "repo must not be null");
+    }
+
+    @Override
+    public @NotNull JarRemapper getJarRemapper() {
+        return this.jarRemapper;
+    }
+
+    @Override
+    public @NotNull String mapClassName(final @NotNull String internalName) {
+        Objects.requireNonNull(internalName, "internalName must not be null");
+        return this.jarRemapper.map(internalName);
+    }
+
+    @Override
+    public byte @NotNull [] remapClass(final byte @NotNull [] classFile) {
+        return this.remapClass(classFile, this.repo);
+    }
+
+    @Override
+    public byte @NotNull [] remapClass(final byte @NotNull [] classFile, final @NotNull ClassRepo repo) {
+        Objects.requireNonNull(classFile, "classFile must not be null");
+        Objects.requireNonNull(repo, "repo must not be null");
+        return this.jarRemapper.remapClassFile(classFile, repo);
+    }
+
+    @Override
+    public @Nullable Map.Entry<String, byte[]> remapEntry(final @NotNull String name, final byte @NotNull [] data) {
+        Objects.requireNonNull(name, "name must not be null");
+        Objects.requireNonNull(data, "data must not be null");
+        if (isSignature(name)) {
+            return null;
+        }
+        if (!isClass(name)) {
+            return Map.entry(name, data);
+        }
+        return Map.entry(this.mapClassName(toClassName(name)) + ".class", this.remapClass(data));
+    }
+
+    @Override
+    public @NotNull Stream<Map.Entry<String, byte[]>> remapEntries(final @NotNull Stream<Map.Entry<String, byte[]>> entries) {
+        Objects.requireNonNull(entries, "entries must not be null");
+        return entries.map(entry -> this.remapEntry(entry.getKey(), entry.getValue())).filter(Objects::nonNull);
+    }
+
+    @Override
+    public @NotNull InMemoryJar remapJar(final @NotNull MappedJar jar, final @NotNull ClassFilter filter) throws IOException {
+        Objects.requireNonNull(jar, "jar must not be null");
+        Objects.requireNonNull(filter, "filter must not be null");
+        final String[] names = new String[jar.size()];
+        final byte[][] contents = new byte[jar.size()][];
+        // Entries are read from the mapped jar and remapped on every core, then added in the order of the jar
+        try {
+            IntStream.range(0, jar.size()).parallel().forEach(index -> {
+                final String name = jar.getName(index);
+                if (isSignature(name)) {
+                    return;
+                }
+                try {
+                    if (isClass(name)) {
+                        final String className = this.mapClassName(toClassName(name));
+                        // Excluded classes stay readable through the repository for the hierarchy, but are not remapped
+                        if (filter.test(className)) {
+                            names[index] = className + ".class";
+                            contents[index] = this.remapClass(jar.read(index));
+                        }
+                    } else {
+                        names[index] = name;
+                        contents[index] = jar.read(index);
+                    }
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+        final InMemoryJar remapped = new InMemoryJar();
+        int excluded = 0;
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] != null) {
+                remapped.put(names[i], contents[i]);
+            } else if (isClass(jar.getName(i))) {
+                excluded++;
+            }
+        }
+        if (excluded > 0) {
+            LOGGER.info("{} classes are excluded by the filter.", excluded);
+        }
+        return remapped;
+    }
+
+    @Override
+    public void remapJar(final @NotNull MappedJar jar, final @NotNull ClassFilter filter, final @NotNull ParallelJarWriter writer, final long maxChunkBytes)
+            throws IOException {
+        Objects.requireNonNull(jar, "jar must not be null");
+        Objects.requireNonNull(filter, "filter must not be null");
+        Objects.requireNonNull(writer, "writer must not be null");
+        if (maxChunkBytes <= 0) {
+            throw new IllegalArgumentException("maxChunkBytes must be positive");
+        }
+        // Only the names are resolved upfront, the contents are read, remapped and written one chunk at a time
+        final String[] names = new String[jar.size()];
+        int[] order = new int[jar.size()];
+        int count = 0;
+        int excluded = 0;
+        for (int i = 0; i < jar.size(); i++) {
+            final String name = jar.getName(i);
+            if (isSignature(name)) {
+                continue;
+            }
+            if (isClass(name)) {
+                final String className = this.mapClassName(toClassName(name));
+                if (!filter.test(className)) {
+                    excluded++;
+                    continue;
+                }
+                names[i] = className + ".class";
+            } else {
+                names[i] = name;
+            }
+            order[count++] = i;
+        }
+        order = writer.isReproducible() ?
+                Arrays.stream(order, 0, count).boxed().sorted(Comparator.comparing(index -> names[index], ParallelJarWriter.REPRODUCIBLE_ORDER))
+                        .mapToInt(Integer::intValue).toArray() :
+                Arrays.copyOf(order, count);
+        int start = 0;
+        while (start < order.length) {
+            long chunkBytes = jar.getSize(order[start]);
+            int end = start + 1;
+            while (end < order.length && chunkBytes + jar.getSize(order[end]) <= maxChunkBytes) {
+                chunkBytes += jar.getSize(order[end]);
+                end++;
+            }
+            final int[] chunk = Arrays.copyOfRange(order, start, end);
+            final byte[][] contents = new byte[chunk.length][];
+            try {
+                IntStream.range(0, chunk.length).parallel().forEach(i -> {
+                    final int index = chunk[i];
+                    try {
+                        final byte[] data = jar.read(index);
+                        contents[i] = isClass(jar.getName(index)) ? this.remapClass(data) : data;
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (final UncheckedIOException e) {
+                throw e.getCause();
+            }
+            for (int i = 0; i < chunk.length; i++) {
+                writer.write(names[chunk[i]], contents[i]);
+                contents[i] = null;
+            }
+            start = end;
+        }
+        if (excluded > 0) {
+            LOGGER.info("{} classes are excluded by the filter.", excluded);
+        }
+    }
+
+    @Override
+    public void remapJar(final @NotNull Path input, final @NotNull Path output, final @NotNull JarCompression compression) throws IOException {
+        Objects.requireNonNull(input, "input must not be null");
+        Objects.requireNonNull(output, "output must not be null");
+        Objects.requireNonNull(compression, "compression must not be null");
+        final InMemoryJar remapped;
+        try (final MappedJar jar = MappedJar.open(input)) {
+            remapped = this.remapJar(jar, ClassFilter.all());
+        }
+        final Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        try {
+            remapped.writeTo(temp, compression);
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static boolean isClass(final String name) {
+        return name.endsWith(".class");
+    }
+
+    private static boolean isSignature(final String name) {
+        // Signature files of the original jar are invalid once the classes are remapped
+        return name.endsWith(".SF") || name.endsWith(".DSA") || name.endsWith(".RSA");
+    }
+
+    private static String toClassName(final String name) {
+        return name.substring(0, name.length() - ".class".length());
+    }
+
+}
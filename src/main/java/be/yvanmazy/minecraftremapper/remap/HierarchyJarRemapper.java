@@ -0,0 +1,214 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.remap;
+
+import net.md_5.specialsource.JarMapping;
+import net.md_5.specialsource.JarRemapper;
+import net.md_5.specialsource.provider.InheritanceProvider;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link JarRemapper} climbing the hierarchy of a read-only {@link InheritanceProvider}. Unlike
+ * {@link JarMapping#tryClimb}, nothing is cached in the mapping, so classes can be remapped from several threads at once.
+ * Members of the mapping are indexed by owner, name and descriptor, so a lookup does not build any key.
+ */
+public class HierarchyJarRemapper extends JarRemapper {
+
+    private static final List<String> NO_PARENTS = List.of();
+
+    private final InheritanceProvider hierarchy;
+    private final Map<String, List<String>> parents = new ConcurrentHashMap<>();
+    // Null when a key of the mapping could not be split, the keys of the mapping are then built for each lookup
+    private final Map<String, OwnerMembers> members;
+
+    public HierarchyJarRemapper(final @NotNull JarMapping jarMapping, final @NotNull InheritanceProvider hierarchy) {
+        super(Objects.requireNonNull(jarMapping, "jarMapping must not be null"));
+        this.hierarchy = Objects.requireNonNull(hierarchy, "hierarchy must not be null");
+        this.members = indexMembers(jarMapping);
+    }
+
+    @Override
+    public String mapFieldName(final String owner, final String name, final String desc, final int access) {
+        final String mapped = this.members != null ?
+                this.climbField(owner, name, desc, access) :
+                this.climb(this.jarMapping.fields, owner, name, desc, access);
+        return mapped == null ? name : mapped;
+    }
+
+    @Override
+    public String mapMethodName(final String owner, final String name, final String desc, final int access) {
+        final String mapped = this.members != null ?
+                this.climbMethod(owner, name, desc, access) :
+                this.climb(this.jarMapping.methods, owner, name + " " + desc, null, access);
+        return mapped == null ? name : mapped;
+    }
+
+    /**
+     * @return the name of a field declared by this owner in the mapping, or {@code null} when it is not mapped
+     */
+    protected String findField(final String owner, final String name, final String desc) {
+        final OwnerMembers ownerMembers = this.members.get(owner);
+        if (ownerMembers == null) {
+            return null;
+        }
+        final Map<String, String> descriptors = ownerMembers.fields.get(name);
+        if (descriptors == null) {
+            return null;
+        }
+        final String mapped = desc != null ? descriptors.get(desc) : null;
+        return mapped != null ? mapped : descriptors.get("");
+    }
+
+    /**
+     * @return the name of a method declared by this owner in the mapping, or {@code null} when it is not mapped
+     */
+    protected String findMethod(final String owner, final String name, final String desc) {
+        final OwnerMembers ownerMembers = this.members.get(owner);
+        if (ownerMembers == null) {
+            return null;
+        }
+        final Map<String, String> descriptors = ownerMembers.methods.get(name);
+        return descriptors != null ? descriptors.get(desc) : null;
+    }
+
+    private String climbField(final String owner, final String name, final String desc, final int access) {
+        String mapped = this.findField(owner, name, desc);
+        if (mapped != null || !isInherited(access)) {
+            return mapped;
+        }
+        for (final String parent : this.getParents(owner)) {
+            mapped = this.climbField(parent, name, desc, access);
+            if (mapped != null) {
+                return mapped;
+            }
+        }
+        return null;
+    }
+
+    private String climbMethod(final String owner, final String name, final String desc, final int access) {
+        String mapped = this.findMethod(owner, name, desc);
+        if (mapped != null || !isInherited(access)) {
+            return mapped;
+        }
+        for (final String parent : this.getParents(owner)) {
+            mapped = this.climbMethod(parent, name, desc, access);
+            if (mapped != null) {
+                return mapped;
+            }
+        }
+        return null;
+    }
+
+    private String climb(final Map<String, String> map, final String owner, final String name, final String desc, final int access) {
+        final String key = owner + "/" + name;
+        String mapped = desc != null ? map.get(key + "/" + desc) : null;
+        if (mapped == null) {
+            mapped = map.get(key);
+        }
+        if (mapped != null || !isInherited(access)) {
+            return mapped;
+        }
+        for (final String parent : this.getParents(owner)) {
+            mapped = this.climb(map, parent, name, desc, access);
+            if (mapped != null) {
+                return mapped;
+            }
+        }
+        return null;
+    }
+
+    private List<String> getParents(final String owner) {
+        // Parents are cached, the providers build a new list for each call
+        return this.parents.computeIfAbsent(owner, k -> {
+            final Collection<String> parents = this.hierarchy.getParents(k);
+            return parents != null && !parents.isEmpty() ? List.copyOf(parents) : NO_PARENTS;
+        });
+    }
+
+    private static boolean isInherited(final int access) {
+        // Private and static members are not inherited
+        return access == -1 || (!Modifier.isPrivate(access) && !Modifier.isStatic(access));
+    }
+
+    /**
+     * Splits the keys of the mapping, {@code owner/name/desc} for the fields and {@code owner/name desc} for the methods.
+     * The owner is found among the mapped classes, since the descriptors also contain slashes.
+     */
+    private static Map<String, OwnerMembers> indexMembers(final JarMapping jarMapping) {
+        final Map<String, OwnerMembers> members = new HashMap<>();
+        for (final Map.Entry<String, String> entry : jarMapping.fields.entrySet()) {
+            final String key = entry.getKey();
+            final int ownerEnd = findOwnerEnd(jarMapping, key);
+            if (ownerEnd == -1) {
+                return null;
+            }
+            final int nameEnd = key.indexOf('/', ownerEnd + 1);
+            final String name = key.substring(ownerEnd + 1, nameEnd == -1 ? key.length() : nameEnd);
+            final String desc = nameEnd == -1 ? "" : key.substring(nameEnd + 1);
+            members.computeIfAbsent(key.substring(0, ownerEnd), k -> new OwnerMembers()).fields
+                    .computeIfAbsent(name, k -> new HashMap<>(2))
+                    .put(desc, entry.getValue());
+        }
+        for (final Map.Entry<String, String> entry : jarMapping.methods.entrySet()) {
+            final String key = entry.getKey();
+            final int space = key.indexOf(' ');
+            final int ownerEnd = space == -1 ? -1 : key.lastIndexOf('/', space);
+            if (ownerEnd == -1) {
+                return null;
+            }
+            members.computeIfAbsent(key.substring(0, ownerEnd), k -> new OwnerMembers()).methods
+                    .computeIfAbsent(key.substring(ownerEnd + 1, space), k -> new HashMap<>(2))
+                    .put(key.substring(space + 1), entry.getValue());
+        }
+        return members;
+    }
+
+    private static int findOwnerEnd(final JarMapping jarMapping, final String key) {
+        int slash = key.indexOf('/');
+        while (slash != -1) {
+            if (jarMapping.classes.containsKey(key.substring(0, slash))) {
+                return slash;
+            }
+            slash = key.indexOf('/', slash + 1);
+        }
+        return -1;
+    }
+
+    private static final class OwnerMembers {
+
+        private final Map<String, Map<String, String>> fields = new HashMap<>();
+        private final Map<String, Map<String, String>> methods = new HashMap<>();
+
+    }
+
+}
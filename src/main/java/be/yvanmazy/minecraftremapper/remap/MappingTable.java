@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.remap;
+
+import be.yvanmazy.minecraftremapper.util.HashTable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Memory-mapped mapping written by {@link MappingTableWriter}, holding the same keys as a ProGuard mapping loaded in a
+ * {@code JarMapping}. Records are found through an open addressing table and only decoded when they match, so the
+ * mapping does not need to be on the heap. The table is read-only and can be used from several threads.
+ */
+public final class MappingTable {
+
+    static final int MAGIC = 0x4D524D54; // MRMT
+    static final int FORMAT_VERSION = 1;
+    static final byte KIND_CLASS = 0;
+    static final byte KIND_FIELD = 1;
+    static final byte KIND_METHOD = 2;
+
+    private final ByteBuffer buffer;
+    private final String source;
+    private final int recordCount;
+    private final HashTable table;
+    private final int dataPosition;
+
+    private MappingTable(final ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            throw new IOException("Unsupported mapping table");
+        }
+        final byte[] sourceBytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(sourceBytes);
+        this.source = new String(sourceBytes, StandardCharsets.UTF_8);
+        this.recordCount = buffer.getInt();
+        final int tableSize = buffer.getInt();
+        this.table = new HashTable(buffer, buffer.position(), tableSize);
+        this.dataPosition = buffer.position() + HashTable.getByteSize(tableSize);
+    }
+
+    /**
+     * Maps a table written by {@link MappingTableWriter#write(Path, Path, String)}.
+     *
+     * @param source the source given to the writer, or {@code null} to accept any source
+     * @return the table, or {@code null} when it is missing, unreadable or was built from another source
+     */
+    public static @Nullable MappingTable open(final @NotNull Path path, final @Nullable String source) throws IOException {
+        Objects.requireNonNull(path, "path must not be null");
+        if (Files.notExists(path)) {
+            return null;
+        }
+        final ByteBuffer buffer;
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        final MappingTable table;
+        try {
+            table = new MappingTable(buffer);
+        } catch (final IOException | RuntimeException e) {
+            return null;
+        }
+        return source == null || table.source.equals(source) ? table : null;
+    }
+
+    /**
+     * @param className obfuscated internal name of a class
+     * @return the Mojang name of the class, or {@code null} when it is not in the mapping
+     */
+    public @Nullable String mapClass(final @NotNull String className) {
+        return this.find(KIND_CLASS, className);
+    }
+
+    /**
+     * @param desc obfuscated descriptor of the field
+     */
+    public @Nullable String mapField(final @NotNull String owner, final @NotNull String name, final @NotNull String desc) {
+        return this.find(KIND_FIELD, owner + "/" + name + "/" + desc);
+    }
+
+    /**
+     * @param desc obfuscated descriptor of the method
+     */
+    public @Nullable String mapMethod(final @NotNull String owner, final @NotNull String name, final @NotNull String desc) {
+        return this.find(KIND_METHOD, owner + "/" + name + " " + desc);
+    }
+
+    public int getRecordCount() {
+        return this.recordCount;
+    }
+
+    public @NotNull String getSource() {
+        return this.source;
+    }
+
+    private String find(final byte kind, final String key) {
+        final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        final int offset = this.table.find(hash(kind, key), candidate -> this.matches(this.dataPosition + candidate, kind, keyBytes));
+        return offset != -1 ? this.valueOf(this.dataPosition + offset, keyBytes.length) : null;
+    }
+
+    // Records are [kind][key length][key][value length][value], the value is only decoded once the key matches
+    private boolean matches(final int record, final byte kind, final byte[] key) {
+        if (this.buffer.get(record) != kind || (this.buffer.getShort(record + 1) & 0xFFFF) != key.length) {
+            return false;
+        }
+        final int keyPosition = record + 3;
+        for (int i = 0; i < key.length; i++) {
+            if (this.buffer.get(keyPosition + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String valueOf(final int record, final int keyLength) {
+        final int valuePosition = record + 3 + keyLength;
+        final byte[] value = new byte[this.buffer.getShort(valuePosition) & 0xFFFF];
+        this.buffer.get(valuePosition + 2, value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    static int hash(final byte kind, final String key) {
+        return key.hashCode() * 31 + kind;
+    }
+
+}
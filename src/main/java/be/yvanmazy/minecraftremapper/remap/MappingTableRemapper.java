@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.remap;
+
+import net.md_5.specialsource.JarMapping;
+import net.md_5.specialsource.provider.InheritanceProvider;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+/**
+ * {@link HierarchyJarRemapper} looking the names up in a memory-mapped {@link MappingTable} instead of a loaded
+ * {@link JarMapping}, which stays empty.
+ */
+final class MappingTableRemapper extends HierarchyJarRemapper {
+
+    private final MappingTable table;
+
+    MappingTableRemapper(final @NotNull MappingTable table, final @NotNull InheritanceProvider hierarchy) {
+        super(new JarMapping(), hierarchy);
+        this.table = Objects.requireNonNull(table, "table must not be null");
+    }
+
+    @Override
+    public String map(final String typeName) {
+        final String mapped = this.mapClass(typeName);
+        return mapped != null ? mapped : typeName;
+    }
+
+    @Override
+    protected String findField(final String owner, final String name, final String desc) {
+        return desc != null ? this.table.mapField(owner, name, desc) : null;
+    }
+
+    @Override
+    protected String findMethod(final String owner, final String name, final String desc) {
+        return this.table.mapMethod(owner, name, desc);
+    }
+
+    private String mapClass(final String className) {
+        final String mapped = this.table.mapClass(className);
+        if (mapped != null) {
+            return mapped;
+        }
+        // Inner classes missing from the mapping keep their suffix after the mapped outer class, like JarRemapper
+        final int index = className.lastIndexOf('$');
+        if (index == -1) {
+            return null;
+        }
+        final String outer = this.mapClass(className.substring(0, index));
+        return outer != null ? outer + className.substring(index) : null;
+    }
+
+}
@@ -0,0 +1,209 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.remap;
+
+import be.yvanmazy.minecraftremapper.util.HashTableWriter;
+import be.yvanmazy.minecraftremapper.util.IntList;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Converts a ProGuard mapping into a {@link MappingTable}. The mapping is read twice as a stream: once for the class
+ * names needed by the descriptors, then once to write the records to the disk, only their positions stay on the heap.
+ * Keys and descriptors are built like {@code JarMapping#loadMappings}, so both remap the same way.
+ */
+public final class MappingTableWriter {
+
+    private static final Pattern MEMBER_PATTERN = Pattern.compile("(?:\\d+:\\d+:)?(.*?) (.*?) -> (.*)");
+
+    private MappingTableWriter() throws IllegalAccessException {
+        throw new IllegalAccessException("You cannot instantiate a utility class");
+    }
+
+    /**
+     * Writes the table, the source identifies what it was built from and is checked by {@link MappingTable#open}.
+     *
+     * @return the number of records
+     */
+    public static int write(final @NotNull Path mapping, final @NotNull Path path, final @NotNull String source) throws IOException {
+        Objects.requireNonNull(mapping, "mapping must not be null");
+        Objects.requireNonNull(path, "path must not be null");
+        Objects.requireNonNull(source, "source must not be null");
+        final Map<String, String> obfuscatedClasses = readObfuscatedClasses(mapping);
+
+        final IntList hashes = new IntList();
+        final IntList offsets = new IntList();
+        final Path data = path.resolveSibling(path.getFileName() + ".data");
+        final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (final BufferedReader reader = Files.newBufferedReader(mapping);
+                 final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(data), 1 << 16))) {
+                String currentClass = null;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = stripComment(line);
+                    if (line.isEmpty() || !line.contains(" -> ")) {
+                        continue;
+                    }
+                    if (line.startsWith("    ")) {
+                        if (currentClass == null) {
+                            throw new IOException("Invalid proguard file, member line before class line: " + line);
+                        }
+                        line = line.trim();
+                    }
+                    final byte kind;
+                    final String key;
+                    final String value;
+                    if (line.endsWith(":")) {
+                        final String[] parts = line.split(" -> ");
+                        currentClass = parts[1].substring(0, parts[1].length() - 1).replace('.', '/');
+                        kind = MappingTable.KIND_CLASS;
+                        key = currentClass;
+                        value = parts[0].replace('.', '/');
+                    } else {
+                        final Matcher matcher = MEMBER_PATTERN.matcher(line);
+                        if (!matcher.find()) {
+                            continue;
+                        }
+                        final String nameDesc = matcher.group(2);
+                        final int parenthesis = nameDesc.indexOf('(');
+                        if (parenthesis != -1) {
+                            kind = MappingTable.KIND_METHOD;
+                            key = currentClass + "/" + matcher.group(3) + " " +
+                                    toMethodDesc(obfuscatedClasses, nameDesc.substring(parenthesis), matcher.group(1));
+                            value = nameDesc.substring(0, parenthesis);
+                        } else {
+                            kind = MappingTable.KIND_FIELD;
+                            key = currentClass + "/" + matcher.group(3) + "/" + toJvmType(obfuscatedClasses, matcher.group(1));
+                            value = nameDesc;
+                        }
+                    }
+                    hashes.add(MappingTable.hash(kind, key));
+                    offsets.add(out.size());
+                    out.writeByte(kind);
+                    writeString(out, key);
+                    writeString(out, value);
+                }
+            }
+            final HashTableWriter table = buildTable(hashes, offsets);
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MappingTable.MAGIC);
+                out.writeInt(MappingTable.FORMAT_VERSION);
+                final byte[] sourceBytes = source.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(sourceBytes.length);
+                out.write(sourceBytes);
+                out.writeInt(hashes.size());
+                out.writeInt(table.getSize());
+                table.write(out);
+                Files.copy(data, out);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            return hashes.size();
+        } finally {
+            Files.deleteIfExists(data);
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static Map<String, String> readObfuscatedClasses(final Path mapping) throws IOException {
+        final Map<String, String> classes = new HashMap<>();
+        try (final BufferedReader reader = Files.newBufferedReader(mapping)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = stripComment(line);
+                if (line.endsWith(":") && line.contains(" -> ")) {
+                    final String[] parts = line.split(" -> ");
+                    classes.put(parts[0].replace('.', '/'), parts[1].substring(0, parts[1].length() - 1).replace('.', '/'));
+                }
+            }
+        }
+        return classes;
+    }
+
+    private static HashTableWriter buildTable(final IntList hashes, final IntList offsets) {
+        final HashTableWriter table = new HashTableWriter(hashes.size());
+        // The last record of a key is inserted first to be found first, like the last line of a mapping wins in a map
+        for (int i = hashes.size() - 1; i >= 0; i--) {
+            table.put(hashes.get(i), offsets.get(i));
+        }
+        return table;
+    }
+
+    private static String stripComment(final String line) {
+        final int comment = line.indexOf('#');
+        return comment != -1 ? line.substring(0, comment) : line;
+    }
+
+    private static String toMethodDesc(final Map<String, String> classes, final String args, final String returnType) {
+        final StringBuilder desc = new StringBuilder("(");
+        for (final String part : args.substring(1, args.length() - 1).split(",")) {
+            if (!part.isEmpty()) {
+                desc.append(toJvmType(classes, part));
+            }
+        }
+        return desc.append(')').append(toJvmType(classes, returnType)).toString();
+    }
+
+    private static String toJvmType(final Map<String, String> classes, final String type) {
+        return switch (type) {
+            case "byte" -> "B";
+            case "char" -> "C";
+            case "double" -> "D";
+            case "float" -> "F";
+            case "int" -> "I";
+            case "long" -> "J";
+            case "short" -> "S";
+            case "boolean" -> "Z";
+            case "void" -> "V";
+            default -> {
+                if (type.endsWith("[]")) {
+                    yield "[" + toJvmType(classes, type.substring(0, type.length() - 2));
+                }
+                final String className = type.replace('.', '/');
+                yield "L" + classes.getOrDefault(className, className) + ";";
+            }
+        };
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("Mapping name is too long: " + value.substring(0, 64));
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.remap;
+
+import be.yvanmazy.minecraftremapper.hierarchy.HierarchyIndex;
+import be.yvanmazy.minecraftremapper.jar.InMemoryJar;
+import be.yvanmazy.minecraftremapper.jar.JarCompression;
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import be.yvanmazy.minecraftremapper.jar.ParallelJarWriter;
+import be.yvanmazy.minecraftremapper.setting.ClassFilter;
+import net.md_5.specialsource.JarMapping;
+import net.md_5.specialsource.JarRemapper;
+import net.md_5.specialsource.provider.InheritanceProvider;
+import net.md_5.specialsource.repo.ClassRepo;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Remaps classes with a mapping loaded once. An engine is immutable and thread-safe: the same engine can remap
+ * jars, single classes and streams of entries from any number of threads at the same time.
+ */
+public interface RemapperEngine {
+
+    /**
+     * Engine remapping the classes of the indexed jar, inherited members are resolved by climbing the index.
+     */
+    @Contract("_, _ -> new")
+    @NotNull
+    static RemapperEngine of(final @NotNull JarMapping jarMapping, final @NotNull HierarchyIndex hierarchy) {
+        return of(jarMapping, hierarchy, hierarchy.asClassRepo());
+    }
+
+    /**
+     * @param hierarchy parents of the classes, to resolve inherited members
+     * @param repo      classes looked up for the access of their members, when remapping without a repository
+     */
+    @Contract("_, _, _ -> new")
+    @NotNull
+    static RemapperEngine of(final @NotNull JarMapping jarMapping, final @NotNull InheritanceProvider hierarchy, final @NotNull ClassRepo repo) {
+        return new DefaultRemapperEngine(new HierarchyJarRemapper(jarMapping, hierarchy), repo);
+    }
+
+    /**
+     * Engine looking the names up in a memory-mapped table instead of a loaded mapping, with a bounded cache of the
+     * classes of the index, so its heap usage does not grow with the mapping nor the jar.
+     */
+    @Contract("_, _ -> new")
+    @NotNull
+    static RemapperEngine of(final @NotNull MappingTable mappingTable, final @NotNull HierarchyIndex hierarchy) {
+        // Enough classes for the lookups of the classes being remapped at the same time
+        return new DefaultRemapperEngine(new MappingTableRemapper(mappingTable, hierarchy), hierarchy.asClassRepo(1024));
+    }
+
+    @NotNull
+    JarRemapper getJarRemapper();
+
+    /**
+     * @param internalName internal name of a class, like {@code net/minecraft/world/entity/Entity}
+     */
+    @NotNull
+    String mapClassName(final @NotNull String internalName);
+
+    byte @NotNull [] remapClass(final byte @NotNull [] classFile);
+
+    /**
+     * @param repo classes looked up for the access of their members, like the other classes of the remapped jar
+     */
+    byte @NotNull [] remapClass(final byte @NotNull [] classFile, final @NotNull ClassRepo repo);
+
+    /**
+     * Remaps an entry of a jar: classes are remapped and renamed, other entries are kept as they are.
+     *
+     * @return the remapped entry, or {@code null} for a signature file, which is invalid once the classes are remapped
+     */
+    @Nullable
+    Map.Entry<String, byte[]> remapEntry(final @NotNull String name, final byte @NotNull [] data);
+
+    /**
+     * Lazily remaps a stream of entries, a parallel stream remaps its entries concurrently.
+     */
+    @NotNull
+    Stream<Map.Entry<String, byte[]>> remapEntries(final @NotNull Stream<Map.Entry<String, byte[]>> entries);
+
+    /**
+     * Remaps the entries of a jar on every core, in the order of the jar.
+     *
+     * @param filter classes to remap, with their remapped names, the other classes are left out
+     */
+    @NotNull
+    InMemoryJar remapJar(final @NotNull MappedJar jar, final @NotNull ClassFilter filter) throws IOException;
+
+    /**
+     * Remaps the entries of a jar in chunks straight into a writer, a chunk holds at most {@code maxChunkBytes} of
+     * entries, or a single larger entry. Entries keep the order of the jar, or the order of a reproducible writer.
+     *
+     * @param filter classes to remap, with their remapped names, the other classes are left out
+     */
+    void remapJar(final @NotNull MappedJar jar, final @NotNull ClassFilter filter, final @NotNull ParallelJarWriter writer, final long maxChunkBytes)
+            throws IOException;
+
+    void remapJar(final @NotNull Path input, final @NotNull Path output, final @NotNull JarCompression compression) throws IOException;
+
+}
@@ -0,0 +1,150 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.reobf;
+
+import be.yvanmazy.minecraftremapper.hierarchy.HierarchyIndex;
+import net.md_5.specialsource.JarMapping;
+import net.md_5.specialsource.provider.InheritanceProvider;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Inverse mapping of a version, from Mojang names to obfuscated names, with the hierarchy of the game classes
+ * in Mojang names. The inverse mapping is built once from the ProGuard mapping, then cached in a compact binary file.
+ */
+public final class ReobfMapping implements InheritanceProvider {
+
+    private static final int MAGIC = 0x4D52524F; // MRRO
+    private static final int FORMAT_VERSION = 2;
+
+    private final JarMapping jarMapping;
+    private final HierarchyIndex hierarchy;
+
+    private ReobfMapping(final JarMapping jarMapping, final HierarchyIndex hierarchy) {
+        this.jarMapping = jarMapping;
+        this.hierarchy = hierarchy;
+    }
+
+    /**
+     * @param inverseMapping the mapping loaded in reverse, keyed by Mojang names
+     * @param hierarchy      the hierarchy of the game in Mojang names
+     */
+    @Contract("_, _ -> new")
+    public static @NotNull ReobfMapping create(final @NotNull JarMapping inverseMapping, final @NotNull HierarchyIndex hierarchy) {
+        Objects.requireNonNull(inverseMapping, "inverseMapping must not be null");
+        Objects.requireNonNull(hierarchy, "hierarchy must not be null");
+        return new ReobfMapping(inverseMapping, hierarchy);
+    }
+
+    /**
+     * Reads a cache written by {@link #save(Path, String)}.
+     *
+     * @return the cached mapping, or {@code null} when the cache is missing or was built from another mapping
+     */
+    public static @Nullable ReobfMapping load(final @NotNull Path cachePath, final @NotNull String mappingHash, final @NotNull HierarchyIndex hierarchy)
+            throws IOException {
+        Objects.requireNonNull(cachePath, "cachePath must not be null");
+        Objects.requireNonNull(mappingHash, "mappingHash must not be null");
+        Objects.requireNonNull(hierarchy, "hierarchy must not be null");
+        if (Files.notExists(cachePath)) {
+            return null;
+        }
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cachePath), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !in.readUTF().equals(mappingHash)) {
+                return null;
+            }
+            final JarMapping jarMapping = new JarMapping();
+            readTable(in, jarMapping.classes);
+            readTable(in, jarMapping.fields);
+            readTable(in, jarMapping.methods);
+            return new ReobfMapping(jarMapping, hierarchy);
+        } catch (final EOFException e) {
+            return null;
+        }
+    }
+
+    public void save(final @NotNull Path cachePath, final @NotNull String mappingHash) throws IOException {
+        Objects.requireNonNull(cachePath, "cachePath must not be null");
+        Objects.requireNonNull(mappingHash, "mappingHash must not be null");
+        final Path temp = cachePath.resolveSibling(cachePath.getFileName() + ".tmp");
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(mappingHash);
+            writeTable(out, this.jarMapping.classes);
+            writeTable(out, this.jarMapping.fields);
+            writeTable(out, this.jarMapping.methods);
+        }
+        Files.move(temp, cachePath, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * The inverse mapping, it must not be modified.
+     */
+    public @NotNull JarMapping getJarMapping() {
+        return this.jarMapping;
+    }
+
+    public @NotNull HierarchyIndex getHierarchy() {
+        return this.hierarchy;
+    }
+
+    /**
+     * Direct parents of a game class in Mojang names.
+     */
+    @Override
+    public @Nullable List<String> getParents(final @NotNull String className) {
+        return this.hierarchy.getParents(className);
+    }
+
+    public int getClassCount() {
+        return this.hierarchy.getClassCount();
+    }
+
+    private static void readTable(final DataInputStream in, final Map<String, String> table) throws IOException {
+        final int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            table.put(in.readUTF(), in.readUTF());
+        }
+    }
+
+    private static void writeTable(final DataOutputStream out, final Map<String, String> table) throws IOException {
+        out.writeInt(table.size());
+        for (final Map.Entry<String, String> entry : table.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+    }
+
+}
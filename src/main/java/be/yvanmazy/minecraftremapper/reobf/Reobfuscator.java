@@ -0,0 +1,194 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.reobf;
+
+import be.yvanmazy.minecraftremapper.jar.JarCompression;
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import be.yvanmazy.minecraftremapper.jar.ParallelJarWriter;
+import be.yvanmazy.minecraftremapper.remap.RemapperEngine;
+import net.md_5.specialsource.provider.InheritanceProvider;
+import net.md_5.specialsource.repo.CachingRepo;
+import net.md_5.specialsource.repo.ClassRepo;
+import org.jetbrains.annotations.NotNull;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Remaps jars compiled against Mojang names back to obfuscated names. All the jars of a pass are remapped concurrently
+ * and share their hierarchy, so a plugin extending classes of another plugin of the pass is remapped correctly.
+ */
+public final class Reobfuscator {
+
+    private final ReobfMapping mapping;
+    private final JarCompression compression;
+    private final int threads;
+
+    public Reobfuscator(final @NotNull ReobfMapping mapping, final @NotNull JarCompression compression, final int threads) {
+        this.mapping = Objects.requireNonNull(mapping, "mapping must not be null");
+        this.compression = Objects.requireNonNull(compression, "compression must not be null");
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * @param jars      the jars to remap, associated to their output path
+     * @param libraries jars only read to complete the hierarchy, like the dependencies of the remapped jars
+     */
+    public void reobfuscate(final @NotNull Map<Path, Path> jars, final @NotNull Collection<Path> libraries) throws IOException {
+        Objects.requireNonNull(jars, "jars must not be null");
+        Objects.requireNonNull(libraries, "libraries must not be null");
+        final ExecutorService executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+            final Thread thread = new Thread(runnable, "Reobfuscator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Every jar is mapped once, the same mapping is read for the hierarchy and then remapped
+        final Map<Path, MappedJar> opened = new ConcurrentHashMap<>();
+        try {
+            final Map<String, List<String>> classes = new ConcurrentHashMap<>();
+            final List<Callable<Void>> readTasks = new ArrayList<>();
+            for (final Path path : jars.keySet()) {
+                readTasks.add(() -> readHierarchy(open(opened, path), classes));
+            }
+            for (final Path path : libraries) {
+                readTasks.add(() -> readHierarchy(open(opened, path), classes));
+            }
+            invokeAll(executor, readTasks);
+
+            // Classes of the pass first, the game hierarchy is only used for the classes it contains
+            final InheritanceProvider hierarchy = owner -> {
+                final List<String> parents = classes.get(owner);
+                return parents != null ? parents : this.mapping.getParents(owner);
+            };
+            final ClassRepo gameRepo = this.mapping.getHierarchy().asClassRepo();
+            final RemapperEngine engine = RemapperEngine.of(this.mapping.getJarMapping(), hierarchy, gameRepo);
+            final List<Callable<Void>> remapTasks = new ArrayList<>();
+            for (final Map.Entry<Path, Path> entry : jars.entrySet()) {
+                remapTasks.add(() -> this.remap(engine, gameRepo, opened.get(entry.getKey()), entry.getValue()));
+            }
+            invokeAll(executor, remapTasks);
+        } finally {
+            executor.shutdownNow();
+            opened.values().forEach(MappedJar::close);
+        }
+    }
+
+    private static MappedJar open(final Map<Path, MappedJar> opened, final Path path) throws IOException {
+        final MappedJar jar = MappedJar.open(path);
+        final MappedJar previous = opened.putIfAbsent(path, jar);
+        return previous != null ? previous : jar;
+    }
+
+    private Void remap(final RemapperEngine engine, final ClassRepo gameRepo, final MappedJar input, final Path output)
+            throws IOException {
+        final Map<String, byte[]> entries = new LinkedHashMap<>();
+        for (int i = 0; i < input.size(); i++) {
+            final String name = input.getName(i);
+            // Signature files of the original jar are invalid once the classes are remapped
+            if (!name.endsWith(".SF") && !name.endsWith(".DSA") && !name.endsWith(".RSA")) {
+                entries.put(name, input.read(i));
+            }
+        }
+        // The access of the members is looked up in the original classes of the jar, then in the game
+        final ClassRepo repo = new CachingRepo() {
+            @Override
+            protected ClassNode findClass0(final String internalName) {
+                final byte[] data = entries.get(internalName + ".class");
+                if (data == null) {
+                    return gameRepo.findClass(internalName);
+                }
+                final ClassNode node = new ClassNode();
+                new ClassReader(data).accept(node, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+                return node;
+            }
+        };
+
+        final Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        try (final ParallelJarWriter writer = new ParallelJarWriter(temp, this.compression, 1)) {
+            for (final Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                final String name = entry.getKey();
+                if (name.endsWith(".class")) {
+                    final String className = engine.mapClassName(name.substring(0, name.length() - ".class".length()));
+                    writer.write(className + ".class", engine.remapClass(entry.getValue(), repo));
+                } else {
+                    writer.write(name, entry.getValue());
+                }
+            }
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
+        return null;
+    }
+
+    private static Void readHierarchy(final MappedJar jar, final Map<String, List<String>> classes) throws IOException {
+        for (int i = 0; i < jar.size(); i++) {
+            final String name = jar.getName(i);
+            if (!name.endsWith(".class") || name.startsWith("META-INF/")) {
+                continue;
+            }
+            final ClassReader reader = new ClassReader(jar.read(i));
+            final List<String> parents = new ArrayList<>(1 + reader.getInterfaces().length);
+            if (reader.getSuperName() != null) {
+                parents.add(reader.getSuperName());
+            }
+            Collections.addAll(parents, reader.getInterfaces());
+            classes.putIfAbsent(reader.getClassName(), List.copyOf(parents));
+        }
+        return null;
+    }
+
+    private static void invokeAll(final ExecutorService executor, final List<Callable<Void>> tasks) throws IOException {
+        try {
+            for (final Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reobfuscating");
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof final IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof final UncheckedIOException cause) {
+                throw cause.getCause();
+            }
+            throw new IOException("Failed to reobfuscate", e.getCause());
+        }
+    }
+
+}
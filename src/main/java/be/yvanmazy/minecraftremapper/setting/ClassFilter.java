@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.setting;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Filter of classes by their remapped name, with include and exclude globs like {@code net.minecraft.server.**}.
+ * A single {@code *} matches inside a package, {@code **} matches across packages and {@code ?} matches one character.
+ * Nested classes always follow their outer class.
+ */
+public final class ClassFilter {
+
+    private static final ClassFilter ALL = new ClassFilter(List.of(), List.of());
+
+    private final List<String> includes;
+    private final List<String> excludes;
+    private final List<Pattern> includePatterns;
+    private final List<Pattern> excludePatterns;
+
+    private ClassFilter(final List<String> includes, final List<String> excludes) {
+        this.includes = List.copyOf(includes);
+        this.excludes = List.copyOf(excludes);
+        this.includePatterns = this.includes.stream().map(ClassFilter::compile).toList();
+        this.excludePatterns = this.excludes.stream().map(ClassFilter::compile).toList();
+    }
+
+    @Contract(pure = true)
+    public static @NotNull ClassFilter all() {
+        return ALL;
+    }
+
+    @Contract("_, _ -> new")
+    public static @NotNull ClassFilter of(final @NotNull List<String> includes, final @NotNull List<String> excludes) {
+        Objects.requireNonNull(includes, "includes must not be null");
+        Objects.requireNonNull(excludes, "excludes must not be null");
+        return new ClassFilter(includes, excludes);
+    }
+
+    public boolean test(final @NotNull String className) {
+        if (this.isAll()) {
+            return true;
+        }
+        String name = className.replace('/', '.');
+        final int nested = name.indexOf('$');
+        if (nested != -1) {
+            name = name.substring(0, nested);
+        }
+        return (this.includePatterns.isEmpty() || matches(this.includePatterns, name)) && !matches(this.excludePatterns, name);
+    }
+
+    public boolean isAll() {
+        return this.includes.isEmpty() && this.excludes.isEmpty();
+    }
+
+    public @NotNull List<String> getIncludes() {
+        return this.includes;
+    }
+
+    public @NotNull List<String> getExcludes() {
+        return this.excludes;
+    }
+
+    private static boolean matches(final List<Pattern> patterns, final String name) {
+        for (final Pattern pattern : patterns) {
+            if (pattern.matcher(name).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Pattern compile(final String glob) {
+        final String normalized = glob.trim().replace('/', '.');
+        final StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < normalized.length(); i++) {
+            final char c = normalized.charAt(i);
+            if (c == '*') {
+                if (i + 1 < normalized.length() && normalized.charAt(i + 1) == '*') {
+                    regex.append(".*");
+                    i++;
+                } else {
+                    regex.append("[^.]*");
+                }
+            } else if (c == '?') {
+                regex.append("[^.]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof final ClassFilter that)) {
+            return false;
+        }
+        return this.includes.equals(that.includes) && this.excludes.equals(that.excludes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.includes, this.excludes);
+    }
+
+    @Override
+    public String toString() {
+        if (this.isAll()) {
+            return "all";
+        }
+        return "include=" + this.includes + " exclude=" + this.excludes;
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.setting;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * How the remapped classes are decompiled: in the application, or sharded across worker JVMs with a bounded heap.
+ *
+ * @param workers      maximum number of worker JVMs, {@code 0} decompiles in the application
+ * @param workerHeap   maximum heap of each worker in megabytes
+ * @param memoryBudget maximum heap of all the running workers in megabytes, {@code 0} to only limit the number of workers
+ * @param classBudget  maximum time spent decompiling the methods of one class in seconds, {@code 0} for no limit
+ * @param priorities   globs of the classes decompiled first, in this order, like {@code net.minecraft.world.entity.**}
+ */
+public record DecompileSettings(int workers, int workerHeap, int memoryBudget, int classBudget, @NotNull List<String> priorities) {
+
+    private static final DecompileSettings IN_PROCESS = new DecompileSettings(0, 1024, 0, 0, List.of());
+
+    public DecompileSettings {
+        if (workers < 0) {
+            throw new IllegalArgumentException("workers must not be negative");
+        }
+        if (workerHeap <= 0) {
+            throw new IllegalArgumentException("workerHeap must be positive");
+        }
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("memoryBudget must not be negative");
+        }
+        if (classBudget < 0) {
+            throw new IllegalArgumentException("classBudget must not be negative");
+        }
+        priorities = List.copyOf(Objects.requireNonNull(priorities, "priorities must not be null"));
+    }
+
+    @Contract(pure = true)
+    public static @NotNull DecompileSettings inProcess() {
+        return IN_PROCESS;
+    }
+
+    public boolean isForked() {
+        return this.workers > 0;
+    }
+
+    /**
+     * @return one filter per priority glob, in the order of the priorities
+     */
+    public @NotNull List<ClassFilter> getPriorityFilters() {
+        return this.priorities.stream().map(glob -> ClassFilter.of(List.of(glob), List.of())).toList();
+    }
+
+    /**
+     * @return the number of workers running at the same time, at least one even when the budget is below one heap
+     */
+    public int getConcurrentWorkers() {
+        if (this.memoryBudget == 0) {
+            return this.workers;
+        }
+        return Math.max(1, Math.min(this.workers, this.memoryBudget / this.workerHeap));
+    }
+
+}
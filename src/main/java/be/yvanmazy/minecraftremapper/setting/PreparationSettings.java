@@ -26,13 +26,19 @@ package be.yvanmazy.minecraftremapper.setting;
 
 import be.yvanmazy.minecraftremapper.DirectionType;
 import be.yvanmazy.minecraftremapper.http.RequestHttpClient;
+import be.yvanmazy.minecraftremapper.jar.JarCompression;
 import be.yvanmazy.minecraftremapper.version.Version;
 import com.google.gson.Gson;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
 
 import java.util.Objects;
 
 public record PreparationSettings(RequestHttpClient httpClient, Gson gson, DirectionType target, Version version, String outputDirectory,
-                                  boolean remap, boolean decompile) {
+                                  boolean remap, boolean decompile, JarCompression compression, boolean writeRemappedJar,
+                                  ClassFilter classFilter, boolean writeApiJar,
+                                  boolean writeReferenceIndex, DecompileSettings decompileSettings, boolean reproducible,
+                                  int remapMemory) {
 
     public PreparationSettings {
         Objects.requireNonNull(httpClient, "httpClient must not be null");
@@ -40,10 +46,185 @@ public record PreparationSettings(RequestHttpClient httpClient, Gson gson, Direc
         Objects.requireNonNull(target, "target must not be null");
         Objects.requireNonNull(version, "version must not be null");
         Objects.requireNonNull(outputDirectory, "outputDirectory must not be null");
+        Objects.requireNonNull(compression, "compression must not be null");
+        Objects.requireNonNull(classFilter, "classFilter must not be null");
+        Objects.requireNonNull(decompileSettings, "decompileSettings must not be null");
+        if (remapMemory < 0) {
+            throw new IllegalArgumentException("remapMemory must not be negative");
+        }
+    }
+
+    public PreparationSettings(final RequestHttpClient httpClient,
+                               final Gson gson,
+                               final DirectionType target,
+                               final Version version,
+                               final String outputDirectory,
+                               final boolean remap,
+                               final boolean decompile) {
+        this(httpClient, gson, target, version, outputDirectory, remap, decompile, JarCompression.DEFAULT, true, ClassFilter.all(), false, false,
+                DecompileSettings.inProcess(), false, 0);
+    }
+
+    /**
+     * @return a builder of settings with the default options, which do not remap nor decompile
+     */
+    @Contract("_, _, _, _, _ -> new")
+    public static @NotNull Builder builder(final RequestHttpClient httpClient,
+                                           final Gson gson,
+                                           final DirectionType target,
+                                           final Version version,
+                                           final String outputDirectory) {
+        return new Builder(new PreparationSettings(httpClient, gson, target, version, outputDirectory, false, false));
+    }
+
+    /**
+     * @return a builder initialised with these settings
+     */
+    @Contract("-> new")
+    public @NotNull Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    public PreparationSettings withTarget(final DirectionType target) {
+        return this.toBuilder().target(target).build();
+    }
+
+    /**
+     * Whether the jar is remapped in chunks straight into the remapped jar, with at most {@link #remapMemory()} MB of
+     * entries in memory, instead of remapping it in memory.
+     */
+    public boolean isStreamingRemap() {
+        return this.remapMemory > 0;
     }
 
     public String getTargetKey() {
         return this.target.getKey();
     }
 
-}
\ No newline at end of file
+    public static final class Builder {
+
+        private final RequestHttpClient httpClient;
+        private final Gson gson;
+        private DirectionType target;
+        private final Version version;
+        private final String outputDirectory;
+        private boolean remap;
+        private boolean decompile;
+        private JarCompression compression;
+        private boolean writeRemappedJar;
+        private ClassFilter classFilter;
+        private boolean writeApiJar;
+        private boolean writeReferenceIndex;
+        private DecompileSettings decompileSettings;
+        private boolean reproducible;
+        private int remapMemory;
+
+        private Builder(final PreparationSettings settings) {
+            this.httpClient = settings.httpClient;
+            this.gson = settings.gson;
+            this.target = settings.target;
+            this.version = settings.version;
+            this.outputDirectory = settings.outputDirectory;
+            this.remap = settings.remap;
+            this.decompile = settings.decompile;
+            this.compression = settings.compression;
+            this.writeRemappedJar = settings.writeRemappedJar;
+            this.classFilter = settings.classFilter;
+            this.writeApiJar = settings.writeApiJar;
+            this.writeReferenceIndex = settings.writeReferenceIndex;
+            this.decompileSettings = settings.decompileSettings;
+            this.reproducible = settings.reproducible;
+            this.remapMemory = settings.remapMemory;
+        }
+
+        @Contract("_ -> this")
+        public @NotNull Builder target(final DirectionType target) {
+            this.target = target;
+            return this;
+        }
+
+        @Contract("_ -> this")
+        public @NotNull Builder remap(final boolean remap) {
+            this.remap = remap;
+            return this;
+        }
+
+        @Contract("_ -> this")
+        public @NotNull Builder decompile(final boolean decompile) {
+            this.decompile = decompile;
+            return this;
+        }
+
+        @Contract("_ -> this")
+        public @NotNull Builder compression(final JarCompression compression) {
+            this.compression = compression;
+            return this;
+        }
+
+        @Contract("_ -> this")
+        public @NotNull Builder writeRemappedJar(final boolean writeRemappedJar) {
+            this.writeRemappedJar = writeRemappedJar;
+            return this;
+        }
+
+        @Contract("_ -> this")
+        public @NotNull Builder classFilter(final ClassFilter classFilter) {
+            this.classFilter = classFilter;
+            return this;
+        }
+
+        @Contract("_ -> this")
+        public @NotNull Builder writeApiJar(final boolean writeApiJar) {
+            this.writeApiJar = writeApiJar;
+            return this;
+        }
+
+        @Contract("_ -> this")
+        public @NotNull Builder writeReferenceIndex(final boolean writeReferenceIndex) {
+            this.writeReferenceIndex = writeReferenceIndex;
+            return this;
+        }
+
+        @Contract("_ -> this")
+        public @NotNull Builder decompileSettings(final DecompileSettings decompileSettings) {
+            this.decompileSettings = decompileSettings;
+            return this;
+        }
+
+        @Contract("_ -> this")
+        public @NotNull Builder reproducible(final boolean reproducible) {
+            this.reproducible = reproducible;
+            return this;
+        }
+
+        /**
+         * @param remapMemory MB of entries in memory while remapping in chunks, {@code 0} to remap in memory
+         */
+        @Contract("_ -> this")
+        public @NotNull Builder remapMemory(final int remapMemory) {
+            this.remapMemory = remapMemory;
+            return this;
+        }
+
+        @Contract("-> new")
+        public @NotNull PreparationSettings build() {
+            return new PreparationSettings(this.httpClient,
+                    this.gson,
+                    this.target,
+                    this.version,
+                    this.outputDirectory,
+                    this.remap,
+                    this.decompile,
+                    this.compression,
+                    this.writeRemappedJar,
+                    this.classFilter,
+                    this.writeApiJar,
+                    this.writeReferenceIndex,
+                    this.decompileSettings,
+                    this.reproducible,
+                    this.remapMemory);
+        }
+
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.symbol;
+
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Builds the {@link SymbolIndex} of the class files of a jar, without decompiling them. Classes whose CRC did not
+ * change since the previous index keep their symbols without being read.
+ */
+public final class BytecodeIndexer {
+
+    static final String SOURCE = "class-files";
+
+    private BytecodeIndexer() throws IllegalAccessException {
+        throw new IllegalAccessException("You cannot instantiate a utility class");
+    }
+
+    public static @NotNull String getIndexFileName(final @NotNull String versionId) {
+        Objects.requireNonNull(versionId, "versionId must not be null");
+        return "references-" + versionId + ".idx";
+    }
+
+    /**
+     * Opens the index written by {@link #update(MappedJar, Path)}.
+     *
+     * @return the index, or {@code null} when it is missing or unreadable
+     */
+    public static @Nullable SymbolIndex open(final @NotNull Path index) throws IOException {
+        return SymbolIndex.open(index, SOURCE);
+    }
+
+    /**
+     * Updates the index of the classes of the jar, the file is only rewritten when a class was added, changed or removed.
+     */
+    public static @NotNull SymbolIndexUpdate update(final @NotNull MappedJar jar, final @NotNull Path index) throws IOException {
+        Objects.requireNonNull(jar, "jar must not be null");
+        Objects.requireNonNull(index, "index must not be null");
+        final int[] classes = IntStream.range(0, jar.size()).filter(i -> jar.getName(i).endsWith(".class")).toArray();
+        return SymbolIndexUpdater.update(index, SOURCE, new SymbolIndexUpdater.DocumentSource() {
+            @Override
+            public int getDocumentCount() {
+                return classes.length;
+            }
+
+            @Override
+            public @NotNull DocumentSymbols describe(final int document) {
+                final int entry = classes[document];
+                // The CRC of the central directory is the stamp, the high bit keeps it from being unknown
+                return new DocumentSymbols(jar.getName(entry), jar.getSize(entry), 1L << 32 | jar.getCrc(entry) & 0xFFFFFFFFL, 0);
+            }
+
+            @Override
+            public byte @NotNull [] read(final int document) throws IOException {
+                return jar.read(classes[document]);
+            }
+
+            @Override
+            public void scan(final byte @NotNull [] content, final @NotNull DocumentSymbols symbols) {
+                BytecodeSymbolScanner.scan(content, symbols);
+            }
+        });
+    }
+
+}
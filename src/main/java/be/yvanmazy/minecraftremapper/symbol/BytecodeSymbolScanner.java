@@ -0,0 +1,221 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.symbol;
+
+import org.jetbrains.annotations.NotNull;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Extracts the declared and referenced symbols of a class file: call sites, field accesses, type references and string
+ * constants. Lines come from the line number table, members and types of signatures are on the first line of the
+ * method, or on line 0 when it is unknown.
+ */
+final class BytecodeSymbolScanner extends ClassVisitor {
+
+    private static final String STRING_CONCAT_FACTORY = "java/lang/invoke/StringConcatFactory";
+
+    private final DocumentSymbols symbols;
+    private String className;
+
+    private BytecodeSymbolScanner(final DocumentSymbols symbols) {
+        super(Opcodes.ASM9);
+        this.symbols = symbols;
+    }
+
+    static void scan(final byte @NotNull [] content, final @NotNull DocumentSymbols symbols) {
+        new ClassReader(content).accept(new BytecodeSymbolScanner(symbols), ClassReader.SKIP_FRAMES);
+    }
+
+    @Override
+    public void visit(final int version, final int access, final String name, final String signature, final String superName, final String[] interfaces) {
+        this.className = name;
+        this.addClass(name, true, 0);
+        if (superName != null) {
+            this.addClass(superName, false, 0);
+        }
+        for (final String itf : interfaces) {
+            this.addClass(itf, false, 0);
+        }
+    }
+
+    @Override
+    public FieldVisitor visitField(final int access, final String name, final String descriptor, final String signature, final Object value) {
+        this.symbols.add(name, toClassName(this.className), SymbolKind.FIELD, true, 0);
+        this.addType(Type.getType(descriptor), 0);
+        if (value instanceof final String string) {
+            this.symbols.add(string, null, SymbolKind.STRING, false, 0);
+        }
+        return null;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(final int access, final String name, final String descriptor, final String signature, final String[] exceptions) {
+        return new MethodScanner(name, descriptor, exceptions);
+    }
+
+    private void addClass(final String internalName, final boolean declaration, final int line) {
+        final String className = toClassName(internalName);
+        this.symbols.add(className.substring(className.lastIndexOf('.') + 1), className, SymbolKind.CLASS, declaration, line);
+    }
+
+    private void addType(final Type type, final int line) {
+        final Type element = type.getSort() == Type.ARRAY ? type.getElementType() : type;
+        if (element.getSort() == Type.OBJECT) {
+            this.addClass(element.getInternalName(), false, line);
+        }
+    }
+
+    private void addMember(final SymbolKind kind, final String owner, final String name, final boolean declaration, final int line) {
+        if (name.equals("<clinit>")) {
+            return;
+        }
+        final String ownerName = toClassName(owner);
+        // Constructors are named after their class, as in the sources
+        final String memberName = name.equals("<init>") ? ownerName.substring(ownerName.lastIndexOf('.') + 1) : name;
+        this.symbols.add(memberName, ownerName, kind, declaration, line);
+    }
+
+    private static String toClassName(final String internalName) {
+        return internalName.replace('/', '.').replace('$', '.');
+    }
+
+    private final class MethodScanner extends MethodVisitor {
+
+        private final String name;
+        private final String descriptor;
+        private final String[] exceptions;
+        private int firstLine;
+        private int line;
+
+        private MethodScanner(final String name, final String descriptor, final String[] exceptions) {
+            super(Opcodes.ASM9);
+            this.name = name;
+            this.descriptor = descriptor;
+            this.exceptions = exceptions;
+        }
+
+        @Override
+        public void visitLineNumber(final int line, final Label start) {
+            if (this.firstLine == 0 || line < this.firstLine) {
+                this.firstLine = line;
+            }
+            this.line = line;
+        }
+
+        @Override
+        public void visitTypeInsn(final int opcode, final String type) {
+            addType(Type.getObjectType(type), this.line);
+        }
+
+        @Override
+        public void visitFieldInsn(final int opcode, final String owner, final String name, final String descriptor) {
+            addMember(SymbolKind.FIELD, owner, name, false, this.line);
+        }
+
+        @Override
+        public void visitMethodInsn(final int opcode, final String owner, final String name, final String descriptor, final boolean isInterface) {
+            if (owner.charAt(0) == '[') {
+                // Methods of arrays, such as clone
+                addType(Type.getObjectType(owner), this.line);
+                return;
+            }
+            addMember(SymbolKind.METHOD, owner, name, false, this.line);
+            if (name.equals("<init>")) {
+                addClass(owner, false, this.line);
+            }
+        }
+
+        @Override
+        public void visitInvokeDynamicInsn(final String name, final String descriptor, final Handle bootstrapMethod, final Object... arguments) {
+            final boolean concatenation = bootstrapMethod.getOwner().equals(STRING_CONCAT_FACTORY);
+            for (final Object argument : arguments) {
+                if (argument instanceof final Handle handle) {
+                    this.visitHandle(handle);
+                } else if (argument instanceof final String string) {
+                    // Recipes of string concatenations hold the constant parts between \1 and \2 placeholders
+                    for (final String part : concatenation ? string.split("[\u0001\u0002]") : new String[] {string}) {
+                        if (!part.isBlank()) {
+                            symbols.add(part, null, SymbolKind.STRING, false, this.line);
+                        }
+                    }
+                } else if (argument instanceof final Type type && type.getSort() != Type.METHOD) {
+                    addType(type, this.line);
+                }
+            }
+        }
+
+        @Override
+        public void visitLdcInsn(final Object value) {
+            if (value instanceof final String string) {
+                symbols.add(string, null, SymbolKind.STRING, false, this.line);
+            } else if (value instanceof final Type type && type.getSort() != Type.METHOD) {
+                addType(type, this.line);
+            } else if (value instanceof final Handle handle) {
+                this.visitHandle(handle);
+            }
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(final String descriptor, final int numDimensions) {
+            addType(Type.getType(descriptor), this.line);
+        }
+
+        @Override
+        public void visitTryCatchBlock(final Label start, final Label end, final Label handler, final String type) {
+            if (type != null) {
+                addType(Type.getObjectType(type), this.line);
+            }
+        }
+
+        @Override
+        public void visitEnd() {
+            addMember(SymbolKind.METHOD, className, this.name, true, this.firstLine);
+            final Type method = Type.getMethodType(this.descriptor);
+            addType(method.getReturnType(), this.firstLine);
+            for (final Type argument : method.getArgumentTypes()) {
+                addType(argument, this.firstLine);
+            }
+            if (this.exceptions != null) {
+                for (final String exception : this.exceptions) {
+                    addClass(exception, false, this.firstLine);
+                }
+            }
+        }
+
+        private void visitHandle(final Handle handle) {
+            final boolean field = handle.getTag() <= Opcodes.H_PUTSTATIC;
+            addMember(field ? SymbolKind.FIELD : SymbolKind.METHOD, handle.getOwner(), handle.getName(), false, this.line);
+        }
+
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.symbol;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Symbols of one document with the fingerprint used to find unchanged documents on the next update.
+ */
+final class DocumentSymbols {
+
+    private final String path;
+    private final int size;
+    private final long stamp;
+    private final int checksum;
+    private final List<String> names = new ArrayList<>();
+    private final List<String> owners = new ArrayList<>();
+    private final Set<Occurrence> seen = new HashSet<>();
+    private int[] lines = new int[64];
+    private int[] flags = new int[64];
+
+    DocumentSymbols(final @NotNull String path, final int size, final long stamp, final int checksum) {
+        this.path = Objects.requireNonNull(path, "path must not be null");
+        this.size = size;
+        this.stamp = stamp;
+        this.checksum = checksum;
+    }
+
+    void add(final @NotNull String name, final @Nullable String owner, final @NotNull SymbolKind kind, final boolean declaration, final int line) {
+        this.add(name, owner, line, kind.ordinal() << 1 | (declaration ? SymbolIndex.FLAG_DECLARATION : 0));
+    }
+
+    void add(final @NotNull String name, final @Nullable String owner, final int line, final int flags) {
+        if (!this.seen.add(new Occurrence(name, owner, line, flags))) {
+            return;
+        }
+        final int index = this.names.size();
+        if (index == this.lines.length) {
+            this.lines = Arrays.copyOf(this.lines, index * 2);
+            this.flags = Arrays.copyOf(this.flags, index * 2);
+        }
+        this.names.add(name);
+        this.owners.add(owner);
+        this.lines[index] = line;
+        this.flags[index] = flags;
+    }
+
+    @NotNull String getPath() {
+        return this.path;
+    }
+
+    int getSize() {
+        return this.size;
+    }
+
+    long getStamp() {
+        return this.stamp;
+    }
+
+    int getChecksum() {
+        return this.checksum;
+    }
+
+    int getCount() {
+        return this.names.size();
+    }
+
+    @NotNull String getName(final int index) {
+        return this.names.get(index);
+    }
+
+    @Nullable String getOwner(final int index) {
+        return this.owners.get(index);
+    }
+
+    int getLine(final int index) {
+        return this.lines[index];
+    }
+
+    int getFlags(final int index) {
+        return this.flags[index];
+    }
+
+    private record Occurrence(String name, String owner, int line, int flags) {
+    }
+
+}
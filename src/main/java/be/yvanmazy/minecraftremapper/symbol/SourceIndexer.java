@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.symbol;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Builds the {@link SymbolIndex} of a tree of Java sources. The previous index of the tree is reused: only the files
+ * that changed since are scanned again, the symbols of the others are carried over.
+ */
+public final class SourceIndexer {
+
+    static final String SOURCE = "java-sources";
+
+    private SourceIndexer() throws IllegalAccessException {
+        throw new IllegalAccessException("You cannot instantiate a utility class");
+    }
+
+    public static @NotNull String getIndexFileName(final @NotNull String versionId) {
+        Objects.requireNonNull(versionId, "versionId must not be null");
+        return "symbols-" + versionId + ".idx";
+    }
+
+    /**
+     * Opens the index written by {@link #update(Path, Path)}.
+     *
+     * @return the index, or {@code null} when it is missing or unreadable
+     */
+    public static @Nullable SymbolIndex open(final @NotNull Path index) throws IOException {
+        return SymbolIndex.open(index, SOURCE);
+    }
+
+    /**
+     * Updates the index of the sources, the file is only rewritten when a source was added, changed or removed.
+     */
+    public static @NotNull SymbolIndexUpdate update(final @NotNull Path sources, final @NotNull Path index) throws IOException {
+        Objects.requireNonNull(sources, "sources must not be null");
+        Objects.requireNonNull(index, "index must not be null");
+        final List<Path> files;
+        if (Files.isDirectory(sources)) {
+            try (final Stream<Path> stream = Files.walk(sources)) {
+                files = stream.filter(path -> path.toString().endsWith(".java") && Files.isRegularFile(path)).toList();
+            }
+        } else {
+            files = List.of();
+        }
+
+        return SymbolIndexUpdater.update(index, SOURCE, new SymbolIndexUpdater.DocumentSource() {
+            @Override
+            public int getDocumentCount() {
+                return files.size();
+            }
+
+            @Override
+            public @NotNull DocumentSymbols describe(final int document) throws IOException {
+                final Path file = files.get(document);
+                final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                return new DocumentSymbols(toDocumentName(sources.relativize(file)),
+                        (int) attributes.size(),
+                        attributes.lastModifiedTime().toMillis(),
+                        0);
+            }
+
+            @Override
+            public byte @NotNull [] read(final int document) throws IOException {
+                return Files.readAllBytes(files.get(document));
+            }
+
+            @Override
+            public void scan(final byte @NotNull [] content, final @NotNull DocumentSymbols symbols) {
+                SourceSymbolScanner.scan(new String(content, StandardCharsets.UTF_8), symbols);
+            }
+        });
+    }
+
+    private static String toDocumentName(final Path relative) {
+        final StringBuilder builder = new StringBuilder();
+        for (final Path part : relative) {
+            if (!builder.isEmpty()) {
+                builder.append('/');
+            }
+            builder.append(part);
+        }
+        return builder.toString();
+    }
+
+}
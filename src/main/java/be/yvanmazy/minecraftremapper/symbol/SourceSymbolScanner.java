@@ -0,0 +1,402 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.symbol;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Extracts the declared and referenced symbols of a decompiled source file. Sources are tokenized, not parsed: class
+ * and member declarations are found from the braces of the class bodies and references from the shape of the
+ * identifiers. Class references are resolved through the imports and the classes of the file, member references are
+ * only known by name.
+ */
+final class SourceSymbolScanner {
+
+    private static final Set<String> KEYWORDS = Set.of("abstract", "assert", "boolean", "break", "byte", "case", "catch", "char",
+            "class", "const", "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float", "for",
+            "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native", "new", "package", "private",
+            "protected", "public", "return", "short", "static", "strictfp", "super", "switch", "synchronized", "this", "throw",
+            "throws", "transient", "try", "void", "volatile", "while", "true", "false", "null", "var", "yield", "record", "sealed",
+            "permits", "non");
+
+    private static final int IDENTIFIER = 0;
+    private static final int SYMBOL = 1;
+    private static final int LITERAL = 2;
+
+    private final char[] text;
+    private final DocumentSymbols symbols;
+    private int tokenCount;
+    private int[] kinds = new int[1024];
+    private int[] lines = new int[1024];
+    private String[] values = new String[1024];
+
+    private String packageName = "";
+    private final Map<String, String> imports = new HashMap<>();
+    private final Map<String, String> declaredClasses = new HashMap<>();
+    private final List<ClassReference> classReferences = new ArrayList<>();
+
+    private SourceSymbolScanner(final char[] text, final DocumentSymbols symbols) {
+        this.text = text;
+        this.symbols = symbols;
+    }
+
+    static void scan(final @NotNull String source, final @NotNull DocumentSymbols symbols) {
+        final SourceSymbolScanner scanner = new SourceSymbolScanner(source.toCharArray(), symbols);
+        scanner.tokenize();
+        scanner.parse();
+        scanner.resolveClassReferences();
+    }
+
+    private void tokenize() {
+        final char[] text = this.text;
+        int line = 1;
+        int i = 0;
+        while (i < text.length) {
+            final char c = text[i];
+            if (c == '\n') {
+                line++;
+                i++;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '/' && i + 1 < text.length && text[i + 1] == '/') {
+                while (i < text.length && text[i] != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < text.length && text[i + 1] == '*') {
+                i += 2;
+                while (i < text.length && !(text[i] == '*' && i + 1 < text.length && text[i + 1] == '/')) {
+                    if (text[i++] == '\n') {
+                        line++;
+                    }
+                }
+                i += 2;
+            } else if (c == '"' || c == '\'') {
+                final int start = line;
+                if (c == '"' && i + 2 < text.length && text[i + 1] == '"' && text[i + 2] == '"') {
+                    i += 3;
+                    while (i < text.length && !(text[i] == '"' && i + 2 < text.length && text[i + 1] == '"' && text[i + 2] == '"')) {
+                        if (text[i] == '\\') {
+                            i++;
+                        } else if (text[i] == '\n') {
+                            line++;
+                        }
+                        i++;
+                    }
+                    i += 3;
+                } else {
+                    i++;
+                    while (i < text.length && text[i] != c && text[i] != '\n') {
+                        if (text[i] == '\\') {
+                            i++;
+                        }
+                        i++;
+                    }
+                    i++;
+                }
+                this.addToken(LITERAL, start, null);
+            } else if (Character.isJavaIdentifierStart(c)) {
+                final int start = i;
+                while (i < text.length && Character.isJavaIdentifierPart(text[i])) {
+                    i++;
+                }
+                this.addToken(IDENTIFIER, line, new String(text, start, i - start));
+            } else if (Character.isDigit(c)) {
+                while (i < text.length && (Character.isLetterOrDigit(text[i]) || text[i] == '.' || text[i] == '_')) {
+                    i++;
+                }
+                this.addToken(LITERAL, line, null);
+            } else {
+                this.addToken(SYMBOL, line, String.valueOf(c));
+                i++;
+            }
+        }
+    }
+
+    private void addToken(final int kind, final int line, final String value) {
+        if (this.tokenCount == this.kinds.length) {
+            this.kinds = Arrays.copyOf(this.kinds, this.tokenCount * 2);
+            this.lines = Arrays.copyOf(this.lines, this.tokenCount * 2);
+            this.values = Arrays.copyOf(this.values, this.tokenCount * 2);
+        }
+        this.kinds[this.tokenCount] = kind;
+        this.lines[this.tokenCount] = line;
+        this.values[this.tokenCount] = value;
+        this.tokenCount++;
+    }
+
+    private void parse() {
+        final Deque<Frame> frames = new ArrayDeque<>();
+        Frame frame = new Frame(null, null, false);
+        String pendingClass = null;
+        boolean pendingEnum = false;
+        int i = 0;
+        while (i < this.tokenCount) {
+            if (this.kinds[i] == SYMBOL) {
+                final char symbol = this.values[i].charAt(0);
+                switch (symbol) {
+                    case '{' -> {
+                        frames.push(frame);
+                        frame = new Frame(pendingClass, pendingClass != null ? pendingClass : frame.scope, pendingEnum);
+                        pendingClass = null;
+                        pendingEnum = false;
+                    }
+                    case '}' -> {
+                        frame = frames.isEmpty() ? new Frame(null, null, false) : frames.pop();
+                        frame.resetHeader();
+                    }
+                    case ';' -> {
+                        frame.resetHeader();
+                        frame.enumConstants = false;
+                    }
+                    case '(' -> frame.parenDepth++;
+                    case ')' -> frame.parenDepth = Math.max(0, frame.parenDepth - 1);
+                    case '<' -> frame.angleDepth++;
+                    case '>' -> frame.angleDepth = Math.max(0, frame.angleDepth - 1);
+                    case '=' -> {
+                        if (frame.parenDepth == 0) {
+                            frame.assigned = true;
+                        }
+                    }
+                    case '@' -> {
+                        if (this.isIdentifier(i + 1) && !this.values[i + 1].equals("interface")) {
+                            i = this.skipAnnotation(i + 1);
+                            continue;
+                        }
+                    }
+                    default -> {
+                    }
+                }
+                frame.headerLength++;
+                i++;
+                continue;
+            }
+            if (this.kinds[i] == LITERAL) {
+                frame.headerLength++;
+                i++;
+                continue;
+            }
+
+            final String value = this.values[i];
+            final int line = this.lines[i];
+            switch (value) {
+                case "package" -> {
+                    final StringBuilder builder = new StringBuilder();
+                    i = this.readQualifiedName(i + 1, builder);
+                    this.packageName = builder.toString();
+                    continue;
+                }
+                case "import" -> {
+                    final StringBuilder builder = new StringBuilder();
+                    final boolean isStatic = this.isIdentifier(i + 1) && this.values[i + 1].equals("static");
+                    i = this.readQualifiedName(isStatic ? i + 2 : i + 1, builder);
+                    final String name = builder.toString();
+                    if (!isStatic && !name.endsWith(".*")) {
+                        this.imports.put(name.substring(name.lastIndexOf('.') + 1), name);
+                    }
+                    continue;
+                }
+                case "class", "interface", "enum", "record" -> {
+                    final boolean declaration = !this.isSymbol(i - 1, '.') && this.isIdentifier(i + 1) &&
+                            (!value.equals("record") || this.isSymbol(i + 2, '(') || this.isSymbol(i + 2, '<'));
+                    if (declaration) {
+                        final String name = this.values[i + 1];
+                        pendingClass = frame.scope != null ? frame.scope + "." + name : this.packageName.isEmpty() ? name : this.packageName + "." + name;
+                        pendingEnum = value.equals("enum");
+                        this.declaredClasses.putIfAbsent(name, pendingClass);
+                        this.symbols.add(name, pendingClass, SymbolKind.CLASS, true, this.lines[i + 1]);
+                        frame.typeHeader = true;
+                        frame.headerLength += 2;
+                        i += 2;
+                        continue;
+                    }
+                }
+                default -> {
+                }
+            }
+            if (KEYWORDS.contains(value)) {
+                frame.headerLength++;
+                i++;
+                continue;
+            }
+
+            final boolean member = frame.owner != null && !frame.typeHeader && frame.parenDepth == 0;
+            final boolean qualified = this.isSymbol(i - 1, '.');
+            final boolean instantiated = this.isIdentifier(i - 1) && this.values[i - 1].equals("new");
+            if (member && frame.enumConstants && (this.isSymbol(i - 1, '{') || this.isSymbol(i - 1, ','))) {
+                this.symbols.add(value, frame.owner, SymbolKind.FIELD, true, line);
+            } else if (member && !frame.assigned && frame.angleDepth == 0 && !qualified && !instantiated && this.isSymbol(i + 1, '(')) {
+                this.symbols.add(value, frame.owner, SymbolKind.METHOD, true, line);
+                frame.method = true;
+            } else if (member && !frame.assigned && !frame.method && frame.angleDepth == 0 && frame.headerLength > 0 && !qualified &&
+                    (this.isSymbol(i + 1, ';') || this.isSymbol(i + 1, '=') || this.isSymbol(i + 1, ','))) {
+                this.symbols.add(value, frame.owner, SymbolKind.FIELD, true, line);
+            } else if (instantiated) {
+                this.classReferences.add(new ClassReference(value, this.qualifier(i), line));
+            } else if (this.isSymbol(i + 1, '(')) {
+                this.symbols.add(value, null, SymbolKind.METHOD, false, line);
+            } else if (isConstantName(value) && !this.isIdentifier(i + 1)) {
+                this.symbols.add(value, null, SymbolKind.FIELD, false, line);
+            } else if (isClassName(value)) {
+                this.classReferences.add(new ClassReference(value, qualified ? this.qualifier(i) : null, line));
+            } else if (qualified) {
+                this.symbols.add(value, null, SymbolKind.FIELD, false, line);
+            }
+            frame.headerLength++;
+            i++;
+        }
+    }
+
+    private void resolveClassReferences() {
+        for (final ClassReference reference : this.classReferences) {
+            String owner = reference.qualifier() != null ? reference.qualifier() + "." + reference.name() : null;
+            if (owner == null) {
+                owner = this.declaredClasses.get(reference.name());
+            }
+            if (owner == null) {
+                owner = this.imports.get(reference.name());
+            }
+            this.symbols.add(reference.name(), owner, SymbolKind.CLASS, false, reference.line());
+        }
+    }
+
+    /**
+     * Package written before a class name, or {@code null} when the name is not fully qualified.
+     */
+    private String qualifier(final int index) {
+        int start = index;
+        while (this.isSymbol(start - 1, '.') && this.isIdentifier(start - 2) && !KEYWORDS.contains(this.values[start - 2])) {
+            start -= 2;
+        }
+        if (start == index || !Character.isLowerCase(this.values[start].charAt(0))) {
+            return null;
+        }
+        final StringBuilder builder = new StringBuilder(this.values[start]);
+        for (int i = start + 2; i < index; i += 2) {
+            builder.append('.').append(this.values[i]);
+        }
+        return builder.toString();
+    }
+
+    private int readQualifiedName(final int start, final StringBuilder builder) {
+        int i = start;
+        while (i < this.tokenCount && !this.isSymbol(i, ';')) {
+            builder.append(this.values[i]);
+            i++;
+        }
+        return i + 1;
+    }
+
+    private int skipAnnotation(final int start) {
+        int i = start;
+        while (this.isIdentifier(i) && this.isSymbol(i + 1, '.')) {
+            i += 2;
+        }
+        if (this.isIdentifier(i)) {
+            this.classReferences.add(new ClassReference(this.values[i], null, this.lines[i]));
+            i++;
+        }
+        if (this.isSymbol(i, '(')) {
+            int depth = 0;
+            do {
+                if (this.isSymbol(i, '(')) {
+                    depth++;
+                } else if (this.isSymbol(i, ')')) {
+                    depth--;
+                }
+                i++;
+            } while (depth > 0 && i < this.tokenCount);
+        }
+        return i;
+    }
+
+    private boolean isIdentifier(final int index) {
+        return index >= 0 && index < this.tokenCount && this.kinds[index] == IDENTIFIER;
+    }
+
+    private boolean isSymbol(final int index, final char symbol) {
+        return index >= 0 && index < this.tokenCount && this.kinds[index] == SYMBOL && this.values[index].charAt(0) == symbol;
+    }
+
+    private static boolean isClassName(final String value) {
+        return value.length() > 1 && Character.isUpperCase(value.charAt(0));
+    }
+
+    private static boolean isConstantName(final String value) {
+        if (value.length() < 2 || !Character.isUpperCase(value.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (Character.isLowerCase(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private record ClassReference(String name, String qualifier, int line) {
+    }
+
+    private static final class Frame {
+
+        // Class of the body, null for code blocks
+        private final String owner;
+        // Innermost class around the frame
+        private final String scope;
+        private boolean enumConstants;
+        private boolean typeHeader;
+        private boolean assigned;
+        private boolean method;
+        private int parenDepth;
+        private int angleDepth;
+        private int headerLength = -1;
+
+        private Frame(final String owner, final String scope, final boolean enumConstants) {
+            this.owner = owner;
+            this.scope = scope;
+            this.enumConstants = enumConstants;
+        }
+
+        private void resetHeader() {
+            this.typeHeader = false;
+            this.assigned = false;
+            this.method = false;
+            this.parenDepth = 0;
+            this.angleDepth = 0;
+            this.headerLength = -1;
+        }
+
+    }
+
+}
@@ -0,0 +1,266 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.symbol;
+
+import be.yvanmazy.minecraftremapper.util.HashTable;
+import be.yvanmazy.minecraftremapper.util.StringTable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Memory-mapped inverted index written by {@link SourceIndexer}. Every symbol name points to its postings, the
+ * documents and lines where it is declared or referenced, sorted by document then line. Names are found through an open
+ * addressing table, so a lookup only touches the pages of its postings. The index is read-only and thread-safe.
+ */
+public final class SymbolIndex {
+
+    static final int MAGIC = 0x4D525349; // MRSI
+    static final int FORMAT_VERSION = 1;
+    static final int DOCUMENT_RECORD = 5;
+    static final int TERM_RECORD = 3;
+    static final int POSTING_RECORD = 4;
+    static final int FLAG_DECLARATION = 1;
+
+    private static final SymbolKind[] KINDS = SymbolKind.values();
+
+    private final ByteBuffer buffer;
+    private final String source;
+    private final int documentCount;
+    private final int termCount;
+    private final int postingCount;
+    private final int documentsPosition;
+    private final int termsPosition;
+    private final int postingsPosition;
+    private final HashTable table;
+    private final StringTable strings;
+
+    private SymbolIndex(final ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            throw new IOException("Unsupported symbol index");
+        }
+        final byte[] sourceBytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(sourceBytes);
+        this.source = new String(sourceBytes, StandardCharsets.UTF_8);
+        final int stringCount = buffer.getInt();
+        this.documentCount = buffer.getInt();
+        this.termCount = buffer.getInt();
+        this.postingCount = buffer.getInt();
+        final int tableSize = buffer.getInt();
+        final int stringOffsetsPosition = buffer.position();
+        this.documentsPosition = stringOffsetsPosition + StringTable.getOffsetsByteSize(stringCount);
+        this.termsPosition = this.documentsPosition + this.documentCount * DOCUMENT_RECORD * Integer.BYTES;
+        this.postingsPosition = this.termsPosition + this.termCount * TERM_RECORD * Integer.BYTES;
+        final int tablePosition = this.postingsPosition + this.postingCount * POSTING_RECORD * Integer.BYTES;
+        this.table = new HashTable(buffer, tablePosition, tableSize);
+        this.strings = new StringTable(buffer, stringOffsetsPosition, tablePosition + HashTable.getByteSize(tableSize), stringCount);
+    }
+
+    /**
+     * Maps an index written by {@link SourceIndexer}.
+     *
+     * @param source the source given to the writer, or {@code null} to accept any source
+     * @return the index, or {@code null} when it is missing, unreadable or was built from another source
+     */
+    public static @Nullable SymbolIndex open(final @NotNull Path path, final @Nullable String source) throws IOException {
+        Objects.requireNonNull(path, "path must not be null");
+        if (Files.notExists(path)) {
+            return null;
+        }
+        final ByteBuffer buffer;
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        final SymbolIndex index;
+        try {
+            index = new SymbolIndex(buffer);
+        } catch (final IOException | RuntimeException e) {
+            return null;
+        }
+        return source == null || index.source.equals(source) ? index : null;
+    }
+
+    /**
+     * Reads an index into the heap instead of mapping it, so the file can be replaced while the index is still used.
+     */
+    static @Nullable SymbolIndex load(final @NotNull Path path, final @NotNull String source) throws IOException {
+        if (Files.notExists(path)) {
+            return null;
+        }
+        try {
+            final SymbolIndex index = new SymbolIndex(ByteBuffer.wrap(Files.readAllBytes(path)));
+            return index.source.equals(source) ? index : null;
+        } catch (final IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Finds the occurrences matching a query: {@code name} for any symbol with this simple name, {@code a.b.Name} for
+     * a class and {@code Owner#name} or {@code a.b.Owner#name} for the members of a class. References that could not be
+     * resolved to an owner match every owner.
+     */
+    public @NotNull List<SymbolOccurrence> query(final @NotNull String query) {
+        Objects.requireNonNull(query, "query must not be null");
+        final int member = query.indexOf('#');
+        if (member != -1) {
+            return this.find(query.substring(member + 1), query.substring(0, member), false);
+        }
+        final int qualified = query.lastIndexOf('.');
+        if (qualified != -1) {
+            return this.find(query.substring(qualified + 1), query, true);
+        }
+        return this.find(query, null, false);
+    }
+
+    /**
+     * Finds all the occurrences of the symbols with this simple name.
+     */
+    public @NotNull List<SymbolOccurrence> find(final @NotNull String name) {
+        Objects.requireNonNull(name, "name must not be null");
+        return this.find(name, null, false);
+    }
+
+    public @NotNull String getSource() {
+        return this.source;
+    }
+
+    public int getDocumentCount() {
+        return this.documentCount;
+    }
+
+    public int getSymbolCount() {
+        return this.termCount;
+    }
+
+    public int getOccurrenceCount() {
+        return this.postingCount;
+    }
+
+    private List<SymbolOccurrence> find(final String name, final String owner, final boolean onlyClasses) {
+        final int term = this.indexOf(name);
+        if (term == -1) {
+            return List.of();
+        }
+        final int record = this.termsPosition + term * TERM_RECORD * Integer.BYTES;
+        final int start = this.buffer.getInt(record + Integer.BYTES);
+        final int count = this.buffer.getInt(record + 2 * Integer.BYTES);
+        final List<SymbolOccurrence> occurrences = new ArrayList<>(owner == null ? count : Math.min(count, 16));
+        for (int i = start; i < start + count; i++) {
+            final int posting = this.posting(i);
+            final int flags = this.buffer.getInt(posting + 2 * Integer.BYTES);
+            final SymbolKind kind = KINDS[flags >>> 1];
+            if (onlyClasses ? kind != SymbolKind.CLASS : owner != null && kind == SymbolKind.CLASS) {
+                continue;
+            }
+            final int ownerId = this.buffer.getInt(posting + 3 * Integer.BYTES);
+            final String postingOwner = ownerId != -1 ? this.string(ownerId) : null;
+            if (owner != null && postingOwner != null && !postingOwner.equals(owner) && !postingOwner.endsWith("." + owner)) {
+                continue;
+            }
+            occurrences.add(new SymbolOccurrence(name,
+                    postingOwner,
+                    kind,
+                    (flags & FLAG_DECLARATION) != 0,
+                    this.getDocument(this.buffer.getInt(posting)),
+                    this.buffer.getInt(posting + Integer.BYTES)));
+        }
+        return occurrences;
+    }
+
+    @NotNull String getDocument(final int document) {
+        return this.string(this.buffer.getInt(this.document(document)));
+    }
+
+    int getDocumentSize(final int document) {
+        return this.buffer.getInt(this.document(document) + Integer.BYTES);
+    }
+
+    long getDocumentStamp(final int document) {
+        final int record = this.document(document);
+        return (long) this.buffer.getInt(record + 2 * Integer.BYTES) << 32 | this.buffer.getInt(record + 3 * Integer.BYTES) & 0xFFFFFFFFL;
+    }
+
+    int getDocumentChecksum(final int document) {
+        return this.buffer.getInt(this.document(document) + 4 * Integer.BYTES);
+    }
+
+    /**
+     * Visits every posting grouped by symbol, to carry the postings of unchanged documents over to a new index.
+     */
+    void forEachPosting(final PostingVisitor visitor) {
+        for (int term = 0; term < this.termCount; term++) {
+            final int record = this.termsPosition + term * TERM_RECORD * Integer.BYTES;
+            final String name = this.string(this.buffer.getInt(record));
+            final int start = this.buffer.getInt(record + Integer.BYTES);
+            final int count = this.buffer.getInt(record + 2 * Integer.BYTES);
+            for (int i = start; i < start + count; i++) {
+                final int posting = this.posting(i);
+                final int owner = this.buffer.getInt(posting + 3 * Integer.BYTES);
+                visitor.visit(name,
+                        owner != -1 ? this.string(owner) : null,
+                        this.buffer.getInt(posting),
+                        this.buffer.getInt(posting + Integer.BYTES),
+                        this.buffer.getInt(posting + 2 * Integer.BYTES));
+            }
+        }
+    }
+
+    private int indexOf(final String name) {
+        return this.table.find(name.hashCode(),
+                term -> this.string(this.buffer.getInt(this.termsPosition + term * TERM_RECORD * Integer.BYTES)).equals(name));
+    }
+
+    private int document(final int document) {
+        return this.documentsPosition + document * DOCUMENT_RECORD * Integer.BYTES;
+    }
+
+    private int posting(final int posting) {
+        return this.postingsPosition + posting * POSTING_RECORD * Integer.BYTES;
+    }
+
+    private String string(final int id) {
+        return this.strings.get(id);
+    }
+
+    @FunctionalInterface
+    interface PostingVisitor {
+
+        void visit(@NotNull String name, @Nullable String owner, int document, int line, int flags);
+
+    }
+
+}
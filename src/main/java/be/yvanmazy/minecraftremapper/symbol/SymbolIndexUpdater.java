@@ -0,0 +1,154 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.symbol;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+/**
+ * Updates an index from its previous version: documents with the same fingerprint keep their symbols, only the others
+ * are scanned again, on every core.
+ */
+final class SymbolIndexUpdater {
+
+    private SymbolIndexUpdater() throws IllegalAccessException {
+        throw new IllegalAccessException("You cannot instantiate a utility class");
+    }
+
+    static @NotNull SymbolIndexUpdate update(final @NotNull Path index, final @NotNull String source, final @NotNull DocumentSource documents)
+            throws IOException {
+        final SymbolIndex previous = SymbolIndex.load(index, source);
+        final Map<String, Integer> previousDocuments = new HashMap<>();
+        if (previous != null) {
+            for (int document = 0; document < previous.getDocumentCount(); document++) {
+                previousDocuments.put(previous.getDocument(document), document);
+            }
+        }
+        final int count = documents.getDocumentCount();
+        final DocumentSymbols[] symbols = new DocumentSymbols[count];
+        final int[] reused = new int[count];
+        final boolean[] touched = new boolean[count];
+        Arrays.fill(reused, -1);
+        try {
+            IntStream.range(0, count).parallel().forEach(i -> {
+                try {
+                    final DocumentSymbols description = documents.describe(i);
+                    final Integer old = previousDocuments.get(description.getPath());
+                    if (old != null && description.getStamp() != 0 && previous.getDocumentSize(old) == description.getSize() &&
+                            previous.getDocumentStamp(old) == description.getStamp()) {
+                        symbols[i] = new DocumentSymbols(description.getPath(), description.getSize(), description.getStamp(),
+                                previous.getDocumentChecksum(old));
+                        reused[i] = old;
+                        return;
+                    }
+                    // The stamp may change with identical contents, the checksum tells which documents really changed
+                    final byte[] content = documents.read(i);
+                    final CRC32C crc = new CRC32C();
+                    crc.update(content);
+                    final int checksum = (int) crc.getValue();
+                    symbols[i] = new DocumentSymbols(description.getPath(), content.length, description.getStamp(), checksum);
+                    touched[i] = true;
+                    if (old != null && previous.getDocumentSize(old) == content.length && previous.getDocumentChecksum(old) == checksum) {
+                        reused[i] = old;
+                        return;
+                    }
+                    documents.scan(content, symbols[i]);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        int scanned = 0;
+        int kept = 0;
+        boolean changed = previous == null;
+        final DocumentSymbols[] carried = new DocumentSymbols[previous != null ? previous.getDocumentCount() : 0];
+        for (int i = 0; i < count; i++) {
+            if (reused[i] != -1) {
+                carried[reused[i]] = symbols[i];
+            } else {
+                scanned++;
+            }
+            // Documents scanned again still existed, only the others of the previous index are removed
+            if (previousDocuments.containsKey(symbols[i].getPath())) {
+                kept++;
+            }
+            changed |= touched[i];
+        }
+        final int removed = previous != null ? previous.getDocumentCount() - kept : 0;
+        if (!changed && scanned == 0 && removed == 0) {
+            final SymbolIndex current = SymbolIndex.open(index, source);
+            if (current != null) {
+                return new SymbolIndexUpdate(current, count, 0, 0);
+            }
+        }
+        if (previous != null && scanned < count) {
+            previous.forEachPosting((name, owner, document, line, flags) -> {
+                final DocumentSymbols target = carried[document];
+                if (target != null) {
+                    target.add(name, owner, line, flags);
+                }
+            });
+        }
+
+        final SymbolIndexWriter writer = new SymbolIndexWriter();
+        for (final DocumentSymbols document : symbols) {
+            writer.add(document);
+        }
+        writer.write(index, source);
+        final SymbolIndex updated = SymbolIndex.open(index, source);
+        if (updated == null) {
+            throw new IOException("Failed to read written symbol index");
+        }
+        return new SymbolIndexUpdate(updated, count, scanned, removed);
+    }
+
+    interface DocumentSource {
+
+        int getDocumentCount();
+
+        /**
+         * Describes a document without reading it: its name, its size and a stamp changing with its content, or 0
+         * when unknown. The checksum of the description is ignored.
+         */
+        @NotNull DocumentSymbols describe(int document) throws IOException;
+
+        byte @NotNull [] read(int document) throws IOException;
+
+        void scan(byte @NotNull [] content, @NotNull DocumentSymbols symbols);
+
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.symbol;
+
+import be.yvanmazy.minecraftremapper.util.HashTableWriter;
+import be.yvanmazy.minecraftremapper.util.IntList;
+import be.yvanmazy.minecraftremapper.util.StringTableWriter;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Collects the symbols of documents and writes them into the format read by {@link SymbolIndex}.
+ */
+final class SymbolIndexWriter {
+
+    private final List<DocumentSymbols> documents = new ArrayList<>();
+
+    void add(final @NotNull DocumentSymbols document) {
+        this.documents.add(Objects.requireNonNull(document, "document must not be null"));
+    }
+
+    int getDocumentCount() {
+        return this.documents.size();
+    }
+
+    void write(final @NotNull Path path, final @NotNull String source) throws IOException {
+        Objects.requireNonNull(path, "path must not be null");
+        Objects.requireNonNull(source, "source must not be null");
+        // Documents are sorted, so the postings of every symbol are sorted by document then line
+        this.documents.sort(Comparator.comparing(DocumentSymbols::getPath));
+        final StringTableWriter strings = new StringTableWriter();
+        final IntList documentRecords = new IntList(this.documents.size() * SymbolIndex.DOCUMENT_RECORD);
+        final Map<String, IntList> postings = new LinkedHashMap<>();
+        int postingCount = 0;
+        for (int document = 0; document < this.documents.size(); document++) {
+            final DocumentSymbols symbols = this.documents.get(document);
+            documentRecords.add(strings.id(symbols.getPath()));
+            documentRecords.add(symbols.getSize());
+            documentRecords.add((int) (symbols.getStamp() >>> 32));
+            documentRecords.add((int) symbols.getStamp());
+            documentRecords.add(symbols.getChecksum());
+            for (final int i : sortByLine(symbols)) {
+                final String owner = symbols.getOwner(i);
+                final IntList list = postings.computeIfAbsent(symbols.getName(i), k -> new IntList());
+                list.add(document);
+                list.add(symbols.getLine(i));
+                list.add(symbols.getFlags(i));
+                list.add(owner != null ? strings.id(owner) : -1);
+                postingCount++;
+            }
+        }
+
+        final IntList termRecords = new IntList(postings.size() * SymbolIndex.TERM_RECORD);
+        final HashTableWriter table = new HashTableWriter(postings.size());
+        int term = 0;
+        int start = 0;
+        for (final Map.Entry<String, IntList> entry : postings.entrySet()) {
+            final int count = entry.getValue().size() / SymbolIndex.POSTING_RECORD;
+            termRecords.add(strings.id(entry.getKey()));
+            termRecords.add(start);
+            termRecords.add(count);
+            start += count;
+            table.put(entry.getKey().hashCode(), term++);
+        }
+
+        final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(SymbolIndex.MAGIC);
+            out.writeInt(SymbolIndex.FORMAT_VERSION);
+            final byte[] sourceBytes = source.getBytes(StandardCharsets.UTF_8);
+            out.writeShort(sourceBytes.length);
+            out.write(sourceBytes);
+            out.writeInt(strings.size());
+            out.writeInt(this.documents.size());
+            out.writeInt(postings.size());
+            out.writeInt(postingCount);
+            out.writeInt(table.getSize());
+            strings.writeOffsets(out);
+            documentRecords.write(out);
+            termRecords.write(out);
+            for (final IntList list : postings.values()) {
+                list.write(out);
+            }
+            table.write(out);
+            strings.writeStrings(out);
+        } catch (final IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static int[] sortByLine(final DocumentSymbols symbols) {
+        final long[] keys = new long[symbols.getCount()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (long) symbols.getLine(i) << 32 | i;
+        }
+        Arrays.sort(keys);
+        final int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.symbol;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+/**
+ * Declaration or reference of a symbol at a line of an indexed document.
+ *
+ * @param owner qualified name of the class for a class, of the declaring class for a member, or {@code null} for a
+ *              string constant and when the reference could not be resolved
+ */
+public record SymbolOccurrence(@NotNull String name,
+                               @Nullable String owner,
+                               @NotNull SymbolKind kind,
+                               boolean declaration,
+                               @NotNull String document,
+                               int line) {
+
+    public SymbolOccurrence {
+        Objects.requireNonNull(name, "name must not be null");
+        Objects.requireNonNull(kind, "kind must not be null");
+        Objects.requireNonNull(document, "document must not be null");
+    }
+
+    public boolean isResolved() {
+        return this.owner != null;
+    }
+
+    @Override
+    public String toString() {
+        final String symbol = this.kind == SymbolKind.STRING ? '"' + this.name + '"' :
+                this.owner == null ? this.name : this.kind == SymbolKind.CLASS ? this.owner : this.owner + "#" + this.name;
+        return this.document + ":" + this.line + " " + (this.declaration ? "declares" : "references") + " " +
+                this.kind.name().toLowerCase() + " " + symbol;
+    }
+
+}
@@ -27,14 +27,21 @@ package be.yvanmazy.minecraftremapper.util;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Comparator;
 import java.util.stream.Stream;
-import java.util.zip.ZipFile;
 
 public final class FileUtil {
 
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int END_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
     private FileUtil() throws IllegalAccessException {
         throw new IllegalAccessException("You cannot instantiate a utility class");
     }
@@ -43,11 +50,43 @@ public final class FileUtil {
         if (Files.notExists(path)) {
             return false;
         }
-        try (final ZipFile ignored = new ZipFile(path.toFile())) {
-            return true;
-        } catch (final Exception e) {
+        // Only the end of central directory is read, a truncated download has none
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < END_SIZE) {
+                return false;
+            }
+            final int tailSize = (int) Math.min(size, END_SIZE + MAX_COMMENT_SIZE);
+            final ByteBuffer tail = ByteBuffer.allocate(tailSize).order(ByteOrder.LITTLE_ENDIAN);
+            while (tail.hasRemaining()) {
+                if (channel.read(tail, size - tailSize + tail.position()) == -1) {
+                    return false;
+                }
+            }
+            for (int end = tailSize - END_SIZE; end >= 0; end--) {
+                if (tail.getInt(end) == END_SIGNATURE && end + END_SIZE + Short.toUnsignedInt(tail.getShort(end + 20)) == tailSize) {
+                    final long directoryEnd = Integer.toUnsignedLong(tail.getInt(end + 16)) + Integer.toUnsignedLong(tail.getInt(end + 12));
+                    // Zip64 jars keep their offsets in another record
+                    return tail.getInt(end + 16) == -1 || directoryEnd <= size - tailSize + end;
+                }
+            }
             return false;
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Resolves the name of a jar entry in a directory. Names leaving the directory, like {@code ../a} or absolute
+     * names, are rejected.
+     */
+    public static @NotNull Path resolveEntry(final @NotNull Path directory, final @NotNull String name) throws IOException {
+        final Path root = directory.toAbsolutePath().normalize();
+        final Path target = root.resolve(name).normalize();
+        if (!target.startsWith(root) || target.equals(root)) {
+            throw new IOException("Entry '" + name + "' is outside of " + directory);
         }
+        return target;
     }
 
     public static void recursiveDelete(final @NotNull Path directory) throws IOException {
@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+
+/**
+ * Open addressing table of a memory-mapped index, written by {@link HashTableWriter}. Each slot holds a hash and a
+ * value plus one, zero marking an empty slot, and slots are probed linearly from the mixed hash.
+ */
+public final class HashTable {
+
+    private final ByteBuffer buffer;
+    private final int position;
+    private final int mask;
+
+    /**
+     * @param size number of slots written by {@link HashTableWriter#getSize()}
+     */
+    public HashTable(final @NotNull ByteBuffer buffer, final int position, final int size) {
+        this.buffer = Objects.requireNonNull(buffer, "buffer must not be null");
+        if (Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("size must be a power of two");
+        }
+        this.position = position;
+        this.mask = size - 1;
+    }
+
+    public static int getByteSize(final int size) {
+        return size * 2 * Integer.BYTES;
+    }
+
+    /**
+     * @param matches tests whether the value of a slot with the same hash is the one looked up
+     * @return the first value with this hash accepted by the predicate, or {@code -1}
+     */
+    public int find(final int hash, final @NotNull IntPredicate matches) {
+        int slot = mix(hash) & this.mask;
+        while (true) {
+            final int slotPosition = this.position + slot * 2 * Integer.BYTES;
+            final int value = this.buffer.getInt(slotPosition + Integer.BYTES) - 1;
+            if (value == -1) {
+                return -1;
+            }
+            if (this.buffer.getInt(slotPosition) == hash && matches.test(value)) {
+                return value;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+    }
+
+    static int mix(final int hash) {
+        final int spread = hash * 0x9E3779B9;
+        return spread ^ (spread >>> 16);
+    }
+
+}
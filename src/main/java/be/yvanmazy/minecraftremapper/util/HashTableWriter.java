@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Builds the open addressing table read by {@link HashTable}. Values with the same hash are found in the order they
+ * were put.
+ */
+public final class HashTableWriter {
+
+    private final int[] slots;
+    private final int mask;
+
+    /**
+     * @param count number of values put in the table
+     */
+    public HashTableWriter(final int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative");
+        }
+        // Load factor of at most 0.5 keeps the probe sequences short
+        final int size = Math.max(2, Integer.highestOneBit(Math.max(1, count) * 2) << 1);
+        this.slots = new int[size * 2];
+        this.mask = size - 1;
+    }
+
+    public void put(final int hash, final int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value must not be negative");
+        }
+        int slot = HashTable.mix(hash) & this.mask;
+        while (this.slots[slot * 2 + 1] != 0) {
+            slot = (slot + 1) & this.mask;
+        }
+        this.slots[slot * 2] = hash;
+        this.slots[slot * 2 + 1] = value + 1;
+    }
+
+    /**
+     * @return the number of slots, to give to {@link HashTable}
+     */
+    public int getSize() {
+        return this.mask + 1;
+    }
+
+    public void write(final @NotNull DataOutputStream out) throws IOException {
+        for (final int value : this.slots) {
+            out.writeInt(value);
+        }
+    }
+
+}
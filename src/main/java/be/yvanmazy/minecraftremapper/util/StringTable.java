@@ -0,0 +1,72 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Strings of a memory-mapped index, written by {@link StringTableWriter}: the offsets of the strings, followed by
+ * their end, and elsewhere their UTF-8 bytes. Strings are decoded once, a racy publication only costs a duplicate
+ * decoding.
+ */
+public final class StringTable {
+
+    private final ByteBuffer buffer;
+    private final int offsetsPosition;
+    private final int stringsPosition;
+    private final String[] strings;
+
+    public StringTable(final @NotNull ByteBuffer buffer, final int offsetsPosition, final int stringsPosition, final int count) {
+        this.buffer = Objects.requireNonNull(buffer, "buffer must not be null");
+        this.offsetsPosition = offsetsPosition;
+        this.stringsPosition = stringsPosition;
+        this.strings = new String[count];
+    }
+
+    /**
+     * @return the size of the offsets of this many strings
+     */
+    public static int getOffsetsByteSize(final int count) {
+        return (count + 1) * Integer.BYTES;
+    }
+
+    public @NotNull String get(final int id) {
+        String value = this.strings[id];
+        if (value == null) {
+            final int start = this.buffer.getInt(this.offsetsPosition + id * Integer.BYTES);
+            final int end = this.buffer.getInt(this.offsetsPosition + (id + 1) * Integer.BYTES);
+            final byte[] bytes = new byte[end - start];
+            this.buffer.get(this.stringsPosition + start, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            this.strings[id] = value;
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Gives an id to each distinct string and writes them in the format read by {@link StringTable}.
+ */
+public final class StringTableWriter {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<byte[]> strings = new ArrayList<>();
+
+    public int id(final @NotNull String value) {
+        Objects.requireNonNull(value, "value must not be null");
+        return this.ids.computeIfAbsent(value, k -> {
+            this.strings.add(k.getBytes(StandardCharsets.UTF_8));
+            return this.strings.size() - 1;
+        });
+    }
+
+    public int size() {
+        return this.strings.size();
+    }
+
+    public void writeOffsets(final @NotNull DataOutputStream out) throws IOException {
+        int offset = 0;
+        for (final byte[] string : this.strings) {
+            out.writeInt(offset);
+            offset += string.length;
+        }
+        out.writeInt(offset);
+    }
+
+    public void writeStrings(final @NotNull DataOutputStream out) throws IOException {
+        for (final byte[] string : this.strings) {
+            out.write(string);
+        }
+    }
+
+}
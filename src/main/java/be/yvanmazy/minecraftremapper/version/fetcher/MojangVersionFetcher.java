@@ -24,6 +24,7 @@
 
 package be.yvanmazy.minecraftremapper.version.fetcher;
 
+import be.yvanmazy.minecraftremapper.http.ConditionalResponse;
 import be.yvanmazy.minecraftremapper.http.RequestHttpClient;
 import be.yvanmazy.minecraftremapper.version.Version;
 import be.yvanmazy.minecraftremapper.version.VersionJsonAdapter;
@@ -33,6 +34,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,16 +48,25 @@ final class MojangVersionFetcher implements VersionFetcher {
 
     private final RequestHttpClient httpClient;
     private final Gson gson;
+    private final String manifestUrl;
+    // Validators of the last manifest, guarded by this
+    private String etag;
+    private String lastModified;
 
     public MojangVersionFetcher(final @NotNull RequestHttpClient httpClient, final @NotNull Gson gson) {
+        this(httpClient, gson, URL);
+    }
+
+    public MojangVersionFetcher(final @NotNull RequestHttpClient httpClient, final @NotNull Gson gson, final @NotNull String manifestUrl) {
         this.httpClient = Objects.requireNonNull(httpClient, "httpClient must not be null");
         this.gson = Objects.requireNonNull(gson, "gson must not be null");
+        this.manifestUrl = Objects.requireNonNull(manifestUrl, "manifestUrl must not be null");
     }
 
     @Override
     public @NotNull List<Version> fetchVersions() throws VersionFetchingException {
         try {
-            final String rawJson = this.httpClient.getString(URL);
+            final String rawJson = this.httpClient.getString(this.manifestUrl);
             final JsonObject json = this.gson.fromJson(rawJson, JsonObject.class);
 
             return this.parseVersions(json.getAsJsonArray("versions"));
@@ -64,6 +75,22 @@ final class MojangVersionFetcher implements VersionFetcher {
         }
     }
 
+    @Override
+    public synchronized @Nullable List<Version> fetchVersionsIfModified() throws VersionFetchingException {
+        try {
+            final ConditionalResponse response = this.httpClient.getStringIfModified(this.manifestUrl, this.etag, this.lastModified);
+            this.etag = response.etag();
+            this.lastModified = response.lastModified();
+            if (!response.isModified()) {
+                return null;
+            }
+            final JsonObject json = this.gson.fromJson(response.body(), JsonObject.class);
+            return this.parseVersions(json.getAsJsonArray("versions"));
+        } catch (final Exception e) {
+            throw new VersionFetchingException(e);
+        }
+    }
+
     private List<Version> parseVersions(final JsonArray versions) {
         return versions.asList().stream().filter(JsonElement::isJsonObject).map(JsonElement::getAsJsonObject).map(object -> {
             try {
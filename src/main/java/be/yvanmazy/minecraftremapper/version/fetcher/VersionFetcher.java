@@ -30,6 +30,7 @@ import be.yvanmazy.minecraftremapper.version.fetcher.exception.VersionFetchingEx
 import com.google.gson.Gson;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
 
@@ -47,7 +48,25 @@ public interface VersionFetcher {
         return new MojangVersionFetcher(httpClient, gson);
     }
 
+    @NotNull
+    @Contract("_, _, _ -> new")
+    static VersionFetcher newMojangFetcher(final @NotNull RequestHttpClient httpClient,
+                                           final @NotNull Gson gson,
+                                           final @NotNull String manifestUrl) {
+        return new MojangVersionFetcher(httpClient, gson, manifestUrl);
+    }
+
     @NotNull
     List<Version> fetchVersions() throws VersionFetchingException;
 
+    /**
+     * Fetches the versions only when the manifest changed since the previous call on this fetcher.
+     *
+     * @return the versions, or {@code null} when the manifest is not modified
+     */
+    @Nullable
+    default List<Version> fetchVersionsIfModified() throws VersionFetchingException {
+        return this.fetchVersions();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.watch;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Persisted record of the versions already handled by a {@link VersionWatcher}. Every change is appended to the file,
+ * so the record survives restarts and crashes; the last line of a version wins.
+ */
+public final class ProcessedVersions {
+
+    private final Path path;
+    private final Map<String, Status> statuses;
+
+    private ProcessedVersions(final Path path, final Map<String, Status> statuses) {
+        this.path = path;
+        this.statuses = statuses;
+    }
+
+    @Contract("_ -> new")
+    public static @NotNull ProcessedVersions load(final @NotNull Path path) throws IOException {
+        Objects.requireNonNull(path, "path must not be null");
+        final Map<String, Status> statuses = new HashMap<>();
+        if (Files.exists(path)) {
+            try (final BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    final int tab = line.indexOf('\t');
+                    if (tab == -1) {
+                        continue;
+                    }
+                    try {
+                        statuses.put(line.substring(0, tab), Status.valueOf(line.substring(tab + 1)));
+                    } catch (final IllegalArgumentException ignored) {
+                        // Unknown status, the version is handled again
+                    }
+                }
+            }
+        }
+        return new ProcessedVersions(path, statuses);
+    }
+
+    public synchronized boolean isEmpty() {
+        return this.statuses.isEmpty();
+    }
+
+    public synchronized boolean contains(final @NotNull String versionId) {
+        return this.statuses.containsKey(versionId);
+    }
+
+    public synchronized @Nullable Status getStatus(final @NotNull String versionId) {
+        return this.statuses.get(versionId);
+    }
+
+    public synchronized void record(final @NotNull String versionId, final @NotNull Status status) throws IOException {
+        Objects.requireNonNull(versionId, "versionId must not be null");
+        Objects.requireNonNull(status, "status must not be null");
+        final Path parent = this.path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(this.path,
+                versionId + '\t' + status.name() + '\n',
+                StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+        this.statuses.put(versionId, status);
+    }
+
+    public enum Status {
+
+        /**
+         * Already published when the watch started, never processed.
+         */
+        BASELINE,
+        PROCESSED,
+        NO_MAPPING,
+        FAILED
+
+    }
+
+}
@@ -0,0 +1,196 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.watch;
+
+import be.yvanmazy.minecraftremapper.http.RequestHttpClient;
+import be.yvanmazy.minecraftremapper.http.exception.RequestHttpException;
+import be.yvanmazy.minecraftremapper.process.RemapperProcessor;
+import be.yvanmazy.minecraftremapper.setting.PreparationSettings;
+import be.yvanmazy.minecraftremapper.version.Version;
+import be.yvanmazy.minecraftremapper.version.fetcher.VersionFetcher;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Revalidates the version manifest on a schedule and processes the new versions through {@link RemapperProcessor}.
+ * Versions are queued in a bounded queue consumed by a single worker, a full queue leaves the remaining versions
+ * for the next poll. The versions published before the first poll are recorded without being processed.
+ */
+public final class VersionWatcher implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VersionWatcher.class);
+
+    private final VersionFetcher fetcher;
+    private final RequestHttpClient httpClient;
+    private final Gson gson;
+    private final ProcessedVersions processed;
+    private final Function<Version, PreparationSettings> settingsFactory;
+    private final WatchSettings settings;
+    private final BlockingQueue<Version> queue;
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final Map<String, Integer> attempts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final Thread worker;
+    // Last manifest, scanned again when it is not modified to pick up delayed and retried versions
+    private volatile List<Version> versions = List.of();
+
+    public VersionWatcher(final @NotNull VersionFetcher fetcher,
+                          final @NotNull RequestHttpClient httpClient,
+                          final @NotNull Gson gson,
+                          final @NotNull ProcessedVersions processed,
+                          final @NotNull Function<Version, PreparationSettings> settingsFactory,
+                          final @NotNull WatchSettings settings) {
+        this.fetcher = Objects.requireNonNull(fetcher, "fetcher must not be null");
+        this.httpClient = Objects.requireNonNull(httpClient, "httpClient must not be null");
+        this.gson = Objects.requireNonNull(gson, "gson must not be null");
+        this.processed = Objects.requireNonNull(processed, "processed must not be null");
+        this.settingsFactory = Objects.requireNonNull(settingsFactory, "settingsFactory must not be null");
+        this.settings = Objects.requireNonNull(settings, "settings must not be null");
+        this.queue = new ArrayBlockingQueue<>(settings.queueCapacity());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "Version-Watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.worker = new Thread(this::work, "Version-Watcher-Worker");
+    }
+
+    public void start() {
+        this.worker.start();
+        this.scheduler.scheduleWithFixedDelay(this::poll, 0, this.settings.interval().toMillis(), TimeUnit.MILLISECONDS);
+        LOGGER.info("Watching new versions every {}s", this.settings.interval().toSeconds());
+    }
+
+    /**
+     * Waits until the watcher is closed.
+     */
+    public void join() throws InterruptedException {
+        this.worker.join();
+    }
+
+    @Override
+    public void close() {
+        this.scheduler.shutdownNow();
+        this.worker.interrupt();
+    }
+
+    private void poll() {
+        try {
+            final List<Version> fetched = this.fetcher.fetchVersionsIfModified();
+            if (fetched != null) {
+                this.versions = fetched;
+            } else {
+                LOGGER.debug("Version manifest is not modified");
+            }
+            if (this.processed.isEmpty()) {
+                for (final Version version : this.versions) {
+                    this.processed.record(version.id(), ProcessedVersions.Status.BASELINE);
+                }
+                LOGGER.info("Recorded {} existing versions, only new versions will be processed", this.versions.size());
+                return;
+            }
+            // The manifest lists the newest versions first, the oldest new version is queued first
+            final List<Version> current = this.versions;
+            for (int i = current.size() - 1; i >= 0; i--) {
+                final Version version = current.get(i);
+                if (version.type().isOld() || this.processed.contains(version.id()) || this.queued.contains(version.id())) {
+                    continue;
+                }
+                if (!this.queue.offer(version)) {
+                    LOGGER.info("Queue is full, {} waits for the next poll", version.id());
+                    break;
+                }
+                this.queued.add(version.id());
+                LOGGER.info("New version queued: {} ({})", version.id(), version.type());
+            }
+        } catch (final Exception e) {
+            // An exception would cancel the schedule, the next poll tries again
+            LOGGER.error("Failed to poll versions", e);
+        }
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            final Version version;
+            try {
+                version = this.queue.take();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                this.process(version);
+            } finally {
+                this.queued.remove(version.id());
+            }
+        }
+    }
+
+    private void process(final Version version) {
+        final PreparationSettings preparation = this.settingsFactory.apply(version);
+        try {
+            if (!this.hasMapping(version, preparation.getTargetKey())) {
+                LOGGER.info("{} has no {} mapping, skipped", version.id(), preparation.getTargetKey());
+                this.processed.record(version.id(), ProcessedVersions.Status.NO_MAPPING);
+                return;
+            }
+            final long start = System.nanoTime();
+            new RemapperProcessor(preparation).process();
+            this.processed.record(version.id(), ProcessedVersions.Status.PROCESSED);
+            this.attempts.remove(version.id());
+            LOGGER.info("Processed {} in {}s", version.id(), TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+        } catch (final Exception e) {
+            final int attempt = this.attempts.merge(version.id(), 1, Integer::sum);
+            LOGGER.error("Failed to process {} (attempt {}/{})", version.id(), attempt, this.settings.maxAttempts(), e);
+            if (attempt >= this.settings.maxAttempts()) {
+                this.attempts.remove(version.id());
+                try {
+                    this.processed.record(version.id(), ProcessedVersions.Status.FAILED);
+                } catch (final IOException ex) {
+                    LOGGER.error("Failed to record {}", version.id(), ex);
+                }
+            }
+        }
+    }
+
+    private boolean hasMapping(final Version version, final String targetKey) throws RequestHttpException {
+        final JsonObject json = this.gson.fromJson(this.httpClient.getString(version.url()), JsonObject.class);
+        final JsonObject downloads = json.getAsJsonObject("downloads");
+        return downloads != null && downloads.has(targetKey + "_mappings");
+    }
+
+}
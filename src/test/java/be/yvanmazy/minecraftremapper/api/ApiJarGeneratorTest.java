@@ -0,0 +1,227 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.api;
+
+import be.yvanmazy.minecraftremapper.jar.JarCompression;
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import be.yvanmazy.minecraftremapper.jar.ParallelJarWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiJarGeneratorTest {
+
+    private static final String GAME_SOURCE = """
+            package net.minecraft.world.entity;
+
+            import java.util.ArrayList;
+            import java.util.List;
+
+            public class Entity implements Comparable<Entity> {
+
+                public static final int MAX_HEALTH = 20;
+                public static final List<String> NAMES = new ArrayList<>();
+                private static int nextId;
+
+                static {
+                    NAMES.add("entity");
+                }
+
+                protected final int id;
+                private float health;
+
+                public Entity() {
+                    this.id = nextId++;
+                    this.health = MAX_HEALTH;
+                }
+
+                public void tick() {
+                    this.heal(1.0F);
+                }
+
+                protected <T extends Entity> List<T> nearby(final Class<T> type) {
+                    return new ArrayList<>();
+                }
+
+                private void heal(final float amount) {
+                    this.health = Math.min(this.health + amount, MAX_HEALTH);
+                }
+
+                @Override
+                public int compareTo(final Entity other) {
+                    return Integer.compare(this.id, other.id);
+                }
+
+                public enum RemovalReason {
+                    KILLED, DISCARDED;
+
+                    private final boolean destroy = true;
+
+                    public boolean shouldDestroy() {
+                        return this.destroy;
+                    }
+                }
+
+            }
+            """;
+    private static final String PLUGIN_SOURCE = """
+            package plugin;
+
+            import java.util.List;
+            import net.minecraft.world.entity.Entity;
+
+            public class CustomEntity extends Entity {
+
+                private final int maxHealth = Entity.MAX_HEALTH * 2;
+
+                @Override
+                public void tick() {
+                    super.tick();
+                    final List<CustomEntity> others = this.nearby(CustomEntity.class);
+                    if (others.isEmpty() && Entity.RemovalReason.KILLED.shouldDestroy() && this.id > 0) {
+                        Entity.NAMES.add("custom");
+                    }
+                }
+
+            }
+            """;
+
+    @Test
+    void testStripsBodiesAndPrivateMembers(final @TempDir Path directory) throws IOException {
+        final Path stubPath = generateStubJar(directory);
+        final Map<String, ClassNode> classes = readClasses(stubPath);
+        assertEquals(Set.of("net/minecraft/world/entity/Entity", "net/minecraft/world/entity/Entity$RemovalReason"), classes.keySet());
+
+        final ClassNode entity = classes.get("net/minecraft/world/entity/Entity");
+        assertEquals(List.of("MAX_HEALTH", "NAMES", "id"), entity.fields.stream().map(field -> field.name).toList());
+        assertEquals(20, entity.fields.get(0).value);
+        assertEquals(Set.of("<init>", "tick", "nearby", "compareTo"), methodNames(entity));
+        assertEquals("<T:Lnet/minecraft/world/entity/Entity;>(Ljava/lang/Class<TT;>;)Ljava/util/List<TT;>;",
+                entity.methods.stream().filter(method -> method.name.equals("nearby")).findFirst().orElseThrow().signature);
+        for (final ClassNode node : classes.values()) {
+            for (final FieldNode field : node.fields) {
+                assertEquals(0, field.access & Opcodes.ACC_PRIVATE, node.name + "." + field.name);
+            }
+            for (final MethodNode method : node.methods) {
+                assertEquals(0, method.access & Opcodes.ACC_PRIVATE, node.name + "." + method.name);
+                assertNotEquals("<clinit>", method.name, node.name);
+                assertEquals(0, method.instructions.size(), node.name + "." + method.name);
+            }
+        }
+    }
+
+    @Test
+    void testCompilesAgainstStubJar(final @TempDir Path directory) throws IOException {
+        final Path stubPath = generateStubJar(directory);
+        final Path sourcePath = writeSource(directory.resolve("plugin-src"), "plugin/CustomEntity.java", PLUGIN_SOURCE);
+        final DiagnosticCollector<JavaFileObject> diagnostics = compile(sourcePath, directory.resolve("plugin-classes"), stubPath);
+        assertTrue(diagnostics.getDiagnostics().isEmpty(), () -> diagnostics.getDiagnostics().toString());
+        assertTrue(Files.isRegularFile(directory.resolve("plugin-classes/plugin/CustomEntity.class")));
+    }
+
+    private static Path generateStubJar(final Path directory) throws IOException {
+        final Path classes = directory.resolve("game-classes");
+        final Path sourcePath = writeSource(directory.resolve("game-src"), "net/minecraft/world/entity/Entity.java", GAME_SOURCE);
+        final DiagnosticCollector<JavaFileObject> diagnostics = compile(sourcePath, classes, null);
+        assertTrue(diagnostics.getDiagnostics().isEmpty(), () -> diagnostics.getDiagnostics().toString());
+
+        final Path jarPath = directory.resolve("game.jar");
+        try (final ParallelJarWriter writer = new ParallelJarWriter(jarPath, JarCompression.FAST, 1);
+             final Stream<Path> files = Files.walk(classes)) {
+            for (final Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                writer.write(classes.relativize(file).toString().replace('\\', '/'), Files.readAllBytes(file));
+            }
+            // Resources are not part of the API
+            writer.write("assets/minecraft/lang/en_us.json", "{}".getBytes(StandardCharsets.UTF_8));
+        }
+        final Path stubPath = directory.resolve("game-api.jar");
+        try (final MappedJar jar = MappedJar.open(jarPath)) {
+            assertEquals(2, ApiJarGenerator.generate(jar, stubPath, JarCompression.FAST));
+        }
+        assertFalse(Files.exists(directory.resolve("game-api.jar.tmp")));
+        return stubPath;
+    }
+
+    private static Path writeSource(final Path root, final String name, final String source) throws IOException {
+        final Path path = root.resolve(name);
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, source);
+        return path;
+    }
+
+    private static DiagnosticCollector<JavaFileObject> compile(final Path source, final Path output, final Path classPath) throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull(compiler, "Tests must run on a JDK");
+        Files.createDirectories(output);
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (final StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8)) {
+            final List<String> options = new ArrayList<>(List.of("-d", output.toString(), "-proc:none"));
+            if (classPath != null) {
+                options.addAll(List.of("-classpath", classPath.toString()));
+            }
+            compiler.getTask(null, fileManager, diagnostics, options, null, fileManager.getJavaFileObjects(source)).call();
+        }
+        return diagnostics;
+    }
+
+    private static Map<String, ClassNode> readClasses(final Path path) throws IOException {
+        final Map<String, ClassNode> classes = new TreeMap<>();
+        try (final MappedJar jar = MappedJar.open(path)) {
+            for (int i = 0; i < jar.size(); i++) {
+                final ClassNode node = new ClassNode();
+                new ClassReader(jar.read(i)).accept(node, 0);
+                classes.put(node.name, node);
+            }
+        }
+        return classes;
+    }
+
+    private static Set<String> methodNames(final ClassNode node) {
+        final Set<String> names = new HashSet<>();
+        for (final MethodNode method : node.methods) {
+            names.add(method.name);
+        }
+        return names;
+    }
+
+}
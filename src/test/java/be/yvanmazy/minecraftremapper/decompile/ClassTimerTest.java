@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.decompile;
+
+import be.yvanmazy.minecraftremapper.jar.InMemoryJar;
+import org.jetbrains.java.decompiler.api.Decompiler;
+import org.jetbrains.java.decompiler.main.decompiler.CancelationManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClassTimerTest {
+
+    private static final List<Class<?>> CLASSES = List.of(DecompileReport.class, ClassTiming.class);
+    private static final String MARKER = "// Decompiling this class exceeded the budget";
+
+    @Test
+    void testClassesOverBudgetAreMarked(final @TempDir Path directory) throws IOException {
+        final InMemoryJar jar = new InMemoryJar();
+        for (final Class<?> type : CLASSES) {
+            try (final InputStream input = type.getResourceAsStream(type.getSimpleName() + ".class")) {
+                jar.put(getEntryName(type, ".class"), input.readAllBytes());
+            }
+        }
+        final AtomicInteger previousChecks = new AtomicInteger();
+        CancelationManager.setCancelationChecker(previousChecks::incrementAndGet);
+        try {
+            // Every method is over a budget of one nanosecond, the other timer has no budget
+            final ClassTimer overBudget = new ClassTimer(1, TimeUnit.NANOSECONDS);
+            final ClassTimer unlimited = new ClassTimer(0);
+            final Path overBudgetOutput = directory.resolve("over-budget");
+            final Path unlimitedOutput = directory.resolve("unlimited");
+            CompletableFuture.allOf(
+                    CompletableFuture.runAsync(() -> decompile(overBudget, jar, overBudgetOutput)),
+                    CompletableFuture.runAsync(() -> decompile(unlimited, jar, unlimitedOutput))).join();
+
+            for (final Class<?> type : CLASSES) {
+                assertTrue(Files.readString(overBudgetOutput.resolve(getEntryName(type, ".java"))).startsWith(MARKER));
+                assertFalse(Files.readString(unlimitedOutput.resolve(getEntryName(type, ".java"))).contains(MARKER));
+            }
+            assertEquals(CLASSES.size(), overBudget.getTimings().size());
+            assertTrue(overBudget.getTimings().stream().allMatch(ClassTiming::overBudget));
+            assertTrue(unlimited.getTimings().stream().noneMatch(ClassTiming::overBudget));
+
+            // The previous checker ran while decompiling, and is restored
+            assertTrue(previousChecks.get() > 0);
+            final int checks = previousChecks.get();
+            CancelationManager.checkCanceled();
+            assertEquals(checks + 1, previousChecks.get());
+        } finally {
+            CancelationManager.setCancelationChecker(() -> {
+            });
+        }
+    }
+
+    private static void decompile(final ClassTimer timer, final InMemoryJar jar, final Path output) {
+        timer.decompile(Decompiler.builder()
+                .inputs(new InMemoryContextSource("test.jar", jar, output))
+                .output(timer.wrap(new PublishingResultSaver(output, null))));
+    }
+
+    private static String getEntryName(final Class<?> type, final String extension) {
+        return type.getName().replace('.', '/') + extension;
+    }
+
+}
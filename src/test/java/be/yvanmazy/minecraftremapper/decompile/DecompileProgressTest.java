@@ -0,0 +1,81 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.decompile;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecompileProgressTest {
+
+    @Test
+    void testSourcesArePublishedOverThePreviousOnes(final @TempDir Path directory) throws IOException {
+        final Path output = directory.resolve("decompiled");
+        final Path progress = directory.resolve("progress.txt");
+        publish(output, progress, Set.of("a/Kept", "a/Removed"));
+
+        final Set<String> previous = DecompileProgress.prepare(output, progress);
+        assertEquals(Set.of("a/Kept", "a/Removed"), previous);
+        assertTrue(Files.exists(output.resolve("a/Removed.java")));
+
+        publish(output, progress, Set.of("a/Kept", "b/Added"));
+        assertEquals(1, DecompileProgress.deleteRemoved(output, previous, progress));
+        assertTrue(Files.exists(output.resolve("a/Kept.java")));
+        assertTrue(Files.exists(output.resolve("b/Added.java")));
+        assertTrue(Files.notExists(output.resolve("a/Removed.java")));
+    }
+
+    @Test
+    void testIncompleteManifestClearsTheDirectory(final @TempDir Path directory) throws IOException {
+        final Path output = directory.resolve("decompiled");
+        final Path progress = directory.resolve("progress.txt");
+        Files.createDirectories(output.resolve("a"));
+        Files.writeString(output.resolve("a/Unknown.java"), "class Unknown {}");
+        Files.writeString(progress, "a/Unknown\n");
+
+        assertNull(DecompileProgress.read(progress));
+        assertEquals(Set.of(), DecompileProgress.prepare(output, progress));
+        assertTrue(Files.notExists(output));
+    }
+
+    private static void publish(final Path output, final Path progress, final Set<String> classes) throws IOException {
+        try (final DecompileProgress manifest = DecompileProgress.create(progress)) {
+            for (final String className : classes) {
+                final Path source = output.resolve(className + ".java");
+                Files.createDirectories(source.getParent());
+                Files.writeString(source, "class " + className.substring(2) + " {}");
+                manifest.published(className);
+            }
+            manifest.complete();
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.decompile;
+
+import be.yvanmazy.minecraftremapper.jar.InMemoryJar;
+import be.yvanmazy.minecraftremapper.jar.JarCompression;
+import be.yvanmazy.minecraftremapper.setting.DecompileSettings;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ForkedDecompilerTest {
+
+    private static final String BROKEN = "c/Broken";
+
+    @Test
+    void testCrashedPartitionsAreRetriedSmaller(final @TempDir Path directory) throws IOException {
+        final InMemoryJar jar = new InMemoryJar();
+        for (int i = 0; i < 7; i++) {
+            jar.put("a/Class" + i + ".class", new byte[16]);
+        }
+        jar.put(BROKEN + ".class", new byte[16]);
+        jar.put("assets/lang.json", "{}".getBytes(StandardCharsets.UTF_8));
+        final Path jarPath = directory.resolve("game.jar");
+        jar.writeTo(jarPath, JarCompression.STORE);
+        final Path output = directory.resolve("decompiled");
+        final Path progress = directory.resolve("progress");
+        final Path workers = directory.resolve("workers");
+
+        // One worker, so the eight classes are split into four partitions of two classes
+        final ForkedDecompiler decompiler = new ForkedDecompiler(new DecompileSettings(1, 64, 0, 0, List.of()), workers, CrashingWorker.class);
+        final List<String> failed = decompiler.decompile(jarPath, null, output, progress);
+
+        assertEquals(List.of(BROKEN), failed);
+        assertEquals("{}", Files.readString(output.resolve("assets/lang.json")));
+        final List<String> published = Files.readAllLines(progress);
+        assertEquals(DecompileProgress.COMPLETE, published.get(published.size() - 1));
+        assertEquals(7, published.size() - 1);
+        assertFalse(published.contains(BROKEN));
+        assertEquals(7, decompiler.getTimings().size());
+        // The logs of the four crashed partitions and of the broken class are kept
+        try (final Stream<Path> logs = Files.list(workers)) {
+            assertEquals(5, logs.count());
+        }
+    }
+
+    /**
+     * Worker crashing on every partition of more than one class, and on the broken class.
+     */
+    public static final class CrashingWorker {
+
+        public static void main(final String[] args) throws IOException {
+            final List<String> classes = Files.readAllLines(Path.of(args[3]));
+            if (classes.size() > 1 || classes.contains(BROKEN)) {
+                System.exit(1);
+                return;
+            }
+            DecompileReport.write(Path.of(args[6]), List.of(new ClassTiming(classes.get(0), 0, false)));
+        }
+
+    }
+
+}
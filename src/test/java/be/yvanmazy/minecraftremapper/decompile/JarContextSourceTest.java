@@ -0,0 +1,57 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.decompile;
+
+import be.yvanmazy.minecraftremapper.jar.InMemoryJar;
+import org.jetbrains.java.decompiler.main.extern.IContextSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JarContextSourceTest {
+
+    @Test
+    void testResourcesAreCopiedInsideTheDirectory(final @TempDir Path directory) throws IOException {
+        final Path output = directory.resolve("decompiled");
+        final InMemoryJar jar = new InMemoryJar();
+        jar.put("assets/lang.json", "{}".getBytes(StandardCharsets.UTF_8));
+        jar.put("../evil.txt", "evil".getBytes(StandardCharsets.UTF_8));
+        // Resources are not written through the result saver
+        final IContextSource.IOutputSink sink = new InMemoryContextSource("test", jar, output).createOutputSink(null);
+
+        sink.acceptOther("assets/lang.json");
+        assertEquals("{}", Files.readString(output.resolve("assets/lang.json")));
+        assertThrows(UncheckedIOException.class, () -> sink.acceptOther("../evil.txt"));
+        assertTrue(Files.notExists(directory.resolve("evil.txt")));
+    }
+
+}
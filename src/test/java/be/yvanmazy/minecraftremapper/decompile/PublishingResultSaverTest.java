@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.decompile;
+
+import be.yvanmazy.minecraftremapper.jar.InMemoryJar;
+import be.yvanmazy.minecraftremapper.jar.JarCompression;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PublishingResultSaverTest {
+
+    @Test
+    void testCopiesArePublished(final @TempDir Path directory) throws IOException {
+        final InMemoryJar jar = new InMemoryJar();
+        jar.put("assets/lang.json", "{}".getBytes(StandardCharsets.UTF_8));
+        final Path jarPath = directory.resolve("game.jar");
+        jar.writeTo(jarPath, JarCompression.DEFAULT);
+        final Path file = Files.writeString(directory.resolve("notes.txt"), "notes");
+        final Path output = directory.resolve("decompiled");
+        final PublishingResultSaver saver = new PublishingResultSaver(output, null);
+
+        saver.copyEntry(jarPath.toString(), "", "game.jar", "assets/lang.json");
+        saver.copyFile(file.toString(), "docs", "notes.txt");
+        assertEquals("{}", Files.readString(output.resolve("assets/lang.json")));
+        assertEquals("notes", Files.readString(output.resolve("docs/notes.txt")));
+        assertTrue(Files.notExists(output.resolve("docs/notes.txt.tmp")));
+
+        assertThrows(UncheckedIOException.class, () -> saver.copyFile(file.toString(), "", "../escaped.txt"));
+        assertThrows(UncheckedIOException.class, () -> saver.copyEntry(jarPath.toString(), "", "game.jar", "missing.json"));
+        assertTrue(Files.notExists(directory.resolve("escaped.txt")));
+    }
+
+}
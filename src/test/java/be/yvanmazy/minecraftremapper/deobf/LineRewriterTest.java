@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.deobf;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineRewriterTest {
+
+    @Test
+    void testFrames() throws IOException {
+        final LineRewriter rewriter = new LineRewriter(MappingIndexTest.load());
+        assertEquals("\tat net.minecraft.world.entity.Entity.baseTick(SourceFile:21)", rewriter.rewrite("\tat abc.b(SourceFile:21)"));
+        assertEquals("\tat net.minecraft.world.entity.Entity.tick(Entity.java:13)", rewriter.rewrite("\tat abc.b(Entity.java:13)"));
+        // Without a line number the method is ambiguous
+        assertEquals("\tat net.minecraft.world.entity.Entity.tick|baseTick(Unknown Source)", rewriter.rewrite("\tat abc.b(Unknown Source)"));
+        assertEquals("\tat net.minecraft.world.entity.Entity.tick|baseTick(SourceFile)", rewriter.rewrite("\tat abc.b(SourceFile)"));
+        assertEquals("\tat net.minecraft.world.entity.Entity.remove(SourceFile)", rewriter.rewrite("\tat abc.c(SourceFile)"));
+        assertEquals("\tat net.minecraft.world.entity.Entity$RemovalReason.values(SourceFile:3)", rewriter.rewrite("\tat abc$a.values(SourceFile:3)"));
+        assertEquals("\tat net.minecraft.server.Bootstrap.bootStrap(SourceFile:6)", rewriter.rewrite("\tat net.minecraft.server.Bootstrap.a(SourceFile:6)"));
+        assertEquals("\tat java.lang.Thread.run(Thread.java:840)", rewriter.rewrite("\tat java.lang.Thread.run(Thread.java:840)"));
+    }
+
+    @Test
+    void testHeaders() throws IOException {
+        final LineRewriter rewriter = new LineRewriter(MappingIndexTest.load());
+        assertEquals("Caused by: net.minecraft.CrashReportException: Ticking entity", rewriter.rewrite("Caused by: q: Ticking entity"));
+        assertEquals("net.minecraft.CrashReportException: Ticking entity", rewriter.rewrite("q: Ticking entity"));
+        assertEquals("net.minecraft.CrashReportException", rewriter.rewrite("q"));
+        assertEquals("Exception in thread \"main\" net.minecraft.CrashReportException: boom", rewriter.rewrite("Exception in thread \"main\" q: boom"));
+        assertEquals("Entity class net.minecraft.world.entity.Entity", rewriter.rewrite("Entity class abc"));
+        assertEquals("Entity Type: net.minecraft.world.entity.Entity.id", rewriter.rewrite("Entity Type: abc.a"));
+    }
+
+    @Test
+    void testWordsAreNotClasses() throws IOException {
+        final LineRewriter rewriter = new LineRewriter(MappingIndexTest.load());
+        assertEquals("Took a while to tick abc", rewriter.rewrite("Took a while to tick abc"));
+        assertEquals("a.b.abc is not a class", rewriter.rewrite("a.b.abc is not a class"));
+        // Nested classes cannot be common words
+        assertEquals("Removed for net.minecraft.world.entity.Entity$RemovalReason", rewriter.rewrite("Removed for abc$a"));
+    }
+
+    @Test
+    void testLines() throws IOException {
+        final LineRewriter rewriter = new LineRewriter(MappingIndexTest.load());
+        final String log = """
+                ---- Minecraft Crash Report ----
+                Description: Ticking entity
+
+                q: Ticking entity
+                \tat abc.b(SourceFile:14)
+                Caused by: q
+                \tat abc.c(SourceFile:30)
+                """;
+        assertEquals("""
+                ---- Minecraft Crash Report ----
+                Description: Ticking entity
+
+                net.minecraft.CrashReportException: Ticking entity
+                \tat net.minecraft.world.entity.Entity.tick(SourceFile:14)
+                Caused by: net.minecraft.CrashReportException
+                \tat net.minecraft.world.entity.Entity.remove(SourceFile:30)
+                """, rewriter.rewrite(log));
+    }
+
+}
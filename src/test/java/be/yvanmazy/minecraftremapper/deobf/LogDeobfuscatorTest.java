@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.deobf;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogDeobfuscatorTest {
+
+    private static final String OBFUSCATED = """
+            [12:00:00] [Server thread/ERROR]: Caf\u00E9 q: Ticking entity
+            q: Ticking entity
+            \tat abc.b(SourceFile:21)
+            \tat abc.b(Unknown Source)
+            Caused by: q
+            \tat abc$a.values(SourceFile:3)
+            """;
+
+    @Test
+    void testChunks() throws IOException {
+        final MappingIndex index = MappingIndexTest.load();
+        final String log = OBFUSCATED.repeat(200);
+        final String expected = new LineRewriter(index).rewrite(log);
+        // Chunks much smaller than the log cut it between lines, and are written back in order
+        for (final int chunkSize : new int[] {64, 100, 1 << 20}) {
+            try (final LogDeobfuscator deobfuscator = new LogDeobfuscator(index, 3, chunkSize)) {
+                assertEquals(expected, deobfuscate(deobfuscator, log), "chunk size " + chunkSize);
+            }
+        }
+    }
+
+    @Test
+    void testLinesLongerThanTheChunk() throws IOException {
+        final MappingIndex index = MappingIndexTest.load();
+        // The chunk is full before the first line feed, the buffer grows until the end of the line
+        final String log = "abc.a ".repeat(100) + "\n" + OBFUSCATED + "class abc ".repeat(50);
+        try (final LogDeobfuscator deobfuscator = new LogDeobfuscator(index, 2, 16)) {
+            assertEquals(new LineRewriter(index).rewrite(log), deobfuscate(deobfuscator, log));
+        }
+        assertTrue(new LineRewriter(index).rewrite(log).startsWith("net.minecraft.world.entity.Entity.id net.minecraft.world.entity.Entity.id "));
+    }
+
+    @Test
+    void testFile(final @TempDir Path directory) throws IOException {
+        final MappingIndex index = MappingIndexTest.load();
+        final Path input = directory.resolve("crash.txt");
+        final Path output = directory.resolve("crash.txt.deobf");
+        Files.writeString(input, OBFUSCATED);
+        try (final LogDeobfuscator deobfuscator = new LogDeobfuscator(index, 1, 32)) {
+            assertEquals(Files.size(input), deobfuscator.deobfuscate(input, output));
+        }
+        assertEquals(new LineRewriter(index).rewrite(OBFUSCATED), Files.readString(output));
+        assertFalse(Files.exists(directory.resolve("crash.txt.deobf.tmp")));
+    }
+
+    private static String deobfuscate(final LogDeobfuscator deobfuscator, final String log) throws IOException {
+        final byte[] bytes = log.getBytes(StandardCharsets.UTF_8);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(bytes.length, deobfuscator.deobfuscate(new ByteArrayInputStream(bytes), out));
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.deobf;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappingIndexTest {
+
+    static final String MAPPING = """
+            # compiler: R8
+            net.minecraft.world.entity.Entity -> abc:
+                int id -> a
+                java.lang.String name -> name
+                12:15:void tick() -> b
+                20:22:void baseTick() -> b
+                24:26:void tick() -> b
+                30:30:void remove() -> c
+            net.minecraft.world.entity.Entity$RemovalReason -> abc$a:
+            net.minecraft.CrashReportException -> q:
+            net.minecraft.Util -> a:
+            net.minecraft.server.Main -> net.minecraft.server.Main:
+                10:20:void main(java.lang.String[]) -> main
+            net.minecraft.server.Bootstrap -> net.minecraft.server.Bootstrap:
+                5:8:void bootStrap() -> a
+            """;
+
+    static MappingIndex load() throws IOException {
+        return MappingIndex.load(new BufferedReader(new StringReader(MAPPING)));
+    }
+
+    @Test
+    void testClasses() throws IOException {
+        final MappingIndex index = load();
+        assertEquals("net.minecraft.world.entity.Entity", index.mapClass("abc"));
+        assertEquals("net.minecraft.world.entity.Entity$RemovalReason", index.mapClass("abc$a"));
+        assertEquals("net.minecraft.CrashReportException", index.mapClass("q"));
+        assertNull(index.mapClass("abd"));
+        // Classes keeping their name are only kept for their obfuscated members
+        assertNull(index.mapClass("net.minecraft.server.Main"));
+        assertEquals("net.minecraft.server.Bootstrap", index.mapClass("net.minecraft.server.Bootstrap"));
+        assertEquals(5, index.getClassCount());
+        assertEquals("net.minecraft.server.Bootstrap".length(), index.getMaxClassNameLength());
+    }
+
+    @Test
+    void testMembers() throws IOException {
+        final MappingIndex index = load();
+        assertEquals("id", index.mapField("abc", "a"));
+        assertNull(index.mapField("abc", "name"));
+        assertEquals("remove", index.mapMethod("abc", "c", 0));
+        assertEquals("bootStrap", index.mapMethod("net.minecraft.server.Bootstrap", "a", 0));
+        assertTrue(index.hasMember("abc", "a"));
+        assertTrue(index.hasMember("abc", "b"));
+        assertFalse(index.hasMember("abc", "name"));
+        assertFalse(index.hasMember("abd", "a"));
+        assertNull(index.mapMethod("abd", "b", 0));
+    }
+
+    @Test
+    void testMethodsSharingAName() throws IOException {
+        final MappingIndex index = load();
+        assertEquals("tick", index.mapMethod("abc", "b", 12));
+        assertEquals("baseTick", index.mapMethod("abc", "b", 22));
+        assertEquals("tick", index.mapMethod("abc", "b", 25));
+        // Without a matching line every name is possible, each one is listed once
+        assertEquals("tick|baseTick", index.mapMethod("abc", "b", 0));
+        assertEquals("tick|baseTick", index.mapMethod("abc", "b", 99));
+    }
+
+}
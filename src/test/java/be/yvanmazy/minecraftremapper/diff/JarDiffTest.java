@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.diff;
+
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
+
+class JarDiffTest {
+
+    @Test
+    void testChangesAreReported(final @TempDir Path directory) throws IOException {
+        final Map<String, byte[]> fromClasses = new LinkedHashMap<>();
+        fromClasses.put("a/Same", generate("a/Same", "java/lang/Object", "count", 1, 10));
+        fromClasses.put("a/Lines", generate("a/Lines", "java/lang/Object", "count", 1, 10));
+        fromClasses.put("a/Changed", generate("a/Changed", "java/lang/Object", "count", 1, 10));
+        fromClasses.put("a/Removed", generate("a/Removed", "java/lang/Object", "count", 1, 10));
+        fromClasses.put("a/Header", generate("a/Header", "java/lang/Object", "count", 1, 10));
+        final Map<String, byte[]> toClasses = new LinkedHashMap<>();
+        toClasses.put("a/Same", generate("a/Same", "java/lang/Object", "count", 1, 10));
+        // Only the line numbers differ
+        toClasses.put("a/Lines", generate("a/Lines", "java/lang/Object", "count", 1, 20));
+        toClasses.put("a/Changed", generate("a/Changed", "java/lang/Object", "total", 2, 10));
+        toClasses.put("a/Added", generate("a/Added", "java/lang/Object", "count", 1, 10));
+        toClasses.put("a/Header", generate("a/Header", "java/lang/Thread", "count", 1, 10));
+
+        try (final MappedJar from = MappedJar.open(write(directory.resolve("from.jar"), fromClasses));
+             final MappedJar to = MappedJar.open(write(directory.resolve("to.jar"), toClasses))) {
+            final JarDiff diff = JarDiff.compare(from, to);
+
+            assertEquals(List.of(new ClassChange(ChangeType.ADDED, "a/Added", false, List.of()),
+                    new ClassChange(ChangeType.CHANGED, "a/Changed", false, List.of(
+                            new MemberChange(ChangeType.REMOVED, "count", "I"),
+                            new MemberChange(ChangeType.CHANGED, "tick", "()I"),
+                            new MemberChange(ChangeType.ADDED, "total", "I"))),
+                    new ClassChange(ChangeType.CHANGED, "a/Header", true, List.of()),
+                    new ClassChange(ChangeType.REMOVED, "a/Removed", false, List.of())), diff.getChanges());
+            assertEquals(2, diff.getUnchangedCount());
+            assertEquals(1, diff.getCount(ChangeType.ADDED));
+            assertEquals(1, diff.getCount(ChangeType.REMOVED));
+            assertEquals(2, diff.getCount(ChangeType.CHANGED));
+
+            final Path report = directory.resolve("diff.json");
+            diff.write(report, "1.0", "1.1");
+            final JsonObject json = JsonParser.parseString(Files.readString(report)).getAsJsonObject();
+            assertEquals("1.0", json.get("from").getAsString());
+            assertEquals("1.1", json.get("to").getAsString());
+            assertEquals(2, json.get("unchanged").getAsInt());
+            assertEquals(2, json.get("changed").getAsInt());
+            final JsonArray classes = json.getAsJsonArray("classes");
+            assertEquals(4, classes.size());
+            final JsonObject changed = classes.get(1).getAsJsonObject();
+            assertEquals("a/Changed", changed.get("name").getAsString());
+            assertEquals("CHANGED", changed.get("change").getAsString());
+            assertFalse(changed.get("declaration").getAsBoolean());
+            final JsonObject member = changed.getAsJsonArray("members").get(1).getAsJsonObject();
+            assertEquals("tick", member.get("name").getAsString());
+            assertEquals("()I", member.get("descriptor").getAsString());
+            assertEquals("CHANGED", member.get("change").getAsString());
+            assertFalse(classes.get(0).getAsJsonObject().has("members"));
+        }
+    }
+
+    @Test
+    void testIdenticalJarsHaveNoChanges(final @TempDir Path directory) throws IOException {
+        final Map<String, byte[]> classes = Map.of("a/Same", generate("a/Same", "java/lang/Object", "count", 1, 10));
+        try (final MappedJar from = MappedJar.open(write(directory.resolve("from.jar"), classes));
+             final MappedJar to = MappedJar.open(write(directory.resolve("to.jar"), classes))) {
+            final JarDiff diff = JarDiff.compare(from, to);
+            assertTrue(diff.getChanges().isEmpty());
+            assertEquals(1, diff.getUnchangedCount());
+        }
+    }
+
+    private static byte[] generate(final String name, final String superName, final String field, final int result, final int line) {
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(V17, ACC_PUBLIC, name, null, superName, null);
+        writer.visitField(ACC_PRIVATE, field, "I", null, null).visitEnd();
+        final MethodVisitor method = writer.visitMethod(ACC_PUBLIC, "tick", "()I", null, null);
+        method.visitCode();
+        final Label start = new Label();
+        method.visitLabel(start);
+        method.visitLineNumber(line, start);
+        method.visitLdcInsn(result);
+        method.visitInsn(IRETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static Path write(final Path path, final Map<String, byte[]> classes) throws IOException {
+        try (final OutputStream out = Files.newOutputStream(path);
+             final JarOutputStream jar = new JarOutputStream(out)) {
+            for (final Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                jar.putNextEntry(new JarEntry(entry.getKey() + ".class"));
+                jar.write(entry.getValue());
+                jar.closeEntry();
+            }
+        }
+        return path;
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.export;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappingExporterTest {
+
+    private static final String CLIENT_MAPPING = """
+            # {"fileName":"client.jar","id":"sourceFile"}
+            net.minecraft.world.entity.Entity -> a:
+                int id -> a
+                java.util.List[] passengers -> b
+                12:15:void tick(java.lang.String[],int) -> b
+                16:16:void tick(java.lang.String[],int) -> b
+            net.minecraft.world.entity.Mob -> d:
+                net.minecraft.world.entity.Entity getTarget() -> e
+            """;
+    private static final String SERVER_MAPPING = """
+            net.minecraft.world.entity.Entity -> b:
+                int id -> c
+                1:2:void save() -> d
+            net.minecraft.world.entity.ServerEntity -> e:
+            """;
+
+    @Test
+    void testTinyV2(final @TempDir Path directory) throws IOException {
+        final Path output = export(directory, CLIENT_MAPPING, MappingFormat.TINY_V2);
+        // Inlined copies of a method are only written once
+        assertEquals("""
+                tiny\t2\t0\tnamed\tofficial
+                c\tnet/minecraft/world/entity/Entity\ta
+                \tf\tI\tid\ta
+                \tf\t[Ljava/util/List;\tpassengers\tb
+                \tm\t([Ljava/lang/String;I)V\ttick\tb
+                c\tnet/minecraft/world/entity/Mob\td
+                \tm\t()Lnet/minecraft/world/entity/Entity;\tgetTarget\te
+                """, Files.readString(output));
+        assertFalse(Files.exists(directory.resolve(output.getFileName() + ".tmp")));
+    }
+
+    @Test
+    void testCompact(final @TempDir Path directory) throws IOException {
+        final Path tiny = export(directory, CLIENT_MAPPING, MappingFormat.TINY_V2);
+        final Path compact = export(directory, CLIENT_MAPPING, MappingFormat.COMPACT);
+        // Same records as Tiny v2, with the header in the clear and the records deflated
+        assertEquals(Files.readAllLines(tiny), readCompact(compact));
+    }
+
+    @Test
+    void testSortedMerge(final @TempDir Path directory) throws IOException {
+        final Path output = exportMerged(directory, CLIENT_MAPPING, SERVER_MAPPING);
+        assertEquals("""
+                tiny\t2\t0\tnamed\tclient\tserver
+                c\tnet/minecraft/world/entity/Entity\ta\tb
+                \tf\tI\tid\ta\tc
+                \tf\t[Ljava/util/List;\tpassengers\tb\t
+                \tm\t([Ljava/lang/String;I)V\ttick\tb\t
+                \tm\t()V\tsave\t\td
+                c\tnet/minecraft/world/entity/Mob\td\t
+                \tm\t()Lnet/minecraft/world/entity/Entity;\tgetTarget\te\t
+                c\tnet/minecraft/world/entity/ServerEntity\t\te
+                """, Files.readString(output));
+    }
+
+    @Test
+    void testUnsortedMergeIsBuffered(final @TempDir Path directory) throws IOException {
+        // Mob comes before Entity, the side by side merge gives up and the server mapping is buffered
+        final String client = """
+                net.minecraft.world.entity.Mob -> d:
+                    net.minecraft.world.entity.Entity getTarget() -> e
+                net.minecraft.world.entity.Entity -> a:
+                    int id -> a
+                """;
+        final Path output = exportMerged(directory, client, SERVER_MAPPING);
+        assertEquals("""
+                tiny\t2\t0\tnamed\tclient\tserver
+                c\tnet/minecraft/world/entity/Mob\td\t
+                \tm\t()Lnet/minecraft/world/entity/Entity;\tgetTarget\te\t
+                c\tnet/minecraft/world/entity/Entity\ta\tb
+                \tf\tI\tid\ta\tc
+                \tm\t()V\tsave\t\td
+                c\tnet/minecraft/world/entity/ServerEntity\t\te
+                """, Files.readString(output));
+        assertFalse(Files.exists(directory.resolve(output.getFileName() + ".tmp")));
+    }
+
+    private static Path export(final Path directory, final String mapping, final MappingFormat format) throws IOException {
+        final Path mappingPath = directory.resolve("client.txt");
+        Files.writeString(mappingPath, mapping);
+        final Path output = directory.resolve("client." + format.getExtension());
+        MappingExporter.export(mappingPath, output, format);
+        return output;
+    }
+
+    private static Path exportMerged(final Path directory, final String client, final String server) throws IOException {
+        final Path clientPath = directory.resolve("client.txt");
+        final Path serverPath = directory.resolve("server.txt");
+        Files.writeString(clientPath, client);
+        Files.writeString(serverPath, server);
+        final Path output = directory.resolve("merged.tiny");
+        MappingExporter.exportMerged(clientPath, serverPath, output, MappingFormat.TINY_V2);
+        return output;
+    }
+
+    // Decodes the compact format into the lines of the same mapping in Tiny v2
+    private static List<String> readCompact(final Path path) throws IOException {
+        final List<String> lines = new ArrayList<>();
+        try (final InputStream file = Files.newInputStream(path)) {
+            final DataInputStream header = new DataInputStream(file);
+            assertEquals(CompactMappingWriter.MAGIC, header.readInt());
+            assertEquals(CompactMappingWriter.FORMAT_VERSION, header.readByte());
+            final int namespaceCount = header.readByte();
+            final StringBuilder line = new StringBuilder("tiny\t2\t0");
+            for (int i = 0; i < namespaceCount; i++) {
+                line.append('\t').append(header.readUTF());
+            }
+            lines.add(line.toString());
+            final DataInputStream in = new DataInputStream(new InflaterInputStream(file));
+            int tag;
+            while ((tag = in.readByte()) != CompactMappingWriter.TAG_END) {
+                line.setLength(0);
+                switch (tag) {
+                    case CompactMappingWriter.TAG_CLASS -> line.append('c');
+                    case CompactMappingWriter.TAG_FIELD -> line.append("\tf\t").append(in.readUTF());
+                    case CompactMappingWriter.TAG_METHOD -> line.append("\tm\t").append(in.readUTF());
+                    default -> fail("Unknown tag " + tag);
+                }
+                for (int i = 0; i < namespaceCount; i++) {
+                    line.append('\t').append(in.readUTF());
+                }
+                lines.add(line.toString());
+            }
+            assertEquals(-1, in.read());
+        }
+        return lines;
+    }
+
+}
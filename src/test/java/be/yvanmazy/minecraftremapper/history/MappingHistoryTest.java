@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.history;
+
+import be.yvanmazy.minecraftremapper.util.HashUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappingHistoryTest {
+
+    private static final String FIRST = """
+            # {"id":"net.minecraft.mapping","version":"1.0"}
+            net.minecraft.world.entity.Entity -> a:
+                int id -> b
+                10:12:void tick() -> c
+                13:13:void tick():100:100 -> c
+            net.minecraft.world.level.Level -> d:
+                java.util.List entities -> a
+            net.minecraft.server.Removed -> e:
+                void run() -> a
+            """;
+    private static final String SECOND = """
+            # {"id":"net.minecraft.mapping","version":"1.0"}
+            net.minecraft.world.entity.Entity -> a:
+                int id -> b
+                20:22:void tick() -> f
+                23:23:void tick():100:100 -> f
+            net.minecraft.world.level.Level -> d:
+                java.util.List entities -> a
+                void addEntity(net.minecraft.world.entity.Entity) -> b
+            net.minecraft.server.Added -> g:
+            """;
+
+    @Test
+    void testVersionsAreWrittenBackLineForLine(final @TempDir Path directory) throws IOException {
+        final Path path = directory.resolve("history.bin");
+        final Path first = write(directory, "first.map", FIRST);
+        final Path second = write(directory, "second.map", SECOND);
+        assertNull(MappingHistory.open(path));
+
+        assertTrue(MappingHistory.update(path, "1.0", first));
+        assertTrue(MappingHistory.update(path, "1.1", second));
+        // Same mapping, only the header is read
+        assertFalse(MappingHistory.update(path, "1.0", first));
+
+        final MappingHistory history = MappingHistory.open(path);
+        assertNotNull(history);
+        assertEquals(List.of("1.0", "1.1"), history.getVersions());
+        assertEquals(HashUtil.hash(first), history.getHash("1.0"));
+        assertEquals(HashUtil.hash(second), history.getHash("1.1"));
+        assertMaterialized(history, "1.0", FIRST, directory);
+        assertMaterialized(history, "1.1", SECOND, directory);
+    }
+
+    @Test
+    void testVersionIsReplacedByAnotherMapping(final @TempDir Path directory) throws IOException {
+        final Path path = directory.resolve("history.bin");
+        assertTrue(MappingHistory.update(path, "1.0", write(directory, "first.map", FIRST)));
+        assertTrue(MappingHistory.update(path, "1.1", write(directory, "second.map", SECOND)));
+        assertTrue(MappingHistory.update(path, "1.0", write(directory, "replaced.map", SECOND)));
+
+        final MappingHistory history = MappingHistory.open(path);
+        assertNotNull(history);
+        assertEquals(List.of("1.0", "1.1"), history.getVersions());
+        assertMaterialized(history, "1.0", SECOND, directory);
+        assertMaterialized(history, "1.1", SECOND, directory);
+    }
+
+    @Test
+    void testReorderedLinesKeepTheOrderOfEachVersion(final @TempDir Path directory) throws IOException {
+        final String first = """
+                net.minecraft.world.entity.Entity -> a:
+                    int x -> a
+                    int y -> b
+                    1:1:void tick():10:10 -> c
+                    1:1:void move():20:20 -> c
+                """;
+        // Inlined frames are listed innermost first, their order matters to retrace
+        final String second = """
+                net.minecraft.world.entity.Entity -> a:
+                    1:1:void move():20:20 -> c
+                    int y -> b
+                    int x -> a
+                    1:1:void tick():10:10 -> c
+                """;
+        final Path path = directory.resolve("history.bin");
+        assertTrue(MappingHistory.update(path, "1", write(directory, "first.map", first)));
+        assertTrue(MappingHistory.update(path, "2", write(directory, "second.map", second)));
+
+        final MappingHistory history = MappingHistory.open(path);
+        assertNotNull(history);
+        assertMaterialized(history, "1", first, directory);
+        assertMaterialized(history, "2", second, directory);
+        assertTrue(history.diff("1", "2").isEmpty());
+    }
+
+    @Test
+    void testDiffIgnoresLineNumbers(final @TempDir Path directory) throws IOException {
+        final Path path = directory.resolve("history.bin");
+        MappingHistory.update(path, "1.0", write(directory, "first.map", FIRST));
+        MappingHistory.update(path, "1.1", write(directory, "second.map", SECOND));
+        final MappingHistory history = MappingHistory.open(path);
+        assertNotNull(history);
+
+        final List<MappingChange> changes = history.diff("1.0", "1.1");
+        assertEquals(4, changes.size(), changes::toString);
+        assertTrue(changes.contains(new MappingChange(MappingChangeType.REMAPPED, "net.minecraft.world.entity.Entity", "void tick()", "c", "f")));
+        assertTrue(changes.contains(new MappingChange(MappingChangeType.ADDED,
+                "net.minecraft.world.level.Level",
+                "void addEntity(net.minecraft.world.entity.Entity)",
+                null,
+                "b")));
+        assertTrue(changes.contains(new MappingChange(MappingChangeType.REMOVED, "net.minecraft.server.Removed", null, "e", null)));
+        assertTrue(changes.contains(new MappingChange(MappingChangeType.ADDED, "net.minecraft.server.Added", null, null, "g")));
+        assertThrows(IllegalArgumentException.class, () -> history.diff("1.0", "2.0"));
+    }
+
+    private static Path write(final Path directory, final String name, final String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content);
+    }
+
+    private static void assertMaterialized(final MappingHistory history, final String versionId, final String expected, final Path directory)
+            throws IOException {
+        final Path output = directory.resolve(versionId + ".map");
+        history.materialize(versionId, output);
+        assertEquals(expected, Files.readString(output));
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.jar;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedJarTest {
+
+    @Test
+    void testStoredAndDeflatedReads(final @TempDir Path directory) throws IOException {
+        final Map<String, byte[]> entries = createEntries(8);
+        final Path path = writeJar(directory.resolve("test.jar"), entries);
+        try (final MappedJar jar = MappedJar.open(path)) {
+            assertEquals(entries.size(), jar.size());
+            for (final Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                final int index = jar.indexOf(entry.getKey());
+                final boolean stored = isStored(entry.getKey());
+                assertArrayEquals(entry.getValue(), jar.read(index));
+                assertEquals(stored, jar.isStored(index));
+                assertEquals(stored, jar.getStoredBuffer(index) != null);
+                assertEquals(entry.getValue().length, jar.getSize(index));
+                assertEquals(crc(entry.getValue()), jar.getCrc(index));
+
+                final Path copy = directory.resolve("copy");
+                jar.copyTo(index, copy);
+                assertArrayEquals(entry.getValue(), Files.readAllBytes(copy));
+            }
+            assertNull(jar.read("missing"));
+            assertThrows(IllegalArgumentException.class, () -> jar.copyTo(0, path));
+        }
+    }
+
+    @Test
+    void testConcurrentReads(final @TempDir Path directory) throws Exception {
+        final Map<String, byte[]> entries = createEntries(64);
+        final List<String> names = new ArrayList<>(entries.keySet());
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (final MappedJar jar = MappedJar.open(writeJar(directory.resolve("test.jar"), entries))) {
+            final List<Future<Boolean>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                final int offset = thread;
+                futures.add(executor.submit(() -> {
+                    for (int round = 0; round < 20; round++) {
+                        for (int i = 0; i < names.size(); i++) {
+                            final String name = names.get((i + offset) % names.size());
+                            if (!Arrays.equals(entries.get(name), jar.read(name))) {
+                                return false;
+                            }
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (final Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testMalformedCentralDirectory(final @TempDir Path directory) throws IOException {
+        final byte[] jar = Files.readAllBytes(writeJar(directory.resolve("test.jar"), createEntries(2)));
+        final ByteBuffer buffer = ByteBuffer.wrap(jar).order(ByteOrder.LITTLE_ENDIAN);
+        final int end = jar.length - 22;
+        final int directoryOffset = buffer.getInt(end + 16);
+
+        final byte[] signature = jar.clone();
+        signature[directoryOffset] = 0;
+        assertThrows(ZipException.class, () -> MappedJar.open(Files.write(directory.resolve("signature.jar"), signature)));
+
+        final byte[] offset = jar.clone();
+        ByteBuffer.wrap(offset).order(ByteOrder.LITTLE_ENDIAN).putInt(end + 16, end);
+        assertThrows(ZipException.class, () -> MappedJar.open(Files.write(directory.resolve("offset.jar"), offset)));
+
+        final byte[] header = jar.clone();
+        ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN).putInt(directoryOffset + 42, directoryOffset);
+        assertThrows(ZipException.class, () -> MappedJar.open(Files.write(directory.resolve("header.jar"), header)));
+
+        final byte[] truncated = Arrays.copyOf(jar, directoryOffset);
+        assertThrows(ZipException.class, () -> MappedJar.open(Files.write(directory.resolve("truncated.jar"), truncated)));
+    }
+
+    @Test
+    void testClosedJarIsNotRead(final @TempDir Path directory) throws IOException {
+        final MappedJar jar = MappedJar.open(writeJar(directory.resolve("test.jar"), createEntries(2)));
+        jar.close();
+        assertThrows(IOException.class, () -> jar.read(0));
+    }
+
+    private static Map<String, byte[]> createEntries(final int count) {
+        final Random random = new Random(count);
+        final Map<String, byte[]> entries = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            // Repeated bytes, so the deflated entries are smaller than the stored ones
+            final byte[] data = new byte[random.nextInt(1 << 16)];
+            for (int j = 0; j < data.length; j++) {
+                data[j] = (byte) (j % 31 == 0 ? random.nextInt() : j % 7);
+            }
+            entries.put((i % 2 == 0 ? "stored/" : "deflated/") + "Entry" + i + ".class", data);
+        }
+        return entries;
+    }
+
+    private static boolean isStored(final String name) {
+        return name.startsWith("stored/");
+    }
+
+    private static Path writeJar(final Path path, final Map<String, byte[]> entries) throws IOException {
+        try (final OutputStream output = Files.newOutputStream(path);
+             final ZipOutputStream zip = new ZipOutputStream(output)) {
+            for (final Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                final ZipEntry zipEntry = new ZipEntry(entry.getKey());
+                if (isStored(entry.getKey())) {
+                    zipEntry.setMethod(ZipEntry.STORED);
+                    zipEntry.setSize(entry.getValue().length);
+                    zipEntry.setCrc(Integer.toUnsignedLong(crc(entry.getValue())));
+                }
+                zip.putNextEntry(zipEntry);
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
+        }
+        return path;
+    }
+
+    private static int crc(final byte[] data) {
+        final CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.jar;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelJarWriterTest {
+
+    @Test
+    void testEntriesAreReadBack(final @TempDir Path directory) throws IOException {
+        final Map<String, byte[]> entries = createEntries();
+        final Path path = write(directory.resolve("test.jar"), entries, 4, false, Long.MAX_VALUE);
+        try (final ZipFile zip = new ZipFile(path.toFile());
+             final MappedJar jar = MappedJar.open(path)) {
+            assertEquals(entries.size(), zip.size());
+            for (final Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                final ZipEntry zipEntry = zip.getEntry(entry.getKey());
+                assertArrayEquals(entry.getValue(), zip.getInputStream(zipEntry).readAllBytes());
+                assertArrayEquals(entry.getValue(), jar.read(entry.getKey()));
+            }
+            // Compressible entries are deflated, random ones are stored
+            assertEquals(ZipEntry.DEFLATED, zip.getEntry("a/Compressible.class").getMethod());
+            assertEquals(ZipEntry.STORED, zip.getEntry("a/Random.class").getMethod());
+        }
+    }
+
+    @Test
+    void testReproducibleJarsDoNotDependOnThreads(final @TempDir Path directory) throws IOException {
+        final Map<String, byte[]> entries = createEntries();
+        final byte[] expected = Files.readAllBytes(write(directory.resolve("1.jar"), entries, 1, true, Long.MAX_VALUE));
+        assertArrayEquals(expected, Files.readAllBytes(write(directory.resolve("8.jar"), entries, 8, true, Long.MAX_VALUE)));
+        // Entries are written as soon as they are compressed
+        assertArrayEquals(expected, Files.readAllBytes(write(directory.resolve("pending.jar"), entries, 8, true, 1)));
+
+        try (final JarFile jar = new JarFile(directory.resolve("1.jar").toFile())) {
+            assertEquals("b", jar.getManifest().getMainAttributes().getValue("A"));
+            assertTrue(jar.getManifest().getEntries().isEmpty());
+        }
+    }
+
+    @Test
+    void testInvalidEntries(final @TempDir Path directory) throws IOException {
+        try (final ParallelJarWriter writer = new ParallelJarWriter(directory.resolve("duplicate.jar"), JarCompression.FAST, 2)) {
+            writer.write("a.txt", new byte[0]);
+            assertThrows(ZipException.class, () -> writer.write("a.txt", new byte[0]));
+        }
+        try (final ParallelJarWriter writer = new ParallelJarWriter(directory.resolve("limit.jar"), JarCompression.STORE, 2)) {
+            // The largest count of a jar without ZIP64
+            for (int i = 0; i < 0xFFFE; i++) {
+                writer.write(Integer.toString(i), new byte[0]);
+            }
+            assertThrows(ZipException.class, () -> writer.write("last", new byte[0]));
+        }
+        try (final MappedJar jar = MappedJar.open(directory.resolve("limit.jar"))) {
+            assertEquals(0xFFFE, jar.size());
+        }
+    }
+
+    private static Map<String, byte[]> createEntries() {
+        final Random random = new Random(42);
+        final Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("META-INF/MANIFEST.MF", ("Manifest-Version: 1.0\r\nZ: y\r\nA: b\r\n\r\nName: a/Random.class\r\nSHA-256-Digest: x\r\n\r\n")
+                .getBytes(StandardCharsets.UTF_8));
+        entries.put("a/", new byte[0]);
+        entries.put("a/Compressible.class", "compressible ".repeat(4096).getBytes(StandardCharsets.UTF_8));
+        final byte[] randomBytes = new byte[1 << 14];
+        random.nextBytes(randomBytes);
+        entries.put("a/Random.class", randomBytes);
+        for (int i = 0; i < 200; i++) {
+            final byte[] data = new byte[random.nextInt(4096)];
+            for (int j = 0; j < data.length; j++) {
+                data[j] = (byte) (j % 13 == 0 ? random.nextInt() : 'a' + j % 5);
+            }
+            entries.put("b/Entry" + i + ".class", data);
+        }
+        return entries;
+    }
+
+    private static Path write(final Path path, final Map<String, byte[]> entries, final int threads, final boolean reproducible,
+                              final long maxPendingBytes) throws IOException {
+        try (final ParallelJarWriter writer = new ParallelJarWriter(path, JarCompression.DEFAULT, threads, reproducible, maxPendingBytes)) {
+            for (final Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                writer.write(entry.getKey(), entry.getValue());
+            }
+        }
+        return path;
+    }
+
+}
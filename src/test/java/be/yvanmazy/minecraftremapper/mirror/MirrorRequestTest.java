@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.mirror;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MirrorRequestTest {
+
+    @Test
+    void testRequestsOfOneConnection() throws IOException {
+        final InputStream in = stream("GET /mc/game/version_manifest_v2.json HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "If-None-Match: \"a\", W/\"b\"\r\n" +
+                "Accept: text/html\r\n" +
+                "ACCEPT: application/json\r\n" +
+                "\r\n" +
+                // Empty lines between requests are ignored
+                "\r\n" +
+                "HEAD /v1/objects/abc/server.jar HTTP/1.0\n" +
+                "Range: bytes=0-99\n" +
+                "\n");
+
+        final MirrorRequest first = MirrorRequest.read(in);
+        assertNotNull(first);
+        assertEquals("GET", first.method());
+        assertEquals("/mc/game/version_manifest_v2.json", first.target());
+        assertEquals("HTTP/1.1", first.version());
+        assertEquals(Map.of("host", "localhost", "if-none-match", "\"a\", W/\"b\"", "accept", "text/html, application/json"), first.headers());
+        assertTrue(first.isKeepAlive());
+        assertTrue(first.matches("if-none-match", "\"a\""));
+        assertTrue(first.matches("if-none-match", "\"b\""));
+        assertFalse(first.matches("if-none-match", "\"c\""));
+        assertFalse(first.matches("if-match", "\"a\""));
+
+        final MirrorRequest second = MirrorRequest.read(in);
+        assertNotNull(second);
+        assertEquals("HEAD", second.method());
+        assertEquals("bytes=0-99", second.header("range"));
+        assertFalse(second.isKeepAlive());
+
+        assertNull(MirrorRequest.read(in));
+    }
+
+    @Test
+    void testKeepAlive() throws IOException {
+        assertFalse(read("GET / HTTP/1.1\r\nConnection: close\r\n\r\n").isKeepAlive());
+        assertTrue(read("GET / HTTP/1.0\r\nConnection: Keep-Alive\r\n\r\n").isKeepAlive());
+        // The body of the request is not read
+        assertFalse(read("POST / HTTP/1.1\r\nContent-Length: 4\r\n\r\n").isKeepAlive());
+        assertTrue(read("GET / HTTP/1.1\r\nIf-Match: *\r\n\r\n").matches("if-match", "\"any\""));
+    }
+
+    @Test
+    void testMalformedRequests() {
+        assertThrows(ProtocolException.class, () -> read("GET /\r\n\r\n"));
+        assertThrows(ProtocolException.class, () -> read("GET / SPDY/3\r\n\r\n"));
+        assertThrows(ProtocolException.class, () -> read("GET / HTTP/1.1\r\nNo colon\r\n\r\n"));
+        assertThrows(ProtocolException.class, () -> read("GET /" + "a".repeat(10_000) + " HTTP/1.1\r\n\r\n"));
+        assertThrows(EOFException.class, () -> read("GET / HTTP/1.1\r\nHost: localhost\r\n"));
+        assertThrows(EOFException.class, () -> read("GET / HTTP/1.1"));
+    }
+
+    private static MirrorRequest read(final String request) throws IOException {
+        final MirrorRequest read = MirrorRequest.read(stream(request));
+        assertNotNull(read);
+        return read;
+    }
+
+    private static InputStream stream(final String value) {
+        return new ByteArrayInputStream(value.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.process;
+
+import be.yvanmazy.minecraftremapper.jar.InMemoryJar;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MergedProcessorTest {
+
+    @Test
+    void testNestedClassesStayWithTheirOuterClass() {
+        final InMemoryJar client = new InMemoryJar();
+        final InMemoryJar server = new InMemoryJar();
+        // Identical with its nested classes
+        put(client, server, "a/Shared.class", "shared");
+        put(client, server, "a/Shared$Inner.class", "inner");
+        // Identical outer class with a different anonymous class
+        put(client, server, "a/Entity.class", "entity");
+        client.put("a/Entity$1.class", bytes("client"));
+        server.put("a/Entity$1.class", bytes("server"));
+        // Identical outer class with a nested class on one side only
+        put(client, server, "a/Level.class", "level");
+        client.put("a/Level$Client.class", bytes("client"));
+        server.put("b/Server.class", bytes("server"));
+        put(client, server, "assets/lang.json", "{}");
+        client.put("assets/client.json", bytes("{}"));
+
+        final MergedProcessor.SplitJars split = MergedProcessor.split(client, server);
+        assertEquals(Set.of("a/Shared.class", "a/Shared$Inner.class", "assets/lang.json"), split.shared().getEntries().keySet());
+        assertEquals(Set.of("a/Entity.class", "a/Entity$1.class", "a/Level.class", "a/Level$Client.class", "assets/client.json"),
+                split.client().getEntries().keySet());
+        assertEquals(Set.of("a/Entity.class", "a/Entity$1.class", "a/Level.class", "b/Server.class"), split.server().getEntries().keySet());
+        assertArrayEquals(bytes("server"), split.server().get("a/Entity$1.class"));
+    }
+
+    private static void put(final InMemoryJar client, final InMemoryJar server, final String name, final String content) {
+        client.put(name, bytes(content));
+        server.put(name, bytes(content));
+    }
+
+    private static byte[] bytes(final String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
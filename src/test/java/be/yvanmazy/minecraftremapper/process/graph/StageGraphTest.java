@@ -0,0 +1,253 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.process.graph;
+
+import be.yvanmazy.minecraftremapper.process.exception.ProcessingException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StageGraphTest {
+
+    private static final StageKey<String> A = StageKey.of("a", String.class);
+    private static final StageKey<String> B = StageKey.of("b", String.class);
+    private static final StageKey<String> C = StageKey.of("c", String.class);
+    private static final StageKey<String> D = StageKey.of("d", String.class);
+
+    @Test
+    void testStagesRunAfterTheirInputs() throws ProcessingException {
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+        // Added in reverse order, the graph sorts them by their keys
+        final StageGraph graph = new StageGraph()
+                .add(PipelineStage.of("d", Set.of(B, C), Set.of(D), context -> {
+                    order.add("d");
+                    context.put(D, context.get(B) + context.get(C));
+                }))
+                .add(PipelineStage.of("c", Set.of(A), Set.of(C), context -> {
+                    order.add("c");
+                    context.put(C, context.get(A) + "c");
+                }))
+                .add(PipelineStage.of("b", Set.of(A), Set.of(B), context -> {
+                    order.add("b");
+                    context.put(B, context.get(A) + "b");
+                }))
+                .add(PipelineStage.of("a", Set.of(), Set.of(A), context -> {
+                    order.add("a");
+                    context.put(A, "a");
+                }));
+
+        assertEquals(Set.of("a", "b", "c", "d"), graph.run().keySet());
+        assertEquals(4, order.size());
+        assertEquals("a", order.get(0));
+        assertEquals("d", order.get(3));
+    }
+
+    @Test
+    void testIndependentStagesRunConcurrently() throws ProcessingException {
+        // Both stages only pass the barrier when they run at the same time
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        final StageGraph graph = new StageGraph()
+                .add(PipelineStage.of("a", Set.of(), Set.of(A), context -> {
+                    await(barrier);
+                    context.put(A, "a");
+                }))
+                .add(PipelineStage.of("b", Set.of(), Set.of(B), context -> {
+                    await(barrier);
+                    context.put(B, "b");
+                }))
+                .add(PipelineStage.of("c", Set.of(A, B), Set.of(C), context -> context.put(C, context.get(A) + context.get(B))));
+
+        assertEquals(Set.of("a", "b", "c"), graph.run().keySet());
+    }
+
+    @Test
+    void testUpToDateStageIsSkipped() throws ProcessingException {
+        final AtomicBoolean ran = new AtomicBoolean();
+        final List<String> published = Collections.synchronizedList(new ArrayList<>());
+        final StageGraph graph = new StageGraph()
+                .add(PipelineStage.of("a", Set.of(), Set.of(A), context -> true, context -> {
+                    ran.set(true);
+                    context.put(A, "ran");
+                }, context -> context.put(A, "skipped")))
+                .add(new SkippedStage())
+                .add(PipelineStage.of("c", Set.of(A, B), Set.of(C), context -> {
+                    published.add(context.get(A));
+                    published.add(context.get(B));
+                    context.put(C, "c");
+                }));
+
+        graph.run();
+        assertFalse(ran.get());
+        assertEquals("skipped", published.get(0));
+        // The default skip publishes null
+        assertNull(published.get(1));
+    }
+
+    @Test
+    void testFailureCancelsDependentStages() {
+        final ProcessingException failure = new ProcessingException("failed");
+        final AtomicBoolean ran = new AtomicBoolean();
+        final StageGraph graph = new StageGraph()
+                .add(PipelineStage.of("a", Set.of(), Set.of(A), context -> {
+                    throw failure;
+                }))
+                .add(PipelineStage.of("b", Set.of(A), Set.of(B), context -> {
+                    ran.set(true);
+                    context.put(B, "b");
+                }));
+
+        assertSame(failure, assertThrows(ProcessingException.class, graph::run));
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void testUnexpectedFailuresAreWrapped() {
+        final RuntimeException exception = new IllegalArgumentException("unexpected");
+        final StageGraph graph = new StageGraph().add(PipelineStage.of("a", Set.of(), Set.of(A), context -> {
+            throw exception;
+        }));
+        assertSame(exception, assertThrows(ProcessingException.class, graph::run).getCause());
+
+        // Errors are reported too, like running out of memory
+        final Error error = new OutOfMemoryError("heap");
+        final StageGraph errorGraph = new StageGraph().add(PipelineStage.of("a", Set.of(), Set.of(A), context -> {
+            throw error;
+        }));
+        assertSame(error, assertThrows(ProcessingException.class, errorGraph::run).getCause());
+    }
+
+    @Test
+    void testStageMustPublishItsOutputs() {
+        final StageGraph graph = new StageGraph().add(PipelineStage.of("a", Set.of(), Set.of(A, B), context -> context.put(A, "a")));
+
+        assertInstanceOf(IllegalStateException.class, assertThrows(ProcessingException.class, graph::run).getCause());
+    }
+
+    @Test
+    void testGraphUpToKeys() throws ProcessingException {
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+        final StageGraph graph = new StageGraph()
+                .add(PipelineStage.of("a", Set.of(), Set.of(A), context -> context.put(A, "a")))
+                .add(PipelineStage.of("b", Set.of(A), Set.of(B), context -> context.put(B, "b")))
+                .add(PipelineStage.of("c", Set.of(B), Set.of(C), context -> context.put(C, "c")))
+                .add(PipelineStage.of("archive-a", Set.of(A), Set.of(), context -> order.add(context.get(A))))
+                .add(PipelineStage.of("archive-c", Set.of(C), Set.of(), context -> order.add(context.get(C))));
+
+        // Stages publishing nothing are kept when their inputs are published
+        final StageGraph partial = graph.upTo(Set.of(B));
+        assertEquals(List.of("a", "b", "archive-a"), partial.getStages().stream().map(PipelineStage::getName).toList());
+        partial.run();
+        assertEquals(List.of("a"), order);
+        assertThrows(IllegalArgumentException.class, () -> graph.upTo(Set.of(D)));
+    }
+
+    @Test
+    void testGraphWithoutStages() throws ProcessingException {
+        final StageGraph graph = new StageGraph()
+                .add(PipelineStage.of("a", Set.of(), Set.of(A), context -> context.put(A, "a")))
+                .add(PipelineStage.of("b", Set.of(A), Set.of(B), context -> context.put(B, "b")))
+                .add(PipelineStage.of("c", Set.of(B), Set.of(C), context -> context.put(C, "c")))
+                .add(PipelineStage.of("d", Set.of(A), Set.of(D), context -> context.put(D, "d")));
+
+        final StageGraph partial = graph.without(Set.of(B));
+        assertEquals(List.of("a", "d"), partial.getStages().stream().map(PipelineStage::getName).toList());
+        assertEquals(Set.of("a", "d"), partial.run().keySet());
+        // The graph itself is unchanged
+        assertEquals(4, graph.getStages().size());
+    }
+
+    @Test
+    void testInvalidGraphs() {
+        final StageGraph missing = new StageGraph().add(PipelineStage.of("b", Set.of(A), Set.of(B), context -> context.put(B, "b")));
+        assertThrows(IllegalStateException.class, missing::run);
+
+        final StageGraph cyclic = new StageGraph()
+                .add(PipelineStage.of("a", Set.of(B), Set.of(A), context -> context.put(A, "a")))
+                .add(PipelineStage.of("b", Set.of(A), Set.of(B), context -> context.put(B, "b")));
+        assertThrows(IllegalStateException.class, cyclic::run);
+
+        final StageGraph graph = new StageGraph().add(PipelineStage.of("a", Set.of(), Set.of(A), context -> context.put(A, "a")));
+        assertThrows(IllegalArgumentException.class, () -> graph.add(PipelineStage.of("other", Set.of(), Set.of(A), context -> context.put(A, "a"))));
+        assertThrows(IllegalArgumentException.class, () -> graph.add(PipelineStage.of("a", Set.of(), Set.of(B), context -> context.put(B, "b"))));
+    }
+
+    @Test
+    void testSharedResourcesAreClosed() throws ProcessingException {
+        final AtomicBoolean closed = new AtomicBoolean();
+        final StageGraph graph = new StageGraph().add(PipelineStage.of("a", Set.of(), Set.of(A), context -> {
+            context.closeOnFinish(() -> closed.set(true));
+            context.put(A, "a");
+        }));
+
+        graph.run();
+        assertTrue(closed.get());
+    }
+
+    private static void await(final CyclicBarrier barrier) throws ProcessingException {
+        try {
+            barrier.await(10, TimeUnit.SECONDS);
+        } catch (final Exception e) {
+            throw new ProcessingException("Stages did not run concurrently", e);
+        }
+    }
+
+    private static final class SkippedStage implements PipelineStage {
+
+        @Override
+        public String getName() {
+            return "b";
+        }
+
+        @Override
+        public Set<StageKey<?>> getInputs() {
+            return Set.of();
+        }
+
+        @Override
+        public Set<StageKey<?>> getOutputs() {
+            return Set.of(B);
+        }
+
+        @Override
+        public boolean isUpToDate(final StageContext context) {
+            return true;
+        }
+
+        @Override
+        public void run(final StageContext context) {
+            throw new IllegalStateException("Stage is up to date");
+        }
+
+    }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.remap;
+
+import be.yvanmazy.minecraftremapper.benchmark.SyntheticGameGenerator;
+import be.yvanmazy.minecraftremapper.hierarchy.HierarchyIndex;
+import be.yvanmazy.minecraftremapper.hierarchy.HierarchyIndexWriter;
+import be.yvanmazy.minecraftremapper.jar.JarCompression;
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import be.yvanmazy.minecraftremapper.jar.ParallelJarWriter;
+import be.yvanmazy.minecraftremapper.setting.ClassFilter;
+import net.md_5.specialsource.JarMapping;
+import net.md_5.specialsource.JarRemapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RemapperEngineTest {
+
+    private static final int CLASS_COUNT = 400;
+    private static final int RESOURCE_COUNT = 20;
+    private static final int THREADS = 8;
+
+    @Test
+    void testEveryRemapIsIdentical(final @TempDir Path directory) throws IOException {
+        final Game game = Game.generate(directory);
+        try (final MappedJar jar = MappedJar.open(game.jarPath())) {
+            final RemapperEngine engine = RemapperEngine.of(game.loadMapping(), game.indexHierarchy(jar));
+            final Map<String, byte[]> expected = remapClasses(engine, jar);
+            assertEquals(CLASS_COUNT + RESOURCE_COUNT + 1, expected.size());
+            assertTrue(expected.containsKey(SyntheticGameGenerator.namedName(CLASS_COUNT - 1) + ".class"));
+
+            assertEntriesEqual(expected, engine.remapJar(jar, ClassFilter.all()).getEntries());
+
+            final Map<String, byte[]> entries = new HashMap<>();
+            for (int i = 0; i < jar.size(); i++) {
+                final Map.Entry<String, byte[]> entry = engine.remapEntry(jar.getName(i), jar.read(i));
+                entries.put(entry.getKey(), entry.getValue());
+            }
+            assertEntriesEqual(expected, entries);
+
+            final Map<String, byte[]> stream = engine.remapEntries(IntStream.range(0, jar.size())
+                            .parallel()
+                            .mapToObj(i -> Map.entry(jar.getName(i), read(jar, i))))
+                    .collect(Collectors.toConcurrentMap(Map.Entry::getKey, Map.Entry::getValue));
+            assertEntriesEqual(expected, stream);
+
+            final Path chunked = directory.resolve("chunked.jar");
+            try (final ParallelJarWriter writer = new ParallelJarWriter(chunked, JarCompression.FAST, 2)) {
+                engine.remapJar(jar, ClassFilter.all(), writer, 4_096);
+            }
+            try (final MappedJar written = MappedJar.open(chunked)) {
+                final Map<String, byte[]> writtenEntries = new HashMap<>();
+                for (int i = 0; i < written.size(); i++) {
+                    writtenEntries.put(written.getName(i), written.read(i));
+                }
+                assertEntriesEqual(expected, writtenEntries);
+            }
+        }
+    }
+
+    @Test
+    void testSignatureFilesAreDropped(final @TempDir Path directory) throws IOException {
+        final Game game = Game.generate(directory);
+        try (final MappedJar jar = MappedJar.open(game.jarPath())) {
+            final RemapperEngine engine = RemapperEngine.of(game.loadMapping(), game.indexHierarchy(jar));
+            assertNull(engine.remapEntry("META-INF/MOJANGCS.SF", new byte[0]));
+            assertNull(engine.remapEntry("META-INF/MOJANGCS.RSA", new byte[0]));
+            final byte[] resource = {1, 2, 3};
+            assertSame(resource, engine.remapEntry("assets/stub/data.json", resource).getValue());
+            assertEquals(List.of("assets/stub/data.json"),
+                    engine.remapEntries(List.of(Map.entry("META-INF/MOJANGCS.SF", resource), Map.entry("assets/stub/data.json", resource)).stream())
+                            .map(Map.Entry::getKey)
+                            .toList());
+        }
+    }
+
+    @Test
+    void testHierarchyRemapperMatchesSpecialSource(final @TempDir Path directory) throws IOException {
+        final Game game = Game.generate(directory);
+        try (final MappedJar jar = MappedJar.open(game.jarPath())) {
+            final HierarchyIndex hierarchy = game.indexHierarchy(jar);
+            final RemapperEngine engine = RemapperEngine.of(game.loadMapping(), hierarchy);
+            // The reference remapper climbs the hierarchy through the mapping, and caches what it finds there
+            final JarMapping referenceMapping = game.loadMapping();
+            referenceMapping.setFallbackInheritanceProvider(hierarchy);
+            final JarRemapper reference = new JarRemapper(referenceMapping);
+            for (int i = 0; i < jar.size(); i++) {
+                final String name = jar.getName(i);
+                if (name.endsWith(".class")) {
+                    assertArrayEquals(reference.remapClassFile(jar.read(i), hierarchy.asClassRepo()), engine.remapClass(jar.read(i)), name);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testConcurrentRemaps(final @TempDir Path directory) throws Exception {
+        final Game game = Game.generate(directory);
+        try (final MappedJar jar = MappedJar.open(game.jarPath())) {
+            final HierarchyIndex hierarchy = game.indexHierarchy(jar);
+            final Map<String, byte[]> expected = remapClasses(RemapperEngine.of(game.loadMapping(), hierarchy), jar);
+            // A fresh engine shared by every thread, each one remaps the whole jar in its own order
+            final RemapperEngine engine = RemapperEngine.of(game.loadMapping(), hierarchy);
+            final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            try {
+                final CyclicBarrier start = new CyclicBarrier(THREADS);
+                final List<Future<Map<String, byte[]>>> futures = new ArrayList<>();
+                for (int thread = 0; thread < THREADS; thread++) {
+                    final long seed = thread;
+                    futures.add(executor.submit(() -> {
+                        final List<Integer> order = new ArrayList<>(IntStream.range(0, jar.size()).boxed().toList());
+                        Collections.shuffle(order, new Random(seed));
+                        start.await();
+                        final Map<String, byte[]> remapped = new HashMap<>();
+                        for (final int index : order) {
+                            final Map.Entry<String, byte[]> entry = engine.remapEntry(jar.getName(index), jar.read(index));
+                            remapped.put(entry.getKey(), entry.getValue());
+                        }
+                        return remapped;
+                    }));
+                }
+                for (final Future<Map<String, byte[]>> future : futures) {
+                    assertEntriesEqual(expected, future.get(2, TimeUnit.MINUTES));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static Map<String, byte[]> remapClasses(final RemapperEngine engine, final MappedJar jar) throws IOException {
+        final Map<String, byte[]> remapped = new HashMap<>();
+        for (int i = 0; i < jar.size(); i++) {
+            final String name = jar.getName(i);
+            if (name.endsWith(".class")) {
+                remapped.put(engine.mapClassName(name.substring(0, name.length() - ".class".length())) + ".class", engine.remapClass(jar.read(i)));
+            } else {
+                remapped.put(name, jar.read(i));
+            }
+        }
+        return remapped;
+    }
+
+    private static byte[] read(final MappedJar jar, final int index) {
+        try {
+            return jar.read(index);
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void assertEntriesEqual(final Map<String, byte[]> expected, final Map<String, byte[]> actual) {
+        assertEquals(new TreeSet<>(expected.keySet()), new TreeSet<>(actual.keySet()));
+        for (final Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getValue(), actual.get(entry.getKey()), entry.getKey());
+        }
+    }
+
+    private record Game(Path jarPath, Path mappingPath) {
+
+        private static Game generate(final Path directory) throws IOException {
+            final Game game = new Game(directory.resolve("game.jar"), directory.resolve("mapping.txt"));
+            new SyntheticGameGenerator(CLASS_COUNT, RESOURCE_COUNT).generate(game.jarPath, game.mappingPath);
+            return game;
+        }
+
+        private JarMapping loadMapping() throws IOException {
+            final JarMapping jarMapping = new JarMapping();
+            try (final BufferedReader reader = Files.newBufferedReader(this.mappingPath)) {
+                jarMapping.loadMappings(reader, null, null, false);
+            }
+            return jarMapping;
+        }
+
+        private HierarchyIndex indexHierarchy(final MappedJar jar) throws IOException {
+            final Path path = this.jarPath.resolveSibling("hierarchy.idx");
+            HierarchyIndexWriter.fromJar(jar).write(path, "test");
+            return Objects.requireNonNull(HierarchyIndex.open(path, "test"));
+        }
+
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.remap;
+
+import be.yvanmazy.minecraftremapper.benchmark.SyntheticGameGenerator;
+import be.yvanmazy.minecraftremapper.hierarchy.HierarchyIndex;
+import be.yvanmazy.minecraftremapper.hierarchy.HierarchyIndexWriter;
+import be.yvanmazy.minecraftremapper.jar.JarCompression;
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import be.yvanmazy.minecraftremapper.jar.ParallelJarWriter;
+import be.yvanmazy.minecraftremapper.setting.ClassFilter;
+import net.md_5.specialsource.JarMapping;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingRemapTest {
+
+    // Remapped in memory with its loaded mapping, this jar runs out of the heap of the forked JVM
+    private static final int CLASS_COUNT = 20_000;
+    private static final int RESOURCE_COUNT = 5_000;
+    private static final String HEAP = "-Xmx48m";
+    private static final int REMAP_MEMORY = 4;
+
+    @Test
+    void testStreamingRemapMatchesInMemoryRemap(final @TempDir Path directory) throws Exception {
+        final Path jarPath = directory.resolve("game.jar");
+        final Path mappingPath = directory.resolve("mapping.txt");
+        new SyntheticGameGenerator(CLASS_COUNT, RESOURCE_COUNT).generate(jarPath, mappingPath);
+
+        final Path streamed = directory.resolve("streamed.jar");
+        final Path log = directory.resolve("fork.log");
+        final Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                HEAP,
+                "-XX:+ExitOnOutOfMemoryError",
+                "-cp",
+                System.getProperty("java.class.path"),
+                StreamingRemap.class.getName(),
+                jarPath.toString(),
+                mappingPath.toString(),
+                streamed.toString(),
+                Integer.toString(REMAP_MEMORY)).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        assertTrue(process.waitFor(5, TimeUnit.MINUTES), "Streaming remap did not finish");
+        assertEquals(0, process.exitValue(), () -> "Streaming remap failed:\n" + readLog(log));
+
+        final Path inMemory = directory.resolve("in-memory.jar");
+        remapInMemory(jarPath, mappingPath, inMemory);
+        assertArrayEquals(Files.readAllBytes(inMemory), Files.readAllBytes(streamed));
+    }
+
+    private static void remapInMemory(final Path jarPath, final Path mappingPath, final Path outPath) throws IOException {
+        final JarMapping jarMapping = new JarMapping();
+        try (final BufferedReader reader = Files.newBufferedReader(mappingPath)) {
+            jarMapping.loadMappings(reader, null, null, false);
+        }
+        try (final MappedJar jar = MappedJar.open(jarPath)) {
+            final RemapperEngine engine = RemapperEngine.of(jarMapping, indexHierarchy(jar, outPath.resolveSibling("in-memory.idx")));
+            engine.remapJar(jar, ClassFilter.all()).writeTo(outPath, JarCompression.FAST, true);
+        }
+    }
+
+    private static HierarchyIndex indexHierarchy(final MappedJar jar, final Path path) throws IOException {
+        HierarchyIndexWriter.fromJar(jar).write(path, "test");
+        return Objects.requireNonNull(HierarchyIndex.open(path, "test"));
+    }
+
+    private static String readLog(final Path log) {
+        try {
+            final List<String> lines = Files.readAllLines(log);
+            return String.join("\n", lines.subList(Math.max(0, lines.size() - 40), lines.size()));
+        } catch (final IOException e) {
+            return "";
+        }
+    }
+
+    /**
+     * Remaps the jar the way of {@code --remap-memory}, run in a JVM with a small heap.
+     */
+    static final class StreamingRemap {
+
+        public static void main(final String[] args) throws IOException {
+            final Path jarPath = Path.of(args[0]);
+            final Path mappingPath = Path.of(args[1]);
+            final Path outPath = Path.of(args[2]);
+            final long budget = Long.parseLong(args[3]) << 20;
+            final Path tablePath = outPath.resolveSibling("streamed-table.idx");
+            MappingTableWriter.write(mappingPath, tablePath, "test");
+            try (final MappedJar jar = MappedJar.open(jarPath)) {
+                final RemapperEngine engine = RemapperEngine.of(Objects.requireNonNull(MappingTable.open(tablePath, "test")),
+                        indexHierarchy(jar, outPath.resolveSibling("streamed.idx")));
+                try (final ParallelJarWriter writer = new ParallelJarWriter(outPath,
+                        JarCompression.FAST,
+                        Runtime.getRuntime().availableProcessors(),
+                        true,
+                        budget / 2)) {
+                    engine.remapJar(jar, ClassFilter.all(), writer, budget / 4);
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,265 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.reobf;
+
+import be.yvanmazy.minecraftremapper.hierarchy.HierarchyIndex;
+import be.yvanmazy.minecraftremapper.hierarchy.HierarchyIndexWriter;
+import be.yvanmazy.minecraftremapper.jar.JarCompression;
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import be.yvanmazy.minecraftremapper.jar.ParallelJarWriter;
+import net.md_5.specialsource.JarMapping;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReobfuscatorTest {
+
+    private static final String MAPPING = """
+            net.minecraft.world.entity.Entity -> a:
+                int health -> c
+                void tick() -> b
+            net.minecraft.world.entity.Mob -> d:
+                void aiStep() -> e
+            """;
+    private static final String HASH = "0123456789abcdef";
+
+    @Test
+    void testCacheRoundTrip(final @TempDir Path directory) throws IOException {
+        final HierarchyIndex hierarchy = indexGame(directory);
+        final ReobfMapping mapping = ReobfMapping.create(loadInverseMapping(), hierarchy);
+        final Path cachePath = directory.resolve("reobf.bin");
+        assertNull(ReobfMapping.load(cachePath, HASH, hierarchy));
+        mapping.save(cachePath, HASH);
+        assertFalse(Files.exists(directory.resolve("reobf.bin.tmp")));
+
+        final ReobfMapping loaded = ReobfMapping.load(cachePath, HASH, hierarchy);
+        assertNotNull(loaded);
+        assertEquals(mapping.getJarMapping().classes, loaded.getJarMapping().classes);
+        assertEquals(mapping.getJarMapping().fields, loaded.getJarMapping().fields);
+        assertEquals(mapping.getJarMapping().methods, loaded.getJarMapping().methods);
+        assertEquals("a", loaded.getJarMapping().classes.get("net/minecraft/world/entity/Entity"));
+        assertEquals(List.of("net/minecraft/world/entity/Entity"), loaded.getParents("net/minecraft/world/entity/Mob"));
+
+        // A cache of another mapping or a truncated cache is built again
+        assertNull(ReobfMapping.load(cachePath, "fedcba9876543210", hierarchy));
+        final byte[] cache = Files.readAllBytes(cachePath);
+        Files.write(cachePath, Arrays.copyOf(cache, cache.length - 3));
+        assertNull(ReobfMapping.load(cachePath, HASH, hierarchy));
+    }
+
+    @Test
+    void testCachedMappingReobfuscatesLikeTheCreatedOne(final @TempDir Path directory) throws IOException {
+        final HierarchyIndex hierarchy = indexGame(directory);
+        final ReobfMapping mapping = ReobfMapping.create(loadInverseMapping(), hierarchy);
+        final Path cachePath = directory.resolve("reobf.bin");
+        mapping.save(cachePath, HASH);
+        final ReobfMapping loaded = Objects.requireNonNull(ReobfMapping.load(cachePath, HASH, hierarchy));
+
+        final Path base = writeBaseJar(directory.resolve("base.jar"));
+        final Path created = directory.resolve("created.jar");
+        final Path cached = directory.resolve("cached.jar");
+        new Reobfuscator(mapping, JarCompression.FAST, 2).reobfuscate(Map.of(base, created), List.of());
+        new Reobfuscator(loaded, JarCompression.FAST, 2).reobfuscate(Map.of(base, cached), List.of());
+        assertEquals(readClasses(created).keySet(), readClasses(cached).keySet());
+        for (final Map.Entry<String, ClassNode> entry : readClasses(created).entrySet()) {
+            assertEquals(describe(entry.getValue()), describe(readClasses(cached).get(entry.getKey())));
+        }
+    }
+
+    @Test
+    void testHierarchyAcrossJars(final @TempDir Path directory) throws IOException {
+        final ReobfMapping mapping = ReobfMapping.create(loadInverseMapping(), indexGame(directory));
+        final Path base = writeBaseJar(directory.resolve("base.jar"));
+        final Path addon = writeAddonJar(directory.resolve("addon.jar"));
+        final Path baseOut = directory.resolve("base-reobf.jar");
+        final Path addonOut = directory.resolve("addon-reobf.jar");
+        new Reobfuscator(mapping, JarCompression.FAST, 2).reobfuscate(Map.of(base, baseOut, addon, addonOut), List.of());
+
+        final ClassNode baseMob = readClasses(baseOut).get("plugin/base/BaseMob");
+        assertEquals("d", baseMob.superName);
+        assertEquals(Set.of("<init>", "b", "e", "heal"), methodNames(baseMob));
+        final MethodNode heal = findMethod(baseMob, "heal");
+        assertTrue(describe(heal).contains("GETFIELD plugin/base/BaseMob.c"), describe(heal));
+        assertTrue(describe(heal).contains("INVOKEVIRTUAL plugin/base/BaseMob.b"), describe(heal));
+
+        // The addon only extends a class of the other jar, the game methods are still found through it
+        final ClassNode customMob = readClasses(addonOut).get("plugin/addon/CustomMob");
+        assertEquals("plugin/base/BaseMob", customMob.superName);
+        assertEquals(Set.of("<init>", "b"), methodNames(customMob));
+
+        // The other jar can also be a library, only read for the hierarchy
+        final Path addonOnly = directory.resolve("addon-only.jar");
+        new Reobfuscator(mapping, JarCompression.FAST, 1).reobfuscate(Map.of(addon, addonOnly), List.of(base));
+        assertEquals(Set.of("<init>", "b"), methodNames(readClasses(addonOnly).get("plugin/addon/CustomMob")));
+        // Without it, nothing links the addon to the game
+        final Path addonAlone = directory.resolve("addon-alone.jar");
+        new Reobfuscator(mapping, JarCompression.FAST, 1).reobfuscate(Map.of(addon, addonAlone), List.of());
+        assertEquals(Set.of("<init>", "tick"), methodNames(readClasses(addonAlone).get("plugin/addon/CustomMob")));
+        assertFalse(Files.exists(directory.resolve("base-reobf.jar.tmp")));
+    }
+
+    private static JarMapping loadInverseMapping() throws IOException {
+        final JarMapping jarMapping = new JarMapping();
+        jarMapping.loadMappings(new BufferedReader(new StringReader(MAPPING)), null, null, true);
+        return jarMapping;
+    }
+
+    // The game in Mojang names, like the remapped hierarchy of a version
+    private static HierarchyIndex indexGame(final Path directory) throws IOException {
+        final HierarchyIndexWriter writer = new HierarchyIndexWriter();
+        writer.add(classFile("net/minecraft/world/entity/Entity", "java/lang/Object", cw -> {
+            cw.visitField(Opcodes.ACC_PROTECTED, "health", "I", null, null).visitEnd();
+            emptyMethod(cw, "tick");
+        }));
+        writer.add(classFile("net/minecraft/world/entity/Mob", "net/minecraft/world/entity/Entity", cw -> emptyMethod(cw, "aiStep")));
+        final Path path = directory.resolve("game.idx");
+        writer.write(path, "test");
+        return Objects.requireNonNull(HierarchyIndex.open(path, "test"));
+    }
+
+    private static Path writeBaseJar(final Path path) throws IOException {
+        return writeJar(path, Map.of("plugin/base/BaseMob.class", classFile("plugin/base/BaseMob", "net/minecraft/world/entity/Mob", cw -> {
+            emptyMethod(cw, "tick");
+            emptyMethod(cw, "aiStep");
+            final MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "heal", "()I", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "plugin/base/BaseMob", "tick", "()V", false);
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, "plugin/base/BaseMob", "health", "I");
+            mv.visitInsn(Opcodes.IRETURN);
+            mv.visitMaxs(1, 1);
+            mv.visitEnd();
+        }), "plugin.yml", "name: base\n".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static Path writeAddonJar(final Path path) throws IOException {
+        final byte[] customMob = classFile("plugin/addon/CustomMob", "plugin/base/BaseMob", cw -> emptyMethod(cw, "tick"));
+        return writeJar(path, Map.of("plugin/addon/CustomMob.class", customMob));
+    }
+
+    private static Path writeJar(final Path path, final Map<String, byte[]> entries) throws IOException {
+        try (final ParallelJarWriter writer = new ParallelJarWriter(path, JarCompression.FAST, 1)) {
+            for (final Map.Entry<String, byte[]> entry : new TreeMap<>(entries).entrySet()) {
+                writer.write(entry.getKey(), entry.getValue());
+            }
+        }
+        return path;
+    }
+
+    private static byte[] classFile(final String name, final String superName, final ClassBody body) {
+        final ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, superName, null);
+        final MethodVisitor init = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V", false);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(1, 1);
+        init.visitEnd();
+        body.accept(cw);
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static void emptyMethod(final ClassWriter cw, final String name) {
+        final MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, name, "()V", null, null);
+        mv.visitCode();
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 1);
+        mv.visitEnd();
+    }
+
+    private static Map<String, ClassNode> readClasses(final Path path) throws IOException {
+        final Map<String, ClassNode> classes = new TreeMap<>();
+        try (final MappedJar jar = MappedJar.open(path)) {
+            for (int i = 0; i < jar.size(); i++) {
+                if (jar.getName(i).endsWith(".class")) {
+                    final ClassNode node = new ClassNode();
+                    new ClassReader(jar.read(i)).accept(node, 0);
+                    classes.put(node.name, node);
+                }
+            }
+        }
+        return classes;
+    }
+
+    private static Set<String> methodNames(final ClassNode node) {
+        final Set<String> names = new HashSet<>();
+        for (final MethodNode method : node.methods) {
+            names.add(method.name);
+        }
+        return names;
+    }
+
+    private static MethodNode findMethod(final ClassNode node, final String name) {
+        return node.methods.stream().filter(method -> method.name.equals(name)).findFirst().orElseThrow();
+    }
+
+    private static String describe(final ClassNode node) {
+        final StringBuilder builder = new StringBuilder(node.name).append(" extends ").append(node.superName);
+        for (final MethodNode method : node.methods) {
+            builder.append('\n').append(method.name).append(method.desc).append(": ").append(describe(method));
+        }
+        return builder.toString();
+    }
+
+    private static String describe(final MethodNode method) {
+        final StringJoiner joiner = new StringJoiner(", ");
+        method.instructions.forEach(instruction -> {
+            if (instruction instanceof final MethodInsnNode insn) {
+                joiner.add((insn.getOpcode() == Opcodes.INVOKEVIRTUAL ? "INVOKEVIRTUAL " : "INVOKESPECIAL ") + insn.owner + "." + insn.name);
+            } else if (instruction instanceof final FieldInsnNode insn) {
+                joiner.add("GETFIELD " + insn.owner + "." + insn.name);
+            }
+        });
+        return joiner.toString();
+    }
+
+    @FunctionalInterface
+    private interface ClassBody {
+
+        void accept(final ClassWriter cw);
+
+    }
+
+}
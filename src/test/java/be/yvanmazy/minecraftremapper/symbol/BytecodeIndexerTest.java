@@ -0,0 +1,203 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.symbol;
+
+import be.yvanmazy.minecraftremapper.jar.JarCompression;
+import be.yvanmazy.minecraftremapper.jar.MappedJar;
+import be.yvanmazy.minecraftremapper.jar.ParallelJarWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BytecodeIndexerTest {
+
+    private static final String ENTITY = """
+            package a;
+
+            public class Entity {
+
+                public static final String TYPE = "minecraft:entity";
+                protected int id;
+
+                public void tick() {
+                    this.id++;
+                }
+
+                public String describe() {
+                    return "id=" + this.id + ";";
+                }
+
+            }
+            """;
+    private static final String LEVEL = """
+            package a;
+
+            import java.util.ArrayList;
+            import java.util.List;
+
+            public class Level {
+
+                private final List<Entity> entities = new ArrayList<>();
+
+                public void tick() {
+                    for (final Entity entity : this.entities) {
+                        entity.tick();
+                    }
+                    System.out.println("ticked");
+                }
+
+            }
+            """;
+
+    @Test
+    void testCallSitesAndFields(final @TempDir Path directory) throws IOException {
+        final SymbolIndex index = index(directory, Map.of("a/Entity.java", ENTITY, "a/Level.java", LEVEL));
+        assertEquals(2, index.getDocumentCount());
+        // The owner of a reference is resolved from the bytecode, unlike in the sources
+        assertEquals(List.of(new SymbolOccurrence("tick", "a.Entity", SymbolKind.METHOD, true, "a/Entity.class", 9),
+                new SymbolOccurrence("tick", "a.Entity", SymbolKind.METHOD, false, "a/Level.class", 12)), index.query("a.Entity#tick"));
+        assertEquals(List.of(new SymbolOccurrence("tick", "a.Level", SymbolKind.METHOD, true, "a/Level.class", 11)), index.query("Level#tick"));
+        assertEquals(List.of(new SymbolOccurrence("id", "a.Entity", SymbolKind.FIELD, true, "a/Entity.class", 0),
+                new SymbolOccurrence("id", "a.Entity", SymbolKind.FIELD, false, "a/Entity.class", 9),
+                new SymbolOccurrence("id", "a.Entity", SymbolKind.FIELD, false, "a/Entity.class", 13)), index.query("a.Entity#id"));
+        assertEquals(List.of(new SymbolOccurrence("entities", "a.Level", SymbolKind.FIELD, true, "a/Level.class", 0),
+                new SymbolOccurrence("entities", "a.Level", SymbolKind.FIELD, false, "a/Level.class", 8),
+                new SymbolOccurrence("entities", "a.Level", SymbolKind.FIELD, false, "a/Level.class", 11)), index.query("Level#entities"));
+        // Constructors are named after their class
+        assertTrue(index.query("java.util.ArrayList#ArrayList").contains(
+                new SymbolOccurrence("ArrayList", "java.util.ArrayList", SymbolKind.METHOD, false, "a/Level.class", 8)));
+        assertTrue(index.query("a.Entity").contains(new SymbolOccurrence("Entity", "a.Entity", SymbolKind.CLASS, true, "a/Entity.class", 0)));
+        assertTrue(index.query("a.Entity").contains(new SymbolOccurrence("Entity", "a.Entity", SymbolKind.CLASS, false, "a/Level.class", 11)));
+    }
+
+    @Test
+    void testStrings(final @TempDir Path directory) throws IOException {
+        final SymbolIndex index = index(directory, Map.of("a/Entity.java", ENTITY, "a/Level.java", LEVEL));
+        assertEquals(List.of(new SymbolOccurrence("ticked", null, SymbolKind.STRING, false, "a/Level.class", 14)), index.find("ticked"));
+        // Constant fields keep their value, references to them are inlined by javac
+        assertEquals(List.of(new SymbolOccurrence("minecraft:entity", null, SymbolKind.STRING, false, "a/Entity.class", 0)),
+                index.find("minecraft:entity"));
+        // String concatenations are invokedynamic recipes, their constant parts are indexed
+        assertEquals(List.of(new SymbolOccurrence("id=", null, SymbolKind.STRING, false, "a/Entity.class", 13)), index.find("id="));
+        assertEquals(List.of(new SymbolOccurrence(";", null, SymbolKind.STRING, false, "a/Entity.class", 13)), index.find(";"));
+        assertTrue(index.find("\u0001").isEmpty());
+    }
+
+    @Test
+    void testUnchangedClassesAreReused(final @TempDir Path directory) throws IOException {
+        final Path classes = compile(directory, Map.of("a/Entity.java", ENTITY, "a/Level.java", LEVEL));
+        final Path jarPath = directory.resolve("game.jar");
+        final Path indexPath = directory.resolve("references.idx");
+        writeJar(jarPath, classes, Comparator.naturalOrder());
+        final SymbolIndex first = update(jarPath, indexPath, 2, 2, 0);
+
+        // The stamp is the CRC of the entry, a jar written again in another order keeps every class
+        writeJar(jarPath, classes, Comparator.reverseOrder());
+        final SymbolIndex reordered = update(jarPath, indexPath, 2, 0, 0);
+        assertEquals(first.query("a.Entity#tick"), reordered.query("a.Entity#tick"));
+
+        final Path changed = compile(directory.resolve("changed"), Map.of("a/Entity.java", ENTITY,
+                "a/Level.java", LEVEL.replace("System.out.println(\"ticked\");", "System.out.println(\"ticked twice\");")));
+        Files.delete(changed.resolve("a/Entity.class"));
+        Files.copy(classes.resolve("a/Entity.class"), changed.resolve("a/Entity.class"));
+        Files.copy(classes.resolve("a/Entity.class"), changed.resolve("a/Mob.class"));
+        writeJar(jarPath, changed, Comparator.naturalOrder());
+        final SymbolIndex updated = update(jarPath, indexPath, 3, 2, 0);
+        assertTrue(updated.find("ticked").isEmpty());
+        assertEquals(1, updated.find("ticked twice").size());
+        assertEquals(2, updated.find("minecraft:entity").size());
+
+        Files.delete(changed.resolve("a/Mob.class"));
+        writeJar(jarPath, changed, Comparator.naturalOrder());
+        final SymbolIndex removed = update(jarPath, indexPath, 2, 0, 1);
+        assertEquals(List.of(new SymbolOccurrence("minecraft:entity", null, SymbolKind.STRING, false, "a/Entity.class", 0)),
+                removed.find("minecraft:entity"));
+        assertEquals(removed.find("minecraft:entity"), BytecodeIndexer.open(indexPath).find("minecraft:entity"));
+    }
+
+    private static SymbolIndex update(final Path jarPath, final Path indexPath, final int documents, final int scanned, final int removed)
+            throws IOException {
+        try (final MappedJar jar = MappedJar.open(jarPath)) {
+            final SymbolIndexUpdate update = BytecodeIndexer.update(jar, indexPath);
+            assertEquals(documents, update.documents());
+            assertEquals(scanned, update.scanned());
+            assertEquals(removed, update.removed());
+            return update.index();
+        }
+    }
+
+    private static SymbolIndex index(final Path directory, final Map<String, String> sources) throws IOException {
+        final Path jarPath = directory.resolve("game.jar");
+        writeJar(jarPath, compile(directory, sources), Comparator.naturalOrder());
+        final Path indexPath = directory.resolve(BytecodeIndexer.getIndexFileName("test"));
+        final SymbolIndex index = update(jarPath, indexPath, sources.size(), sources.size(), 0);
+        assertEquals(index.query("a.Entity"), Objects.requireNonNull(BytecodeIndexer.open(indexPath)).query("a.Entity"));
+        return index;
+    }
+
+    private static Path compile(final Path directory, final Map<String, String> sources) throws IOException {
+        final List<Path> files = new ArrayList<>();
+        for (final Map.Entry<String, String> source : sources.entrySet()) {
+            final Path path = directory.resolve("src").resolve(source.getKey());
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, source.getValue());
+            files.add(path);
+        }
+        final Path classes = directory.resolve("classes");
+        Files.createDirectories(classes);
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull(compiler, "Tests must run on a JDK");
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (final StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8)) {
+            final List<String> options = List.of("-d", classes.toString(), "-proc:none", "--release", "17");
+            assertTrue(compiler.getTask(null, fileManager, diagnostics, options, null, fileManager.getJavaFileObjectsFromPaths(files)).call(),
+                    () -> diagnostics.getDiagnostics().toString());
+        }
+        return classes;
+    }
+
+    private static void writeJar(final Path jarPath, final Path classes, final Comparator<Path> order) throws IOException {
+        try (final ParallelJarWriter writer = new ParallelJarWriter(jarPath, JarCompression.FAST, 1);
+             final Stream<Path> files = Files.walk(classes)) {
+            for (final Path file : files.filter(Files::isRegularFile).sorted(order).toList()) {
+                writer.write(classes.relativize(file).toString().replace('\\', '/'), Files.readAllBytes(file));
+            }
+        }
+    }
+
+}
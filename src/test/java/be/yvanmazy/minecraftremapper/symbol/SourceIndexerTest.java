@@ -0,0 +1,144 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.symbol;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SourceIndexerTest {
+
+    private static final String ENTITY = """
+            package a;
+
+            public class Entity {
+
+                private int id;
+
+                public void tick() {
+                    this.id++;
+                }
+
+            }
+            """;
+    private static final String LEVEL = """
+            package a;
+
+            import java.util.List;
+
+            public class Level {
+
+                private final List<Entity> entities = List.of();
+
+                public void tick() {
+                    for (final Entity entity : this.entities) {
+                        entity.tick();
+                    }
+                }
+
+            }
+            """;
+
+    @Test
+    void testIndexIsReadBack(final @TempDir Path directory) throws IOException {
+        final Path sources = directory.resolve("sources");
+        final Path path = directory.resolve("symbols.idx");
+        write(sources, "a/Entity.java", ENTITY);
+        write(sources, "a/Level.java", LEVEL);
+
+        final SymbolIndexUpdate update = SourceIndexer.update(sources, path);
+        assertEquals(2, update.documents());
+        assertEquals(2, update.scanned());
+        assertEquals(0, update.removed());
+
+        final SymbolIndex index = SourceIndexer.open(path);
+        assertNotNull(index);
+        assertEquals(2, index.getDocumentCount());
+        assertEquals(List.of(new SymbolOccurrence("Entity", "a.Entity", SymbolKind.CLASS, true, "a/Entity.java", 3),
+                new SymbolOccurrence("Entity", null, SymbolKind.CLASS, false, "a/Level.java", 7),
+                new SymbolOccurrence("Entity", null, SymbolKind.CLASS, false, "a/Level.java", 10)), index.query("Entity"));
+        // Member references are only known by name, they match every owner
+        assertEquals(List.of(new SymbolOccurrence("tick", "a.Entity", SymbolKind.METHOD, true, "a/Entity.java", 7),
+                new SymbolOccurrence("tick", null, SymbolKind.METHOD, false, "a/Level.java", 11)), index.query("a.Entity#tick"));
+        assertEquals(List.of(new SymbolOccurrence("entities", "a.Level", SymbolKind.FIELD, true, "a/Level.java", 7),
+                new SymbolOccurrence("entities", null, SymbolKind.FIELD, false, "a/Level.java", 10)), index.query("Level#entities"));
+        assertEquals(3, index.find("tick").size());
+        assertTrue(index.query("Missing").isEmpty());
+    }
+
+    @Test
+    void testOnlyChangedSourcesAreScanned(final @TempDir Path directory) throws IOException {
+        final Path sources = directory.resolve("sources");
+        final Path path = directory.resolve("symbols.idx");
+        write(sources, "a/Entity.java", ENTITY);
+        write(sources, "a/Level.java", LEVEL);
+        SourceIndexer.update(sources, path);
+
+        final SymbolIndexUpdate unchanged = SourceIndexer.update(sources, path);
+        assertEquals(0, unchanged.scanned());
+        assertEquals(0, unchanged.removed());
+        assertEquals(SourceIndexer.open(path).query("tick"), unchanged.index().query("tick"));
+
+        Files.delete(sources.resolve("a/Entity.java"));
+        write(sources, "a/Level.java", LEVEL.replace("entity.tick();", "entity.tick();\n            entity.remove();"));
+        write(sources, "a/Mob.java", ENTITY.replace("Entity", "Mob"));
+        final SymbolIndexUpdate update = SourceIndexer.update(sources, path);
+        assertEquals(2, update.documents());
+        assertEquals(2, update.scanned());
+        assertEquals(1, update.removed());
+
+        final SymbolIndex index = SourceIndexer.open(path);
+        assertNotNull(index);
+        assertTrue(index.query("a.Entity#tick").stream().noneMatch(SymbolOccurrence::declaration));
+        assertEquals(List.of(new SymbolOccurrence("Mob", "a.Mob", SymbolKind.CLASS, true, "a/Mob.java", 3)), index.query("a.Mob"));
+        assertEquals(List.of(new SymbolOccurrence("remove", null, SymbolKind.METHOD, false, "a/Level.java", 12)), index.query("remove"));
+    }
+
+    @Test
+    void testMissingIndex(final @TempDir Path directory) throws IOException {
+        assertNull(SourceIndexer.open(directory.resolve("symbols.idx")));
+        Files.writeString(directory.resolve("corrupted.idx"), "not an index");
+        assertNull(SourceIndexer.open(directory.resolve("corrupted.idx")));
+    }
+
+    private static void write(final Path sources, final String name, final String content) throws IOException {
+        final Path path = sources.resolve(name);
+        Files.createDirectories(path.getParent());
+        final boolean exists = Files.exists(path);
+        Files.writeString(path, content);
+        if (exists) {
+            // Changes are detected by size and modification time, which may not tick between two writes
+            Files.setLastModifiedTime(path, FileTime.fromMillis(Files.getLastModifiedTime(path).toMillis() + 2_000));
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileUtilTest {
+
+    @Test
+    void testEntriesStayInTheirDirectory(final @TempDir Path directory) throws IOException {
+        final Path root = directory.resolve("resources");
+        assertEquals(root.resolve("assets/lang/en_us.json"), FileUtil.resolveEntry(root, "assets/lang/en_us.json"));
+        assertEquals(root.resolve("data/pack.mcmeta"), FileUtil.resolveEntry(root, "assets/../data/pack.mcmeta"));
+        assertThrows(IOException.class, () -> FileUtil.resolveEntry(root, "../evil.txt"));
+        assertThrows(IOException.class, () -> FileUtil.resolveEntry(root, "assets/../../evil.txt"));
+        assertThrows(IOException.class, () -> FileUtil.resolveEntry(root, directory.resolve("evil.txt").toString()));
+        assertThrows(IOException.class, () -> FileUtil.resolveEntry(root, "."));
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Yvan Mazy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.yvanmazy.minecraftremapper.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashTableTest {
+
+    @Test
+    void testTablesRoundTrip() throws IOException {
+        final List<String> values = List.of("Aa", "BB", "a/b/C", "", "\u00E9t\u00E9");
+        final StringTableWriter strings = new StringTableWriter();
+        final HashTableWriter table = new HashTableWriter(values.size());
+        for (final String value : values) {
+            // "Aa" and "BB" have the same hash
+            table.put(value.hashCode(), strings.id(value));
+        }
+        assertEquals(0, strings.id("Aa"));
+        assertEquals(values.size(), strings.size());
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            strings.writeOffsets(out);
+            table.write(out);
+            strings.writeStrings(out);
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        final int tablePosition = StringTable.getOffsetsByteSize(values.size());
+        final StringTable readStrings = new StringTable(buffer, 0, tablePosition + HashTable.getByteSize(table.getSize()), values.size());
+        final HashTable readTable = new HashTable(buffer, tablePosition, table.getSize());
+
+        for (final String value : values) {
+            final int id = readTable.find(value.hashCode(), candidate -> readStrings.get(candidate).equals(value));
+            assertEquals(value, readStrings.get(id));
+        }
+        assertEquals(-1, readTable.find("missing".hashCode(), candidate -> true));
+        // Values with the same hash are found in the order they were put
+        assertEquals(0, readTable.find("BB".hashCode(), candidate -> true));
+    }
+
+}